@@ -10,3 +10,45 @@ dependencies {
 
     testImplementation("org.assertj:assertj-core:3.26.3")
 }
+
+// ./gradlew :analytics:aggregate -Pdir=transcripts [-Pthreads=8]
+tasks.register<JavaExec>("aggregate") {
+    group = "application"
+    description = "Aggregates every transcript under -Pdir into per-round deal and offer stats."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("deal.analytics.TranscriptAggregator")
+    val dir = (project.findProperty("dir") as String?) ?: "."
+    val threads = project.findProperty("threads") as String?
+    args(listOfNotNull(file(dir).path, threads?.let { "--threads=$it" }))
+}
+
+// ./gradlew :analytics:calibrate -Pdir=transcripts [-Pthreads=8] [-Pgrid=4] [-Piterations=200]
+tasks.register<JavaExec>("calibrate") {
+    group = "application"
+    description = "Fits LegacyOfferPolicy tunables to the offers of every transcript under -Pdir."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("deal.analytics.OfferCalibrator")
+    val dir = (project.findProperty("dir") as String?) ?: "."
+    val opts = listOf("threads", "grid", "iterations").mapNotNull { name ->
+        (project.findProperty(name) as String?)?.let { "--$name=$it" }
+    }
+    args(listOf(file(dir).path) + opts)
+}
+
+// ./gradlew :analytics:verifyReplays -Pdir=golden [-Pthreads=8] [-PmaxReported=100]
+tasks.register<JavaExec>("verifyReplays") {
+    group = "verification"
+    description = "Replays every .dna action log under -Pdir and checks its recorded outcomes."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("deal.analytics.ReplayVerifier")
+    val dir = (project.findProperty("dir") as String?) ?: "."
+    val threads = project.findProperty("threads") as String?
+    val maxReported = project.findProperty("maxReported") as String?
+    args(
+        listOfNotNull(
+            file(dir).path,
+            threads?.let { "--threads=$it" },
+            maxReported?.let { "--max-reported=$it" },
+        )
+    )
+}
@@ -0,0 +1,130 @@
+package deal.analytics;
+
+import static deal.analytics.ActionLogFormat.*;
+import static deal.analytics.TranscriptInput.EOF;
+
+import deal.core.CustomPerRoundPolicy;
+import deal.core.GameConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes the {@link ActionLogFormat} layout: the file header, then per game its config, seed and
+ * ladder (a game that stores none reuses the previous one) and its moves one at a time. Replaying
+ * the moves is left to the caller ({@link ActionLogReader}, {@link ReplayVerifier}).
+ */
+final class ActionLogDecoder {
+    private final TranscriptInput in;
+    private final boolean configs;
+
+    private long game = -1L;
+    private String config;
+    private long seed;
+    private GameConfig cfg;
+    private int[] sortedLadder;
+    private int arg;
+
+    /**
+     * Decoder for {@code stream}; checks the file header. Without {@code configs} the games'
+     * free-form config strings are skipped and {@link #config()} stays null.
+     */
+    ActionLogDecoder(InputStream stream, boolean configs) throws IOException {
+        this.in = new TranscriptInput(stream);
+        this.configs = configs;
+        if (readInt() != MAGIC) throw in.error("not a .dna action log");
+        int version = readInt();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw in.error("unsupported .dna version " + version);
+        }
+    }
+
+    /** Read the next game's header; false at the end of the stream. */
+    boolean nextGame() throws IOException {
+        if (in.peek() == EOF) return false;
+        int configLen = in.readVarInt();
+        byte[] utf8 = configs && configLen > 0 ? new byte[configLen - 1] : null;
+        for (int i = 0; i < configLen - 1; i++) {
+            int b = readByte();
+            if (utf8 != null) utf8[i] = (byte) b;
+        }
+        config = utf8 == null ? null : new String(utf8, StandardCharsets.UTF_8);
+        seed = in.readFixedLong();
+        int ladderSize = in.readVarInt();
+        if (ladderSize > 0) {
+            List<Integer> ladder = new ArrayList<>(ladderSize);
+            for (int i = 0; i < ladderSize; i++) {
+                ladder.add(DndFormat.unzigzag((int) in.readVarLong()));
+            }
+            List<Integer> amounts = List.copyOf(ladder);
+            cfg = new GameConfig(ladderSize, n -> amounts, new CustomPerRoundPolicy());
+            sortedLadder = amounts.stream().mapToInt(Integer::intValue).toArray();
+            Arrays.sort(sortedLadder);
+        } else if (cfg == null) {
+            throw in.error("first game reuses a ladder that was never written");
+        }
+        game++;
+        return true;
+    }
+
+    /** The next move's code ({@code END} closes the game); its argument is then {@link #arg}. */
+    int nextMove() throws IOException {
+        int code = in.read();
+        switch (code) {
+            case EOF -> throw in.error("game " + game + " ends without END");
+            case END, DEAL, NO_DEAL, KEEP, SWAP -> arg = 0;
+            case PICK, OPEN_K, OPEN, COUNTER -> arg = in.readVarInt();
+            case OFFERED, PRIZE, RESULT -> arg = DndFormat.unzigzag((int) in.readVarLong());
+            default -> throw in.error("unknown action code " + code);
+        }
+        return code;
+    }
+
+    /** The argument of the last move: a case id, K, dollars, or 0 for a move without one. */
+    int arg() {
+        return arg;
+    }
+
+    /** Games read so far, minus one: the current game's number from 0. */
+    long game() {
+        return game;
+    }
+
+    /** The current game's config, or null (none recorded, or not decoded). */
+    String config() {
+        return config;
+    }
+
+    long seed() {
+        return seed;
+    }
+
+    GameConfig gameConfig() {
+        return cfg;
+    }
+
+    /** The current ladder, ascending. */
+    int[] sortedLadder() {
+        return sortedLadder;
+    }
+
+    /** An error at the current position of the stream. */
+    IOException error(String what) {
+        return in.error(what);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b == EOF) throw in.unexpected("a byte", b);
+        return b;
+    }
+
+    private int readInt() throws IOException {
+        int v = 0;
+        for (int i = 0; i < Integer.BYTES; i++) v = v << 8 | readByte();
+        return v;
+    }
+}
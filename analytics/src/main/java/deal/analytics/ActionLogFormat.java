@@ -0,0 +1,46 @@
+package deal.analytics;
+
+/**
+ * Layout of the {@code .dna} action log, a transcript that keeps only what {@link
+ * deal.core.Engine} needs to replay a game (multi-byte fixed fields big-endian):
+ *
+ * <pre>
+ * file    := MAGIC:int VERSION:int game*
+ * game    := configLen+1:varint configUtf8 seed:long ladder action* END:byte
+ * ladder  := count:varint amount:zigzag-varint*     (count 0 = the previous game's ladder)
+ * action  := PICK caseId:varint | OPEN_K k:varint | OPEN caseId:varint | DEAL | NO_DEAL
+ *          | COUNTER dollars:varint | KEEP | SWAP
+ *          | OFFERED dollars:zigzag-varint | PRIZE dollars:zigzag-varint     (version 2)
+ *          | RESULT dollars:zigzag-varint                                   (version 2)
+ * </pre>
+ *
+ * The ladder is the config's amounts in provider order, which with the seed fixes the shuffle.
+ * Offers are not needed: the replayer asks the banker again before every DEAL, NO_DEAL and
+ * COUNTER. A game takes a few dozen bytes, against kilobytes for a step transcript that repeats
+ * the remaining cases and amounts on every step.
+ *
+ * <p>Version 2 adds optional outcome records: the offer a decision answered (before it), the prize
+ * of a case just opened and the winnings of a finished game (after the move that ended it). The
+ * replayer skips them; {@link ReplayVerifier} checks a replay against them.
+ */
+final class ActionLogFormat {
+    private ActionLogFormat() {}
+
+    static final int MAGIC = 0x444E4441; // "DNDA"
+    static final int VERSION = 2;
+    static final int MIN_VERSION = 1;
+
+    // action codes; part of the file format, so only append
+    static final int END = 0;
+    static final int PICK = 1;
+    static final int OPEN_K = 2;
+    static final int OPEN = 3;
+    static final int DEAL = 4;
+    static final int NO_DEAL = 5;
+    static final int COUNTER = 6;
+    static final int KEEP = 7;
+    static final int SWAP = 8;
+    static final int OFFERED = 9;
+    static final int PRIZE = 10;
+    static final int RESULT = 11;
+}
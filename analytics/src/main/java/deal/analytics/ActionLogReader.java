@@ -0,0 +1,187 @@
+package deal.analytics;
+
+import static deal.analytics.ActionLogFormat.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import deal.core.Engine;
+import deal.core.GameState;
+import deal.core.Phase;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a {@code .dna} action log through {@link Engine} on demand, one step per {@link
+ * #next()}: the same {@code start_round} / {@code open_case} / {@code offer} / decision / {@code
+ * final_result} steps the CLI writes. Games follow each other; {@link #game()} numbers them from
+ * 0.
+ *
+ * <p>For aggregates ({@link TranscriptStats#addGames}) open it {@linkplain #open(Path, boolean)
+ * without lists}: steps then leave the remaining cases and amounts null, and a replayed step costs
+ * little more than the engine transition itself.
+ */
+public final class ActionLogReader implements TranscriptReader {
+    private final InputStream stream;
+    private final ActionLogDecoder in;
+    private final OfferPolicy banker;
+    private final boolean lists;
+
+    private boolean inGame;
+
+    private Engine engine;
+    private GameState s;
+    private int round;
+    private int step;
+    private final Step[] pending = new Step[2]; // one action yields at most two steps
+    private int pendingCount;
+    private int pendingNext;
+
+    ActionLogReader(InputStream stream, boolean lists, OfferPolicy banker) throws IOException {
+        if (banker == null) throw new IllegalArgumentException("banker must not be null");
+        this.stream = stream;
+        this.in = new ActionLogDecoder(stream, true);
+        this.banker = banker;
+        this.lists = lists;
+    }
+
+    /** Reader for {@code path}, replayed with the default banker. */
+    public static ActionLogReader open(Path path, boolean withLists) throws IOException {
+        return open(path, withLists, LegacyOfferPolicy.DEFAULT);
+    }
+
+    /** Reader for {@code path}, replayed with the banker the games were played with. */
+    public static ActionLogReader open(Path path, boolean withLists, OfferPolicy banker)
+            throws IOException {
+        InputStream stream = Files.newInputStream(path);
+        try {
+            return new ActionLogReader(stream, withLists, banker);
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String config() {
+        return in.config();
+    }
+
+    @Override
+    public long game() {
+        return in.game();
+    }
+
+    @Override
+    public Step next() throws IOException {
+        while (pendingNext == pendingCount) {
+            pendingNext = pendingCount = 0;
+            if (!inGame && !beginGame()) return null;
+            int code = in.nextMove();
+            try {
+                apply(code, in.arg());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw in.error("game " + in.game() + " does not replay: " + e.getMessage());
+            }
+        }
+        return pending[pendingNext++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    // ---- replay ----
+
+    private boolean beginGame() throws IOException {
+        if (!in.nextGame()) return false;
+        engine = new Engine(in.gameConfig(), in.seed(), banker);
+        s = engine.start();
+        round = 1;
+        step = 0;
+        inGame = true;
+        return true;
+    }
+
+    private void apply(int code, int arg) {
+        switch (code) {
+            case END -> inGame = false;
+            case PICK -> s = engine.pickPlayerCase(s, arg);
+            case OPEN_K -> {
+                emit("start_round", null, null, null, null, null, null);
+                s = engine.chooseToOpen(s, arg);
+            }
+            case OPEN -> {
+                int prize = s.amountOf(arg);
+                s = engine.openCase(s, arg);
+                emit("open_case", arg, prize, null, null, null, null);
+            }
+            case DEAL, NO_DEAL, COUNTER -> decide(code, arg);
+            case KEEP, SWAP -> {
+                s = engine.revealFinal(s, code == SWAP);
+                emit("final_result", null, s.resultDollars(), null, null, null, null);
+            }
+            case OFFERED, PRIZE, RESULT -> {} // checked by ReplayVerifier only
+        }
+    }
+
+    /** The banker's offer for this round, then the player's answer to it. */
+    private void decide(int code, int counter) {
+        s = engine.computeOffer(s);
+        int offer = s.currentOfferDollars();
+        double ev = s.remainingMean();
+        emit("offer", null, null, offer, ev, null, null);
+        if (code == DEAL) {
+            s = engine.acceptDeal(s);
+            emit("deal", null, s.resultDollars(), offer, ev, true, null);
+        } else if (code == NO_DEAL) {
+            s = engine.declineDeal(s);
+            emit("nodeal", null, null, offer, ev, false, null);
+            round++;
+        } else {
+            s = engine.resolveCounter(engine.proposeCounter(s, counter));
+            boolean accepted = s.phase() == Phase.RESULT;
+            emit("counteroffer", null, null, offer, ev, accepted, counter);
+            if (s.phase() == Phase.ROUND) round++;
+        }
+    }
+
+    private void emit(
+            String action,
+            Integer openedCaseId,
+            Integer openedPrize,
+            Integer offer,
+            Double ev,
+            Boolean accepted,
+            Integer counteroffer) {
+        pending[pendingCount++] =
+                new Step(
+                        ++step,
+                        round,
+                        action,
+                        openedCaseId,
+                        openedPrize,
+                        lists ? s.remainingUnopenedIds() : null,
+                        lists ? remainingAmounts() : null,
+                        offer,
+                        ev,
+                        accepted,
+                        counteroffer);
+    }
+
+    /** Ascending, like the CLI writes them: the set bits of the ladder mask. */
+    private List<Integer> remainingAmounts() {
+        long mask = s.remainingLadderMask();
+        List<Integer> out = new ArrayList<>(Long.bitCount(mask));
+        int[] sortedLadder = in.sortedLadder();
+        for (long m = mask; m != 0; m &= m - 1) {
+            out.add(sortedLadder[Long.numberOfTrailingZeros(m)]);
+        }
+        return out;
+    }
+}
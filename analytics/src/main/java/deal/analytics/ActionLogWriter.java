@@ -0,0 +1,180 @@
+package deal.analytics;
+
+import static deal.analytics.ActionLogFormat.*;
+
+import deal.core.GameConfig;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes {@code .dna} action logs (see {@link ActionLogFormat}): per game the config, the seed and
+ * the player's actions, in the order they were applied to the {@link deal.core.Engine}. Record
+ * only actions the engine accepted; {@link ActionLogReader} replays them into full steps. The
+ * outcomes the engine produced ({@link #offered}, {@link #prize}, {@link #result}) are optional;
+ * recorded, they let {@link ReplayVerifier} check that a replay still matches. Not thread-safe.
+ */
+public final class ActionLogWriter extends ByteOutput implements Closeable {
+    private final FileChannel channel;
+    private final FlushPolicy policy;
+    private List<Integer> lastLadder;
+    private boolean inGame;
+    private boolean closed;
+
+    public ActionLogWriter(Path path) throws IOException {
+        this(path, FlushPolicy.defaults());
+    }
+
+    public ActionLogWriter(Path path, FlushPolicy policy) throws IOException {
+        super(bufferBytes(policy));
+        this.policy = policy;
+        this.channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+        reserve(8).putInt(MAGIC).putInt(VERSION);
+    }
+
+    private static int bufferBytes(FlushPolicy policy) {
+        if (policy == null) throw new IllegalArgumentException("policy must not be null");
+        return policy.bufferBytes();
+    }
+
+    /**
+     * Start a game played by {@code new Engine(cfg, seed)} with the default banker; {@code
+     * gameConfigJson} is free-form, as for {@link TranscriptWriter#writeHeader}.
+     */
+    public void beginGame(String gameConfigJson, GameConfig cfg, long seed) throws IOException {
+        ensureOpen();
+        endGame();
+        if (gameConfigJson == null) {
+            writeVarLong(0);
+        } else {
+            byte[] utf8 = gameConfigJson.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8);
+        }
+        reserve(Long.BYTES).putLong(seed);
+        List<Integer> ladder = cfg.amountsDollars();
+        if (ladder.equals(lastLadder)) {
+            writeVarLong(0);
+        } else {
+            writeVarLong(ladder.size());
+            for (int a : ladder) writeVarLong(DndFormat.zigzag(a) & 0xFFFF_FFFFL);
+            lastLadder = ladder;
+        }
+        inGame = true;
+    }
+
+    public void pick(int caseId) throws IOException {
+        action(PICK, caseId);
+    }
+
+    public void chooseToOpen(int k) throws IOException {
+        action(OPEN_K, k);
+    }
+
+    public void open(int caseId) throws IOException {
+        action(OPEN, caseId);
+    }
+
+    public void deal() throws IOException {
+        action(DEAL);
+        gameOver();
+    }
+
+    public void noDeal() throws IOException {
+        action(NO_DEAL);
+    }
+
+    /** A counteroffer, proposed and resolved; whether the banker took it is replayed. */
+    public void counter(int dollars) throws IOException {
+        action(COUNTER, dollars);
+    }
+
+    public void revealFinal(boolean swap) throws IOException {
+        action(swap ? SWAP : KEEP);
+        gameOver();
+    }
+
+    /** The banker's offer, recorded before the deal, no deal or counter that answered it. */
+    public void offered(int dollars) throws IOException {
+        outcome(OFFERED, dollars);
+    }
+
+    /** The prize in the case just opened. */
+    public void prize(int dollars) throws IOException {
+        outcome(PRIZE, dollars);
+    }
+
+    /** The winnings, recorded after the move that ended the game. */
+    public void result(int dollars) throws IOException {
+        outcome(RESULT, dollars);
+        gameOver();
+    }
+
+    /** End the current game; also done by the next {@link #beginGame} and by {@link #close}. */
+    public void endGame() throws IOException {
+        if (!inGame) return;
+        writeByte(END);
+        inGame = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            endGame();
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    @Override
+    void drain(ByteBuffer full) throws IOException {
+        while (full.hasRemaining()) channel.write(full);
+    }
+
+    private void action(int code) throws IOException {
+        requireGame();
+        writeByte(code);
+        if (policy.flushAfterStep()) flush();
+    }
+
+    private void action(int code, int arg) throws IOException {
+        requireGame();
+        if (arg < 0) throw new IllegalArgumentException("Negative action argument: " + arg);
+        writeByte(code);
+        writeVarLong(arg);
+        if (policy.flushAfterStep()) flush();
+    }
+
+    private void outcome(int code, int dollars) throws IOException {
+        requireGame();
+        writeByte(code);
+        writeVarLong(DndFormat.zigzag(dollars) & 0xFFFF_FFFFL);
+        if (policy.flushAfterStep()) flush();
+    }
+
+    private void gameOver() throws IOException {
+        if (policy.flushAfterGame()) flush();
+    }
+
+    private void requireGame() throws IOException {
+        ensureOpen();
+        if (!inGame) throw new IllegalStateException("beginGame first");
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Action log is closed");
+    }
+}
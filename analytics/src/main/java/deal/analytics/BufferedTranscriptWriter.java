@@ -0,0 +1,83 @@
+package deal.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Shared plumbing of the file transcript writers: records are encoded straight into one reusable
+ * byte buffer, which goes to a {@link FileChannel} in large chunks on the schedule of a {@link
+ * FlushPolicy}. Not thread-safe.
+ */
+abstract class BufferedTranscriptWriter extends ByteOutput implements TranscriptWriter {
+    private final FileChannel channel;
+    private final FlushPolicy policy;
+    private boolean closed;
+
+    BufferedTranscriptWriter(Path path, FlushPolicy policy) throws IOException {
+        super(bufferBytes(policy));
+        this.channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+        this.policy = policy;
+    }
+
+    private static int bufferBytes(FlushPolicy policy) {
+        if (policy == null) throw new IllegalArgumentException("policy must not be null");
+        return policy.bufferBytes();
+    }
+
+    /** Encode one step into the buffer (via the {@link ByteOutput} helpers). */
+    abstract void encode(Step s) throws IOException;
+
+    /** Bytes that end the file, written by {@link #close()}; none by default. */
+    void writeTrailer() throws IOException {}
+
+    @Override
+    public final void append(Step s) throws IOException {
+        var event = new TranscriptEvents.Append();
+        event.begin();
+        ensureOpen();
+        encode(s);
+        boolean flushed = policy.flushAfterStep() || (policy.flushAfterGame() && endsGame(s));
+        if (flushed) flush();
+        event.commit(this, s, flushed);
+    }
+
+    @Override
+    public final void close() throws IOException {
+        if (closed) return;
+        var event = new TranscriptEvents.Close();
+        event.begin();
+        try {
+            writeTrailer();
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+        event.commit(this, position());
+    }
+
+    /** The buffer goes to the file as is. */
+    @Override
+    final void drain(ByteBuffer full) throws IOException {
+        while (full.hasRemaining()) channel.write(full);
+    }
+
+    final void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Transcript writer is closed");
+    }
+
+    /** A step after which the game is over, for {@link FlushPolicy#perGame()}. */
+    static boolean endsGame(Step s) {
+        return "deal".equals(s.action)
+                || "final_result".equals(s.action)
+                || ("counteroffer".equals(s.action) && Boolean.TRUE.equals(s.accepted));
+    }
+}
@@ -0,0 +1,156 @@
+package deal.analytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable byte buffer with allocation-free encoders for the transcript formats. Whenever the
+ * buffer fills (or on {@link #flush()}) its contents are handed to {@link #drain}, which decides
+ * where the bytes go: a file, a rotating segment, another thread. Not thread-safe.
+ */
+abstract class ByteOutput {
+    /** Most decimals {@link #writeDouble} encodes without {@code Double.toString}. */
+    static final int FAST_DECIMALS = 3;
+
+    private final ByteBuffer buf;
+    private final byte[] digits = new byte[20]; // scratch for writeLong
+    private long drainedBytes;
+
+    ByteOutput(int capacity) {
+        this.buf = ByteBuffer.allocate(capacity);
+    }
+
+    /** Consume every remaining byte of {@code full} (flipped, non-empty). */
+    abstract void drain(ByteBuffer full) throws IOException;
+
+    /** Hand everything buffered so far to {@link #drain}. */
+    final void flush() throws IOException {
+        buf.flip();
+        if (buf.hasRemaining()) {
+            drainedBytes += buf.remaining();
+            drain(buf);
+        }
+        buf.clear();
+    }
+
+    /** Bytes written so far, drained or still buffered. */
+    final long position() {
+        return drainedBytes + buf.position();
+    }
+
+    /** Bytes buffered and not yet drained. */
+    final int buffered() {
+        return buf.position();
+    }
+
+    /**
+     * The buffer, with at least {@code bytes} free (at most its capacity), for callers that put
+     * fixed-width fields directly.
+     */
+    final ByteBuffer reserve(int bytes) throws IOException {
+        if (buf.remaining() < bytes) flush();
+        return buf;
+    }
+
+    final void writeByte(int b) throws IOException {
+        if (!buf.hasRemaining()) flush();
+        buf.put((byte) b);
+    }
+
+    final void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    final void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (!buf.hasRemaining()) flush();
+            int n = Math.min(buf.remaining(), end - off);
+            buf.put(bytes, off, n);
+            off += n;
+        }
+    }
+
+    /** UTF-8; ASCII (the common case) goes straight into the buffer without a temporary. */
+    final void writeString(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                writeBytes(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            writeByte(c);
+        }
+    }
+
+    /** Decimal digits of {@code v}, same text as {@code Long.toString(v)}. */
+    final void writeLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            writeString(Long.toString(v));
+            return;
+        }
+        if (v < 0) {
+            writeByte('-');
+            v = -v;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        writeBytes(digits, pos, digits.length - pos);
+    }
+
+    /** LEB128: 7 bits per byte, low group first, as the binary formats store counts and ids. */
+    final void writeVarLong(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        writeByte((int) v);
+    }
+
+    /**
+     * Same value as {@code Double.toString(v)}. Values with at most {@value #FAST_DECIMALS}
+     * decimals in the plain-notation range (all dollar and cent amounts, most EVs) are written
+     * digit by digit; the rest fall back to {@code Double.toString}.
+     */
+    final void writeDouble(double v) throws IOException {
+        double abs = Math.abs(v);
+        if (abs >= 1e-3 && abs < 1e7) {
+            long scale = 1L;
+            for (int d = 0; d <= FAST_DECIMALS; d++, scale *= 10) {
+                double m = v * scale;
+                if (m == Math.rint(m) && m / scale == v) {
+                    writeScaled((long) m, d, scale);
+                    return;
+                }
+            }
+        }
+        writeString(Double.toString(v));
+    }
+
+    /** {@code m / 10^d} in plain notation with at least one decimal, like Double.toString. */
+    private void writeScaled(long m, int d, long scale) throws IOException {
+        while (d > 0 && m % 10 == 0) { // 1147.61 * 100 is inexact but * 1000 is not: 1147.610
+            m /= 10;
+            d--;
+            scale /= 10;
+        }
+        if (m < 0) {
+            writeByte('-');
+            m = -m;
+        }
+        writeLong(m / scale);
+        writeByte('.');
+        if (d == 0) {
+            writeByte('0');
+            return;
+        }
+        long frac = m % scale;
+        for (long div = scale / 10; div > 0; div /= 10) {
+            writeByte((int) ('0' + frac / div % 10));
+        }
+    }
+}
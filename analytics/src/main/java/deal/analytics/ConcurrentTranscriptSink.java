@@ -0,0 +1,318 @@
+package deal.analytics;
+
+import static deal.analytics.DndFormat.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One multi-game transcript file fed by many threads at once, for parallel simulations that would
+ * otherwise need a file per game. The format goes by extension: {@code .jsonl} (JSON Lines, a
+ * {@code {"game":N,"config":...}} record and then one {@code {"game":N,...}} record per step, as
+ * {@link RollingTranscriptSink} writes) or {@code .dnd} (read back with {@link
+ * DndTranscriptReader}).
+ *
+ * <p>A thread plays a game with {@link #beginGame}, {@link #append} and {@link #endGame}, tagging
+ * every call with the id {@code beginGame} returned. Records are encoded into a buffer owned by
+ * the calling thread, with no locking; once it holds {@link #DEFAULT_CHUNK_BYTES a chunk} of
+ * finished games the chunk is queued, and one writer thread puts the chunks into the file in large
+ * sequential writes. Games are handed over whole, so each game's records are contiguous in the
+ * file and {@link TranscriptReader#game()} / the {@code .dnd} index split the file per game;
+ * games of different threads come in the order their chunks filled.
+ *
+ * <p>A thread plays one game at a time, and a game must end on the thread that began it. Call
+ * {@link #close()} once the producer threads are done: it ends their open games, writes what they
+ * still buffer and finishes the file.
+ */
+public final class ConcurrentTranscriptSink implements Closeable {
+    /** Finished games a thread buffers before handing them to the writer thread. */
+    public static final int DEFAULT_CHUNK_BYTES = 256 * 1024;
+
+    /** Chunks waiting for the writer; producers block when it falls this far behind. */
+    private static final int QUEUE_CHUNKS = 64;
+
+    private static final int ENCODER_BYTES = 16 * 1024;
+    private static final Chunk END = new Chunk(ByteBuffer.allocate(0), new long[0], new int[0], 0);
+
+    private final boolean binary;
+    private final int chunkBytes;
+    private final FileChannel channel;
+    private final AtomicLong nextGame = new AtomicLong();
+    private final ThreadLocal<Lane> lane = ThreadLocal.withInitial(this::newLane);
+    private final Queue<Lane> lanes = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    // writer thread only
+    private long written;
+    private long[] gameOffsets = new long[1024];
+    private int[] stepCounts = new int[1024];
+    private int games;
+
+    public ConcurrentTranscriptSink(Path path) throws IOException {
+        this(path, DEFAULT_CHUNK_BYTES);
+    }
+
+    public ConcurrentTranscriptSink(Path path, int chunkBytes) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".jsonl") && !name.endsWith(".dnd")) {
+            throw new IllegalArgumentException(
+                    "Concurrent transcripts are .jsonl or .dnd, got " + path.getFileName());
+        }
+        if (chunkBytes < ENCODER_BYTES) {
+            throw new IllegalArgumentException(
+                    "chunkBytes must be >= " + ENCODER_BYTES + ", got " + chunkBytes);
+        }
+        this.binary = name.endsWith(".dnd");
+        this.chunkBytes = chunkBytes;
+        this.channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+        if (binary) {
+            ByteBuffer head = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            head.putInt(FILE_MAGIC).putInt(VERSION).flip();
+            write(head);
+        }
+        this.writer = new Thread(this::drainQueue, "transcript-writer-" + path.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Start a game on the calling thread and return its id. */
+    public long beginGame(String gameConfigJson) throws IOException {
+        ensureOpen();
+        return lane.get().begin(gameConfigJson);
+    }
+
+    /** Append a step of {@code game}, which must be the calling thread's open game. */
+    public void append(long game, Step s) throws IOException {
+        ensureOpen();
+        lane.get().append(game, s);
+    }
+
+    /** End {@code game}; its records may now reach the file. */
+    public void endGame(long game) throws IOException {
+        ensureOpen();
+        lane.get().end(game);
+    }
+
+    /** Games begun so far. */
+    public long games() {
+        return nextGame.get();
+    }
+
+    /**
+     * Write everything the threads still buffer, finish the file and close it. Producer threads
+     * must be done (joined, or their executor terminated) before this is called. Rethrows the
+     * writer thread's failure, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            for (Lane l : lanes) l.finish();
+            lanes.clear();
+            queue.put(END);
+            writer.join();
+            if (failure == null && binary) writeFooter();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing the transcript", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) throw failure;
+    }
+
+    private Lane newLane() {
+        var l = new Lane();
+        lanes.add(l);
+        return l;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Transcript sink is closed");
+        if (failure != null) throw failure;
+    }
+
+    // ---- writer thread ----
+
+    private void drainQueue() {
+        try {
+            for (Chunk c = queue.take(); c != END; c = queue.take()) {
+                if (failure == null) {
+                    try {
+                        writeChunk(c);
+                    } catch (IOException | RuntimeException e) {
+                        failure = e instanceof IOException io ? io : new IOException(e);
+                    }
+                }
+                c.bytes.clear();
+                if (c.bytes.capacity() == chunkBytes) free.offer(c.bytes);
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Transcript writer interrupted", e);
+        }
+    }
+
+    private void writeChunk(Chunk c) throws IOException {
+        if (binary) {
+            if (games + c.games > gameOffsets.length) {
+                int n = Math.max(games + c.games, gameOffsets.length * 2);
+                gameOffsets = Arrays.copyOf(gameOffsets, n);
+                stepCounts = Arrays.copyOf(stepCounts, n);
+            }
+            for (int g = 0; g < c.games; g++) {
+                gameOffsets[games] = written + c.gameOffsets[g];
+                stepCounts[games++] = c.stepCounts[g];
+            }
+        }
+        write(c.bytes);
+    }
+
+    private void write(ByteBuffer b) throws IOException {
+        written += b.remaining();
+        while (b.hasRemaining()) channel.write(b);
+    }
+
+    /** After the writer thread has stopped. */
+    private void writeFooter() throws IOException {
+        var out =
+                new ByteOutput(ENCODER_BYTES) {
+                    @Override
+                    void drain(ByteBuffer full) throws IOException {
+                        write(full);
+                    }
+                };
+        DndGameEncoder.writeFooter(out, written, gameOffsets, stepCounts, games);
+        out.flush();
+    }
+
+    /** Finished games of one thread, with their offsets within {@code bytes} for the index. */
+    private record Chunk(ByteBuffer bytes, long[] gameOffsets, int[] stepCounts, int games) {}
+
+    /**
+     * One producer thread's state: records are encoded into a small buffer that spills into the
+     * current chunk, which is queued once it holds {@code chunkBytes} of finished games.
+     */
+    private final class Lane extends ByteOutput {
+        private final Thread owner = Thread.currentThread();
+        private final DndGameEncoder dnd = binary ? new DndGameEncoder() : null;
+        private ByteBuffer chunk = allocateChunk();
+        private long chunkStart; // position() where the chunk starts
+        private long[] offsets = new long[64];
+        private int[] steps = new int[64];
+        private int gamesInChunk;
+        private long open = -1L; // game being played, or -1
+
+        Lane() {
+            super(ENCODER_BYTES);
+        }
+
+        long begin(String config) throws IOException {
+            if (open >= 0) {
+                throw new IllegalStateException(
+                        "Game " + open + " is still open on " + owner.getName());
+            }
+            long game = nextGame.getAndIncrement();
+            open = game;
+            if (binary) {
+                dnd.begin(config);
+            } else {
+                JsonStepEncoder.encodeHeader(
+                        game, config == null || config.isBlank() ? "null" : config, this);
+            }
+            return game;
+        }
+
+        void append(long game, Step s) throws IOException {
+            checkOpen(game);
+            if (binary) dnd.encode(s, this);
+            else JsonStepEncoder.encode(s, game, this);
+        }
+
+        void end(long game) throws IOException {
+            checkOpen(game);
+            endOpenGame();
+            if (position() - chunkStart >= chunkBytes) handOff();
+        }
+
+        /** From {@link #close()}: end the open game and queue whatever is left. */
+        void finish() throws IOException, InterruptedException {
+            if (open >= 0) endOpenGame();
+            flush();
+            if (chunk.position() > 0) {
+                queue.put(new Chunk(chunk.flip(), offsets, steps, gamesInChunk));
+            }
+        }
+
+        private void endOpenGame() throws IOException {
+            if (binary) {
+                if (gamesInChunk == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, gamesInChunk * 2);
+                    steps = Arrays.copyOf(steps, gamesInChunk * 2);
+                }
+                steps[gamesInChunk] = dnd.end(this);
+                offsets[gamesInChunk] = dnd.headerPosition() - chunkStart;
+            }
+            gamesInChunk++;
+            open = -1L;
+        }
+
+        private void handOff() throws IOException {
+            flush();
+            try {
+                queue.put(new Chunk(chunk.flip(), offsets, steps, gamesInChunk));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while queueing transcript records", e);
+            }
+            chunk = allocateChunk();
+            chunkStart = position();
+            offsets = binary ? new long[offsets.length] : offsets;
+            steps = binary ? new int[steps.length] : steps;
+            gamesInChunk = 0;
+        }
+
+        private void checkOpen(long game) {
+            if (game != open) {
+                throw new IllegalStateException(
+                        "Game " + game + " is not open on " + owner.getName());
+            }
+        }
+
+        /** Encoded bytes go into the chunk, which grows if one game outgrows it. */
+        @Override
+        void drain(ByteBuffer full) {
+            if (chunk.remaining() < full.remaining()) {
+                int n = Math.max(chunk.capacity() * 2, chunk.position() + full.remaining());
+                chunk = ByteBuffer.allocate(n).put(chunk.flip());
+            }
+            chunk.put(full);
+        }
+
+        private ByteBuffer allocateChunk() {
+            ByteBuffer b = free.poll();
+            return b != null ? b : ByteBuffer.allocate(chunkBytes);
+        }
+    }
+}
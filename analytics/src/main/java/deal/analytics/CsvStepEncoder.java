@@ -0,0 +1,89 @@
+package deal.analytics;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the CSV transcript layout into a {@link ByteOutput}, field by field with no intermediate
+ * strings. Lists are space-separated inside a single quoted cell; nulls are empty cells.
+ */
+final class CsvStepEncoder {
+    private CsvStepEncoder() {}
+
+    static final String HEADER =
+            "step,round,action,openedCaseId,openedPrize,remainingCases,remainingAmounts,offer,ev,accepted,counteroffer\n";
+    static final String CONFIG_PREFIX = "# config: ";
+
+    /** The {@code # config:} comment line; nothing for a null or blank config. */
+    static void encodeConfig(String gameConfigJson, ByteOutput out) throws IOException {
+        if (gameConfigJson != null && !gameConfigJson.isBlank()) {
+            out.writeString(CONFIG_PREFIX);
+            out.writeString(gameConfigJson.replace("\n", " "));
+            out.writeByte('\n');
+        }
+    }
+
+    static void encode(Step s, ByteOutput out) throws IOException {
+        out.writeLong(s.step);
+        out.writeByte(',');
+        out.writeLong(s.round);
+        out.writeByte(',');
+        quoted(s.action, out);
+        out.writeByte(',');
+        nullable(s.openedCaseId, out);
+        out.writeByte(',');
+        nullable(s.openedPrize, out);
+        out.writeByte(',');
+        joined(s.remainingCases, out);
+        out.writeByte(',');
+        joined(s.remainingAmounts, out);
+        out.writeByte(',');
+        nullable(s.offer, out);
+        out.writeByte(',');
+        if (s.ev != null) out.writeDouble(s.ev);
+        out.writeByte(',');
+        if (s.accepted != null) out.writeString(s.accepted ? "true" : "false");
+        out.writeByte(',');
+        nullable(s.counteroffer, out);
+        out.writeByte('\n');
+    }
+
+    private static void nullable(Integer v, ByteOutput out) throws IOException {
+        if (v != null) out.writeLong(v);
+    }
+
+    private static void quoted(String s, ByteOutput out) throws IOException {
+        out.writeByte('"');
+        if (s != null) {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c == '"') {
+                    out.writeByte('"');
+                    out.writeByte('"');
+                } else if (c < 0x80) {
+                    out.writeByte(c);
+                } else { // rare: non-ASCII action names; a run keeps surrogate pairs whole
+                    int end = i + 1;
+                    while (end < n && s.charAt(end) >= 0x80) end++;
+                    out.writeBytes(s.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                    i = end - 1;
+                }
+            }
+        }
+        out.writeByte('"');
+    }
+
+    /** A quoted cell of space-separated values. */
+    private static void joined(List<Integer> xs, ByteOutput out) throws IOException {
+        out.writeByte('"');
+        if (xs != null) {
+            for (int i = 0, n = xs.size(); i < n; i++) {
+                if (i > 0) out.writeByte(' ');
+                out.writeLong(xs.get(i));
+            }
+        }
+        out.writeByte('"');
+    }
+}
@@ -0,0 +1,165 @@
+package deal.analytics;
+
+import static deal.analytics.TranscriptInput.EOF;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Streaming reader for the CSV layout of {@link CsvTranscriptWriter}: the header row, optional
+ * {@code # config:} line, then one row per step. Rows are parsed cell by cell from the byte
+ * stream. Empty list cells read back as empty lists (the writer prints null the same way).
+ *
+ * <p>In {@link RollingTranscriptSink} segments every game starts with a {@code # config:} line,
+ * which advances {@link #game()}.
+ */
+final class CsvTranscriptReader implements TranscriptReader {
+    private static final String HEADER_PREFIX = "step,round,action,";
+
+    private final InputStream stream;
+    private final TranscriptInput in;
+    private String config;
+    private boolean configSeen;
+    private boolean stepsInGame;
+    private long game;
+
+    CsvTranscriptReader(InputStream stream) throws IOException {
+        this.stream = stream;
+        this.in = new TranscriptInput(stream);
+        String header = in.readLine();
+        if (header == null || !header.startsWith(HEADER_PREFIX)) {
+            throw in.error("not a CSV transcript (missing header row)");
+        }
+        while (in.peek() == '#') comment(in.readLine());
+    }
+
+    @Override
+    public String config() {
+        return config;
+    }
+
+    @Override
+    public long game() {
+        return game;
+    }
+
+    @Override
+    public Step next() throws IOException {
+        int c;
+        while ((c = in.peek()) == '\n' || c == '\r' || c == '#') {
+            if (c == '#') comment(in.readLine());
+            else in.read();
+        }
+        if (c == EOF) return null;
+
+        int step = in.readInt();
+        comma();
+        int round = in.readInt();
+        comma();
+        String action = quoted();
+        comma();
+        Integer openedCaseId = optionalInt();
+        comma();
+        Integer openedPrize = optionalInt();
+        comma();
+        List<Integer> remainingCases = list();
+        comma();
+        List<Integer> remainingAmounts = list();
+        comma();
+        Integer offer = optionalInt();
+        comma();
+        Double ev = endOfCell() ? null : in.readDouble();
+        comma();
+        Boolean accepted = optionalBoolean();
+        comma();
+        Integer counteroffer = optionalInt();
+        endOfRow();
+        stepsInGame = true;
+        return new Step(
+                step,
+                round,
+                action,
+                openedCaseId,
+                openedPrize,
+                remainingCases,
+                remainingAmounts,
+                offer,
+                ev,
+                accepted,
+                counteroffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    /** A {@code # config:} line starts a game (the first one only if steps came before it). */
+    private void comment(String line) {
+        if (!line.startsWith(CsvStepEncoder.CONFIG_PREFIX)) return;
+        if (configSeen || stepsInGame) game++;
+        String cfg = line.substring(CsvStepEncoder.CONFIG_PREFIX.length());
+        config = cfg.equals("null") ? null : cfg;
+        configSeen = true;
+        stepsInGame = false;
+    }
+
+    private boolean endOfCell() throws IOException {
+        int c = in.peek();
+        return c == ',' || c == '\n' || c == '\r' || c == EOF;
+    }
+
+    private void comma() throws IOException {
+        in.expect(',');
+    }
+
+    private void endOfRow() throws IOException {
+        int c = in.read();
+        if (c == '\r') c = in.read();
+        if (c != '\n' && c != EOF) {
+            throw in.unexpected("end of row", c);
+        }
+    }
+
+    private Integer optionalInt() throws IOException {
+        return endOfCell() ? null : in.readInt();
+    }
+
+    private Boolean optionalBoolean() throws IOException {
+        int c = in.peek();
+        if (c == 't') {
+            in.expect("true");
+            return Boolean.TRUE;
+        }
+        if (c == 'f') {
+            in.expect("false");
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /** A quoted cell with {@code ""} for a literal quote. */
+    private String quoted() throws IOException {
+        in.expect('"');
+        int n = 0;
+        while (true) {
+            int c = in.read();
+            if (c == EOF) throw in.error("unterminated quoted cell");
+            if (c == '"') {
+                if (in.peek() != '"') return in.scratchString(n);
+                in.read();
+            }
+            n = in.appendScratch(n, c);
+        }
+    }
+
+    /** A quoted cell of space-separated ints. */
+    private List<Integer> list() throws IOException {
+        in.expect('"');
+        List<Integer> out = in.readIntList('"');
+        in.expect('"');
+        return out;
+    }
+}
@@ -0,0 +1,114 @@
+package deal.analytics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the {@code .dnd} binary transcript (all multi-byte fields big-endian):
+ *
+ * <pre>
+ * file    := FILE_MAGIC:int VERSION:int game* footer trailer
+ * game    := configLen+1:varint configUtf8 ladderSize:varint ladderDelta:zigzag-varint*
+ *            record*
+ * record  := RECORD_BYTES fixed-width bytes, see the REC_* offsets
+ * footer  := gameCount:varint (gameOffsetDelta:varint stepCount:varint)*
+ * trailer := footerOffset:long gameCount:int TRAILER_MAGIC:int
+ * </pre>
+ *
+ * A game's ladder is the sorted amounts of its first step; every later step stores its remaining
+ * amounts as a bitmask over that ladder and its remaining cases as a bitmask over case ids, so a
+ * step takes {@value #RECORD_BYTES} bytes whatever the case count. Fixed-width records put step
+ * {@code i} of a game at {@code recordsStart + i * RECORD_BYTES}; the footer gives every game's
+ * offset, so a reader seeks to any step after reading only the trailer and the footer.
+ */
+final class DndFormat {
+    private DndFormat() {}
+
+    static final int FILE_MAGIC = 0x444E4454; // "DNDT"
+    static final int TRAILER_MAGIC = 0x444E4458; // "DNDX"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int TRAILER_BYTES = 16;
+
+    /** Ladders and case ids are stored as {@code long} bitmasks. */
+    static final int MAX_CASES = Long.SIZE;
+
+    // ---- step record ----
+
+    static final int RECORD_BYTES = 44;
+    static final int REC_REMAINING_CASES = 0; // long, bit id-1
+    static final int REC_REMAINING_AMOUNTS = 8; // long, bit = ladder index
+    static final int REC_EV = 16; // double
+    static final int REC_STEP = 24; // int
+    static final int REC_PRIZE = 28; // int, ladder index unless F_PRIZE_RAW
+    static final int REC_OFFER = 32; // int
+    static final int REC_COUNTER = 36; // int
+    static final int REC_ROUND = 40; // unsigned byte
+    static final int REC_ACTION = 41; // byte, index into ACTIONS
+    static final int REC_FLAGS = 42; // byte
+    static final int REC_OPENED_CASE = 43; // unsigned byte, 0 = none
+
+    static final int F_PRIZE = 1;
+    static final int F_PRIZE_RAW = 1 << 1; // prize is dollars, not a ladder index (e.g. a deal)
+    static final int F_OFFER = 1 << 2;
+    static final int F_EV = 1 << 3;
+    static final int F_ACCEPTED = 1 << 4;
+    static final int F_ACCEPTED_TRUE = 1 << 5;
+    static final int F_COUNTER = 1 << 6;
+
+    static final int MAX_ROUND = 0xFF;
+
+    /** Action names in code order; the codes are part of the file format, so only append. */
+    static final String[] ACTIONS = {
+        "start_round", "open_case", "offer", "deal", "nodeal", "counteroffer", "final_result"
+    };
+
+    static int actionCode(String action) {
+        for (int i = 0; i < ACTIONS.length; i++) {
+            if (ACTIONS[i].equals(action)) return i;
+        }
+        throw new IllegalArgumentException("Action not supported by .dnd transcripts: " + action);
+    }
+
+    // ---- varints (LEB128, 7 bits per byte, low group first) ----
+
+    static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Reads varints from absolute positions of a buffer without moving its position. */
+    static final class Cursor {
+        private final ByteBuffer buf;
+        int pos;
+
+        Cursor(ByteBuffer buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        long varLong() {
+            long v = 0L;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = buf.get(pos++);
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalStateException("Malformed varint at offset " + (pos - 1));
+        }
+
+        int varInt() {
+            long v = varLong();
+            if (v >>> 32 != 0) throw new IllegalStateException("varint overflows int: " + v);
+            return (int) v;
+        }
+
+        byte[] bytes(int n) {
+            byte[] out = new byte[n];
+            for (int i = 0; i < n; i++) out[i] = buf.get(pos++);
+            return out;
+        }
+    }
+}
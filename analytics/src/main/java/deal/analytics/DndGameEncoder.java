@@ -0,0 +1,201 @@
+package deal.analytics;
+
+import static deal.analytics.DndFormat.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes one {@code .dnd} game at a time (header, then fixed-width records) into a {@link
+ * ByteOutput}; see {@link DndFormat}. The game header is written with the first step, whose
+ * amounts become the ladder. Shared by {@link DndTranscriptWriter} and the per-thread lanes of
+ * {@link ConcurrentTranscriptSink}; not thread-safe.
+ */
+final class DndGameEncoder {
+    private static final int[] NO_LADDER = {};
+
+    private boolean inGame;
+    private boolean headerWritten;
+    private long headerPosition;
+    private String config;
+    private int[] ladder = NO_LADDER;
+    private int steps;
+
+    /** Start a game (the caller ends the previous one first). */
+    void begin(String gameConfigJson) {
+        inGame = true;
+        config = gameConfigJson;
+    }
+
+    boolean inGame() {
+        return inGame;
+    }
+
+    /** {@code out.position()} at the start of the current game's header. */
+    long headerPosition() {
+        return headerPosition;
+    }
+
+    void encode(Step s, ByteOutput out) throws IOException {
+        if (!inGame) inGame = true; // steps without a header: a game with a null config
+        if (!headerWritten) writeHeader(ladderOf(s.remainingAmounts), out);
+
+        if (s.round < 0 || s.round > MAX_ROUND) {
+            throw new IllegalArgumentException("Round out of range for .dnd: " + s.round);
+        }
+        int action = actionCode(s.action);
+        long cases = caseMask(s.remainingCases);
+        long amounts = amountMask(s.remainingAmounts);
+        int opened = 0;
+        if (s.openedCaseId != null) {
+            opened = s.openedCaseId;
+            if (opened < 1 || opened > MAX_CASES) {
+                throw new IllegalArgumentException("Case id out of range for .dnd: " + opened);
+            }
+        }
+
+        int flags = 0;
+        int prize = 0;
+        if (s.openedPrize != null) {
+            flags |= F_PRIZE;
+            prize = Arrays.binarySearch(ladder, s.openedPrize);
+            if (prize < 0) {
+                flags |= F_PRIZE_RAW;
+                prize = s.openedPrize;
+            }
+        }
+        if (s.offer != null) flags |= F_OFFER;
+        if (s.ev != null) flags |= F_EV;
+        if (s.accepted != null) flags |= s.accepted ? F_ACCEPTED | F_ACCEPTED_TRUE : F_ACCEPTED;
+        if (s.counteroffer != null) flags |= F_COUNTER;
+
+        ByteBuffer b = out.reserve(RECORD_BYTES);
+        int base = b.position();
+        b.putLong(base + REC_REMAINING_CASES, cases)
+                .putLong(base + REC_REMAINING_AMOUNTS, amounts)
+                .putDouble(base + REC_EV, s.ev != null ? s.ev : 0.0)
+                .putInt(base + REC_STEP, s.step)
+                .putInt(base + REC_PRIZE, prize)
+                .putInt(base + REC_OFFER, s.offer != null ? s.offer : 0)
+                .putInt(base + REC_COUNTER, s.counteroffer != null ? s.counteroffer : 0)
+                .put(base + REC_ROUND, (byte) s.round)
+                .put(base + REC_ACTION, (byte) action)
+                .put(base + REC_FLAGS, (byte) flags)
+                .put(base + REC_OPENED_CASE, (byte) opened);
+        b.position(base + RECORD_BYTES);
+        steps++;
+    }
+
+    /**
+     * Finish the current game (writing an empty header if it had no steps) and return its step
+     * count; {@link #headerPosition()} still gives its offset until the next game starts.
+     */
+    int end(ByteOutput out) throws IOException {
+        if (!headerWritten) writeHeader(NO_LADDER, out);
+        int n = steps;
+        inGame = false;
+        headerWritten = false;
+        config = null;
+        ladder = NO_LADDER;
+        steps = 0;
+        return n;
+    }
+
+    /** The footer index and trailer that end a file whose footer starts at {@code position}. */
+    static void writeFooter(
+            ByteOutput out, long position, long[] gameOffsets, int[] stepCounts, int games)
+            throws IOException {
+        out.writeVarLong(games);
+        long prev = 0L;
+        for (int g = 0; g < games; g++) {
+            out.writeVarLong(gameOffsets[g] - prev);
+            out.writeVarLong(stepCounts[g]);
+            prev = gameOffsets[g];
+        }
+        out.reserve(TRAILER_BYTES).putLong(position).putInt(games).putInt(TRAILER_MAGIC);
+    }
+
+    private void writeHeader(int[] gameLadder, ByteOutput out) throws IOException {
+        headerPosition = out.position();
+        ladder = gameLadder;
+
+        if (config == null) {
+            out.writeVarLong(0);
+        } else {
+            byte[] utf8 = config.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(utf8.length + 1L);
+            out.writeBytes(utf8);
+        }
+        out.writeVarLong(ladder.length);
+        int prev = 0;
+        for (int a : ladder) {
+            out.writeVarLong(zigzag(a - prev) & 0xFFFF_FFFFL);
+            prev = a;
+        }
+        headerWritten = true;
+    }
+
+    private static int[] ladderOf(List<Integer> amounts) {
+        if (amounts == null || amounts.isEmpty()) return NO_LADDER;
+        if (amounts.size() > MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "Too many amounts for .dnd: " + amounts.size() + " (max " + MAX_CASES + ")");
+        }
+        int[] out = new int[amounts.size()];
+        for (int i = 0; i < out.length; i++) out[i] = amounts.get(i);
+        Arrays.sort(out);
+        return out;
+    }
+
+    // ---- bitmasks ----
+
+    private static long caseMask(List<Integer> ids) {
+        long mask = 0L;
+        if (ids == null) return mask;
+        for (int i = 0, n = ids.size(); i < n; i++) {
+            int id = ids.get(i);
+            if (id < 1 || id > MAX_CASES) {
+                throw new IllegalArgumentException("Case id out of range for .dnd: " + id);
+            }
+            mask |= 1L << (id - 1);
+        }
+        return mask;
+    }
+
+    /** Each amount takes the lowest free ladder slot holding it, so repeated amounts work. */
+    private long amountMask(List<Integer> amounts) {
+        long mask = 0L;
+        if (amounts == null) return mask;
+        for (int i = 0, n = amounts.size(); i < n; i++) {
+            int a = amounts.get(i);
+            int idx = firstIndexOf(a);
+            while (idx >= 0 && idx < ladder.length && ladder[idx] == a && (mask & 1L << idx) != 0) {
+                idx++;
+            }
+            if (idx < 0 || idx >= ladder.length || ladder[idx] != a) {
+                throw new IllegalArgumentException(
+                        "Amount " + a + " is not on this game's ladder (its first step's amounts)");
+            }
+            mask |= 1L << idx;
+        }
+        return mask;
+    }
+
+    private int firstIndexOf(int amount) {
+        int lo = 0, hi = ladder.length - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ladder[mid] < amount) {
+                lo = mid + 1;
+            } else {
+                if (ladder[mid] == amount) found = mid;
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,242 @@
+package deal.analytics;
+
+import static deal.analytics.DndFormat.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Random-access reader for {@code .dnd} transcripts (written by {@code TranscriptWriter.fromPath}
+ * for a {@code .dnd} path). Opening reads only the trailer and the footer index; the games are
+ * memory-mapped and a step is decoded only when asked for, so seeking to game {@code g}, step
+ * {@code i} costs the same at the start and at the end of a multi-gigabyte file.
+ *
+ * <p>Safe for concurrent readers: all access is by absolute offset into read-only mappings.
+ */
+public final class DndTranscriptReader implements Closeable {
+    /** Games are grouped into mappings of at most this many bytes (a game never straddles two). */
+    static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long[] gameOffsets;
+    private final int[] stepCounts;
+    private final long totalSteps;
+    private final MappedByteBuffer[] segments;
+    private final long[] segmentStarts;
+    private final int[] segmentOfGame;
+
+    private DndTranscriptReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < FILE_HEADER_BYTES + TRAILER_BYTES) throw corrupt("file too short: " + size);
+
+        ByteBuffer head = read(0, FILE_HEADER_BYTES);
+        if (head.getInt() != FILE_MAGIC) throw corrupt("not a .dnd transcript");
+        int version = head.getInt();
+        if (version != VERSION) throw corrupt("unsupported version " + version);
+
+        ByteBuffer trailer = read(size - TRAILER_BYTES, TRAILER_BYTES);
+        long footerOffset = trailer.getLong();
+        int games = trailer.getInt();
+        if (trailer.getInt() != TRAILER_MAGIC
+                || footerOffset < FILE_HEADER_BYTES
+                || footerOffset > size - TRAILER_BYTES
+                || games < 0) {
+            throw corrupt("missing footer (was the writer closed?)");
+        }
+
+        ByteBuffer footer = read(footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+        var cur = new Cursor(footer, 0);
+        if (cur.varInt() != games) throw corrupt("footer game count disagrees with trailer");
+        this.gameOffsets = new long[games];
+        this.stepCounts = new int[games];
+        long offset = 0L, steps = 0L;
+        for (int g = 0; g < games; g++) {
+            offset += cur.varLong();
+            gameOffsets[g] = offset;
+            stepCounts[g] = cur.varInt();
+            steps += stepCounts[g];
+        }
+        this.totalSteps = steps;
+
+        // Map whole games, greedily packed into segments of at most MAX_SEGMENT_BYTES.
+        this.segmentOfGame = new int[games];
+        List<MappedByteBuffer> maps = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        int g = 0;
+        while (g < games) {
+            long start = gameOffsets[g];
+            int first = g;
+            while (g < games && end(g, footerOffset) - start <= MAX_SEGMENT_BYTES) {
+                segmentOfGame[g++] = maps.size();
+            }
+            if (g == first) throw corrupt("game " + g + " is larger than " + MAX_SEGMENT_BYTES);
+            long end = end(g - 1, footerOffset);
+            maps.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            starts.add(start);
+        }
+        this.segments = maps.toArray(new MappedByteBuffer[0]);
+        this.segmentStarts = starts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Open {@code path}; fails if it is not a complete (closed) {@code .dnd} transcript. */
+    public static DndTranscriptReader open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new DndTranscriptReader(ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public int gameCount() {
+        return gameOffsets.length;
+    }
+
+    /** Steps across all games. */
+    public long stepCount() {
+        return totalSteps;
+    }
+
+    /** Game {@code index} (0-based, in write order); decodes only its small header. */
+    public Game game(int index) {
+        if (index < 0 || index >= gameOffsets.length) {
+            throw new IndexOutOfBoundsException(
+                    "Game " + index + " out of range [0, " + gameOffsets.length + ")");
+        }
+        int seg = segmentOfGame[index];
+        return new Game(
+                index,
+                segments[seg],
+                (int) (gameOffsets[index] - segmentStarts[seg]),
+                stepCounts[index]);
+    }
+
+    /** Shorthand for {@code game(game).step(step)}. */
+    public Step step(int game, int step) {
+        return game(game).step(step);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close(); // the mappings stay valid until collected
+    }
+
+    /** One game: its header (config, ladder) is decoded eagerly, its steps on demand. */
+    public static final class Game {
+        private final int index;
+        private final ByteBuffer buf;
+        private final String config;
+        private final int[] ladder;
+        private final int recordsStart;
+        private final int stepCount;
+
+        private Game(int index, ByteBuffer buf, int offset, int stepCount) {
+            this.index = index;
+            this.buf = buf;
+            this.stepCount = stepCount;
+            var cur = new Cursor(buf, offset);
+            int configLen = cur.varInt();
+            this.config =
+                    configLen == 0
+                            ? null
+                            : new String(cur.bytes(configLen - 1), StandardCharsets.UTF_8);
+            this.ladder = new int[cur.varInt()];
+            int prev = 0;
+            for (int i = 0; i < ladder.length; i++) {
+                prev += unzigzag(cur.varInt());
+                ladder[i] = prev;
+            }
+            this.recordsStart = cur.pos;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        /** The header passed to {@code writeHeader}, or null if the game had none. */
+        public String config() {
+            return config;
+        }
+
+        /** Amounts of the game's first step, ascending. */
+        public int[] ladder() {
+            return ladder.clone();
+        }
+
+        public int stepCount() {
+            return stepCount;
+        }
+
+        /** Decode step {@code i} (0-based) of this game. */
+        public Step step(int i) {
+            if (i < 0 || i >= stepCount) {
+                throw new IndexOutOfBoundsException(
+                        "Step " + i + " out of range [0, " + stepCount + ")");
+            }
+            int at = recordsStart + i * RECORD_BYTES;
+            int flags = buf.get(at + REC_FLAGS);
+            int opened = buf.get(at + REC_OPENED_CASE) & 0xFF;
+            int prize = buf.getInt(at + REC_PRIZE);
+            return new Step(
+                    buf.getInt(at + REC_STEP),
+                    buf.get(at + REC_ROUND) & 0xFF,
+                    ACTIONS[buf.get(at + REC_ACTION)],
+                    opened == 0 ? null : opened,
+                    (flags & F_PRIZE) == 0
+                            ? null
+                            : (flags & F_PRIZE_RAW) != 0 ? prize : ladder[prize],
+                    caseIds(buf.getLong(at + REC_REMAINING_CASES)),
+                    amounts(buf.getLong(at + REC_REMAINING_AMOUNTS)),
+                    (flags & F_OFFER) == 0 ? null : buf.getInt(at + REC_OFFER),
+                    (flags & F_EV) == 0 ? null : buf.getDouble(at + REC_EV),
+                    (flags & F_ACCEPTED) == 0 ? null : (flags & F_ACCEPTED_TRUE) != 0,
+                    (flags & F_COUNTER) == 0 ? null : buf.getInt(at + REC_COUNTER));
+        }
+
+        private static List<Integer> caseIds(long mask) {
+            Integer[] ids = new Integer[Long.bitCount(mask)];
+            int n = 0;
+            for (long m = mask; m != 0; m &= m - 1) ids[n++] = Long.numberOfTrailingZeros(m) + 1;
+            return Arrays.asList(ids);
+        }
+
+        private List<Integer> amounts(long mask) {
+            Integer[] out = new Integer[Long.bitCount(mask)];
+            int n = 0;
+            for (long m = mask; m != 0; m &= m - 1) {
+                out[n++] = ladder[Long.numberOfTrailingZeros(m)];
+            }
+            return Arrays.asList(out);
+        }
+    }
+
+    // ---- helpers ----
+
+    private long end(int game, long footerOffset) {
+        return game + 1 < gameOffsets.length ? gameOffsets[game + 1] : footerOffset;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) {
+            if (channel.read(b, position + b.position()) < 0) throw corrupt("unexpected end");
+        }
+        return b.flip();
+    }
+
+    private static IOException corrupt(String why) {
+        return new IOException("Corrupt .dnd transcript: " + why);
+    }
+}
@@ -0,0 +1,59 @@
+package deal.analytics;
+
+import static deal.analytics.DndFormat.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Binary {@code .dnd} transcript; see {@link DndFormat} for the layout. Every {@link
+ * #writeHeader} starts a new game, so one file can hold any number of games; the footer index is
+ * written by {@link #close()}. Remaining lists are stored as sets and read back ascending, which
+ * is how the CLI writes them; a null list reads back empty.
+ */
+final class DndTranscriptWriter extends BufferedTranscriptWriter {
+    private final DndGameEncoder game = new DndGameEncoder();
+
+    // footer index
+    private long[] gameOffsets = new long[16];
+    private int[] stepCounts = new int[16];
+    private int games;
+
+    DndTranscriptWriter(Path path) throws IOException {
+        this(path, FlushPolicy.defaults());
+    }
+
+    DndTranscriptWriter(Path path, FlushPolicy policy) throws IOException {
+        super(path, policy);
+        reserve(FILE_HEADER_BYTES).putInt(FILE_MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void writeHeader(String gameConfigJson) throws IOException {
+        ensureOpen();
+        endGame();
+        game.begin(gameConfigJson);
+    }
+
+    @Override
+    void encode(Step s) throws IOException {
+        game.encode(s, this);
+    }
+
+    @Override
+    void writeTrailer() throws IOException {
+        endGame();
+        DndGameEncoder.writeFooter(this, position(), gameOffsets, stepCounts, games);
+    }
+
+    private void endGame() throws IOException {
+        if (!game.inGame()) return;
+        if (games == gameOffsets.length) {
+            gameOffsets = Arrays.copyOf(gameOffsets, games * 2);
+            stepCounts = Arrays.copyOf(stepCounts, games * 2);
+        }
+        stepCounts[games] = game.end(this);
+        gameOffsets[games++] = game.headerPosition();
+    }
+}
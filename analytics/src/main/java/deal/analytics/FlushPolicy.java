@@ -0,0 +1,94 @@
+package deal.analytics;
+
+/**
+ * When a buffered transcript writer pushes its buffer to the file. Whatever the policy, a full
+ * buffer is always written out and {@code close()} always flushes.
+ */
+public final class FlushPolicy {
+    /** Buffer size of the per-step and per-game policies, and of {@link #defaults()}. */
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    private static final int MIN_BUFFER_BYTES = 256;
+
+    private enum Trigger {
+        STEP,
+        GAME,
+        SIZE
+    }
+
+    private static final FlushPolicy PER_STEP =
+            new FlushPolicy(Trigger.STEP, DEFAULT_BUFFER_BYTES);
+    private static final FlushPolicy PER_GAME =
+            new FlushPolicy(Trigger.GAME, DEFAULT_BUFFER_BYTES);
+    private static final FlushPolicy DEFAULT = new FlushPolicy(Trigger.SIZE, DEFAULT_BUFFER_BYTES);
+
+    private final Trigger trigger;
+    private final int bufferBytes;
+
+    private FlushPolicy(Trigger trigger, int bufferBytes) {
+        this.trigger = trigger;
+        this.bufferBytes = bufferBytes;
+    }
+
+    /** Write every step out as soon as it is appended (one write syscall per step). */
+    public static FlushPolicy perStep() {
+        return PER_STEP;
+    }
+
+    /** Write out after each step that ends a game (deal, accepted counter, final result). */
+    public static FlushPolicy perGame() {
+        return PER_GAME;
+    }
+
+    /** Write out only when {@code bufferBytes} have accumulated (and on close). */
+    public static FlushPolicy onSize(int bufferBytes) {
+        if (bufferBytes < MIN_BUFFER_BYTES) {
+            throw new IllegalArgumentException(
+                    "bufferBytes must be >= " + MIN_BUFFER_BYTES + ", got " + bufferBytes);
+        }
+        return bufferBytes == DEFAULT_BUFFER_BYTES
+                ? DEFAULT
+                : new FlushPolicy(Trigger.SIZE, bufferBytes);
+    }
+
+    /** {@code onSize(DEFAULT_BUFFER_BYTES)}: the throughput choice for load runs. */
+    public static FlushPolicy defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Parse a CLI-style spec: {@code step}, {@code game}, or a byte count for {@link #onSize}.
+     */
+    public static FlushPolicy parse(String spec) {
+        String v = spec == null ? "" : spec.trim();
+        if (v.equalsIgnoreCase("step")) return perStep();
+        if (v.equalsIgnoreCase("game")) return perGame();
+        try {
+            return onSize(Integer.parseInt(v));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Flush policy must be 'step', 'game' or a byte count, got: " + spec);
+        }
+    }
+
+    int bufferBytes() {
+        return bufferBytes;
+    }
+
+    boolean flushAfterStep() {
+        return trigger == Trigger.STEP;
+    }
+
+    boolean flushAfterGame() {
+        return trigger != Trigger.SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return switch (trigger) {
+            case STEP -> "perStep";
+            case GAME -> "perGame";
+            case SIZE -> "onSize(" + bufferBytes + ")";
+        };
+    }
+}
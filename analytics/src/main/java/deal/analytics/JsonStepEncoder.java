@@ -0,0 +1,158 @@
+package deal.analytics;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a {@link Step} as one compact JSON object straight into a {@link ByteOutput}: each field
+ * name, with its quotes, colon and separator, is a precomputed byte array, numbers are encoded
+ * digit by digit and strings are escaped in a single pass. Fields come in declaration order, the
+ * same layout the reflective serializer used to produce.
+ */
+final class JsonStepEncoder {
+    private JsonStepEncoder() {}
+
+    private static final byte[] STEP = ascii("{\"step\":");
+    private static final byte[] GAME = ascii("{\"game\":");
+    private static final byte[] GAME_STEP = ascii(",\"step\":");
+    private static final byte[] GAME_CONFIG = ascii(",\"config\":");
+    private static final byte[] ROUND = ascii(",\"round\":");
+    private static final byte[] ACTION = ascii(",\"action\":");
+    private static final byte[] OPENED_CASE_ID = ascii(",\"openedCaseId\":");
+    private static final byte[] OPENED_PRIZE = ascii(",\"openedPrize\":");
+    private static final byte[] REMAINING_CASES = ascii(",\"remainingCases\":");
+    private static final byte[] REMAINING_AMOUNTS = ascii(",\"remainingAmounts\":");
+    private static final byte[] OFFER = ascii(",\"offer\":");
+    private static final byte[] EV = ascii(",\"ev\":");
+    private static final byte[] ACCEPTED = ascii(",\"accepted\":");
+    private static final byte[] COUNTEROFFER = ascii(",\"counteroffer\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    static void encode(Step s, ByteOutput out) throws IOException {
+        out.writeBytes(STEP);
+        fields(s, out);
+    }
+
+    /** JSON Lines step record: {@code {"game":N,"step":...}} and a newline. */
+    static void encode(Step s, long game, ByteOutput out) throws IOException {
+        out.writeBytes(GAME);
+        out.writeLong(game);
+        out.writeBytes(GAME_STEP);
+        fields(s, out);
+        out.writeByte('\n');
+    }
+
+    /**
+     * JSON Lines game header record: {@code {"game":N,"config":...}} and a newline. The config is
+     * raw JSON, as for {@code writeHeader}; null is written as {@code null}.
+     */
+    static void encodeHeader(long game, String configJson, ByteOutput out) throws IOException {
+        out.writeBytes(GAME);
+        out.writeLong(game);
+        out.writeBytes(GAME_CONFIG);
+        if (configJson == null || configJson.isBlank()) out.writeBytes(NULL);
+        else out.writeString(configJson.replace('\n', ' '));
+        out.writeByte('}');
+        out.writeByte('\n');
+    }
+
+    /** Everything after the opening {@code "step":} key. */
+    private static void fields(Step s, ByteOutput out) throws IOException {
+        out.writeLong(s.step);
+        out.writeBytes(ROUND);
+        out.writeLong(s.round);
+        out.writeBytes(ACTION);
+        string(s.action, out);
+        out.writeBytes(OPENED_CASE_ID);
+        integer(s.openedCaseId, out);
+        out.writeBytes(OPENED_PRIZE);
+        integer(s.openedPrize, out);
+        out.writeBytes(REMAINING_CASES);
+        array(s.remainingCases, out);
+        out.writeBytes(REMAINING_AMOUNTS);
+        array(s.remainingAmounts, out);
+        out.writeBytes(OFFER);
+        integer(s.offer, out);
+        out.writeBytes(EV);
+        number(s.ev, out);
+        out.writeBytes(ACCEPTED);
+        if (s.accepted == null) out.writeBytes(NULL);
+        else out.writeBytes(s.accepted ? TRUE : FALSE);
+        out.writeBytes(COUNTEROFFER);
+        integer(s.counteroffer, out);
+        out.writeByte('}');
+    }
+
+    private static void integer(Integer v, ByteOutput out) throws IOException {
+        if (v == null) out.writeBytes(NULL);
+        else out.writeLong(v);
+    }
+
+    /** NaN and infinities have no JSON form and are written as null. */
+    private static void number(Double v, ByteOutput out) throws IOException {
+        if (v == null || !Double.isFinite(v)) out.writeBytes(NULL);
+        else out.writeDouble(v);
+    }
+
+    private static void array(List<Integer> xs, ByteOutput out) throws IOException {
+        if (xs == null) {
+            out.writeBytes(NULL);
+            return;
+        }
+        out.writeByte('[');
+        for (int i = 0, n = xs.size(); i < n; i++) {
+            if (i > 0) out.writeByte(',');
+            integer(xs.get(i), out);
+        }
+        out.writeByte(']');
+    }
+
+    /** Quoted, with {@code "}, {@code \} and every control character escaped. */
+    static void string(String v, ByteOutput out) throws IOException {
+        if (v == null) {
+            out.writeBytes(NULL);
+            return;
+        }
+        out.writeByte('"');
+        for (int i = 0, n = v.length(); i < n; i++) {
+            char c = v.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                if (c < 0x80) {
+                    out.writeByte(c);
+                } else {
+                    int end = i + 1;
+                    while (end < n && v.charAt(end) >= 0x80) end++;
+                    out.writeBytes(v.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                    i = end - 1;
+                }
+                continue;
+            }
+            out.writeByte('\\');
+            switch (c) {
+                case '"', '\\' -> out.writeByte(c);
+                case '\n' -> out.writeByte('n');
+                case '\r' -> out.writeByte('r');
+                case '\t' -> out.writeByte('t');
+                case '\b' -> out.writeByte('b');
+                case '\f' -> out.writeByte('f');
+                default -> {
+                    out.writeByte('u');
+                    out.writeByte('0');
+                    out.writeByte('0');
+                    out.writeByte(HEX[c >> 4]);
+                    out.writeByte(HEX[c & 0xF]);
+                }
+            }
+        }
+        out.writeByte('"');
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,384 @@
+package deal.analytics;
+
+import static deal.analytics.TranscriptInput.EOF;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for {@code {"config":...,"steps":[...]}} documents and, via {@link #lines}, for
+ * the JSON Lines records of {@link RollingTranscriptSink}. Steps are parsed one at a time straight
+ * from the byte stream: field names are matched against precomputed bytes, numbers are parsed in
+ * place and unknown fields are skipped, so any step layout that is valid JSON reads.
+ */
+final class JsonTranscriptReader implements TranscriptReader {
+    private static final byte[] CONFIG = ascii("config");
+    private static final byte[] STEPS = ascii("steps");
+    private static final byte[] STEP = ascii("step");
+    private static final byte[] ROUND = ascii("round");
+    private static final byte[] ACTION = ascii("action");
+    private static final byte[] OPENED_CASE_ID = ascii("openedCaseId");
+    private static final byte[] OPENED_PRIZE = ascii("openedPrize");
+    private static final byte[] REMAINING_CASES = ascii("remainingCases");
+    private static final byte[] REMAINING_AMOUNTS = ascii("remainingAmounts");
+    private static final byte[] OFFER = ascii("offer");
+    private static final byte[] EV = ascii("ev");
+    private static final byte[] ACCEPTED = ascii("accepted");
+    private static final byte[] COUNTEROFFER = ascii("counteroffer");
+    private static final byte[] GAME = ascii("game");
+
+    private final InputStream stream;
+    private final TranscriptInput in;
+    private final boolean lines;
+    private String config;
+    private long game;
+    private boolean first = true;
+    private boolean done;
+
+    // the record being parsed, in JSON Lines mode
+    private long recordGame;
+    private boolean recordIsHeader;
+    private String recordConfig;
+
+    /** Reader for one {@code {"config":...,"steps":[...]}} document. */
+    JsonTranscriptReader(InputStream stream) throws IOException {
+        this(stream, false);
+    }
+
+    /** Reader for JSON Lines: one {@code {"game":N,...}} step or header record per line. */
+    static JsonTranscriptReader lines(InputStream stream) throws IOException {
+        return new JsonTranscriptReader(stream, true);
+    }
+
+    private JsonTranscriptReader(InputStream stream, boolean lines) throws IOException {
+        this.stream = stream;
+        this.in = new TranscriptInput(stream);
+        this.lines = lines;
+        this.game = lines ? -1L : 0L;
+        if (!lines) readDocumentHeader();
+    }
+
+    private void readDocumentHeader() throws IOException {
+        in.skipWhitespace();
+        in.expect('{');
+        String cfg = null;
+        while (true) {
+            in.skipWhitespace();
+            if (in.peek() == '}') { // no "steps" at all
+                done = true;
+                break;
+            }
+            int n = readKey();
+            if (in.scratchEquals(n, CONFIG)) {
+                cfg = captureConfig();
+            } else if (in.scratchEquals(n, STEPS)) {
+                in.skipWhitespace();
+                in.expect('[');
+                break;
+            } else {
+                skipValue(null);
+            }
+            in.skipWhitespace();
+            if (in.peek() == ',') in.read();
+        }
+        config = cfg;
+    }
+
+    @Override
+    public String config() {
+        return config;
+    }
+
+    @Override
+    public long game() {
+        return game;
+    }
+
+    @Override
+    public Step next() throws IOException {
+        if (lines) return nextLine();
+        if (done) return null;
+        in.skipWhitespace();
+        int c = in.peek();
+        if (c == ']') {
+            in.read();
+            done = true;
+            return null;
+        }
+        if (!first) {
+            if (c != ',') throw in.unexpected("',' or ']'", c);
+            in.read();
+            in.skipWhitespace();
+        }
+        first = false;
+        return readStep();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private Step nextLine() throws IOException {
+        while (true) {
+            in.skipWhitespace();
+            if (in.peek() == EOF) return null;
+            recordGame = 0L;
+            recordIsHeader = false;
+            recordConfig = null;
+            Step s = readStep();
+            if (recordIsHeader) {
+                game = recordGame;
+                config = recordConfig;
+                continue;
+            }
+            if (recordGame != game) { // a game whose header we never saw
+                game = recordGame;
+                config = null;
+            }
+            return s;
+        }
+    }
+
+    // ---- steps ----
+
+    private Step readStep() throws IOException {
+        int step = 0, round = 0;
+        String action = null;
+        Integer openedCaseId = null, openedPrize = null, offer = null, counteroffer = null;
+        List<Integer> remainingCases = null, remainingAmounts = null;
+        Double ev = null;
+        Boolean accepted = null;
+
+        in.expect('{');
+        in.skipWhitespace();
+        if (in.peek() == '}') {
+            in.read();
+        } else {
+            while (true) {
+                int n = readKey();
+                if (in.scratchEquals(n, STEP)) step = in.readInt();
+                else if (in.scratchEquals(n, ROUND)) round = in.readInt();
+                else if (in.scratchEquals(n, ACTION)) action = nullableString();
+                else if (in.scratchEquals(n, OPENED_CASE_ID)) openedCaseId = nullableInt();
+                else if (in.scratchEquals(n, OPENED_PRIZE)) openedPrize = nullableInt();
+                else if (in.scratchEquals(n, REMAINING_CASES)) remainingCases = nullableInts();
+                else if (in.scratchEquals(n, REMAINING_AMOUNTS)) remainingAmounts = nullableInts();
+                else if (in.scratchEquals(n, OFFER)) offer = nullableInt();
+                else if (in.scratchEquals(n, EV)) ev = nullableDouble();
+                else if (in.scratchEquals(n, ACCEPTED)) accepted = nullableBoolean();
+                else if (in.scratchEquals(n, COUNTEROFFER)) counteroffer = nullableInt();
+                else if (lines && in.scratchEquals(n, GAME)) recordGame = in.readLong();
+                else if (lines && in.scratchEquals(n, CONFIG)) recordConfig = captureConfig();
+                else skipValue(null);
+                in.skipWhitespace();
+                int c = in.read();
+                if (c == '}') break;
+                if (c != ',') throw in.unexpected("',' or '}'", c);
+                in.skipWhitespace();
+            }
+        }
+        return new Step(
+                step,
+                round,
+                action,
+                openedCaseId,
+                openedPrize,
+                remainingCases,
+                remainingAmounts,
+                offer,
+                ev,
+                accepted,
+                counteroffer);
+    }
+
+    /** The raw text of a config value; {@code null} reads as null. */
+    private String captureConfig() throws IOException {
+        recordIsHeader = true;
+        var raw = new ByteArrayOutputStream();
+        skipValue(raw);
+        String text = raw.toString(StandardCharsets.UTF_8);
+        return text.equals("null") ? null : text;
+    }
+
+    /** A quoted key and its colon; the key is left in the input's scratch area. */
+    private int readKey() throws IOException {
+        int n = readString();
+        in.skipWhitespace();
+        in.expect(':');
+        in.skipWhitespace();
+        return n;
+    }
+
+    private boolean isNull() throws IOException {
+        if (in.peek() != 'n') return false;
+        in.expect("null");
+        return true;
+    }
+
+    private Integer nullableInt() throws IOException {
+        return isNull() ? null : in.readInt();
+    }
+
+    private Double nullableDouble() throws IOException {
+        return isNull() ? null : in.readDouble();
+    }
+
+    private String nullableString() throws IOException {
+        return isNull() ? null : in.scratchString(readString());
+    }
+
+    private Boolean nullableBoolean() throws IOException {
+        int c = in.peek();
+        if (c == 't') {
+            in.expect("true");
+            return Boolean.TRUE;
+        }
+        if (c == 'f') {
+            in.expect("false");
+            return Boolean.FALSE;
+        }
+        if (isNull()) return null;
+        throw in.unexpected("a boolean", c);
+    }
+
+    private List<Integer> nullableInts() throws IOException {
+        if (isNull()) return null;
+        in.expect('[');
+        List<Integer> out = new ArrayList<>();
+        in.skipWhitespace();
+        if (in.peek() == ']') {
+            in.read();
+            return out;
+        }
+        while (true) {
+            in.skipWhitespace();
+            out.add(in.readInt());
+            in.skipWhitespace();
+            int c = in.read();
+            if (c == ']') return out;
+            if (c != ',') throw in.unexpected("',' or ']'", c);
+        }
+    }
+
+    /** A JSON string, unescaped as UTF-8 into the scratch area; returns its byte length. */
+    private int readString() throws IOException {
+        in.expect('"');
+        int n = 0;
+        while (true) {
+            int c = in.read();
+            if (c == '"') return n;
+            if (c == EOF) throw in.error("unterminated string");
+            if (c != '\\') {
+                n = in.appendScratch(n, c);
+                continue;
+            }
+            int e = in.read();
+            switch (e) {
+                case '"', '\\', '/' -> n = in.appendScratch(n, e);
+                case 'b' -> n = in.appendScratch(n, '\b');
+                case 'f' -> n = in.appendScratch(n, '\f');
+                case 'n' -> n = in.appendScratch(n, '\n');
+                case 'r' -> n = in.appendScratch(n, '\r');
+                case 't' -> n = in.appendScratch(n, '\t');
+                case 'u' -> {
+                    int cp = hex4();
+                    if (Character.isHighSurrogate((char) cp) && in.peek() == '\\') {
+                        in.read();
+                        in.expect('u');
+                        int low = hex4();
+                        cp =
+                                Character.isLowSurrogate((char) low)
+                                        ? Character.toCodePoint((char) cp, (char) low)
+                                        : '?';
+                    }
+                    n = appendUtf8(n, cp);
+                }
+                default -> throw in.error("bad escape \\" + (char) e);
+            }
+        }
+    }
+
+    private int hex4() throws IOException {
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            int d = Character.digit(in.read(), 16);
+            if (d < 0) throw in.error("bad \\u escape");
+            v = v << 4 | d;
+        }
+        return v;
+    }
+
+    private int appendUtf8(int n, int cp) {
+        if (cp < 0x80) return in.appendScratch(n, cp);
+        if (cp < 0x800) {
+            n = in.appendScratch(n, 0xC0 | cp >> 6);
+        } else if (cp < 0x10000) {
+            n = in.appendScratch(n, 0xE0 | cp >> 12);
+            n = in.appendScratch(n, 0x80 | (cp >> 6 & 0x3F));
+        } else {
+            n = in.appendScratch(n, 0xF0 | cp >> 18);
+            n = in.appendScratch(n, 0x80 | (cp >> 12 & 0x3F));
+            n = in.appendScratch(n, 0x80 | (cp >> 6 & 0x3F));
+        }
+        return in.appendScratch(n, 0x80 | (cp & 0x3F));
+    }
+
+    /** Skip one JSON value, copying its raw bytes to {@code sink} when non-null. */
+    private void skipValue(ByteArrayOutputStream sink) throws IOException {
+        in.skipWhitespace();
+        int c = in.peek();
+        if (c == '"') {
+            copyString(sink);
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = in.peek();
+                if (c == EOF) throw in.error("unterminated " + (depth > 0 ? "value" : "input"));
+                if (c == '"') {
+                    copyString(sink);
+                    continue;
+                }
+                in.read();
+                if (sink != null) sink.write(c);
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+            } while (depth > 0);
+        } else {
+            while ((c = in.peek()) != EOF
+                    && c != ','
+                    && c != '}'
+                    && c != ']'
+                    && c != ' '
+                    && c != '\n'
+                    && c != '\r'
+                    && c != '\t') {
+                in.read();
+                if (sink != null) sink.write(c);
+            }
+        }
+    }
+
+    private void copyString(ByteArrayOutputStream sink) throws IOException {
+        in.expect('"');
+        if (sink != null) sink.write('"');
+        boolean escaped = false;
+        while (true) {
+            int c = in.read();
+            if (c == EOF) throw in.error("unterminated string");
+            if (sink != null) sink.write(c);
+            if (escaped) escaped = false;
+            else if (c == '\\') escaped = true;
+            else if (c == '"') return;
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
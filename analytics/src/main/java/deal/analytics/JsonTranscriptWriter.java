@@ -1,39 +1,37 @@
 package deal.analytics;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 /** Very small JSON array writer: {"config":{...},"steps":[ ... ]} */
-final class JsonTranscriptWriter implements TranscriptWriter {
-    private final Writer out;
+final class JsonTranscriptWriter extends BufferedTranscriptWriter {
     private boolean first = true;
 
     JsonTranscriptWriter(Path path) throws IOException {
-        this.out = new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8);
+        this(path, FlushPolicy.defaults());
+    }
+
+    JsonTranscriptWriter(Path path, FlushPolicy policy) throws IOException {
+        super(path, policy);
     }
 
     @Override
     public void writeHeader(String gameConfigJson) throws IOException {
-        out.write("{\"config\":");
-        out.write(gameConfigJson == null ? "null" : gameConfigJson);
-        out.write(",\"steps\":[");
+        ensureOpen();
+        writeString("{\"config\":");
+        writeString(gameConfigJson == null ? "null" : gameConfigJson);
+        writeString(",\"steps\":[");
     }
 
     @Override
-    public void append(Step s) throws IOException {
-        if (!first) out.write(",");
+    void encode(Step s) throws IOException {
+        if (!first) writeByte(',');
         first = false;
-        out.write(JsonUtil.toJson(s));
+        JsonStepEncoder.encode(s, this);
     }
 
     @Override
-    public void close() throws IOException {
-        out.write("]}");
-        out.flush();
-        out.close();
+    void writeTrailer() throws IOException {
+        writeString("]}");
     }
 }
@@ -0,0 +1,300 @@
+package deal.analytics;
+
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.LegacyOfferPolicy.Params;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fits {@link LegacyOfferPolicy.Params} to the offers of an {@link OfferCorpus}: a coarse grid
+ * over the five tunables, then Nelder–Mead from the best grid point. The error is the mean
+ * squared relative difference between the curve's offer and the offer in the transcript.
+ *
+ * <p>Every evaluation runs the policy's primitive entry point over the corpus arrays, split into
+ * fixed-size leaves on a fork/join pool (no context objects, no boxing), and sums the leaves in a
+ * fixed tree order: fits are bit-for-bit identical at any parallelism. The curve rounds offers to
+ * banker steps, so the error is piecewise constant; the grid keeps the simplex from starting on a
+ * plateau far from the optimum. Not thread-safe: one fit at a time.
+ */
+public final class OfferCalibrator {
+    /** Offers per fork/join leaf; fixed so the sum order does not depend on the pool. */
+    static final int LEAF_OFFERS = 16_384;
+
+    /** Search box per tunable, in {@link Params} order. */
+    private static final double[] LOW = {0.30, 0.60, 0.80, 0.00, 0.00};
+
+    private static final double[] HIGH = {0.90, 1.00, 1.00, 0.20, 0.10};
+
+    /** A fit: the tunables and their error, next to the error of the defaults. */
+    public record Fit(Params params, double error, double defaultError, int evaluations) {
+        /** Root mean squared relative error of the fit, in percent. */
+        public double rmsPercent() {
+            return 100.0 * Math.sqrt(error);
+        }
+    }
+
+    private final OfferCorpus corpus;
+    private final ForkJoinPool pool;
+    private int evaluations;
+
+    public OfferCalibrator(OfferCorpus corpus, ForkJoinPool pool) {
+        if (corpus == null || corpus.size() == 0) {
+            throw new IllegalArgumentException("corpus must hold at least one offer");
+        }
+        if (pool == null) throw new IllegalArgumentException("pool must not be null");
+        this.corpus = corpus;
+        this.pool = pool;
+    }
+
+    /** A {@code gridSteps}-per-tunable grid, then at most {@code iterations} simplex steps. */
+    public Fit fit(int gridSteps, int iterations) {
+        evaluations = 0;
+        double defaultError = error(Params.DEFAULTS);
+        double[] start = gridSearch(gridSteps);
+        double[] best = nelderMead(start, iterations);
+        return new Fit(toParams(best), error(best), defaultError, evaluations);
+    }
+
+    /** Mean squared relative offer error of {@code params} over the corpus. */
+    public double error(Params params) {
+        evaluations++;
+        var policy = new LegacyOfferPolicy(params);
+        return pool.invoke(new Leaf(corpus, policy, 0, corpus.size)) / corpus.size;
+    }
+
+    /** {@link #error(Params)} of a point, or +inf outside the valid region. */
+    private double error(double[] x) {
+        Params p = toParams(x);
+        return p == null ? Double.POSITIVE_INFINITY : error(p);
+    }
+
+    // ---- grid ----
+
+    /** The best point of a {@code steps}^5 grid over the search box. */
+    double[] gridSearch(int steps) {
+        if (steps < 2) throw new IllegalArgumentException("grid steps must be >= 2");
+        int dims = LOW.length;
+        int points = (int) Math.pow(steps, dims);
+        double[] x = new double[dims];
+        double[] best = null;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < points; i++) {
+            for (int d = 0, rest = i; d < dims; d++, rest /= steps) {
+                x[d] = LOW[d] + (HIGH[d] - LOW[d]) * (rest % steps) / (steps - 1);
+            }
+            double e = error(x);
+            if (e < bestError) {
+                bestError = e;
+                best = x.clone();
+            }
+        }
+        if (best == null) throw new IllegalStateException("no valid grid point");
+        return best;
+    }
+
+    // ---- Nelder–Mead ----
+
+    private static final double REFLECT = 1.0;
+    private static final double EXPAND = 2.0;
+    private static final double CONTRACT = 0.5;
+    private static final double SHRINK = 0.5;
+    private static final double TOLERANCE = 1e-10;
+
+    /** Minimize from {@code start}; the first simplex steps 10% of the box along each axis. */
+    double[] nelderMead(double[] start, int iterations) {
+        int n = start.length;
+        double[][] simplex = new double[n + 1][];
+        double[] f = new double[n + 1];
+        simplex[0] = start.clone();
+        for (int d = 0; d < n; d++) {
+            double[] v = start.clone();
+            double step = 0.1 * (HIGH[d] - LOW[d]);
+            v[d] += v[d] + step <= HIGH[d] ? step : -step;
+            simplex[d + 1] = v;
+        }
+        for (int i = 0; i <= n; i++) f[i] = error(simplex[i]);
+
+        for (int it = 0; it < iterations; it++) {
+            sort(simplex, f);
+            if (f[n] - f[0] <= TOLERANCE * Math.max(1e-12, f[0])) break;
+
+            double[] centroid = new double[n];
+            for (int i = 0; i < n; i++) {
+                for (int d = 0; d < n; d++) centroid[d] += simplex[i][d] / n;
+            }
+            double[] reflected = along(centroid, simplex[n], -REFLECT);
+            double fr = error(reflected);
+            if (fr < f[0]) {
+                double[] expanded = along(centroid, simplex[n], -EXPAND);
+                double fe = error(expanded);
+                if (fe < fr) {
+                    simplex[n] = expanded;
+                    f[n] = fe;
+                } else {
+                    simplex[n] = reflected;
+                    f[n] = fr;
+                }
+            } else if (fr < f[n - 1]) {
+                simplex[n] = reflected;
+                f[n] = fr;
+            } else {
+                boolean outside = fr < f[n];
+                double[] contracted =
+                        along(centroid, outside ? reflected : simplex[n], CONTRACT);
+                double fc = error(contracted);
+                if (fc < Math.min(fr, f[n])) {
+                    simplex[n] = contracted;
+                    f[n] = fc;
+                } else {
+                    for (int i = 1; i <= n; i++) {
+                        simplex[i] = along(simplex[0], simplex[i], SHRINK);
+                        f[i] = error(simplex[i]);
+                    }
+                }
+            }
+        }
+        sort(simplex, f);
+        return simplex[0];
+    }
+
+    /** {@code from + t * (to - from)}. */
+    private static double[] along(double[] from, double[] to, double t) {
+        double[] out = new double[from.length];
+        for (int d = 0; d < out.length; d++) out[d] = from[d] + t * (to[d] - from[d]);
+        return out;
+    }
+
+    /** Order the vertices by error, best first (insertion sort: six vertices). */
+    private static void sort(double[][] simplex, double[] f) {
+        for (int i = 1; i < f.length; i++) {
+            double fi = f[i];
+            double[] vi = simplex[i];
+            int j = i - 1;
+            for (; j >= 0 && f[j] > fi; j--) {
+                f[j + 1] = f[j];
+                simplex[j + 1] = simplex[j];
+            }
+            f[j + 1] = fi;
+            simplex[j + 1] = vi;
+        }
+    }
+
+    private static Params toParams(double[] x) {
+        try {
+            return new Params(x[0], x[1], x[2], x[3], x[4]);
+        } catch (IllegalArgumentException outside) {
+            return null;
+        }
+    }
+
+    /** Sum of squared relative errors over offers [from, to). */
+    private static final class Leaf extends RecursiveTask<Double> {
+        private final OfferCorpus c;
+        private final OfferPolicy policy;
+        private final int from;
+        private final int to;
+
+        Leaf(OfferCorpus c, OfferPolicy policy, int from, int to) {
+            this.c = c;
+            this.policy = policy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= LEAF_OFFERS) {
+                double sum = 0.0;
+                for (int i = from; i < to; i++) {
+                    int predicted =
+                            policy.offer(
+                                    c.initialCount[i],
+                                    c.remainingCount[i],
+                                    c.sum[i],
+                                    c.sumSq[i],
+                                    c.min[i],
+                                    c.max[i],
+                                    c.initialCount[i] - c.remainingCount[i],
+                                    OfferPolicy.NO_LAST_OFFER);
+                    double rel = (predicted - c.offer[i]) / (double) c.offer[i];
+                    sum += rel * rel;
+                }
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            Leaf left = new Leaf(c, policy, from, mid);
+            Leaf right = new Leaf(c, policy, mid, to);
+            left.fork();
+            double r = right.compute();
+            return left.join() + r; // always left-then-right: sum order is fixed
+        }
+    }
+
+    /**
+     * {@code OfferCalibrator <dir> [--threads=N] [--grid=N] [--iterations=N]}: fit the curve to
+     * the offers of every transcript under {@code dir} and print the tunables.
+     */
+    public static void main(String[] args) throws IOException {
+        Path root = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int grid = 4;
+        int iterations = 200;
+        for (String a : args) {
+            if (a.startsWith("--threads=")) {
+                threads = Integer.parseInt(a.substring("--threads=".length()));
+            } else if (a.startsWith("--grid=")) {
+                grid = Integer.parseInt(a.substring("--grid=".length()));
+            } else if (a.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(a.substring("--iterations=".length()));
+            } else if (root == null) {
+                root = Path.of(a);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + a);
+            }
+        }
+        if (root == null) {
+            System.err.println(
+                    "Usage: OfferCalibrator <dir> [--threads=N] [--grid=N] [--iterations=N]");
+            System.exit(2);
+            return;
+        }
+
+        long t0 = System.nanoTime();
+        OfferCorpus corpus = OfferCorpus.load(root, threads);
+        if (corpus.size() == 0) {
+            System.err.println("No offers with remaining amounts under " + root);
+            System.exit(1);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Fit fit = new OfferCalibrator(corpus, pool).fit(grid, iterations);
+            Params p = fit.params();
+            System.out.printf(
+                    Locale.US,
+                    "%d offers, %d evaluations, %d ms%n",
+                    corpus.size(),
+                    fit.evaluations(),
+                    (System.nanoTime() - t0) / 1_000_000);
+            System.out.printf(
+                    Locale.US,
+                    "startRatio=%.4f endRatio=%.4f maxRatio=%.4f minPadFrac=%.4f maxPadFrac=%.4f%n",
+                    p.startRatio(),
+                    p.endRatio(),
+                    p.maxRatio(),
+                    p.minPadFrac(),
+                    p.maxPadFrac());
+            System.out.printf(
+                    Locale.US,
+                    "rms relative error %.2f%% (defaults: %.2f%%)%n",
+                    fit.rmsPercent(),
+                    100.0 * Math.sqrt(fit.defaultError()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package deal.analytics;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * The banker offers of a transcript corpus, as structure-of-arrays primitives ready for {@link
+ * OfferCalibrator}: per offer, the aggregates the offer policy is given (initial case count,
+ * remaining count, sum, sum of squares, min, max of the remaining amounts) and the offer that was
+ * made. Nothing is boxed, so millions of offers cost a few dozen bytes each.
+ *
+ * <p>Only {@code offer} steps that list the remaining amounts are used. A game's initial case
+ * count is the most cases it is seen with (its first {@code start_round} lists them all).
+ * Not thread-safe; {@link #load} fills one per file in parallel and merges them in file order.
+ */
+public final class OfferCorpus {
+    private static final int MIN_CASES = 2;
+    private static final int MAX_CASES = 25;
+
+    int size;
+    int[] initialCount = new int[16];
+    int[] remainingCount = new int[16];
+    long[] sum = new long[16];
+    long[] sumSq = new long[16];
+    int[] min = new int[16];
+    int[] max = new int[16];
+    int[] offer = new int[16];
+
+    /** Offers waiting for the game's case count, which may still grow. */
+    private int gameStart;
+
+    private int gameCases;
+
+    /** Number of offers loaded. */
+    public int size() {
+        return size;
+    }
+
+    /** Start a game; offers added since the last call are done. */
+    public void beginGame() {
+        gameStart = size;
+        gameCases = 0;
+    }
+
+    public void add(Step s) {
+        List<Integer> amounts = s.remainingAmounts;
+        if (amounts == null || amounts.isEmpty()) return;
+        int cases = amounts.size() + ("open_case".equals(s.action) ? 1 : 0);
+        if (cases > gameCases) {
+            gameCases = cases;
+            Arrays.fill(initialCount, gameStart, size, cases);
+        }
+        if (!"offer".equals(s.action) || s.offer == null || s.offer <= 0) return;
+        if (gameCases < MIN_CASES || gameCases > MAX_CASES) return;
+
+        long total = 0L, squares = 0L;
+        int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+        for (int i = 0, n = amounts.size(); i < n; i++) {
+            int a = amounts.get(i);
+            total += a;
+            squares += (long) a * a;
+            lo = Math.min(lo, a);
+            hi = Math.max(hi, a);
+        }
+        ensureCapacity(size + 1);
+        initialCount[size] = gameCases;
+        remainingCount[size] = amounts.size();
+        sum[size] = total;
+        sumSq[size] = squares;
+        min[size] = lo;
+        max[size] = hi;
+        offer[size] = s.offer;
+        size++;
+    }
+
+    /** Every game of {@code reader}, split on {@link TranscriptReader#game()}. */
+    public void addGames(TranscriptReader reader) throws IOException {
+        long game = Long.MIN_VALUE;
+        for (Step s = reader.next(); s != null; s = reader.next()) {
+            if (reader.game() != game) {
+                beginGame();
+                game = reader.game();
+            }
+            add(s);
+        }
+        beginGame();
+    }
+
+    /** Append {@code other}'s offers after this one's. */
+    public void merge(OfferCorpus other) {
+        ensureCapacity(size + other.size);
+        int n = other.size;
+        System.arraycopy(other.initialCount, 0, initialCount, size, n);
+        System.arraycopy(other.remainingCount, 0, remainingCount, size, n);
+        System.arraycopy(other.sum, 0, sum, size, n);
+        System.arraycopy(other.sumSq, 0, sumSq, size, n);
+        System.arraycopy(other.min, 0, min, size, n);
+        System.arraycopy(other.max, 0, max, size, n);
+        System.arraycopy(other.offer, 0, offer, size, n);
+        size += n;
+        beginGame();
+    }
+
+    /**
+     * Offers of every transcript under {@code root} (same formats as {@link TranscriptAggregator};
+     * {@code .dna} logs replay the default banker's offers, so they only fit back to it), files
+     * read on {@code threads} threads. The result does not depend on the thread count.
+     */
+    public static OfferCorpus load(Path root, int threads) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files =
+                    walk.filter(Files::isRegularFile)
+                            .filter(TranscriptAggregator::isTranscript)
+                            .sorted()
+                            .toList();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<OfferCorpus>> parts = new ArrayList<>(files.size());
+            for (Path p : files) parts.add(pool.submit(() -> read(p)));
+            var corpus = new OfferCorpus();
+            for (Future<OfferCorpus> f : parts) corpus.merge(f.get());
+            return corpus;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + root, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Loading failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** The offers of one file. */
+    static OfferCorpus read(Path p) throws IOException {
+        var corpus = new OfferCorpus();
+        try {
+            if (p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".dnd")) {
+                try (var r = DndTranscriptReader.open(p)) {
+                    for (int g = 0; g < r.gameCount(); g++) {
+                        var game = r.game(g);
+                        corpus.beginGame();
+                        for (int i = 0; i < game.stepCount(); i++) corpus.add(game.step(i));
+                    }
+                }
+            } else {
+                try (var r = TranscriptReader.fromPath(p)) {
+                    corpus.addGames(r);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IOException(p + ": " + e.getMessage(), e);
+        }
+        return corpus;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= offer.length) return;
+        int capacity = Math.max(needed, offer.length * 2);
+        initialCount = Arrays.copyOf(initialCount, capacity);
+        remainingCount = Arrays.copyOf(remainingCount, capacity);
+        sum = Arrays.copyOf(sum, capacity);
+        sumSq = Arrays.copyOf(sumSq, capacity);
+        min = Arrays.copyOf(min, capacity);
+        max = Arrays.copyOf(max, capacity);
+        offer = Arrays.copyOf(offer, capacity);
+    }
+}
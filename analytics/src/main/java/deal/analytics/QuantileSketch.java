@@ -0,0 +1,225 @@
+package deal.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-memory, mergeable quantile sketch for non-negative values (dollars, offer/EV ratios):
+ * any quantile it reports is within a relative error {@code alpha} of a value at that rank.
+ *
+ * <p>Buckets grow geometrically by {@code gamma = (1 + alpha) / (1 - alpha)} over [{@value
+ * #MIN_TRACKED}, {@value #MAX_TRACKED}]; values below the range count as 0 and values above it
+ * land in the top bucket. At the default 1% that is about 1,600 {@code long} counts (13 KB),
+ * whatever the number of samples. Count, sum, min and max are exact.
+ *
+ * <p>Use one per thread and {@link #merge} them (counts add, so merging is exact and
+ * order-independent), or {@link #writeTo write} them out and {@link #readFrom read} them back to
+ * combine runs. Not thread-safe.
+ */
+public final class QuantileSketch {
+    public static final double DEFAULT_ALPHA = 0.01;
+
+    /** Smallest value told apart from 0. */
+    public static final double MIN_TRACKED = 1e-4;
+
+    /** Largest value with its own bucket. */
+    public static final double MAX_TRACKED = 1e10;
+
+    private static final int MAGIC = 0x44514B31; // "DQK1"
+
+    private final double alpha;
+    private final double logGamma;
+    private final double estimateFactor; // bucket lower bound -> value reported for it
+    private final long[] counts;
+    private long zeroCount;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int lowest = Integer.MAX_VALUE; // non-empty bucket range, for merge and scans
+    private int highest = -1;
+
+    public QuantileSketch() {
+        this(DEFAULT_ALPHA);
+    }
+
+    /** Sketch with relative accuracy {@code alpha}, in [0.0001..0.5]. */
+    public QuantileSketch(double alpha) {
+        if (!(alpha >= 1e-4 && alpha <= 0.5)) {
+            throw new IllegalArgumentException("alpha must be in [0.0001..0.5], got " + alpha);
+        }
+        double gamma = (1 + alpha) / (1 - alpha);
+        this.alpha = alpha;
+        this.logGamma = Math.log(gamma);
+        this.estimateFactor = 2 * gamma / (1 + gamma);
+        this.counts = new long[(int) Math.ceil(Math.log(MAX_TRACKED / MIN_TRACKED) / logGamma)];
+    }
+
+    public double alpha() {
+        return alpha;
+    }
+
+    public void add(double value) {
+        if (!(value >= 0.0)) {
+            throw new IllegalArgumentException("value must be >= 0, got " + value);
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value < MIN_TRACKED) {
+            zeroCount++;
+            return;
+        }
+        int i = Math.min(counts.length - 1, (int) (Math.log(value / MIN_TRACKED) / logGamma));
+        counts[i]++;
+        lowest = Math.min(lowest, i);
+        highest = Math.max(highest, i);
+    }
+
+    /** Fold {@code o} into this ({@code o} is left untouched). */
+    public QuantileSketch merge(QuantileSketch o) {
+        if (o.alpha != alpha) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches of accuracy " + alpha + " and " + o.alpha);
+        }
+        if (o.count == 0) return this;
+        for (int i = o.lowest; i <= o.highest; i++) counts[i] += o.counts[i];
+        zeroCount += o.zeroCount;
+        count += o.count;
+        sum += o.sum;
+        min = Math.min(min, o.min);
+        max = Math.max(max, o.max);
+        lowest = Math.min(lowest, o.lowest);
+        highest = Math.max(highest, o.highest);
+        return this;
+    }
+
+    public QuantileSketch copy() {
+        return new QuantileSketch(alpha).merge(this);
+    }
+
+    /** Back to empty. */
+    public void clear() {
+        if (highest >= 0) Arrays.fill(counts, lowest, highest + 1, 0L);
+        zeroCount = count = 0L;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        lowest = Integer.MAX_VALUE;
+        highest = -1;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Mean of the values added; NaN if none were. */
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /** Smallest value added; NaN if none were. */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** Largest value added; NaN if none were. */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Nearest-rank quantile, {@code q} in [0, 1], within {@link #alpha()} of the true value
+     * (exact at 0 and 1, clamped to [min, max] in between); NaN if empty.
+     */
+    public double quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) throw new IllegalArgumentException("q must be in [0,1]: " + q);
+        if (count == 0) return Double.NaN;
+        if (q == 0.0) return min;
+        if (q == 1.0) return max;
+        long rank = Math.max(1, (long) Math.ceil(q * count)); // 1-based
+        long seen = zeroCount;
+        if (seen >= rank) return min;
+        for (int i = lowest; i <= highest; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                double estimate = MIN_TRACKED * Math.exp(i * logGamma) * estimateFactor;
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    // ---- serialization ----
+
+    /** Write this sketch; only non-empty buckets take space (12 bytes each). */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeDouble(alpha);
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeDouble(sum);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        int nonEmpty = 0;
+        for (int i = lowest; i <= highest; i++) if (counts[i] != 0) nonEmpty++;
+        out.writeInt(nonEmpty);
+        for (int i = lowest; i <= highest; i++) {
+            if (counts[i] == 0) continue;
+            out.writeInt(i);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    /** A sketch written by {@link #writeTo}. */
+    public static QuantileSketch readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a quantile sketch");
+        QuantileSketch s;
+        try {
+            s = new QuantileSketch(in.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt quantile sketch: " + e.getMessage());
+        }
+        s.count = in.readLong();
+        s.zeroCount = in.readLong();
+        s.sum = in.readDouble();
+        s.min = in.readDouble();
+        s.max = in.readDouble();
+        int nonEmpty = in.readInt();
+        long total = s.zeroCount;
+        for (int k = 0; k < nonEmpty; k++) {
+            int i = in.readInt();
+            long c = in.readLong();
+            if (i < 0 || i >= s.counts.length || c <= 0) {
+                throw new IOException("Corrupt quantile sketch: bucket " + i + " count " + c);
+            }
+            s.counts[i] = c;
+            s.lowest = Math.min(s.lowest, i);
+            s.highest = Math.max(s.highest, i);
+            total += c;
+        }
+        if (total != s.count) {
+            throw new IOException("Corrupt quantile sketch: counts do not add up");
+        }
+        return s;
+    }
+
+    /** Same accuracy and same counts (sum compared bit for bit). */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof QuantileSketch s
+                && alpha == s.alpha
+                && count == s.count
+                && zeroCount == s.zeroCount
+                && Double.compare(sum, s.sum) == 0
+                && Arrays.equals(counts, s.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(count) * 31 + Arrays.hashCode(counts);
+    }
+}
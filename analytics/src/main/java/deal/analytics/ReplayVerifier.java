@@ -0,0 +1,358 @@
+package deal.analytics;
+
+import static deal.analytics.ActionLogFormat.*;
+
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.Phase;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Replays every game of a corpus of {@code .dna} action logs through {@link Engine} and checks the
+ * outcomes they recorded ({@link ActionLogWriter#offered}, {@link ActionLogWriter#prize}, {@link
+ * ActionLogWriter#result}) bit for bit: the regression gate for changes to the engine or the
+ * banker. Each diverging game is reported once, at its first diverging step, numbered like the
+ * steps {@link ActionLogReader} expands the game into.
+ *
+ * <p>The calling thread streams the files in order and cuts them into batches of games, which a
+ * pool replays; at most a few batches per thread are in flight and their results are merged in
+ * corpus order, so memory stays flat however big the corpus is and the report does not depend on
+ * the thread count.
+ */
+public final class ReplayVerifier {
+    /** Games per batch handed to a worker. */
+    static final int BATCH_GAMES = 4_096;
+
+    /** Divergences kept for the report; every diverging game is still counted. */
+    public static final int DEFAULT_MAX_REPORTED = 100;
+
+    /**
+     * The first step at which a replayed game differs from its recording. {@code check} is {@code
+     * open_case}, {@code offer} or {@code result} for a recorded outcome the replay does not
+     * reproduce ({@code replayed} is null if it has none), or {@code replay} when the engine
+     * rejects a recorded move.
+     */
+    public record Divergence(
+            Path file,
+            long game,
+            int step,
+            String check,
+            Integer recorded,
+            Integer replayed,
+            String detail) {
+        @Override
+        public String toString() {
+            String where = file + " game " + game + " step " + step + ": ";
+            if (check.equals("replay")) return where + "does not replay: " + detail;
+            return where + check + " recorded " + recorded + ", replayed " + replayed;
+        }
+    }
+
+    /** Totals of a run and its first divergences, in corpus order. */
+    public record Report(
+            long files, long games, long steps, long diverged, List<Divergence> divergences) {
+        public boolean ok() {
+            return diverged == 0;
+        }
+
+        public String summary() {
+            var out = new StringBuilder();
+            out.append(
+                    String.format(
+                            Locale.US,
+                            "files=%d games=%d steps=%d diverged=%d%n",
+                            files,
+                            games,
+                            steps,
+                            diverged));
+            for (Divergence d : divergences) out.append(d).append(System.lineSeparator());
+            if (divergences.size() < diverged) {
+                out.append("... ").append(diverged - divergences.size()).append(" more");
+                out.append(System.lineSeparator());
+            }
+            return out.toString();
+        }
+    }
+
+    private final OfferPolicy banker;
+    private final int threads;
+    private final int maxReported;
+
+    /** Replays with the default banker on every processor. */
+    public ReplayVerifier() {
+        this(
+                LegacyOfferPolicy.DEFAULT,
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_MAX_REPORTED);
+    }
+
+    public ReplayVerifier(OfferPolicy banker, int threads, int maxReported) {
+        if (banker == null) throw new IllegalArgumentException("banker must not be null");
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (maxReported < 0) throw new IllegalArgumentException("maxReported must be >= 0");
+        this.banker = banker;
+        this.threads = threads;
+        this.maxReported = maxReported;
+    }
+
+    /** Verify every {@code .dna} file under {@code root} (or {@code root} itself, if a file). */
+    public Report verify(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files =
+                    walk.filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().endsWith(".dna"))
+                            .sorted()
+                            .toList();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        var total = new Part(maxReported);
+        ArrayDeque<Future<Part>> inFlight = new ArrayDeque<>();
+        try {
+            for (Path p : files) {
+                try (InputStream stream = Files.newInputStream(p)) {
+                    var games = new GameStream(p, stream);
+                    for (Batch next = games.next(); next != null; next = games.next()) {
+                        if (inFlight.size() == 2 * threads) total.merge(inFlight.poll().get());
+                        Batch b = next;
+                        inFlight.add(pool.submit(() -> replay(b)));
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) total.merge(inFlight.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying " + root, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Verification failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(
+                files.size(),
+                total.games,
+                total.steps,
+                total.diverged,
+                List.copyOf(total.divergences));
+    }
+
+    // ---- input ----
+
+    /** Consecutive games of one file, moves decoded, ready to replay on any thread. */
+    static final class Batch {
+        final Path file;
+        final long firstGame;
+        int games;
+        final GameConfig[] configs = new GameConfig[BATCH_GAMES];
+        final long[] seeds = new long[BATCH_GAMES];
+        final int[] ends = new int[BATCH_GAMES]; // end of each game's moves in codes/args
+        int moves;
+        byte[] codes = new byte[BATCH_GAMES * 16];
+        int[] args = new int[BATCH_GAMES * 16];
+
+        Batch(Path file, long firstGame) {
+            this.file = file;
+            this.firstGame = firstGame;
+        }
+
+        void add(int code, int arg) {
+            if (moves == codes.length) {
+                codes = Arrays.copyOf(codes, 2 * moves);
+                args = Arrays.copyOf(args, 2 * moves);
+            }
+            codes[moves] = (byte) code;
+            args[moves] = arg;
+            moves++;
+        }
+    }
+
+    /** Cuts one {@code .dna} stream into batches; the ladders shared between games are resolved. */
+    static final class GameStream {
+        private final Path file;
+        private final ActionLogDecoder in;
+
+        GameStream(Path file, InputStream stream) throws IOException {
+            this.file = file;
+            this.in = new ActionLogDecoder(stream, false); // configs are not needed to replay
+        }
+
+        /** The next batch, or null at the end of the file. */
+        Batch next() throws IOException {
+            Batch b = null;
+            while ((b == null || b.games < BATCH_GAMES) && in.nextGame()) {
+                if (b == null) b = new Batch(file, in.game());
+                b.configs[b.games] = in.gameConfig();
+                b.seeds[b.games] = in.seed();
+                for (int code = in.nextMove(); code != END; code = in.nextMove()) {
+                    b.add(code, in.arg());
+                }
+                b.ends[b.games++] = b.moves;
+            }
+            return b;
+        }
+    }
+
+    // ---- replay ----
+
+    /** Counts and first divergences of a run of consecutive games. */
+    private static final class Part {
+        final int maxReported;
+        long games;
+        long steps;
+        long diverged;
+        final List<Divergence> divergences = new ArrayList<>();
+
+        Part(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void diverged(Divergence d) {
+            diverged++;
+            if (divergences.size() < maxReported) divergences.add(d);
+        }
+
+        void merge(Part other) {
+            games += other.games;
+            steps += other.steps;
+            diverged += other.diverged;
+            for (Divergence d : other.divergences) {
+                if (divergences.size() == maxReported) break;
+                divergences.add(d);
+            }
+        }
+    }
+
+    private Part replay(Batch b) {
+        var part = new Part(maxReported);
+        int from = 0;
+        for (int g = 0; g < b.games; g++) {
+            part.games++;
+            var d = replay(b, g, from, part);
+            if (d != null) part.diverged(d);
+            from = b.ends[g];
+        }
+        return part;
+    }
+
+    /** Replay game {@code g} of {@code b} (moves from {@code from}); null if it matches. */
+    private Divergence replay(Batch b, int g, int from, Part part) {
+        long game = b.firstGame + g;
+        var engine = new Engine(b.configs[g], b.seeds[g], banker);
+        GameState s = engine.start();
+        int step = 0;
+        Integer prize = null; // of the case opened by the previous move
+        try {
+            for (int i = from; i < b.ends[g]; i++) {
+                int code = b.codes[i];
+                int arg = b.args[i];
+                if (code != PRIZE) prize = null;
+                switch (code) {
+                    case PICK -> s = engine.pickPlayerCase(s, arg);
+                    case OPEN_K -> {
+                        step++;
+                        s = engine.chooseToOpen(s, arg);
+                    }
+                    case OPEN -> {
+                        step++;
+                        s = engine.openCase(s, arg);
+                        prize = s.amountOf(arg);
+                    }
+                    case OFFERED, DEAL, NO_DEAL, COUNTER -> {
+                        if (s.phase() != Phase.OFFER) {
+                            step++; // the offer step
+                            s = engine.computeOffer(s);
+                        }
+                        if (code == OFFERED) {
+                            Integer offer = s.currentOfferDollars();
+                            if (!Objects.equals(offer, arg)) {
+                                return new Divergence(
+                                        b.file, game, step, "offer", arg, offer, null);
+                            }
+                            continue; // the decision follows
+                        }
+                        step++;
+                        if (code == DEAL) {
+                            s = engine.acceptDeal(s);
+                        } else if (code == NO_DEAL) {
+                            s = engine.declineDeal(s);
+                        } else {
+                            s = engine.resolveCounter(engine.proposeCounter(s, arg));
+                        }
+                    }
+                    case KEEP, SWAP -> {
+                        step++;
+                        s = engine.revealFinal(s, code == SWAP);
+                    }
+                    case PRIZE -> {
+                        if (!Objects.equals(prize, arg)) {
+                            return new Divergence(
+                                    b.file, game, step, "open_case", arg, prize, null);
+                        }
+                    }
+                    case RESULT -> {
+                        Integer result = s.resultDollars();
+                        if (!Objects.equals(result, arg)) {
+                            return new Divergence(
+                                    b.file, game, step, "result", arg, result, null);
+                        }
+                    }
+                    default -> throw new IllegalStateException("action code " + code);
+                }
+            }
+            return null;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return new Divergence(b.file, game, step, "replay", null, null, e.getMessage());
+        } finally {
+            part.steps += step;
+        }
+    }
+
+    /**
+     * {@code ReplayVerifier <dir|file> [--threads=N] [--max-reported=N]}: print the report; exit
+     * 1 if any game diverges.
+     */
+    public static void main(String[] args) throws IOException {
+        Path root = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxReported = DEFAULT_MAX_REPORTED;
+        for (String a : args) {
+            if (a.startsWith("--threads=")) {
+                threads = Integer.parseInt(a.substring("--threads=".length()));
+            } else if (a.startsWith("--max-reported=")) {
+                maxReported = Integer.parseInt(a.substring("--max-reported=".length()));
+            } else if (root == null) {
+                root = Path.of(a);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + a);
+            }
+        }
+        if (root == null) {
+            System.err.println("Usage: ReplayVerifier <dir|file> [--threads=N] [--max-reported=N]");
+            System.exit(2);
+            return;
+        }
+        long t0 = System.nanoTime();
+        var verifier = new ReplayVerifier(LegacyOfferPolicy.DEFAULT, threads, maxReported);
+        Report report = verifier.verify(root);
+        System.out.print(report.summary());
+        System.out.printf("%d threads, %d ms%n", threads, (System.nanoTime() - t0) / 1_000_000);
+        if (!report.ok()) System.exit(1);
+    }
+}
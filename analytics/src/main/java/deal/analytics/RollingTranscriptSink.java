@@ -0,0 +1,381 @@
+package deal.analytics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transcript sink for long-running processes: many games go into a series of segment files in
+ * one directory, as JSON Lines ({@code {"game":N,"config":...}} then one {@code {"game":N,...}}
+ * line per step) or in the CSV layout (a {@code # config:} line starts each game).
+ *
+ * <p>Every {@link #writeHeader} starts a game. A new segment is started at a game boundary once
+ * the current one reaches {@link Options#withMaxSegmentBytes size} or {@link
+ * Options#withMaxSegmentAge age}, so games never straddle segments and a segment overshoots the
+ * size limit by at most one game. Finished segments are gzipped on a background thread, so the
+ * writing thread never waits for compression, and the oldest finished segments are deleted to
+ * keep the directory under {@link Options#withMaxTotalBytes the disk cap}. Not thread-safe.
+ */
+public final class RollingTranscriptSink implements TranscriptWriter {
+
+    /** Record layout of the segments. */
+    public enum Layout {
+        JSON_LINES(".jsonl"),
+        CSV(".csv");
+
+        private final String extension;
+
+        Layout(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /** Rotation, retention and compression settings; immutable, change with the withers. */
+    public static final class Options {
+        public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+        public static final long DEFAULT_TOTAL_BYTES = 4L << 30;
+        public static final Duration DEFAULT_SEGMENT_AGE = Duration.ofHours(1);
+
+        private static final Options DEFAULTS =
+                new Options(
+                        DEFAULT_SEGMENT_BYTES,
+                        DEFAULT_SEGMENT_AGE,
+                        DEFAULT_TOTAL_BYTES,
+                        true,
+                        FlushPolicy.defaults());
+
+        final long maxSegmentBytes;
+        final Duration maxSegmentAge;
+        final long maxTotalBytes;
+        final boolean compress;
+        final FlushPolicy flush;
+
+        private Options(
+                long maxSegmentBytes,
+                Duration maxSegmentAge,
+                long maxTotalBytes,
+                boolean compress,
+                FlushPolicy flush) {
+            if (maxSegmentBytes < 1) {
+                throw new IllegalArgumentException(
+                        "maxSegmentBytes must be >= 1, got " + maxSegmentBytes);
+            }
+            if (maxSegmentAge == null || maxSegmentAge.isNegative() || maxSegmentAge.isZero()) {
+                throw new IllegalArgumentException(
+                        "maxSegmentAge must be positive, got " + maxSegmentAge);
+            }
+            if (maxTotalBytes <= maxSegmentBytes) {
+                throw new IllegalArgumentException(
+                        "maxTotalBytes ("
+                                + maxTotalBytes
+                                + ") must exceed maxSegmentBytes ("
+                                + maxSegmentBytes
+                                + ")");
+            }
+            if (flush == null) throw new IllegalArgumentException("flush must not be null");
+            this.maxSegmentBytes = maxSegmentBytes;
+            this.maxSegmentAge = maxSegmentAge;
+            this.maxTotalBytes = maxTotalBytes;
+            this.compress = compress;
+            this.flush = flush;
+        }
+
+        /** 64 MiB or one-hour segments, 4 GiB on disk, gzip on, buffered writes. */
+        public static Options defaults() {
+            return DEFAULTS;
+        }
+
+        /** Start a new segment once the current one holds this many (uncompressed) bytes. */
+        public Options withMaxSegmentBytes(long bytes) {
+            return new Options(bytes, maxSegmentAge, maxTotalBytes, compress, flush);
+        }
+
+        /** Start a new segment once the current one has been open this long. */
+        public Options withMaxSegmentAge(Duration age) {
+            return new Options(maxSegmentBytes, age, maxTotalBytes, compress, flush);
+        }
+
+        /**
+         * Delete the oldest finished segments while they exceed {@code bytes - maxSegmentBytes},
+         * leaving room for the segment being written.
+         */
+        public Options withMaxTotalBytes(long bytes) {
+            return new Options(maxSegmentBytes, maxSegmentAge, bytes, compress, flush);
+        }
+
+        /** Gzip finished segments ({@code .jsonl.gz}, {@code .csv.gz}) in the background. */
+        public Options withCompression(boolean on) {
+            return new Options(maxSegmentBytes, maxSegmentAge, maxTotalBytes, on, flush);
+        }
+
+        /** When buffered records reach the active segment. */
+        public Options withFlush(FlushPolicy policy) {
+            return new Options(maxSegmentBytes, maxSegmentAge, maxTotalBytes, compress, policy);
+        }
+    }
+
+    private static final DateTimeFormatter STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path dir;
+    private final String prefix;
+    private final Layout layout;
+    private final Options options;
+    private final Clock clock;
+    private final Segments out;
+    private final ExecutorService background;
+    private final Deque<Path> finished = new ArrayDeque<>(); // background thread only
+    private long finishedBytes;
+    private volatile IOException backgroundFailure;
+
+    private FileChannel channel; // null until the first record
+    private Path current;
+    private Instant openedAt;
+    private long segmentStart; // out.position() when the segment was opened
+    private int sequence;
+    private long nextGame;
+    private long game = -1; // id of the game being written
+    private boolean closed;
+
+    public RollingTranscriptSink(Path dir, String prefix, Layout layout) throws IOException {
+        this(dir, prefix, layout, Options.defaults());
+    }
+
+    public RollingTranscriptSink(Path dir, String prefix, Layout layout, Options options)
+            throws IOException {
+        this(dir, prefix, layout, options, Clock.systemUTC());
+    }
+
+    RollingTranscriptSink(Path dir, String prefix, Layout layout, Options options, Clock clock)
+            throws IOException {
+        if (prefix == null || prefix.isBlank() || prefix.contains("/") || prefix.contains("\\")) {
+            throw new IllegalArgumentException("prefix must be a plain file name, got " + prefix);
+        }
+        if (layout == null || options == null || clock == null) {
+            throw new IllegalArgumentException("layout, options and clock must not be null");
+        }
+        this.dir = Files.createDirectories(dir);
+        this.prefix = prefix;
+        this.layout = layout;
+        this.options = options;
+        this.clock = clock;
+        this.out = new Segments(options.flush.bufferBytes());
+        this.background =
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "transcript-segments-" + prefix);
+                            t.setDaemon(true);
+                            return t;
+                        });
+        try {
+            adoptExistingSegments();
+        } catch (IOException | RuntimeException e) {
+            background.shutdown();
+            throw e;
+        }
+    }
+
+    /** Start a new game; may first close the current segment and open the next one. */
+    @Override
+    public void writeHeader(String gameConfigJson) throws IOException {
+        ensureOpen();
+        if (channel == null || segmentFull()) roll();
+        game = nextGame++;
+        String config =
+                gameConfigJson == null || gameConfigJson.isBlank() ? "null" : gameConfigJson;
+        if (layout == Layout.JSON_LINES) {
+            JsonStepEncoder.encodeHeader(game, config, out);
+        } else {
+            CsvStepEncoder.encodeConfig(config, out); // marks the game boundary
+        }
+    }
+
+    @Override
+    public void append(Step s) throws IOException {
+        var event = new TranscriptEvents.Append();
+        event.begin();
+        ensureOpen();
+        if (channel == null) roll();
+        if (game < 0) game = nextGame++; // steps without a header
+        if (layout == Layout.JSON_LINES) JsonStepEncoder.encode(s, game, out);
+        else CsvStepEncoder.encode(s, out);
+        FlushPolicy p = options.flush;
+        boolean flushed =
+                p.flushAfterStep() || (p.flushAfterGame() && BufferedTranscriptWriter.endsGame(s));
+        if (flushed) out.flush();
+        event.commit(this, s, flushed);
+    }
+
+    /**
+     * Finish the last segment and wait for background compression and cleanup to complete.
+     * Rethrows the first background failure, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        var event = new TranscriptEvents.Close();
+        event.begin();
+        try {
+            finishSegment();
+        } finally {
+            background.shutdown();
+            try {
+                background.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while finishing transcript segments", e);
+            }
+        }
+        if (backgroundFailure != null) throw backgroundFailure;
+        event.commit(this, out.position());
+    }
+
+    /** The segment being written, or null before the first record (for tests and tooling). */
+    Path currentSegment() {
+        return current;
+    }
+
+    // ---- segments ----
+
+    private boolean segmentFull() {
+        return out.position() - segmentStart >= options.maxSegmentBytes
+                || Duration.between(openedAt, clock.instant()).compareTo(options.maxSegmentAge)
+                        >= 0;
+    }
+
+    private void roll() throws IOException {
+        finishSegment();
+        openedAt = clock.instant();
+        while (true) {
+            Path p =
+                    dir.resolve(
+                            prefix
+                                    + "-"
+                                    + STAMP.format(openedAt)
+                                    + "-"
+                                    + String.format("%04d", sequence++)
+                                    + layout.extension);
+            try {
+                channel =
+                        FileChannel.open(
+                                p, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                current = p;
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // an earlier run in the same second: try the next sequence number
+            }
+        }
+        segmentStart = out.position();
+        if (layout == Layout.CSV) out.writeString(CsvStepEncoder.HEADER);
+    }
+
+    private void finishSegment() throws IOException {
+        if (channel == null) return;
+        try {
+            out.flush();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+        Path done = current;
+        background.execute(() -> retire(done));
+    }
+
+    /** Background: compress a finished segment, then enforce the disk cap. */
+    private void retire(Path segment) {
+        try {
+            boolean gzipped = segment.getFileName().toString().endsWith(".gz");
+            Path kept = options.compress && !gzipped ? gzip(segment) : segment;
+            finished.addLast(kept);
+            finishedBytes += Files.size(kept);
+            long budget = options.maxTotalBytes - options.maxSegmentBytes;
+            while (finishedBytes > budget && !finished.isEmpty()) {
+                Path oldest = finished.removeFirst();
+                finishedBytes -= Files.size(oldest);
+                Files.deleteIfExists(oldest);
+            }
+        } catch (IOException e) {
+            if (backgroundFailure == null) backgroundFailure = e;
+        }
+    }
+
+    /**
+     * Segments of an earlier run with this prefix count against the cap, oldest first. Those a
+     * crash left uncompressed are retired like any finished segment, so they are gzipped too.
+     */
+    private void adoptExistingSegments() throws IOException {
+        Pattern name =
+                Pattern.compile(
+                        Pattern.quote(prefix)
+                                + "-\\d{8}T\\d{6}-\\d{4,}"
+                                + Pattern.quote(layout.extension)
+                                + "(\\.gz)?");
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> old =
+                    files.filter(p -> name.matcher(p.getFileName().toString()).matches())
+                            .sorted() // names start with a UTC timestamp
+                            .toList();
+            for (Path p : old) {
+                if (old.contains(p.resolveSibling(p.getFileName() + ".gz"))) {
+                    Files.delete(p); // the crash came after the .gz was complete
+                    continue;
+                }
+                background.execute(() -> retire(p));
+            }
+        }
+    }
+
+    private static Path gzip(Path src) throws IOException {
+        Path gz = src.resolveSibling(src.getFileName() + ".gz");
+        Path tmp = src.resolveSibling(src.getFileName() + ".gz.tmp");
+        try (InputStream in = Files.newInputStream(src);
+                OutputStream os = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+            in.transferTo(os);
+        }
+        Files.move(tmp, gz, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(src);
+        return gz;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Transcript sink is closed");
+    }
+
+    /** The shared buffer; drains into whichever segment is open. */
+    private final class Segments extends ByteOutput {
+        Segments(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        void drain(ByteBuffer full) throws IOException {
+            while (full.hasRemaining()) channel.write(full);
+        }
+    }
+}
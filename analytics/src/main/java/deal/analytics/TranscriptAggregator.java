@@ -0,0 +1,138 @@
+package deal.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates every transcript ({@code .json}, {@code .csv}, {@code .dnd}, {@code .dna} action logs,
+ * and the {@code .jsonl} and gzipped segments of a {@link RollingTranscriptSink}) under a directory
+ * into one {@link TranscriptStats}. The tree is walked lazily and each worker thread pulls the next
+ * file, streams it through its own partial stats, and the partials are merged at the end, so
+ * memory stays flat in both the number of files and the number of steps.
+ *
+ * <p>A file that fails to parse is counted in {@link TranscriptStats#failedFiles()} and contributes
+ * nothing else; the run carries on.
+ */
+public final class TranscriptAggregator {
+    private final int threads;
+
+    public TranscriptAggregator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public TranscriptAggregator(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        this.threads = threads;
+    }
+
+    /** Aggregate every transcript file under {@code root} (or {@code root} itself, if a file). */
+    public TranscriptStats aggregate(Path root) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (Stream<Path> walk = Files.walk(root)) {
+            Iterator<Path> files =
+                    walk.filter(Files::isRegularFile)
+                            .filter(TranscriptAggregator::isTranscript)
+                            .iterator();
+            List<Future<TranscriptStats>> partials = new ArrayList<>();
+            for (int t = 0; t < threads; t++) partials.add(pool.submit(() -> drain(files)));
+
+            var total = new TranscriptStats();
+            for (Future<TranscriptStats> f : partials) total.merge(f.get());
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aggregating " + root, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            throw new IllegalStateException("Aggregation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** One worker: take files until none are left; returns this thread's partial. */
+    private static TranscriptStats drain(Iterator<Path> files) {
+        var partial = new TranscriptStats();
+        var file = new TranscriptStats(); // reused per file so a bad file leaves no trace
+        while (true) {
+            Path p;
+            synchronized (files) {
+                if (!files.hasNext()) return partial; // a walk failure surfaces as Unchecked
+                p = files.next();
+            }
+            file.clear();
+            try {
+                read(p, file);
+                file.fileRead();
+                partial.merge(file);
+            } catch (IOException | RuntimeException e) {
+                partial.fileFailed(p + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** Stream one file into {@code stats}. */
+    static void read(Path p, TranscriptStats stats) throws IOException {
+        String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".dna")) {
+            try (var r = ActionLogReader.open(p, false)) { // the stats never look at the lists
+                stats.addGames(r);
+            }
+        } else if (name.endsWith(".dnd")) {
+            try (var r = DndTranscriptReader.open(p)) {
+                for (int g = 0; g < r.gameCount(); g++) {
+                    var game = r.game(g);
+                    stats.beginGame();
+                    for (int i = 0; i < game.stepCount(); i++) stats.add(game.step(i));
+                    stats.endGame();
+                }
+            }
+        } else {
+            try (var r = TranscriptReader.fromPath(p)) {
+                stats.addGames(r);
+            }
+        }
+    }
+
+    static boolean isTranscript(Path p) {
+        String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".dnd")) return true;
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - ".gz".length());
+        return name.endsWith(".json")
+                || name.endsWith(".jsonl")
+                || name.endsWith(".csv")
+                || name.endsWith(".dna");
+    }
+
+    /** {@code TranscriptAggregator <dir> [--threads=N]}: print the report for a corpus. */
+    public static void main(String[] args) throws IOException {
+        Path root = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String a : args) {
+            if (a.startsWith("--threads=")) {
+                threads = Integer.parseInt(a.substring("--threads=".length()));
+            } else if (root == null) {
+                root = Path.of(a);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + a);
+            }
+        }
+        if (root == null) {
+            System.err.println("Usage: TranscriptAggregator <dir> [--threads=N]");
+            System.exit(2);
+            return;
+        }
+        System.out.print(new TranscriptAggregator(threads).aggregate(root).report());
+    }
+}
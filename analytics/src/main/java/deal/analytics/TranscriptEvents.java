@@ -0,0 +1,80 @@
+package deal.analytics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events for transcript writes, so a stalled append can be matched with the GC
+ * pause or file flush behind it. Like the engine's events ({@code deal.engine.*}) they are
+ * disabled by default and enabled through the recording settings.
+ */
+final class TranscriptEvents {
+    private TranscriptEvents() {}
+
+    @Name("deal.transcript.Append")
+    @Label("Transcript Append")
+    @Category({"Deal or No Deal", "Transcript"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Append extends Event {
+        @Label("Writer")
+        String writer;
+
+        @Label("Action")
+        String action;
+
+        @Label("Round Index")
+        int roundIndex;
+
+        @Label("Remaining Cases")
+        @Description("Cases left in the step, 0 if it does not list them")
+        int remainingCount;
+
+        @Label("Offer")
+        @Description("Banker offer in dollars, 0 if none")
+        int offer;
+
+        @Label("Flushed")
+        @Description("Whether the append wrote the buffer to the file")
+        boolean flushed;
+
+        /** End the event for {@code s}, if it is being recorded. */
+        void commit(TranscriptWriter w, TranscriptWriter.Step s, boolean flushed) {
+            if (!shouldCommit()) return;
+            writer = w.getClass().getSimpleName();
+            action = s.action;
+            roundIndex = s.round;
+            remainingCount = s.remainingCases == null ? 0 : s.remainingCases.size();
+            offer = s.offer == null ? 0 : s.offer;
+            this.flushed = flushed;
+            commit();
+        }
+    }
+
+    @Name("deal.transcript.Close")
+    @Label("Transcript Close")
+    @Category({"Deal or No Deal", "Transcript"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Close extends Event {
+        @Label("Writer")
+        String writer;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        void commit(TranscriptWriter w, long bytes) {
+            if (!shouldCommit()) return;
+            writer = w.getClass().getSimpleName();
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package deal.analytics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Byte-level cursor over a transcript stream with one byte of lookahead, shared by the text
+ * readers. Numbers are parsed straight from the buffer; only strings and doubles allocate.
+ */
+final class TranscriptInput {
+    static final int EOF = -1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buf = new byte[BUFFER_BYTES];
+    private int pos;
+    private int limit;
+    private long offset; // of buf[0] in the stream, for error messages
+    private byte[] scratch = new byte[64];
+
+    TranscriptInput(InputStream in) {
+        this.in = in;
+    }
+
+    int peek() throws IOException {
+        if (pos == limit && !fill()) return EOF;
+        return buf[pos] & 0xFF;
+    }
+
+    int read() throws IOException {
+        if (pos == limit && !fill()) return EOF;
+        return buf[pos++] & 0xFF;
+    }
+
+    void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') pos++;
+    }
+
+    /** Consume {@code c} or fail. */
+    void expect(int c) throws IOException {
+        int got = read();
+        if (got != c) throw unexpected("'" + (char) c + "'", got);
+    }
+
+    /** Consume {@code word} (e.g. {@code null}) or fail. */
+    void expect(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) expect(word.charAt(i));
+    }
+
+    /** Optional minus sign and decimal digits, parsed without allocating. */
+    long readLong() throws IOException {
+        boolean negative = peek() == '-';
+        if (negative) pos++;
+        int c = peek();
+        if (c < '0' || c > '9') throw unexpected("a digit", c);
+        long v = 0L;
+        while ((c = peek()) >= '0' && c <= '9') {
+            v = v * 10 + (c - '0');
+            pos++;
+        }
+        return negative ? -v : v;
+    }
+
+    int readInt() throws IOException {
+        long v = readLong();
+        if (v != (int) v) throw error("number out of int range: " + v);
+        return (int) v;
+    }
+
+    /** The characters of a JSON/Java number literal, parsed with {@link Double#parseDouble}. */
+    double readDouble() throws IOException {
+        int n = 0;
+        int c;
+        while (isNumberChar(c = peek())) {
+            n = appendScratch(n, c);
+            pos++;
+        }
+        if (n == 0) throw unexpected("a number", c);
+        try {
+            return Double.parseDouble(new String(scratch, 0, n, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw error("bad number: " + new String(scratch, 0, n, StandardCharsets.US_ASCII));
+        }
+    }
+
+    /** An unsigned LEB128 varint, as {@link ByteOutput#writeVarLong} writes it. */
+    long readVarLong() throws IOException {
+        long v = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = read();
+            if (b == EOF) throw unexpected("a varint byte", b);
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw error("varint longer than 64 bits");
+    }
+
+    int readVarInt() throws IOException {
+        long v = readVarLong();
+        if (v >>> 31 != 0) throw error("varint out of int range: " + v);
+        return (int) v;
+    }
+
+    /** A big-endian 8-byte long. */
+    long readFixedLong() throws IOException {
+        long v = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int b = read();
+            if (b == EOF) throw unexpected("a long", b);
+            v = v << 8 | b;
+        }
+        return v;
+    }
+
+    /** Appends the next byte to a growable scratch area; used to collect strings. */
+    int appendScratch(int n, int b) {
+        if (n == scratch.length) scratch = Arrays.copyOf(scratch, n * 2);
+        scratch[n] = (byte) b;
+        return n + 1;
+    }
+
+    String scratchString(int n) {
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /** Whether the first {@code n} scratch bytes spell {@code ascii}. */
+    boolean scratchEquals(int n, byte[] ascii) {
+        if (n != ascii.length) return false;
+        for (int i = 0; i < n; i++) if (scratch[i] != ascii[i]) return false;
+        return true;
+    }
+
+    /** Space-separated ints up to (not including) {@code end}. */
+    List<Integer> readIntList(int end) throws IOException {
+        List<Integer> out = new ArrayList<>();
+        while (true) {
+            while (peek() == ' ') pos++;
+            if (peek() == end) return out;
+            out.add(readInt());
+        }
+    }
+
+    /** The rest of the current line without its terminator, or null at end of input. */
+    String readLine() throws IOException {
+        if (peek() == EOF) return null;
+        int n = 0;
+        int c;
+        while ((c = read()) != EOF && c != '\n') n = appendScratch(n, c);
+        if (n > 0 && scratch[n - 1] == '\r') n--;
+        return scratchString(n);
+    }
+
+    IOException unexpected(String expected, int found) {
+        return error("expected " + expected + " but found " + describe(found));
+    }
+
+    IOException error(String what) {
+        return new IOException("Malformed transcript at byte " + (offset + pos) + ": " + what);
+    }
+
+    /** Digits, signs, '.', exponents and the letters of {@code NaN} / {@code Infinity}. */
+    private static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9')
+                || c == '-'
+                || c == '+'
+                || c == '.'
+                || (c >= 'A' && c <= 'Z')
+                || (c >= 'a' && c <= 'z');
+    }
+
+    static String describe(int c) {
+        return c == EOF ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package deal.analytics;
+
+import deal.analytics.TranscriptWriter.Step;
+import deal.core.offer.LegacyOfferPolicy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader for the text transcripts written by {@link TranscriptWriter} and {@link
+ * RollingTranscriptSink}: one step is decoded per {@link #next()}, so memory stays flat however
+ * long the file is. Binary {@code .dnd} files have their own random-access {@link
+ * DndTranscriptReader}.
+ *
+ * <p>Multi-game files (JSON Lines, rolling CSV segments) are read as one stream of steps; {@link
+ * #game()} tells which game the last step belongs to. Each game's steps are contiguous.
+ */
+public interface TranscriptReader extends Closeable {
+
+    /**
+     * The header given to {@code writeHeader} for the current game, as written, or null if there
+     * was none.
+     */
+    String config();
+
+    /** Id of the game the last {@link #next()} step belongs to; 0 for one-game files. */
+    default long game() {
+        return 0L;
+    }
+
+    /** The next step, or null once the transcript is exhausted. */
+    Step next() throws IOException;
+
+    /**
+     * Reader for {@code path}, format by extension like {@link TranscriptWriter#fromPath}, plus
+     * {@code .jsonl} and gzipped ({@code .gz}) segments of a {@link RollingTranscriptSink} and
+     * {@code .dna} action logs, replayed with the default banker.
+     */
+    static TranscriptReader fromPath(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        InputStream in = Files.newInputStream(path);
+        try {
+            if (name.endsWith(".gz")) {
+                in = new GZIPInputStream(in, 64 * 1024);
+                name = name.substring(0, name.length() - ".gz".length());
+            }
+            if (name.endsWith(".csv")) return new CsvTranscriptReader(in);
+            if (name.endsWith(".jsonl")) return JsonTranscriptReader.lines(in);
+            if (name.endsWith(".dna")) {
+                return new ActionLogReader(in, true, LegacyOfferPolicy.DEFAULT);
+            }
+            return new JsonTranscriptReader(in); // default, like the writer
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package deal.analytics;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Mergeable aggregate over transcript steps: offers and deals per round, the offer/EV ratio and
+ * counteroffer acceptance, with {@link QuantileSketch}es of the offers and offer/EV ratios per
+ * round and of the final winnings. Memory is a few arrays and sketches per round, whatever the
+ * number of steps.
+ *
+ * <p>Feed it game by game ({@link #beginGame()}, {@link #add(Step)}..., {@link #endGame()}) or
+ * whole readers with {@link #addGame(TranscriptReader)} and {@link #addGames(TranscriptReader)}.
+ * Game boundaries matter: a counteroffer recorded without its outcome (as older CLI transcripts
+ * have them) is counted as accepted when it is the last step of its game and rejected when play
+ * goes on. Not thread-safe; use one per thread and {@link #merge} them.
+ */
+public final class TranscriptStats {
+    private long files;
+    private long failedFiles;
+    private String firstFailure;
+    private long games;
+    private long steps;
+    private int maxRound;
+    private long[] offers = new long[16]; // index = round
+    private long[] deals = new long[16];
+    private double[] offerToEvSum = new double[16];
+    private long[] offerToEvCount = new long[16];
+    private QuantileSketch[] offerSketch = new QuantileSketch[16]; // created on first offer
+    private QuantileSketch[] offerToEvSketch = new QuantileSketch[16];
+    private final QuantileSketch winnings = new QuantileSketch();
+    private long counterOffers;
+    private long countersAccepted;
+
+    private boolean inGame;
+    private boolean counterPending; // last step was a counteroffer with no recorded outcome
+    private int pendingCounter;
+
+    /** Start a new game (ends the current one, if any). */
+    public void beginGame() {
+        if (inGame) endGame();
+        inGame = true;
+    }
+
+    public void add(Step s) {
+        if (!inGame) beginGame();
+        steps++;
+        resolvePendingCounter(false);
+        int round = Math.max(0, s.round);
+        if (round >= offers.length) grow(round + 1);
+        maxRound = Math.max(maxRound, round);
+        switch (s.action == null ? "" : s.action) {
+            case "offer" -> {
+                offers[round]++;
+                if (s.offer != null && s.offer >= 0) sketch(offerSketch, round).add(s.offer);
+                if (s.offer != null && s.ev != null && s.ev > 0.0) {
+                    offerToEvSum[round] += s.offer / s.ev;
+                    offerToEvCount[round]++;
+                    if (s.offer >= 0) sketch(offerToEvSketch, round).add(s.offer / s.ev);
+                }
+            }
+            case "deal" -> {
+                deals[round]++;
+                won(s.openedPrize != null ? s.openedPrize : s.offer);
+            }
+            case "final_result" -> won(s.openedPrize);
+            case "counteroffer" -> {
+                counterOffers++;
+                if (s.accepted == null) {
+                    counterPending = true;
+                    pendingCounter = s.counteroffer != null ? s.counteroffer : -1;
+                } else if (s.accepted) {
+                    countersAccepted++;
+                    won(s.counteroffer);
+                }
+            }
+            default -> {}
+        }
+    }
+
+    public void endGame() {
+        if (!inGame) return;
+        resolvePendingCounter(true);
+        games++;
+        inGame = false;
+    }
+
+    /** Every step of {@code reader} as one game. */
+    public void addGame(TranscriptReader reader) throws IOException {
+        beginGame();
+        for (Step s = reader.next(); s != null; s = reader.next()) add(s);
+        endGame();
+    }
+
+    /** Every step of a multi-game reader, split into games by {@link TranscriptReader#game()}. */
+    public void addGames(TranscriptReader reader) throws IOException {
+        long current = 0L;
+        for (Step s = reader.next(); s != null; s = reader.next()) {
+            if (!inGame || reader.game() != current) {
+                beginGame();
+                current = reader.game();
+            }
+            add(s);
+        }
+        endGame();
+    }
+
+    /** Fold {@code o} into this (o is left untouched; its open game, if any, is ignored). */
+    public TranscriptStats merge(TranscriptStats o) {
+        files += o.files;
+        failedFiles += o.failedFiles;
+        if (firstFailure == null) firstFailure = o.firstFailure;
+        games += o.games;
+        steps += o.steps;
+        if (o.maxRound >= offers.length) grow(o.maxRound + 1);
+        maxRound = Math.max(maxRound, o.maxRound);
+        for (int r = 0; r <= o.maxRound; r++) {
+            offers[r] += o.offers[r];
+            deals[r] += o.deals[r];
+            offerToEvSum[r] += o.offerToEvSum[r];
+            offerToEvCount[r] += o.offerToEvCount[r];
+            if (o.offerSketch[r] != null) sketch(offerSketch, r).merge(o.offerSketch[r]);
+            if (o.offerToEvSketch[r] != null) {
+                sketch(offerToEvSketch, r).merge(o.offerToEvSketch[r]);
+            }
+        }
+        winnings.merge(o.winnings);
+        counterOffers += o.counterOffers;
+        countersAccepted += o.countersAccepted;
+        return this;
+    }
+
+    // ---- results ----
+
+    /** Transcript files read successfully (counted by {@link TranscriptAggregator}). */
+    public long files() {
+        return files;
+    }
+
+    /** Files that failed to parse; they contribute nothing to the other figures. */
+    public long failedFiles() {
+        return failedFiles;
+    }
+
+    /** Message of one failed file, or null if none failed. */
+    public String firstFailure() {
+        return firstFailure;
+    }
+
+    public long games() {
+        return games;
+    }
+
+    public long steps() {
+        return steps;
+    }
+
+    /** Highest round seen in any step. */
+    public int maxRound() {
+        return maxRound;
+    }
+
+    /** Banker offers made in {@code round}. */
+    public long offers(int round) {
+        return round >= 0 && round <= maxRound ? offers[round] : 0L;
+    }
+
+    /** Offers accepted in {@code round}. */
+    public long deals(int round) {
+        return round >= 0 && round <= maxRound ? deals[round] : 0L;
+    }
+
+    /** Fraction of {@code round}'s offers that were accepted; NaN if none were made. */
+    public double dealRate(int round) {
+        long n = offers(round);
+        return n == 0 ? Double.NaN : deals(round) / (double) n;
+    }
+
+    /** Mean offer/EV over all offers with a positive EV; NaN if there were none. */
+    public double meanOfferToEv() {
+        double sum = 0.0;
+        long n = 0L;
+        for (int r = 0; r <= maxRound; r++) {
+            sum += offerToEvSum[r];
+            n += offerToEvCount[r];
+        }
+        return n == 0 ? Double.NaN : sum / n;
+    }
+
+    /** Mean offer/EV over {@code round}'s offers; NaN if there were none. */
+    public double meanOfferToEv(int round) {
+        if (round < 0 || round > maxRound || offerToEvCount[round] == 0) return Double.NaN;
+        return offerToEvSum[round] / offerToEvCount[round];
+    }
+
+    /** Distribution of {@code round}'s offers in dollars (a copy; empty if none were made). */
+    public QuantileSketch offerDistribution(int round) {
+        return copyOf(offerSketch, round);
+    }
+
+    /** Distribution of {@code round}'s offer/EV ratios (a copy; empty if none were made). */
+    public QuantileSketch offerToEvDistribution(int round) {
+        return copyOf(offerToEvSketch, round);
+    }
+
+    /**
+     * Distribution of final winnings in dollars, over games whose result is recorded: a deal, an
+     * accepted counteroffer or the final reveal (a copy).
+     */
+    public QuantileSketch winnings() {
+        return winnings.copy();
+    }
+
+    public long counterOffers() {
+        return counterOffers;
+    }
+
+    public long countersAccepted() {
+        return countersAccepted;
+    }
+
+    /** Fraction of counteroffers the banker accepted; NaN if none were made. */
+    public double counterAcceptanceRate() {
+        return counterOffers == 0 ? Double.NaN : countersAccepted / (double) counterOffers;
+    }
+
+    /** Multi-line human report: totals, then one line per round that saw an offer. */
+    public String report() {
+        var sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        Locale.US,
+                        "files=%d failed=%d games=%d steps=%d | offer/EV mean=%.3f | counters=%d"
+                                + " accepted=%d (%.1f%%)%n",
+                        files,
+                        failedFiles,
+                        games,
+                        steps,
+                        meanOfferToEv(),
+                        counterOffers,
+                        countersAccepted,
+                        100.0 * counterAcceptanceRate()));
+        if (winnings.count() > 0) {
+            sb.append(
+                    String.format(
+                            Locale.US,
+                            "winnings: n=%d mean=%.0f p50=%.0f p90=%.0f p99=%.0f%n",
+                            winnings.count(),
+                            winnings.mean(),
+                            winnings.quantile(0.50),
+                            winnings.quantile(0.90),
+                            winnings.quantile(0.99)));
+        }
+        for (int r = 0; r <= maxRound; r++) {
+            if (offers[r] == 0) continue;
+            sb.append(
+                    String.format(
+                            Locale.US,
+                            "round %2d: offers=%d deals=%d dealRate=%.3f offer/EV=%.3f",
+                            r,
+                            offers[r],
+                            deals[r],
+                            dealRate(r),
+                            meanOfferToEv(r)));
+            QuantileSketch o = offerSketch[r];
+            if (o != null) {
+                sb.append(
+                        String.format(
+                                Locale.US,
+                                " | offer p50/p90/p99=%.0f/%.0f/%.0f",
+                                o.quantile(0.50),
+                                o.quantile(0.90),
+                                o.quantile(0.99)));
+            }
+            QuantileSketch ratio = offerToEvSketch[r];
+            if (ratio != null) {
+                sb.append(
+                        String.format(
+                                Locale.US,
+                                " offer/EV p50/p90/p99=%.3f/%.3f/%.3f",
+                                ratio.quantile(0.50),
+                                ratio.quantile(0.90),
+                                ratio.quantile(0.99)));
+            }
+            sb.append(System.lineSeparator());
+        }
+        if (firstFailure != null) sb.append("first failure: ").append(firstFailure).append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+    // ---- package-private plumbing for TranscriptAggregator ----
+
+    void fileRead() {
+        files++;
+    }
+
+    void fileFailed(String message) {
+        failedFiles++;
+        if (firstFailure == null) firstFailure = message;
+    }
+
+    /** Back to empty, keeping the arrays. */
+    void clear() {
+        files = failedFiles = games = steps = counterOffers = countersAccepted = 0L;
+        firstFailure = null;
+        Arrays.fill(offers, 0L);
+        Arrays.fill(deals, 0L);
+        Arrays.fill(offerToEvSum, 0.0);
+        Arrays.fill(offerToEvCount, 0L);
+        for (QuantileSketch q : offerSketch) if (q != null) q.clear();
+        for (QuantileSketch q : offerToEvSketch) if (q != null) q.clear();
+        winnings.clear();
+        maxRound = 0;
+        inGame = counterPending = false;
+    }
+
+    private void resolvePendingCounter(boolean gameOver) {
+        if (!counterPending) return;
+        counterPending = false;
+        if (gameOver) {
+            countersAccepted++;
+            won(pendingCounter);
+        }
+    }
+
+    private void won(Integer dollars) {
+        if (dollars != null && dollars >= 0) winnings.add(dollars);
+    }
+
+    /** The sketch for {@code round}, created on first use. */
+    private static QuantileSketch sketch(QuantileSketch[] byRound, int round) {
+        QuantileSketch q = byRound[round];
+        if (q == null) byRound[round] = q = new QuantileSketch();
+        return q;
+    }
+
+    private QuantileSketch copyOf(QuantileSketch[] byRound, int round) {
+        if (round < 0 || round > maxRound || byRound[round] == null) return new QuantileSketch();
+        return byRound[round].copy();
+    }
+
+    private void grow(int rounds) {
+        int n = Math.max(rounds, offers.length * 2);
+        offers = Arrays.copyOf(offers, n);
+        deals = Arrays.copyOf(deals, n);
+        offerToEvSum = Arrays.copyOf(offerToEvSum, n);
+        offerToEvCount = Arrays.copyOf(offerToEvCount, n);
+        offerSketch = Arrays.copyOf(offerSketch, n);
+        offerToEvSketch = Arrays.copyOf(offerToEvSketch, n);
+    }
+}
@@ -6,7 +6,10 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 
-/** Minimal transcript interface. CSV/JSON writers live in this module. */
+/**
+ * Minimal transcript interface. CSV/JSON writers live in this module, as does the binary {@code
+ * .dnd} writer (read back with {@link DndTranscriptReader}).
+ */
 public interface TranscriptWriter extends Closeable {
 
     /** One row/event in the transcript. All dollar amounts are integers (USD). */
@@ -61,8 +64,14 @@ public interface TranscriptWriter extends Closeable {
     void close() throws IOException;
 
     static TranscriptWriter fromPath(Path path) throws IOException {
+        return fromPath(path, FlushPolicy.defaults());
+    }
+
+    /** Writer for {@code path} (format by extension) that flushes according to {@code flush}. */
+    static TranscriptWriter fromPath(Path path, FlushPolicy flush) throws IOException {
         String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
-        if (name.endsWith(".csv")) return new CsvTranscriptWriter(path);
-        return new JsonTranscriptWriter(path); // default
+        if (name.endsWith(".csv")) return new CsvTranscriptWriter(path, flush);
+        if (name.endsWith(".dnd")) return new DndTranscriptWriter(path, flush);
+        return new JsonTranscriptWriter(path, flush); // default
     }
 }
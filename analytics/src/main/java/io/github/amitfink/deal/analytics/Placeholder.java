@@ -1,5 +0,0 @@
-package io.github.amitfink.deal.analytics;
-
-public final class Placeholder {
-    private Placeholder() {}
-}
@@ -0,0 +1,142 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.RandomPlay.Played;
+import deal.analytics.TranscriptWriter.Step;
+import deal.core.GameConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ActionLogTest {
+    @TempDir Path dir;
+
+    private static final int GAMES = 200;
+
+    private List<Played> record(Path file) throws IOException {
+        List<Played> played = new ArrayList<>();
+        try (var log = new ActionLogWriter(file)) {
+            for (int g = 0; g < GAMES; g++) {
+                long seed = 1_000L + g;
+                var cfg = GameConfig.of(g % 2 == 0 ? 25 : 10);
+                played.add(RandomPlay.play(cfg, seed, "{\"seed\":" + seed + "}", log, false));
+            }
+        }
+        return played;
+    }
+
+    @Test
+    void replays_every_game_into_the_steps_the_engine_produced() throws IOException {
+        Path file = dir.resolve("games.dna");
+        List<Played> played = record(file);
+
+        try (var r = TranscriptReader.fromPath(file)) {
+            List<Step> steps = new ArrayList<>();
+            long game = 0L;
+            for (Step s = r.next(); ; s = r.next()) {
+                if (s == null || r.game() != game) {
+                    check(steps, played.get((int) game));
+                    if (s == null) break;
+                    assertThat(r.game()).isEqualTo(game + 1);
+                    game = r.game();
+                    steps.clear();
+                }
+                assertThat(r.config()).isEqualTo("{\"seed\":" + (1_000L + game) + "}");
+                steps.add(s);
+            }
+            assertThat(game).isEqualTo(GAMES - 1);
+        }
+    }
+
+    private static void check(List<Step> steps, Played expected) {
+        List<Integer> offers = new ArrayList<>();
+        for (Step s : steps) {
+            assertThat(s.remainingAmounts).hasSize(s.remainingCases.size());
+            if (s.action.equals("offer")) offers.add(s.offer);
+            if (s.action.equals("open_case")) {
+                assertThat(s.remainingCases).doesNotContain(s.openedCaseId);
+            }
+        }
+        assertThat(offers).isEqualTo(expected.offers());
+        Step last = steps.get(steps.size() - 1);
+        assertThat(last.action).isIn("deal", "counteroffer", "final_result");
+        assertThat(last.openedPrize == null ? last.counteroffer : last.openedPrize)
+                .isEqualTo(expected.result());
+    }
+
+    @Test
+    void is_an_order_of_magnitude_smaller_and_aggregates_without_lists() throws IOException {
+        Path log = dir.resolve("games.dna");
+        record(log);
+
+        Path full = dir.resolve("full.jsonl");
+        var fullStats = new TranscriptStats();
+        try (var r = TranscriptReader.fromPath(log);
+                var out = new ConcurrentTranscriptSink(full)) {
+            long game = -1L;
+            for (Step s = r.next(); s != null; s = r.next()) {
+                if (r.game() != game) {
+                    if (game >= 0) out.endGame(game);
+                    game = out.beginGame(r.config());
+                    fullStats.beginGame();
+                }
+                out.append(game, s);
+                fullStats.add(s);
+            }
+            fullStats.endGame();
+        }
+        assertThat(Files.size(log) * 10).isLessThan(Files.size(full));
+
+        var lean = new TranscriptStats();
+        try (var r = ActionLogReader.open(log, false)) {
+            Step first = r.next();
+            assertThat(first.remainingCases).isNull();
+            lean.add(first);
+            lean.addGames(r);
+        }
+        assertThat(lean.report()).isEqualTo(fullStats.report());
+        assertThat(lean.games()).isEqualTo(GAMES);
+
+        TranscriptStats aggregated = new TranscriptAggregator(2).aggregate(dir);
+        assertThat(aggregated.games()).isEqualTo(2 * GAMES); // the log and its expansion
+        assertThat(aggregated.failedFiles()).isZero();
+    }
+
+    @Test
+    void a_log_that_does_not_replay_fails_with_the_offset() throws IOException {
+        Path file = dir.resolve("bad.dna");
+        var cfg = GameConfig.of(10);
+        try (var log = new ActionLogWriter(file)) {
+            log.beginGame(null, cfg, 5L);
+            log.pick(3);
+            log.chooseToOpen(2);
+            log.open(3); // the player's own case
+        }
+        try (var r = TranscriptReader.fromPath(file)) {
+            assertThat(r.next().action).isEqualTo("start_round");
+            assertThatThrownBy(r::next)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("at byte")
+                    .hasMessageContaining("does not replay");
+        }
+
+        byte[] good = Files.readAllBytes(dir.resolve("bad.dna"));
+        Files.write(file, Arrays.copyOf(good, good.length - 3));
+        try (var r = TranscriptReader.fromPath(file)) {
+            assertThatThrownBy(() -> {
+                        while (r.next() != null) {}
+                    })
+                    .isInstanceOf(IOException.class);
+        }
+
+        try (var log = new ActionLogWriter(dir.resolve("x.dna"))) {
+            assertThatThrownBy(() -> log.pick(1)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConcurrentTranscriptSinkTest {
+    @TempDir Path dir;
+
+    private static final int THREADS = 4;
+    private static final int GAMES_PER_THREAD = 250;
+
+    /** Game {@code n} of thread {@code t}: 1 to 7 offers declined, then one taken. */
+    private static List<Step> game(int t, int n) {
+        List<Integer> cases = List.of(1, 2, 3);
+        List<Integer> amounts = List.of(1, 10, 100 + t);
+        List<Step> steps = new ArrayList<>();
+        int rounds = 1 + n % 7;
+        for (int r = 1; r <= rounds; r++) {
+            int offer = 1000 * t + n;
+            boolean last = r == rounds;
+            steps.add(
+                    new Step(
+                            2 * r - 1,
+                            r,
+                            "offer",
+                            null,
+                            null,
+                            cases,
+                            amounts,
+                            offer,
+                            40.0,
+                            null,
+                            null));
+            steps.add(
+                    new Step(
+                            2 * r,
+                            r,
+                            last ? "deal" : "nodeal",
+                            null,
+                            last ? offer : null,
+                            cases,
+                            amounts,
+                            offer,
+                            40.0,
+                            last,
+                            null));
+        }
+        return steps;
+    }
+
+    /** Plays every game from {@value #THREADS} threads; returns config by game id. */
+    private Map<Long, String> play(ConcurrentTranscriptSink sink) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Map<Long, String>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(
+                        pool.submit(
+                                () -> {
+                                    Map<Long, String> ids = new HashMap<>();
+                                    for (int n = 0; n < GAMES_PER_THREAD; n++) {
+                                        String cfg = "{\"t\":" + thread + ",\"n\":" + n + "}";
+                                        long id = sink.beginGame(cfg);
+                                        for (Step s : game(thread, n)) sink.append(id, s);
+                                        sink.endGame(id);
+                                        ids.put(id, cfg);
+                                    }
+                                    return ids;
+                                }));
+            }
+            Map<Long, String> all = new HashMap<>();
+            for (var f : results) all.putAll(f.get());
+            return all;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** "t,n" of a game's config, to find its expected steps. */
+    private static int[] threadAndGame(String cfg) {
+        String[] parts = cfg.replaceAll("[^0-9,]", "").split(",");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    @Test
+    void json_lines_from_many_threads_split_back_into_whole_games() throws Exception {
+        Path file = dir.resolve("all.jsonl");
+        Map<Long, String> ids;
+        try (var sink = new ConcurrentTranscriptSink(file, 16 * 1024)) {
+            ids = play(sink);
+            assertThat(sink.games()).isEqualTo((long) THREADS * GAMES_PER_THREAD);
+        }
+        assertThat(ids).hasSize(THREADS * GAMES_PER_THREAD);
+
+        Map<Long, List<Step>> byGame = new HashMap<>();
+        long previous = -1L;
+        try (var r = TranscriptReader.fromPath(file)) {
+            for (Step s = r.next(); s != null; s = r.next()) {
+                if (r.game() != previous) {
+                    // each game is contiguous: it starts once and carries its own config
+                    assertThat(byGame.containsKey(r.game())).isFalse();
+                    assertThat(r.config()).isEqualTo(ids.get(r.game()));
+                    previous = r.game();
+                }
+                byGame.computeIfAbsent(r.game(), g -> new ArrayList<>()).add(s);
+            }
+        }
+        assertThat(byGame).hasSize(THREADS * GAMES_PER_THREAD);
+        for (var e : byGame.entrySet()) {
+            int[] tn = threadAndGame(ids.get(e.getKey()));
+            List<Step> expected = game(tn[0], tn[1]);
+            assertThat(e.getValue()).hasSize(expected.size());
+            assertThat(e.getValue().get(0).offer).isEqualTo(expected.get(0).offer);
+        }
+
+        TranscriptStats stats = new TranscriptAggregator(1).aggregate(file);
+        assertThat(stats.games()).isEqualTo(THREADS * GAMES_PER_THREAD);
+        assertThat(stats.deals(1) + stats.deals(7)).isPositive();
+    }
+
+    @Test
+    void dnd_index_finds_every_game_written_by_many_threads() throws Exception {
+        Path file = dir.resolve("all.dnd");
+        Map<Long, String> ids;
+        try (var sink = new ConcurrentTranscriptSink(file, 16 * 1024)) {
+            ids = play(sink);
+        }
+
+        try (var r = DndTranscriptReader.open(file)) {
+            assertThat(r.gameCount()).isEqualTo(THREADS * GAMES_PER_THREAD);
+            List<String> configs = new ArrayList<>();
+            long steps = 0L;
+            for (int g = 0; g < r.gameCount(); g++) {
+                var game = r.game(g);
+                int[] tn = threadAndGame(game.config());
+                List<Step> expected = game(tn[0], tn[1]);
+                assertThat(game.stepCount()).isEqualTo(expected.size());
+                Step last = game.step(game.stepCount() - 1);
+                assertThat(last.action).isEqualTo("deal");
+                assertThat(last.openedPrize).isEqualTo(1000 * tn[0] + tn[1]);
+                assertThat(game.step(0).remainingAmounts).isEqualTo(List.of(1, 10, 100 + tn[0]));
+                configs.add(game.config());
+                steps += game.stepCount();
+            }
+            assertThat(configs).containsExactlyInAnyOrder(ids.values().toArray());
+            assertThat(r.stepCount()).isEqualTo(steps);
+        }
+    }
+
+    @Test
+    void a_thread_plays_one_game_at_a_time() throws IOException {
+        try (var sink = new ConcurrentTranscriptSink(dir.resolve("x.jsonl"))) {
+            long id = sink.beginGame("{}");
+            assertThatThrownBy(() -> sink.beginGame("{}"))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> sink.append(id + 1, game(0, 0).get(0)))
+                    .isInstanceOf(IllegalStateException.class);
+            sink.append(id, game(0, 0).get(0));
+            // left open: close() ends it
+        }
+        try (var r = TranscriptReader.fromPath(dir.resolve("x.jsonl"))) {
+            assertThat(r.next().offer).isEqualTo(0);
+            assertThat(r.next()).isNull();
+        }
+    }
+
+    @Test
+    void rejects_other_extensions_and_use_after_close() throws IOException {
+        assertThatThrownBy(() -> new ConcurrentTranscriptSink(dir.resolve("x.json")))
+                .isInstanceOf(IllegalArgumentException.class);
+        var sink = new ConcurrentTranscriptSink(dir.resolve("y.dnd"));
+        sink.close();
+        sink.close();
+        assertThatThrownBy(() -> sink.beginGame("{}")).isInstanceOf(IOException.class);
+        try (var r = DndTranscriptReader.open(dir.resolve("y.dnd"))) {
+            assertThat(r.gameCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DndTranscriptTest {
+    @TempDir Path dir;
+
+    /** A 5-case game shaped like the CLI's: start, open, offer, counter, then a deal. */
+    private static List<Step> game(int offer) {
+        var cases = List.of(1, 2, 3, 4, 5);
+        var amounts = List.of(1, 10, 10, 500, 1_000); // repeated amount on purpose
+        return List.of(
+                new Step(1, 1, "start_round", null, null, cases, amounts, null, null, null, null),
+                new Step(
+                        2,
+                        1,
+                        "open_case",
+                        4,
+                        10,
+                        List.of(1, 2, 3, 5),
+                        List.of(1, 10, 500, 1_000),
+                        null,
+                        null,
+                        null,
+                        null),
+                new Step(
+                        3,
+                        1,
+                        "offer",
+                        null,
+                        null,
+                        List.of(1, 2, 3, 5),
+                        List.of(1, 10, 500, 1_000),
+                        offer,
+                        377.75,
+                        null,
+                        null),
+                new Step(
+                        4,
+                        1,
+                        "counteroffer",
+                        null,
+                        null,
+                        List.of(1, 2, 3, 5),
+                        List.of(1, 10, 500, 1_000),
+                        offer,
+                        377.75,
+                        false,
+                        900),
+                new Step(
+                        5,
+                        2,
+                        "deal",
+                        null,
+                        offer, // not on the ladder: stored raw
+                        List.of(2, 5),
+                        List.of(10, 1_000),
+                        offer,
+                        505.0,
+                        true,
+                        null));
+    }
+
+    @Test
+    void round_trips_many_games_with_random_access() throws IOException {
+        Path p = dir.resolve("t.dnd");
+        List<List<Step>> games = new ArrayList<>();
+        try (var w = TranscriptWriter.fromPath(p)) {
+            for (int g = 0; g < 200; g++) {
+                var steps = game(100 + g);
+                games.add(steps);
+                w.writeHeader(g % 2 == 0 ? "{\"game\":" + g + ",\"note\":\"café\"}" : null);
+                for (var s : steps) w.append(s);
+            }
+        }
+
+        try (var r = DndTranscriptReader.open(p)) {
+            assertThat(r.gameCount()).isEqualTo(200);
+            assertThat(r.stepCount()).isEqualTo(200 * 5L);
+            for (int g : new int[] {199, 0, 57, 198}) {
+                var game = r.game(g);
+                assertThat(game.config())
+                        .isEqualTo(g % 2 == 0 ? "{\"game\":" + g + ",\"note\":\"café\"}" : null);
+                assertThat(game.ladder()).containsExactly(1, 10, 10, 500, 1_000);
+                for (int i = game.stepCount() - 1; i >= 0; i--) {
+                    assertSameStep(game.step(i), games.get(g).get(i));
+                }
+            }
+            assertThatThrownBy(() -> r.step(200, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> r.step(0, 5)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @Test
+    void is_much_smaller_than_csv_for_full_ladders() throws IOException {
+        var cases = new ArrayList<Integer>();
+        var amounts = new ArrayList<Integer>();
+        for (int i = 1; i <= 25; i++) {
+            cases.add(i);
+            amounts.add(i * 1_000);
+        }
+        var step =
+                new Step(1, 1, "start_round", null, null, cases, amounts, null, null, null, null);
+        Path dnd = dir.resolve("big.dnd");
+        Path csv = dir.resolve("big.csv");
+        for (Path p : List.of(dnd, csv)) {
+            try (var w = TranscriptWriter.fromPath(p)) {
+                w.writeHeader("{}");
+                for (int i = 0; i < 1_000; i++) w.append(step);
+            }
+        }
+        assertThat(Files.size(dnd) * 4).isLessThan(Files.size(csv));
+    }
+
+    @Test
+    void steps_without_a_header_and_empty_games_are_kept() throws IOException {
+        Path p = dir.resolve("bare.dnd");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.append(game(7).get(0));
+            w.writeHeader("{\"empty\":true}");
+        }
+        try (var r = DndTranscriptReader.open(p)) {
+            assertThat(r.gameCount()).isEqualTo(2);
+            assertThat(r.game(0).config()).isNull();
+            assertThat(r.game(0).stepCount()).isEqualTo(1);
+            assertThat(r.game(1).config()).isEqualTo("{\"empty\":true}");
+            assertThat(r.game(1).stepCount()).isZero();
+            assertThat(r.game(1).ladder()).isEmpty();
+        }
+    }
+
+    @Test
+    void rejects_unknown_actions_off_ladder_amounts_and_unclosed_files() throws IOException {
+        Path p = dir.resolve("bad.dnd");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader("{}");
+            w.append(game(7).get(0));
+            var offLadder =
+                    new Step(2, 1, "open_case", 1, 1, null, List.of(3), null, null, null, null);
+            assertThatThrownBy(() -> w.append(offLadder))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("ladder");
+            var unknown = new Step(3, 1, "shrug", null, null, null, null, null, null, null, null);
+            assertThatThrownBy(() -> w.append(unknown))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("shrug");
+        }
+
+        Files.write(dir.resolve("cut.dnd"), new byte[] {'D', 'N', 'D', 'T', 0, 0, 0, 1});
+        assertThatThrownBy(() -> DndTranscriptReader.open(dir.resolve("cut.dnd")))
+                .isInstanceOf(IOException.class);
+        Files.writeString(dir.resolve("text.dnd"), "{\"config\":{},\"steps\":[]}");
+        assertThatThrownBy(() -> DndTranscriptReader.open(dir.resolve("text.dnd")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("not a .dnd");
+    }
+
+    private static void assertSameStep(Step actual, Step expected) {
+        assertThat(actual.step).isEqualTo(expected.step);
+        assertThat(actual.round).isEqualTo(expected.round);
+        assertThat(actual.action).isEqualTo(expected.action);
+        assertThat(actual.openedCaseId).isEqualTo(expected.openedCaseId);
+        assertThat(actual.openedPrize).isEqualTo(expected.openedPrize);
+        assertThat(actual.remainingCases).isEqualTo(expected.remainingCases);
+        assertThat(actual.remainingAmounts).isEqualTo(expected.remainingAmounts);
+        assertThat(actual.offer).isEqualTo(expected.offer);
+        assertThat(actual.ev).isEqualTo(expected.ev);
+        assertThat(actual.accepted).isEqualTo(expected.accepted);
+        assertThat(actual.counteroffer).isEqualTo(expected.counteroffer);
+    }
+}
@@ -0,0 +1,119 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import deal.core.Briefcase;
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.Phase;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.LegacyOfferPolicy.Params;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OfferCalibratorTest {
+    @TempDir Path dir;
+
+    /** The banker whose offers the corpus holds. */
+    private static final Params TRUTH = new Params(0.45, 0.85, 0.95, 0.08, 0.03);
+
+    private static List<Integer> amounts(GameState s) {
+        List<Integer> out = new ArrayList<>();
+        for (Briefcase b : s.unopened()) out.add(b.amountDollars());
+        return out;
+    }
+
+    /** A step of {@code s}'s round, with its unopened cases and amounts. */
+    private static Step step(int n, GameState s, String action, Integer offer, Double ev) {
+        return new Step(
+                n,
+                s.roundIndex(),
+                action,
+                null,
+                null,
+                s.remainingUnopenedIds(),
+                amounts(s),
+                offer,
+                ev,
+                null,
+                null);
+    }
+
+    /** Games of 10 and 25 cases, two cases a round, always declined; returns the offer count. */
+    private int record(Path file, int games) throws IOException {
+        var banker = new LegacyOfferPolicy(TRUTH);
+        int offers = 0;
+        try (var sink = new ConcurrentTranscriptSink(file)) {
+            for (int g = 0; g < games; g++) {
+                var cfg = GameConfig.of(g % 2 == 0 ? 10 : 25);
+                var e = new Engine(cfg, g, banker);
+                var s = e.pickPlayerCase(e.start(), 1);
+                long id = sink.beginGame(null);
+                int step = 0;
+                while (s.phase() != Phase.FINAL_REVEAL) {
+                    sink.append(id, step(++step, s, "start_round", null, null));
+                    s = e.chooseToOpen(s, Math.min(2, s.remainingCount() - 2));
+                    for (int c = 2; s.toOpenInThisRound() > 0; c++) {
+                        if (!s.isOpened(c)) s = e.openCase(s, c);
+                    }
+                    s = e.computeOffer(s);
+                    sink.append(
+                            id,
+                            step(++step, s, "offer", s.currentOfferDollars(), s.remainingMean()));
+                    offers++;
+                    s = e.declineDeal(s);
+                }
+                sink.endGame(id);
+            }
+        }
+        return offers;
+    }
+
+    @Test
+    void loads_offers_and_recovers_the_banker_that_made_them() throws IOException {
+        int offers = record(dir.resolve("games.jsonl"), 200);
+        OfferCorpus corpus = OfferCorpus.load(dir, 2);
+        assertThat(corpus.size()).isEqualTo(offers);
+        assertThat(corpus.initialCount[0]).isEqualTo(10);
+        assertThat(corpus.initialCount[corpus.size() - 1]).isEqualTo(25);
+
+        var one = new ForkJoinPool(1);
+        var four = new ForkJoinPool(4);
+        try {
+            var calibrator = new OfferCalibrator(corpus, four);
+            assertThat(calibrator.error(TRUTH)).isZero();
+            assertThat(calibrator.error(Params.DEFAULTS)).isPositive();
+
+            var fit = calibrator.fit(3, 150);
+            assertThat(fit.error()).isLessThan(fit.defaultError() / 4);
+            assertThat(fit.rmsPercent()).isLessThan(5.0);
+
+            var serial = new OfferCalibrator(corpus, one).fit(3, 150);
+            assertThat(serial.params()).isEqualTo(fit.params()); // same at any parallelism
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    void rejects_tunables_outside_their_range() {
+        assertThatThrownBy(() -> new Params(0.5, 0.9, 1.2, 0.05, 0.02))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Params(0.99, 0.9, 0.97, 0.05, 0.02))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Params(0.5, 0.9, 0.97, 0.6, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new LegacyOfferPolicy().params()).isEqualTo(Params.DEFAULTS);
+        assertThat(LegacyOfferPolicy.DEFAULT.params()).isEqualTo(Params.DEFAULTS);
+        assertThatThrownBy(() -> new OfferCalibrator(new OfferCorpus(), ForkJoinPool.commonPool()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
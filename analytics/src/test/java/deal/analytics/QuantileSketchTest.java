@@ -0,0 +1,144 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    private static final double[] QS = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    /** Log-normal-ish dollars between $1 and a few million, plus some zeros. */
+    private static double[] dollars(long seed, int n) {
+        var rnd = new Random(seed);
+        double[] xs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = i % 50 == 0 ? 0.0 : Math.rint(Math.exp(rnd.nextGaussian() * 2.5 + 9));
+        }
+        return xs;
+    }
+
+    private static double exact(double[] sorted, double q) {
+        long rank = Math.max(1, (long) Math.ceil(q * sorted.length));
+        return sorted[(int) (rank - 1)];
+    }
+
+    /** Step {@code n} of a two-round game (steps 1-2 in round 1, 3-4 in round 2), EV $2,000. */
+    private static Step step(
+            int n, String action, Integer prize, int offer, Boolean accepted, Integer counter) {
+        return new Step(
+                n, (n + 1) / 2, action, null, prize, null, null, offer, 2_000.0, accepted, counter);
+    }
+
+    @Test
+    void quantiles_are_within_the_relative_accuracy() {
+        double[] xs = dollars(1L, 200_000);
+        var sketch = new QuantileSketch();
+        for (double x : xs) sketch.add(x);
+        Arrays.sort(xs);
+
+        assertThat(sketch.count()).isEqualTo(xs.length);
+        assertThat(sketch.min()).isEqualTo(xs[0]);
+        assertThat(sketch.max()).isEqualTo(xs[xs.length - 1]);
+        for (double q : QS) {
+            double truth = exact(xs, q);
+            double tolerance = truth * QuantileSketch.DEFAULT_ALPHA + 1e-9;
+            assertThat(sketch.quantile(q)).isCloseTo(truth, within(tolerance));
+        }
+        assertThat(sketch.quantile(0.0)).isEqualTo(xs[0]);
+        assertThat(sketch.quantile(1.0)).isEqualTo(xs[xs.length - 1]);
+        assertThat(new QuantileSketch().quantile(0.5)).isNaN();
+        assertThatThrownBy(() -> sketch.add(-1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void merged_parts_equal_one_sketch_of_everything() {
+        double[] xs = dollars(2L, 30_000);
+        var whole = new QuantileSketch();
+        var parts = new QuantileSketch[4];
+        for (int p = 0; p < parts.length; p++) parts[p] = new QuantileSketch();
+        for (int i = 0; i < xs.length; i++) {
+            whole.add(xs[i]);
+            parts[i % parts.length].add(xs[i]);
+        }
+        var merged = new QuantileSketch();
+        for (QuantileSketch p : parts) merged.merge(p);
+
+        assertThat(merged.count()).isEqualTo(whole.count());
+        for (double q : QS) assertThat(merged.quantile(q)).isEqualTo(whole.quantile(q));
+        assertThatThrownBy(() -> merged.merge(new QuantileSketch(0.05)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        merged.clear();
+        assertThat(merged.count()).isZero();
+        assertThat(merged).isEqualTo(new QuantileSketch());
+    }
+
+    @Test
+    void round_trips_through_its_binary_form() throws IOException {
+        var sketch = new QuantileSketch(0.02);
+        for (double x : dollars(3L, 10_000)) sketch.add(x);
+        sketch.add(1e12); // above the tracked range: top bucket, exact max
+
+        var bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        var in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        var back = QuantileSketch.readFrom(in);
+
+        assertThat(back).isEqualTo(sketch);
+        assertThat(back.alpha()).isEqualTo(0.02);
+        assertThat(back.max()).isEqualTo(1e12);
+        for (double q : QS) assertThat(back.quantile(q)).isEqualTo(sketch.quantile(q));
+        assertThat(bytes.size()).isLessThan(8 * 1024); // sparse: only non-empty buckets
+
+        byte[] corrupt = bytes.toByteArray();
+        corrupt[0] ^= 1;
+        assertThatThrownBy(
+                        () ->
+                                QuantileSketch.readFrom(
+                                        new DataInputStream(new ByteArrayInputStream(corrupt))))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void transcript_stats_sketch_offers_ratios_and_winnings_per_round() {
+        var stats = new TranscriptStats();
+        for (int g = 0; g < 100; g++) {
+            stats.beginGame();
+            int offer = 1_000 + 10 * g;
+            stats.add(step(1, "offer", null, offer, null, null));
+            stats.add(step(2, "nodeal", null, offer, false, null));
+            stats.add(step(3, "offer", null, 2 * offer, null, null));
+            if (g % 2 == 0) {
+                stats.add(step(4, "deal", 2 * offer, 2 * offer, true, null));
+            } else {
+                stats.add(step(4, "counteroffer", null, 2 * offer, null, 5_000)); // accepted
+            }
+            stats.endGame();
+        }
+
+        var round1 = stats.offerDistribution(1);
+        assertThat(round1.count()).isEqualTo(100);
+        assertThat(round1.quantile(0.5)).isCloseTo(1_490.0, within(15.0));
+        assertThat(stats.offerToEvDistribution(2).quantile(0.99)).isCloseTo(1.98, within(0.02));
+        assertThat(stats.offerDistribution(3).count()).isZero();
+
+        var winnings = stats.winnings();
+        assertThat(winnings.count()).isEqualTo(100);
+        assertThat(winnings.max()).isEqualTo(5_000.0);
+        assertThat(winnings.quantile(0.9)).isCloseTo(5_000.0, within(50.0));
+
+        var twice = new TranscriptStats().merge(stats).merge(stats);
+        assertThat(twice.winnings().count()).isEqualTo(200);
+        assertThat(twice.offerDistribution(1).quantile(0.5)).isEqualTo(round1.quantile(0.5));
+        assertThat(stats.report()).contains("winnings: n=100").contains("offer p50/p90/p99=");
+    }
+}
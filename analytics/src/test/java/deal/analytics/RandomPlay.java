@@ -0,0 +1,72 @@
+package deal.analytics;
+
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.Phase;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Random but valid play into a {@code .dna} log: any K, any case, deals, counters and swaps. */
+final class RandomPlay {
+    private RandomPlay() {}
+
+    /** What the player saw in one game: every offer and the final result. */
+    record Played(List<Integer> offers, int result) {}
+
+    /**
+     * Play game {@code seed} of {@code cfg} into {@code log} under {@code config}. With {@code
+     * outcomes} the offers, prizes and result are recorded too, for {@link ReplayVerifier}.
+     */
+    static Played play(
+            GameConfig cfg, long seed, String config, ActionLogWriter log, boolean outcomes)
+            throws IOException {
+        var rnd = new Random(seed * 31 + 7);
+        var engine = new Engine(cfg, seed);
+        GameState s = engine.start();
+        log.beginGame(config, cfg, seed);
+        int pick = 1 + rnd.nextInt(cfg.caseCount());
+        s = engine.pickPlayerCase(s, pick);
+        log.pick(pick);
+        List<Integer> offers = new ArrayList<>();
+        while (s.phase() != Phase.RESULT) {
+            if (s.phase() == Phase.FINAL_REVEAL) {
+                boolean swap = rnd.nextBoolean();
+                s = engine.revealFinal(s, swap);
+                log.revealFinal(swap);
+                break;
+            }
+            int available = s.remainingCount() - 1;
+            int k = 1 + rnd.nextInt(Math.max(1, available - 1));
+            s = engine.chooseToOpen(s, k);
+            log.chooseToOpen(k);
+            while (s.toOpenInThisRound() > 0) {
+                List<Integer> ids = s.remainingUnopenedIds();
+                int id = ids.get(rnd.nextInt(ids.size()));
+                if (id == pick) continue;
+                s = engine.openCase(s, id);
+                log.open(id);
+                if (outcomes) log.prize(s.amountOf(id));
+            }
+            s = engine.computeOffer(s);
+            offers.add(s.currentOfferDollars());
+            if (outcomes) log.offered(s.currentOfferDollars());
+            int choice = rnd.nextInt(10);
+            if (choice < 2) {
+                s = engine.acceptDeal(s);
+                log.deal();
+            } else if (choice < 4) {
+                int counter = (int) (s.currentOfferDollars() * (0.8 + rnd.nextDouble())) + 1;
+                s = engine.resolveCounter(engine.proposeCounter(s, counter));
+                log.counter(counter);
+            } else {
+                s = engine.declineDeal(s);
+                log.noDeal();
+            }
+        }
+        if (outcomes) log.result(s.resultDollars());
+        return new Played(offers, s.resultDollars());
+    }
+}
@@ -0,0 +1,124 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayVerifierTest {
+    @TempDir Path dir;
+
+    private void record(Path file, int games, long firstSeed) throws IOException {
+        try (var log = new ActionLogWriter(file)) {
+            for (int g = 0; g < games; g++) {
+                var cfg = GameConfig.of(g % 3 == 0 ? 25 : 10);
+                RandomPlay.play(cfg, firstSeed + g, null, log, true);
+            }
+        }
+    }
+
+    @Test
+    void a_faithful_replay_passes_at_any_thread_count() throws IOException {
+        int games = ReplayVerifier.BATCH_GAMES + 500; // more than one batch
+        record(dir.resolve("a.dna"), games, 1_000L);
+        record(dir.resolve("b.dna"), 300, 90_000L);
+
+        var report = new ReplayVerifier(LegacyOfferPolicy.DEFAULT, 3, 10).verify(dir);
+        assertThat(report.ok()).isTrue();
+        assertThat(report.files()).isEqualTo(2L);
+        assertThat(report.games()).isEqualTo(games + 300L);
+        assertThat(report.steps()).isGreaterThan(report.games() * 4);
+        assertThat(report.summary()).startsWith("files=2 games=" + (games + 300));
+
+        var single = new ReplayVerifier(LegacyOfferPolicy.DEFAULT, 1, 10).verify(dir);
+        assertThat(single).isEqualTo(report);
+
+        // The outcome records do not disturb the ordinary replay.
+        try (var r = ActionLogReader.open(dir.resolve("b.dna"), false)) {
+            long steps = 0;
+            for (Step s = r.next(); s != null; s = r.next()) steps++;
+            assertThat(r.game()).isEqualTo(299L);
+            assertThat(steps).isPositive();
+        }
+    }
+
+    @Test
+    void a_changed_banker_diverges_at_the_first_offer() throws IOException {
+        Path file = dir.resolve("games.dna");
+        record(file, 50, 7L);
+        int firstOffer = 0;
+        try (var r = ActionLogReader.open(file, false)) {
+            for (Step s = r.next(); firstOffer == 0; s = r.next()) {
+                if (s.action.equals("offer")) firstOffer = s.step;
+            }
+        }
+
+        OfferPolicy generous = ctx -> LegacyOfferPolicy.DEFAULT.offer(ctx) + 1;
+        var report = new ReplayVerifier(generous, 2, 5).verify(file);
+
+        assertThat(report.ok()).isFalse();
+        assertThat(report.diverged()).isEqualTo(50L);
+        assertThat(report.divergences()).hasSize(5);
+        var first = report.divergences().get(0);
+        assertThat(first.game()).isEqualTo(0L);
+        assertThat(first.step()).isEqualTo(firstOffer);
+        assertThat(first.check()).isEqualTo("offer");
+        assertThat(first.replayed()).isEqualTo(first.recorded() + 1);
+        assertThat(report.divergences().get(4).game()).isEqualTo(4L);
+        assertThat(report.summary()).contains("... 45 more");
+    }
+
+    @Test
+    void reports_wrong_prizes_results_and_moves_the_engine_rejects() throws IOException {
+        var cfg = GameConfig.of(10);
+        GameState dealt = new Engine(cfg, 5L).start();
+        int prize = dealt.amountOf(1);
+        try (var log = new ActionLogWriter(dir.resolve("bad.dna"))) {
+            log.beginGame(null, cfg, 5L); // game 0: a prize that is not in the case
+            log.pick(3);
+            log.chooseToOpen(2);
+            log.open(1);
+            log.prize(prize + 1);
+
+            log.beginGame(null, cfg, 5L); // game 1: opens the player's own case
+            log.pick(3);
+            log.chooseToOpen(2);
+            log.open(1);
+            log.prize(prize);
+            log.open(3);
+
+            log.beginGame(null, cfg, 5L); // game 2: a result that was never won
+            log.pick(3);
+            log.chooseToOpen(1);
+            log.open(1);
+            log.deal();
+            log.result(-1);
+        }
+
+        var report = new ReplayVerifier().verify(dir);
+        assertThat(report.diverged()).isEqualTo(3L);
+        var d = report.divergences();
+        assertThat(d.get(0).check()).isEqualTo("open_case");
+        assertThat(d.get(0).step()).isEqualTo(2);
+        assertThat(d.get(0).replayed()).isEqualTo(prize);
+        assertThat(d.get(1).check()).isEqualTo("replay");
+        assertThat(d.get(1).step()).isEqualTo(3);
+        assertThat(d.get(1).toString()).contains("game 1 step 3: does not replay");
+        assertThat(d.get(2).check()).isEqualTo("result");
+        assertThat(d.get(2).step()).isEqualTo(4); // start_round, open_case, offer, deal
+
+        Files.write(dir.resolve("bad.dna"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThatThrownBy(() -> new ReplayVerifier().verify(dir))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("not a .dna action log");
+    }
+}
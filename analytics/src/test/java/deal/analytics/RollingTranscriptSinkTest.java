@@ -0,0 +1,224 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.RollingTranscriptSink.Layout;
+import deal.analytics.RollingTranscriptSink.Options;
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RollingTranscriptSinkTest {
+    @TempDir Path dir;
+
+    private static final List<Integer> CASES = List.of(1, 2, 3);
+    private static final List<Integer> AMOUNTS = List.of(1, 10, 100);
+
+    /** Four steps: an offer declined, then an offer taken. */
+    private static List<Step> game(int offer) {
+        return List.of(
+                new Step(1, 1, "offer", null, null, CASES, AMOUNTS, offer, 50.0, null, null),
+                new Step(2, 1, "nodeal", null, null, CASES, AMOUNTS, offer, 50.0, false, null),
+                new Step(3, 2, "offer", null, null, CASES, AMOUNTS, offer + 5, 50.0, null, null),
+                new Step(
+                        4,
+                        2,
+                        "deal",
+                        null,
+                        offer + 5,
+                        CASES,
+                        AMOUNTS,
+                        offer + 5,
+                        50.0,
+                        true,
+                        null));
+    }
+
+    private static void play(RollingTranscriptSink sink, int games) throws IOException {
+        for (int g = 0; g < games; g++) {
+            sink.writeHeader("{\"g\":" + g + "}");
+            for (Step s : game(20 + g)) sink.append(s);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /** Every step of every segment, in order, tagged "segment:game:config:offer". */
+    private List<String> readAll() throws IOException {
+        List<String> out = new ArrayList<>();
+        List<Path> segs = segments();
+        for (int i = 0; i < segs.size(); i++) {
+            try (var r = TranscriptReader.fromPath(segs.get(i))) {
+                for (Step s = r.next(); s != null; s = r.next()) {
+                    out.add(i + ":" + r.game() + ":" + r.config() + ":" + s.offer);
+                }
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void rolls_by_size_at_game_boundaries_and_gzips_finished_segments() throws IOException {
+        var options = Options.defaults().withMaxSegmentBytes(1024).withMaxTotalBytes(1L << 20);
+        try (var sink = new RollingTranscriptSink(dir, "run", Layout.JSON_LINES, options)) {
+            play(sink, 20);
+        }
+
+        List<Path> segs = segments();
+        assertThat(segs.size()).isGreaterThan(2);
+        String name = "run-\\d{8}T\\d{6}-\\d{4}\\.jsonl\\.gz";
+        for (Path p : segs) assertThat(p.getFileName().toString().matches(name)).isTrue();
+
+        List<String> steps = readAll();
+        assertThat(steps).hasSize(20 * 4);
+        for (int g = 0; g < 20; g++) {
+            List<String> ofGame = new ArrayList<>();
+            for (String s : steps) if (s.split(":")[1].equals(String.valueOf(g))) ofGame.add(s);
+            assertThat(ofGame).hasSize(4);
+            // a game never straddles segments and keeps its own config
+            assertThat(ofGame.stream().map(s -> s.split(":")[0]).distinct().count()).isEqualTo(1L);
+            assertThat(ofGame.get(0)).contains(":{\"g\":" + g + "}:" + (20 + g));
+        }
+
+        TranscriptStats stats = new TranscriptAggregator(2).aggregate(dir);
+        assertThat(stats.files()).isEqualTo(segs.size());
+        assertThat(stats.failedFiles()).isZero();
+        assertThat(stats.games()).isEqualTo(20);
+        assertThat(stats.offers(1)).isEqualTo(20);
+        assertThat(stats.deals(2)).isEqualTo(20);
+    }
+
+    @Test
+    void rolls_by_age_with_the_injected_clock() throws IOException {
+        var clock = new StepClock();
+        var options =
+                Options.defaults()
+                        .withMaxSegmentAge(Duration.ofMinutes(5))
+                        .withCompression(false);
+        try (var sink = new RollingTranscriptSink(dir, "t", Layout.CSV, options, clock)) {
+            play(sink, 2);
+            Path first = sink.currentSegment();
+            clock.advance(Duration.ofMinutes(4));
+            play(sink, 1);
+            assertThat(sink.currentSegment()).isEqualTo(first);
+            clock.advance(Duration.ofMinutes(1));
+            play(sink, 2);
+            assertThat(sink.currentSegment()).isNotEqualTo(first);
+        }
+
+        List<Path> segs = segments();
+        assertThat(segs).hasSize(2);
+        for (Path p : segs) assertThat(p.toString()).endsWith(".csv");
+        assertThat(readAll())
+                .containsExactly(
+                        "0:0:{\"g\":0}:20", "0:0:{\"g\":0}:20", "0:0:{\"g\":0}:25",
+                        "0:0:{\"g\":0}:25", "0:1:{\"g\":1}:21", "0:1:{\"g\":1}:21",
+                        "0:1:{\"g\":1}:26", "0:1:{\"g\":1}:26", "0:2:{\"g\":0}:20",
+                        "0:2:{\"g\":0}:20", "0:2:{\"g\":0}:25", "0:2:{\"g\":0}:25",
+                        "1:0:{\"g\":0}:20", "1:0:{\"g\":0}:20", "1:0:{\"g\":0}:25",
+                        "1:0:{\"g\":0}:25", "1:1:{\"g\":1}:21", "1:1:{\"g\":1}:21",
+                        "1:1:{\"g\":1}:26", "1:1:{\"g\":1}:26");
+    }
+
+    @Test
+    void disk_cap_deletes_the_oldest_segments_including_an_earlier_runs() throws IOException {
+        var clock = new StepClock();
+        var options =
+                Options.defaults()
+                        .withMaxSegmentBytes(600)
+                        .withMaxTotalBytes(3000)
+                        .withCompression(false);
+        try (var sink = new RollingTranscriptSink(dir, "cap", Layout.JSON_LINES, options, clock)) {
+            play(sink, 4);
+        }
+        Path oldest = segments().get(0);
+
+        clock.advance(Duration.ofHours(1));
+        try (var sink = new RollingTranscriptSink(dir, "cap", Layout.JSON_LINES, options, clock)) {
+            play(sink, 30);
+        }
+
+        long total = 0L;
+        for (Path p : segments()) total += Files.size(p);
+        assertThat(total).isLessThanOrEqualTo(3000);
+        assertThat(Files.exists(oldest)).isFalse();
+        assertThat(segments()).isNotEmpty();
+    }
+
+    @Test
+    void gzips_a_crashed_runs_segments_and_leaves_other_prefixes_alone() throws IOException {
+        var plain = Options.defaults().withCompression(false);
+        try (var sink = new RollingTranscriptSink(dir, "run", Layout.JSON_LINES, plain)) {
+            play(sink, 2); // stands in for a segment a crash left uncompressed
+        }
+        Path crashed = segments().get(0);
+        Path other = dir.resolve("run-fast-20240101T000000-0000.jsonl");
+        Files.writeString(other, "not ours\n");
+
+        try (var sink = new RollingTranscriptSink(dir, "run", Layout.JSON_LINES)) {
+            play(sink, 1);
+        }
+
+        assertThat(Files.exists(crashed)).isFalse();
+        assertThat(Files.exists(crashed.resolveSibling(crashed.getFileName() + ".gz"))).isTrue();
+        assertThat(Files.readString(other)).isEqualTo("not ours\n");
+        assertThat(segments()).hasSize(3);
+    }
+
+    @Test
+    void rejects_bad_options_and_use_after_close() throws IOException {
+        assertThatThrownBy(() -> Options.defaults().withMaxSegmentBytes(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Options.defaults().withMaxTotalBytes(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Options.defaults().withMaxSegmentAge(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RollingTranscriptSink(dir, "a/b", Layout.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        var sink = new RollingTranscriptSink(dir, "x", Layout.CSV);
+        sink.close();
+        sink.close();
+        assertThatThrownBy(() -> sink.writeHeader("{}")).isInstanceOf(IOException.class);
+        assertThat(segments()).isEmpty();
+    }
+
+    /** A clock that only moves when told to. */
+    private static final class StepClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TranscriptReaderTest {
+    @TempDir Path dir;
+
+    private static final List<Integer> CASES = List.of(1, 2, 3);
+    private static final List<Integer> AMOUNTS = List.of(1, 10, 100);
+
+    private static Step step(int n, int round, String action, Integer offer, Double ev) {
+        return new Step(n, round, action, null, null, CASES, AMOUNTS, offer, ev, null, null);
+    }
+
+    /** Round 1 offer declined, round 2 offer taken. */
+    private static List<Step> dealGame() {
+        return List.of(
+                step(1, 1, "start_round", null, null),
+                new Step(
+                        2,
+                        1,
+                        "open_case",
+                        2,
+                        10,
+                        List.of(1, 3),
+                        List.of(1, 100),
+                        null,
+                        null,
+                        null,
+                        null),
+                step(3, 1, "offer", 20, 50.5),
+                new Step(4, 1, "nodeal", null, null, CASES, AMOUNTS, 20, 50.5, false, null),
+                step(5, 2, "offer", 40, 50.0),
+                new Step(6, 2, "deal", null, 40, CASES, AMOUNTS, 40, 50.0, true, null));
+    }
+
+    /** Round 1 counter rejected (play goes on), round 2 counter accepted (game ends). */
+    private static List<Step> counterGame() {
+        return List.of(
+                step(1, 1, "offer", 30, 60.0),
+                new Step(2, 1, "counteroffer", null, null, CASES, AMOUNTS, 30, 60.0, null, 90),
+                step(3, 2, "offer", 45, 60.0),
+                new Step(4, 2, "counteroffer", null, null, CASES, AMOUNTS, 45, 60.0, null, 50));
+    }
+
+    private Path write(String name, String config, List<Step> steps) throws IOException {
+        Path p = dir.resolve(name);
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader(config);
+            for (var s : steps) w.append(s);
+        }
+        return p;
+    }
+
+    private static List<Step> readAll(TranscriptReader r) throws IOException {
+        List<Step> out = new ArrayList<>();
+        for (Step s = r.next(); s != null; s = r.next()) out.add(s);
+        return out;
+    }
+
+    @Test
+    void reads_back_what_the_writers_wrote() throws IOException {
+        for (String ext : List.of(".json", ".csv")) {
+            Path p = write("g" + ext, "{\"cases\":3,\"who\":\"Zoë\"}", dealGame());
+            try (var r = TranscriptReader.fromPath(p)) {
+                assertThat(r.config()).isEqualTo("{\"cases\":3,\"who\":\"Zoë\"}");
+                var steps = readAll(r);
+                assertThat(steps).hasSize(6);
+                for (int i = 0; i < steps.size(); i++) {
+                    assertSameStep(steps.get(i), dealGame().get(i));
+                }
+                assertThat(r.next()).isNull();
+            }
+        }
+    }
+
+    @Test
+    void json_reader_tolerates_whitespace_unknown_fields_and_escapes() throws IOException {
+        Path p = dir.resolve("hand.json");
+        Files.writeString(
+                p,
+                "{ \"config\" : {\"a\":[1,{\"b\":\"]}\"}]},\n \"extra\": [true, null],\n"
+                        + " \"steps\" : [ {\"step\": 7, \"action\": \"say \\\"hi\\\"\\n\\u00e9\","
+                        + " \"new\": {\"x\": [1, 2]}, \"remainingCases\": [ ], \"ev\": 1.5E3,"
+                        + " \"accepted\": false} ,\n {} ] }");
+        try (var r = TranscriptReader.fromPath(p)) {
+            assertThat(r.config()).isEqualTo("{\"a\":[1,{\"b\":\"]}\"}]}");
+            Step s = r.next();
+            assertThat(s.step).isEqualTo(7);
+            assertThat(s.action).isEqualTo("say \"hi\"\né");
+            assertThat(s.remainingCases).isEmpty();
+            assertThat(s.remainingAmounts).isNull();
+            assertThat(s.ev).isEqualTo(1500.0);
+            assertThat(s.accepted).isFalse();
+            assertThat(r.next().action).isNull();
+            assertThat(r.next()).isNull();
+        }
+    }
+
+    @Test
+    void truncated_files_fail_with_the_offset() throws IOException {
+        Path json = write("cut.json", "{}", dealGame());
+        String text = Files.readString(json);
+        Files.writeString(json, text.substring(0, text.length() - 40));
+        try (var r = TranscriptReader.fromPath(json)) {
+            assertThatThrownBy(() -> readAll(r))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("at byte");
+        }
+
+        Files.writeString(dir.resolve("x.csv"), "not,a,transcript\n");
+        assertThatThrownBy(() -> TranscriptReader.fromPath(dir.resolve("x.csv")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void aggregator_merges_per_thread_partials_over_a_directory() throws IOException {
+        int games = 0;
+        for (int i = 0; i < 30; i++) {
+            write("d" + i + (i % 2 == 0 ? ".json" : ".csv"), "{}", dealGame());
+            write("c" + i + (i % 3 == 0 ? ".csv" : ".json"), null, counterGame());
+            games += 2;
+        }
+        Files.createDirectories(dir.resolve("nested"));
+        try (var w = TranscriptWriter.fromPath(dir.resolve("nested/many.dnd"))) {
+            for (int g = 0; g < 10; g++) {
+                w.writeHeader("{}");
+                for (var s : dealGame()) w.append(s);
+                games++;
+            }
+        }
+        Files.writeString(dir.resolve("nested/broken.json"), "{\"config\":{},\"steps\":[{");
+        Files.writeString(dir.resolve("notes.txt"), "ignored");
+
+        TranscriptStats stats = new TranscriptAggregator(3).aggregate(dir);
+
+        assertThat(stats.files()).isEqualTo(61);
+        assertThat(stats.failedFiles()).isEqualTo(1);
+        assertThat(stats.firstFailure()).contains("broken.json");
+        assertThat(stats.games()).isEqualTo(games);
+        assertThat(stats.steps()).isEqualTo(40 * 6 + 30 * 4);
+        assertThat(stats.offers(1)).isEqualTo(70);
+        assertThat(stats.deals(1)).isZero();
+        assertThat(stats.offers(2)).isEqualTo(70);
+        assertThat(stats.dealRate(2)).isCloseTo(40 / 70.0, within(1e-12));
+        assertThat(stats.dealRate(3)).isNaN();
+        assertThat(stats.counterOffers()).isEqualTo(60);
+        assertThat(stats.countersAccepted()).isEqualTo(30);
+        assertThat(stats.counterAcceptanceRate()).isEqualTo(0.5);
+        double expectedRatio = (40 * (20 / 50.5 + 40 / 50.0) + 30 * (0.5 + 0.75)) / 140;
+        assertThat(stats.meanOfferToEv()).isCloseTo(expectedRatio, within(1e-12));
+        assertThat(stats.report()).contains("round  2: offers=70 deals=40");
+    }
+
+    private static void assertSameStep(Step actual, Step expected) {
+        assertThat(actual.step).isEqualTo(expected.step);
+        assertThat(actual.round).isEqualTo(expected.round);
+        assertThat(actual.action).isEqualTo(expected.action);
+        assertThat(actual.openedCaseId).isEqualTo(expected.openedCaseId);
+        assertThat(actual.openedPrize).isEqualTo(expected.openedPrize);
+        assertThat(actual.remainingCases).isEqualTo(expected.remainingCases);
+        assertThat(actual.remainingAmounts).isEqualTo(expected.remainingAmounts);
+        assertThat(actual.offer).isEqualTo(expected.offer);
+        assertThat(actual.ev).isEqualTo(expected.ev);
+        assertThat(actual.accepted).isEqualTo(expected.accepted);
+        assertThat(actual.counteroffer).isEqualTo(expected.counteroffer);
+    }
+}
@@ -0,0 +1,271 @@
+package deal.analytics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.analytics.TranscriptWriter.Step;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TranscriptWriterTest {
+    @TempDir Path dir;
+
+    private static Step open(int step) {
+        return new Step(
+                step, 1, "open_case", 2, 5, List.of(1, 3), List.of(1, 10), null, null, null, null);
+    }
+
+    private static final Step OFFER =
+            new Step(3, 1, "offer", null, null, List.of(1, 3), List.of(1, 10), 4, 5.5, null, null);
+    private static final Step DEAL =
+            new Step(4, 1, "deal", null, 4, List.of(1, 3), List.of(1, 10), 4, 5.5, true, null);
+
+    /** A counteroffer of {@code dollars} against the offer of {@link #OFFER}. */
+    private static Step counter(int step, boolean accepted, int dollars) {
+        return new Step(
+                step,
+                1,
+                "counteroffer",
+                null,
+                null,
+                List.of(1, 3),
+                List.of(1, 10),
+                4,
+                5.5,
+                accepted,
+                dollars);
+    }
+
+    @Test
+    void csv_format_is_unchanged() throws IOException {
+        Path p = dir.resolve("t.csv");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader("{\"cases\":3,\"note\":\"café\"}");
+            w.append(open(2));
+            w.append(OFFER);
+            w.append(DEAL);
+        }
+        assertThat(Files.readString(p, StandardCharsets.UTF_8))
+                .isEqualTo(
+                        "step,round,action,openedCaseId,openedPrize,remainingCases,"
+                                + "remainingAmounts,offer,ev,accepted,counteroffer\n"
+                                + "# config: {\"cases\":3,\"note\":\"café\"}\n"
+                                + "2,1,\"open_case\",2,5,\"1 3\",\"1 10\",,,,\n"
+                                + "3,1,\"offer\",,,\"1 3\",\"1 10\",4,5.5,,\n"
+                                + "4,1,\"deal\",,4,\"1 3\",\"1 10\",4,5.5,true,\n");
+    }
+
+    @Test
+    void json_format_is_unchanged() throws IOException {
+        Path p = dir.resolve("t.json");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader("{\"cases\":3}");
+            w.append(OFFER);
+            w.append(DEAL);
+        }
+        assertThat(Files.readString(p))
+                .isEqualTo(
+                        "{\"config\":{\"cases\":3},\"steps\":["
+                                + "{\"step\":3,\"round\":1,\"action\":\"offer\","
+                                + "\"openedCaseId\":null,"
+                                + "\"openedPrize\":null,\"remainingCases\":[1,3],"
+                                + "\"remainingAmounts\":[1,10],\"offer\":4,\"ev\":5.5,"
+                                + "\"accepted\":null,\"counteroffer\":null},"
+                                + "{\"step\":4,\"round\":1,\"action\":\"deal\","
+                                + "\"openedCaseId\":null,"
+                                + "\"openedPrize\":4,\"remainingCases\":[1,3],"
+                                + "\"remainingAmounts\":[1,10],\"offer\":4,\"ev\":5.5,"
+                                + "\"accepted\":true,\"counteroffer\":null}]}");
+    }
+
+    @Test
+    void json_escapes_control_characters_and_writes_non_finite_ev_as_null() throws IOException {
+        Path p = dir.resolve("esc.json");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader(null);
+            w.append(
+                    new Step(
+                            1,
+                            2,
+                            "a\"b\\c\n\u0001é😀",
+                            null,
+                            null,
+                            null,
+                            List.of(),
+                            null,
+                            Double.NaN,
+                            false,
+                            null));
+        }
+        assertThat(Files.readString(p))
+                .isEqualTo(
+                        "{\"config\":null,\"steps\":[{\"step\":1,\"round\":2,"
+                                + "\"action\":\"a\\\"b\\\\c\\n\\u0001é😀\","
+                                + "\"openedCaseId\":null,"
+                                + "\"openedPrize\":null,\"remainingCases\":null,"
+                                + "\"remainingAmounts\":[],\"offer\":null,\"ev\":null,"
+                                + "\"accepted\":false,\"counteroffer\":null}]}");
+        try (var r = TranscriptReader.fromPath(p)) {
+            assertThat(r.next().action).isEqualTo("a\"b\\c\n\u0001é😀");
+        }
+    }
+
+    @Test
+    void csv_keeps_non_ascii_action_names_whole() throws IOException {
+        Path p = dir.resolve("utf8.csv");
+        try (var w = TranscriptWriter.fromPath(p)) {
+            w.writeHeader(null);
+            w.append(
+                    new Step(
+                            1,
+                            1,
+                            "a\"é😀b",
+                            null,
+                            null,
+                            null,
+                            null,
+                            null,
+                            null,
+                            null,
+                            null));
+        }
+        assertThat(Files.readAllLines(p, StandardCharsets.UTF_8).get(1))
+                .isEqualTo("1,1,\"a\"\"é😀b\",,,\"\",\"\",,,,");
+    }
+
+    @Test
+    void doubles_are_written_like_double_to_string() throws IOException {
+        var sink = new ByteArrayOutputStream();
+        var out =
+                new ByteOutput(256) {
+                    @Override
+                    void drain(ByteBuffer full) {
+                        sink.write(full.array(), full.position(), full.remaining());
+                        full.position(full.limit());
+                    }
+                };
+        var rnd = new Random(5);
+        var expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            double v =
+                    switch (i % 4) {
+                        case 0 -> rnd.nextInt(2_000_000) / 100.0; // cents
+                        case 1 -> rnd.nextInt(20_000_000) - 10_000_000.0; // whole dollars
+                        case 2 -> rnd.nextLong() / (double) (1L << rnd.nextInt(60)); // anything
+                        default -> rnd.nextInt(1_000) / 1_000.0;
+                    };
+            out.writeDouble(v);
+            out.writeByte(' ');
+            expected.append(v).append(' ');
+        }
+        out.flush();
+        assertThat(sink.toString(StandardCharsets.US_ASCII))
+                .isEqualTo(expected.toString());
+    }
+
+    @Test
+    void per_step_policy_writes_every_step_through() throws IOException {
+        Path p = dir.resolve("step.csv");
+        try (var w = TranscriptWriter.fromPath(p, FlushPolicy.perStep())) {
+            w.writeHeader(null);
+            w.append(open(1));
+            long afterOne = Files.size(p);
+            assertThat(afterOne).isPositive();
+            w.append(open(2));
+            assertThat(Files.size(p)).isGreaterThan(afterOne);
+        }
+    }
+
+    @Test
+    void per_game_policy_waits_for_the_end_of_the_game() throws IOException {
+        Path p = dir.resolve("game.json");
+        try (var w = TranscriptWriter.fromPath(p, FlushPolicy.perGame())) {
+            w.writeHeader("{}");
+            w.append(open(1));
+            w.append(OFFER);
+            assertThat(Files.size(p)).isZero();
+            w.append(DEAL);
+            assertThat(Files.size(p)).isPositive();
+        }
+    }
+
+    @Test
+    void per_game_policy_flushes_a_game_won_by_a_counter() throws IOException {
+        Path p = dir.resolve("counter.json");
+        try (var w = TranscriptWriter.fromPath(p, FlushPolicy.perGame())) {
+            w.writeHeader("{}");
+            w.append(OFFER);
+            w.append(counter(4, false, 9));
+            assertThat(Files.size(p)).isZero(); // rejected: play goes on
+            w.append(counter(5, true, 3));
+            assertThat(Files.size(p)).isPositive();
+        }
+    }
+
+    @Test
+    void size_policy_writes_in_buffer_sized_chunks() throws IOException {
+        Path p = dir.resolve("size.csv");
+        try (var w = TranscriptWriter.fromPath(p, FlushPolicy.onSize(256))) {
+            w.writeHeader(null);
+            for (int i = 0; i < 50; i++) {
+                w.append(open(i));
+                assertThat(Files.size(p) % 256).isZero();
+            }
+            assertThat(Files.size(p)).isPositive();
+        }
+        assertThat(Files.readAllLines(p)).hasSize(51);
+    }
+
+    @Test
+    void closed_writer_rejects_appends_and_close_is_idempotent() throws IOException {
+        var w = TranscriptWriter.fromPath(dir.resolve("c.json"));
+        w.writeHeader("{}");
+        w.close();
+        w.close();
+        assertThatThrownBy(() -> w.append(OFFER)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> FlushPolicy.onSize(10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void append_and_close_are_flight_recorded_when_enabled() throws IOException {
+        Path p = dir.resolve("t.jsonl");
+        Path jfr = dir.resolve("t.jfr");
+        try (var r = new Recording()) {
+            r.enable("deal.transcript.Append");
+            r.enable("deal.transcript.Close");
+            r.start();
+            try (var w = TranscriptWriter.fromPath(p, FlushPolicy.perGame())) {
+                w.append(OFFER);
+                w.append(DEAL);
+            }
+            r.stop();
+            r.dump(jfr);
+        }
+
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent ev : RecordingFile.readAllEvents(jfr)) {
+            if (ev.getEventType().getName().startsWith("deal.transcript.")) events.add(ev);
+        }
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0).getString("writer")).isEqualTo("JsonTranscriptWriter");
+        assertThat(events.get(0).getInt("offer")).isEqualTo(4);
+        assertThat(events.get(0).getInt("remainingCount")).isEqualTo(2);
+        assertThat(events.get(0).getBoolean("flushed")).isFalse();
+        assertThat(events.get(1).getString("action")).isEqualTo("deal");
+        assertThat(events.get(1).getBoolean("flushed")).isTrue(); // the game ended
+        assertThat(events.get(2).getEventType().getName()).isEqualTo("deal.transcript.Close");
+        assertThat(events.get(2).getLong("bytes")).isEqualTo(Files.size(p));
+    }
+}
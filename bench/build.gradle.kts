@@ -0,0 +1,20 @@
+plugins { id("java") }
+java { toolchain { languageVersion.set(JavaLanguageVersion.of(17)) } }
+dependencies {
+    implementation(project(":core"))
+    implementation(project(":analytics"))
+
+    implementation("org.openjdk.jmh:jmh-core:1.37")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+// ./gradlew :bench:jmh                          -> every benchmark, GC profiler on
+// ./gradlew :bench:jmh -PjmhArgs="EngineBench"  -> extra JMH args (regex, -f, -wi, ...)
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks with the GC profiler (allocation rate per op)."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val extra = (project.findProperty("jmhArgs") as String?).orEmpty()
+    args(listOf("-prof", "gc") + extra.split(" ").filter { it.isNotBlank() })
+}
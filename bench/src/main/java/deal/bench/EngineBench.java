@@ -0,0 +1,86 @@
+package deal.bench;
+
+import deal.core.Engine;
+import deal.core.EngineMetrics;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.Phase;
+import deal.core.offer.LegacyOfferPolicy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Engine transitions: dealing, a whole scripted game, and the banker's counter decision; each with
+ * and without {@link EngineMetrics}, to keep the cost of measuring in view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBench {
+
+    @Param({"10", "25"})
+    public int cases;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private GameConfig cfg;
+    private EngineMetrics sink;
+    private Engine engine;
+    private GameState counterPending;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        cfg = GameConfig.of(cases);
+        sink = metrics ? new EngineMetrics() : null;
+        engine = new Engine(cfg, 42L, LegacyOfferPolicy.DEFAULT, sink);
+
+        // Round 1, one case opened, counter at the offer + 1 (forces the EV rule to run)
+        var s = engine.pickPlayerCase(engine.start(), 1);
+        s = engine.computeOffer(engine.openCase(engine.chooseToOpen(s, 1), 2));
+        counterPending = engine.proposeCounter(s, s.currentOfferDollars() + 1);
+    }
+
+    @Benchmark
+    public GameState start() {
+        return engine.start();
+    }
+
+    /** Pick case 1, open the lowest closed case each round, always decline, keep at the end. */
+    @Benchmark
+    public GameState fullScriptedGame() {
+        var e = new Engine(cfg, seed++, LegacyOfferPolicy.DEFAULT, sink);
+        var s = e.pickPlayerCase(e.start(), 1);
+        while (s.phase() != Phase.FINAL_REVEAL) {
+            s = e.chooseToOpen(s, 1);
+            s = e.openCase(s, lowestClosed(s));
+            s = e.computeOffer(s);
+            s = e.declineDeal(s);
+        }
+        return e.revealFinal(s, false);
+    }
+
+    @Benchmark
+    public GameState resolveCounter() {
+        return engine.resolveCounter(counterPending);
+    }
+
+    private static int lowestClosed(GameState s) {
+        long closed = ~s.openedMask() & ~(1L << (s.playerCaseId() - 1));
+        return Long.numberOfTrailingZeros(closed) + 1;
+    }
+}
@@ -0,0 +1,53 @@
+package deal.bench;
+
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** The two GameState operations every transition leans on, half-way through a game. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBench {
+
+    @Param({"10", "25"})
+    public int cases;
+
+    private GameState half; // player holds case 1, even case ids opened
+    private int nextToOpen; // an odd, still closed case id
+
+    @Setup
+    public void setUp() {
+        var s = new Engine(GameConfig.of(cases), 42L).start().withPlayerCase(1);
+        for (int id = 2; id <= cases; id += 2) s = s.withOpened(id);
+        half = s;
+        nextToOpen = 3;
+    }
+
+    @Benchmark
+    public GameState withOpened() {
+        return half.withOpened(nextToOpen);
+    }
+
+    /** Probe every case id once. */
+    @Benchmark
+    public void isOpened(Blackhole bh) {
+        for (int id = 1; id <= cases; id++) bh.consume(half.isOpened(id));
+    }
+}
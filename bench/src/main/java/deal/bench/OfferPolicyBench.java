@@ -0,0 +1,84 @@
+package deal.bench;
+
+import deal.core.GameConfig;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LegacyOfferPolicy#offer} on a mid-game 25-case board: with the context already built,
+ * through the primitive overload, including a per-offer context construction, and batched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OfferPolicyBench {
+    private static final List<Integer> REMAINING =
+            List.of(1, 10, 75, 300, 750, 5_000, 25_000, 100_000, 300_000, 750_000, 1_000_000);
+
+    private final OfferPolicy policy = LegacyOfferPolicy.DEFAULT;
+    private OfferPolicy.Context ctx;
+    private long sum;
+    private long sumSq;
+
+    private static final int BATCH = 4_096;
+
+    private int[] ladder; // 25-case ladder, ascending
+    private final long[] masks = new long[BATCH];
+    private final int[] out = new int[BATCH];
+
+    @Setup
+    public void setUp() {
+        ctx = new OfferPolicy.Context(25, REMAINING, 25 - REMAINING.size(), 90_000);
+        sum = ctx.remainingSum;
+        sumSq = ctx.remainingSumOfSquares;
+
+        ladder =
+                GameConfig.of(25).amountsDollars().stream()
+                        .mapToInt(Integer::intValue)
+                        .sorted()
+                        .toArray();
+        var rng = new SplittableRandom(42L);
+        for (int i = 0; i < BATCH; i++) masks[i] = 1L + rng.nextInt((1 << 25) - 1);
+    }
+
+    @Benchmark
+    public int offer() {
+        return policy.offer(ctx);
+    }
+
+    /** The allocation-free path Engine, MutableGame and the solver use. */
+    @Benchmark
+    public int offerPrimitive() {
+        return policy.offer(25, REMAINING.size(), sum, sumSq, 1, 1_000_000, 14, 90_000);
+    }
+
+    /** {@value #BATCH} random subsets of the 25-case ladder per op, by mask. */
+    @Benchmark
+    public int[] offerBatchMasks() {
+        policy.offerBatch(ladder, masks, BATCH, 25, out);
+        return out;
+    }
+
+    @Benchmark
+    public int offerFromAggregates() {
+        return policy.offer(
+                OfferPolicy.Context.ofAggregates(
+                        25, REMAINING.size(), sum, sumSq, 1, 1_000_000, 14, 90_000));
+    }
+}
@@ -0,0 +1,73 @@
+package deal.bench;
+
+import deal.analytics.TranscriptWriter;
+import deal.analytics.TranscriptWriter.Step;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Append throughput of the file transcript writers, one open file per iteration. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranscriptWriterBench {
+
+    @Param({"csv", "json", "dnd"})
+    public String format;
+
+    /** A typical offer step on a 25-case board with 11 cases left. */
+    private final Step step =
+            new Step(
+                    17,
+                    6,
+                    "offer",
+                    null,
+                    null,
+                    List.of(1, 3, 4, 8, 11, 13, 17, 19, 20, 22, 25),
+                    List.of(
+                            1, 10, 75, 300, 750, 5_000, 25_000, 100_000, 300_000, 750_000,
+                            1_000_000),
+                    92_500,
+                    225_648.6,
+                    null,
+                    null);
+
+    private Path file;
+    private TranscriptWriter writer;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        file = Files.createTempFile("bench-transcript", "." + format);
+        writer = TranscriptWriter.fromPath(file);
+        writer.writeHeader("{\"cases\":25,\"seed\":42}");
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        writer.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        writer.append(step);
+    }
+}
@@ -1,19 +1,28 @@
 package deal.cli;
 
+import deal.analytics.FlushPolicy;
+
 final class CliOptions {
     final int caseCount; // >= 2 for fixed, or -1 means "custom" (prompt)
     final long seed;
     final boolean help;
     final boolean showEv; // used by Main.java
     final String transcriptPath; // used by Main.java
+    final FlushPolicy transcriptFlush; // used by Main.java
 
     private CliOptions(
-            int caseCount, long seed, boolean help, boolean showEv, String transcriptPath) {
+            int caseCount,
+            long seed,
+            boolean help,
+            boolean showEv,
+            String transcriptPath,
+            FlushPolicy transcriptFlush) {
         this.caseCount = caseCount;
         this.seed = seed;
         this.help = help;
         this.showEv = showEv;
         this.transcriptPath = transcriptPath;
+        this.transcriptFlush = transcriptFlush;
     }
 
     static CliOptions from(Args args) {
@@ -57,7 +66,10 @@ final class CliOptions {
         String transcriptPath = args.getOne("transcript", "");
         if (transcriptPath != null && transcriptPath.isBlank()) transcriptPath = null;
 
-        return new CliOptions(caseCount, seed, help, showEv, transcriptPath);
+        // --transcript-flush (default: per step, so an interrupted game keeps every step)
+        FlushPolicy transcriptFlush = FlushPolicy.parse(args.getOne("transcript-flush", "step"));
+
+        return new CliOptions(caseCount, seed, help, showEv, transcriptPath, transcriptFlush);
     }
 
     static String usage() {
@@ -69,7 +81,10 @@ final class CliOptions {
                         + " prompt.",
                 "  --seed=<long>          RNG seed for deterministic shuffles (default: 42).",
                 "  --show-ev=<true|false> Show/hide EV & offer/EV advisor line (default: true).",
-                "  --transcript=<file>    Export a transcript to .json or .csv.",
+                "  --transcript=<file>    Export a transcript to .json, .csv or binary .dnd, or"
+                        + " a compact .dna action log (seed + moves).",
+                "  --transcript-flush=<step|game|bytes> When to write the transcript out (default:"
+                        + " step).",
                 "  --help | -h            Show this help.");
     }
 }
@@ -1,13 +1,16 @@
 package deal.cli;
 
+import deal.analytics.ActionLogWriter;
 import deal.analytics.TranscriptWriter;
 import deal.analytics.TranscriptWriter.Step;
 import deal.core.Engine;
 import deal.core.GameConfig;
 import deal.core.GameState;
+import deal.core.OptimalPlaySolver;
 import deal.core.Phase;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.NumberFormat;
 import java.time.Instant;
@@ -21,13 +24,16 @@ import java.util.Locale;
  * v2 CLI with legacy parity + Stage 5c polish: - Player chooses how many cases to open each round
  * (no hard-coded schedule). - Immediate reveal after each open; board reprinted after each open. -
  * Banker offer after the chosen opens; EV/advisor line can be hidden with --show-ev=false. -
- * Optional transcript export via --transcript=out.json | out.csv. - --cases=custom prompts for any
- * integer in 2..25 before starting.
+ * Optional transcript export via --transcript=out.json | out.csv | out.dnd, or a compact action log
+ * via --transcript=out.dna. - --cases=custom prompts for any integer in 2..25 before starting.
  */
 public final class Main {
 
     private static final NumberFormat USD = NumberFormat.getCurrencyInstance(Locale.US);
 
+    /** Largest case count the advisor solves exactly (about 25 MiB and well under a second). */
+    private static final int ADVISOR_MAX_CASES = 20;
+
     public static void main(String[] args) throws Exception {
         Args parsed = Args.parse(args);
         CliOptions opt;
@@ -54,10 +60,11 @@ public final class Main {
         }
 
         // Build engine with resolved case count
+        GameConfig cfg;
         Engine engine;
         GameState s;
         try {
-            var cfg = GameConfig.of(caseCount);
+            cfg = GameConfig.of(caseCount);
             engine = new Engine(cfg, opt.seed);
             s = engine.start();
         } catch (IllegalArgumentException ex) {
@@ -66,12 +73,20 @@ public final class Main {
             return;
         }
 
+        // Exact optimal-play values for the advisor line (counters included); skipped for large
+        // ladders, where the table takes seconds and hundreds of MiB to build.
+        OptimalPlaySolver solver =
+                opt.showEv && caseCount <= ADVISOR_MAX_CASES
+                        ? OptimalPlaySolver.solve(cfg, true)
+                        : null;
+
         // Transcript (created after we know the final, resolved case count)
         TranscriptWriter tx = null;
+        ActionLogWriter actions = null; // .dna: seed + actions only, replayed on demand
         int step = 0;
         try {
             if (opt.transcriptPath != null && !opt.transcriptPath.isBlank()) {
-                tx = TranscriptWriter.fromPath(Paths.get(opt.transcriptPath));
+                Path path = Paths.get(opt.transcriptPath);
                 String header =
                         "{\"cases\":"
                                 + caseCount
@@ -80,7 +95,13 @@ public final class Main {
                                 + ",\"timestamp\":\""
                                 + Instant.now().toString()
                                 + "\"}";
-                tx.writeHeader(header);
+                if (path.toString().toLowerCase(Locale.ROOT).endsWith(".dna")) {
+                    actions = new ActionLogWriter(path, opt.transcriptFlush);
+                    actions.beginGame(header, cfg, opt.seed);
+                } else {
+                    tx = TranscriptWriter.fromPath(path, opt.transcriptFlush);
+                    tx.writeHeader(header);
+                }
             }
 
             System.out.println("Welcome to Deal or No Deal (v2)");
@@ -108,6 +129,7 @@ public final class Main {
                 if (playerId == null) exitNoInput();
                 try {
                     s = engine.pickPlayerCase(s, playerId);
+                    if (actions != null) actions.pick(playerId);
                 } catch (Exception e) {
                     System.out.println("Error: " + e.getMessage());
                 }
@@ -124,6 +146,10 @@ public final class Main {
                     String yn = askYesNo(in, "Swap your case with the last unopened one? [y/n]: ");
                     boolean swap = yn != null && yn.toLowerCase(Locale.ROOT).startsWith("y");
                     s = engine.revealFinal(s, swap);
+                    if (actions != null) {
+                        actions.revealFinal(swap);
+                        actions.result(s.resultDollars());
+                    }
 
                     if (tx != null) {
                         tx.append(
@@ -176,6 +202,7 @@ public final class Main {
                 if (k == null) exitNoInput();
                 try {
                     s = engine.chooseToOpen(s, k);
+                    if (actions != null) actions.chooseToOpen(k);
                 } catch (Exception e) {
                     System.out.println("Error: " + e.getMessage());
                     continue; // re-ask at same round
@@ -189,6 +216,10 @@ public final class Main {
                     int prize = amountOf(s, id);
                     try {
                         s = engine.openCase(s, id);
+                        if (actions != null) {
+                            actions.open(id);
+                            actions.prize(prize);
+                        }
                     } catch (Exception e) {
                         System.out.println("Error: " + e.getMessage());
                         continue; // retry this pick
@@ -223,11 +254,19 @@ public final class Main {
 
                 System.out.println("Banker offers: " + fmt(offer));
                 if (opt.showEv) {
+                    String optimal =
+                            solver == null
+                                    ? ""
+                                    : " | No Deal worth \u2248 "
+                                            + fmt((int) Math.round(solver.noDealValue(s)))
+                                            + " | Best counter \u2248 "
+                                            + fmt(solver.bestCounter(s));
                     System.out.println(
                             "Advisor: EV \u2248 "
                                     + fmt((int) Math.round(ev))
                                     + " | Offer/EV \u2248 "
-                                    + String.format(Locale.US, "%.2f", ratio));
+                                    + String.format(Locale.US, "%.2f", ratio)
+                                    + optimal);
                 }
                 System.out.println(
                         "Choose: [d] Deal  |  [n] No Deal  |  [c <amount>] Counteroffer  | "
@@ -256,6 +295,11 @@ public final class Main {
 
                 if (lower.equals("d") || lower.equals("deal")) {
                     s = engine.acceptDeal(s);
+                    if (actions != null) {
+                        actions.offered(offer);
+                        actions.deal();
+                        actions.result(s.resultDollars());
+                    }
 
                     if (tx != null) {
                         tx.append(
@@ -277,6 +321,10 @@ public final class Main {
                     break;
                 } else if (lower.equals("n") || lower.equals("nodeal") || lower.equals("no deal")) {
                     s = engine.declineDeal(s);
+                    if (actions != null) {
+                        actions.offered(offer);
+                        actions.noDeal();
+                    }
 
                     if (tx != null) {
                         tx.append(
@@ -305,6 +353,11 @@ public final class Main {
                     try {
                         s = engine.proposeCounter(s, counter);
                         s = engine.resolveCounter(s);
+                        if (actions != null) {
+                            actions.offered(offer);
+                            actions.counter(counter);
+                            if (s.phase() == Phase.RESULT) actions.result(s.resultDollars());
+                        }
 
                         if (tx != null) {
                             tx.append(
@@ -318,7 +371,7 @@ public final class Main {
                                             remainingAmountsList(s),
                                             offer,
                                             ev,
-                                            null,
+                                            s.phase() == Phase.RESULT,
                                             counter));
                         }
 
@@ -355,6 +408,12 @@ public final class Main {
                 } catch (Exception ignore) {
                 }
             }
+            if (actions != null) {
+                try {
+                    actions.close();
+                } catch (Exception ignore) {
+                }
+            }
         }
     }
 
@@ -419,10 +478,7 @@ public final class Main {
     }
 
     private static void printRemainingBrief(GameState s) {
-        var opened = new HashSet<>(s.openedCaseIds());
-        int remaining = 0;
-        for (var c : s.cases()) if (!opened.contains(c.id())) remaining++;
-        System.out.println("Remaining unopened cases (incl. your case): " + remaining);
+        System.out.println("Remaining unopened cases (incl. your case): " + s.remainingCount());
     }
 
     private static void printRemainingAmounts(GameState s) {
@@ -463,17 +519,9 @@ public final class Main {
         throw new IllegalArgumentException("No such case id " + caseId);
     }
 
+    /** Naive EV: mean of the unopened amounts, read from the state's running aggregates. */
     private static double evOfRemaining(GameState s) {
-        var opened = new HashSet<>(s.openedCaseIds());
-        long sum = 0;
-        int n = 0;
-        for (var c : s.cases()) {
-            if (!opened.contains(c.id())) {
-                sum += c.amountDollars();
-                n++;
-            }
-        }
-        return (n == 0) ? 0.0 : (sum * 1.0) / n;
+        return s.remainingMean();
     }
 
     private static String joinInts(List<Integer> xs) {
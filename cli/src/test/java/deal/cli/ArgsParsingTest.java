@@ -36,4 +36,16 @@ class ArgsParsingTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Invalid integer for --cases");
     }
+
+    @Test
+    void transcriptFlushPolicy() {
+        assertThat(CliOptions.from(Args.parse(new String[0])).transcriptFlush)
+                .isSameAs(deal.analytics.FlushPolicy.perStep());
+        var a = Args.parse(new String[] {"--transcript-flush=4096"});
+        assertThat(CliOptions.from(a).transcriptFlush.toString()).isEqualTo("onSize(4096)");
+        var bad = Args.parse(new String[] {"--transcript-flush=sometimes"});
+        assertThatThrownBy(() -> CliOptions.from(bad))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Flush policy");
+    }
 }
@@ -37,4 +37,24 @@ final class CliEvToggleTest {
         assertTrue(output.contains("Banker offers"), "offer should appear");
         assertFalse(output.contains("Advisor:"), "advisor line should be hidden");
     }
+
+    @Test
+    void advisorShowsOptimalPlayValue_byDefault() throws Exception {
+        String script = String.join("\n", "", "1", "1", "2", "deal") + "\n";
+
+        ByteArrayInputStream in =
+                new ByteArrayInputStream(script.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        ByteArrayOutputStream outBuf = new ByteArrayOutputStream(64 * 1024);
+        PrintStream out = new PrintStream(outBuf, true, java.nio.charset.StandardCharsets.UTF_8);
+
+        System.setIn(in);
+        System.setOut(out);
+        System.setErr(out);
+
+        Main.main(new String[] {"--cases=10", "--seed=42"});
+
+        String output = outBuf.toString(java.nio.charset.StandardCharsets.UTF_8);
+        assertTrue(output.contains("Advisor:"), "advisor line should appear");
+        assertTrue(output.contains("No Deal worth"), "optimal-play value should appear");
+    }
 }
@@ -50,4 +50,39 @@ final class CliTranscriptTest {
             }
         }
     }
+
+    @Test
+    void acceptedCounter_isRecordedAsAccepted() throws Exception {
+        Path tmp = Files.createTempFile("deal-transcript-", ".json");
+        try {
+            String script =
+                    String.join(
+                                    "\n", "", // ENTER to start
+                                    "1", // pick case #1
+                                    "1", // open K=1 this round
+                                    "2", // open case #2
+                                    "c 1") // a counter at or below the offer is always taken
+                            + "\n";
+
+            System.setIn(
+                    new ByteArrayInputStream(
+                            script.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(new ByteArrayOutputStream(), true));
+
+            Main.main(
+                    new String[] {
+                        "--cases=10", "--seed=42", "--transcript=" + tmp, "--transcript-flush=game"
+                    });
+
+            String txt = Files.readString(tmp);
+            assertTrue(
+                    txt.contains("\"action\":\"counteroffer\""), "should record the counter");
+            assertTrue(txt.contains("\"accepted\":true"), "should record that it was accepted");
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (Exception ignore) {
+            }
+        }
+    }
 }
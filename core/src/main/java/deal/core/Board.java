@@ -0,0 +1,164 @@
+package deal.core;
+
+import java.util.Random;
+
+/**
+ * Immutable layout of one shuffled game: the amount behind every case, the same amounts sorted
+ * into a ladder, and the mapping between case ids and ladder indices. All {@link GameState}s of a
+ * game share one Board, so state transitions never copy it.
+ */
+final class Board {
+    /** Opened cases are tracked in a {@code long} bitmask. */
+    static final int MAX_CASES = Long.SIZE;
+
+    private final int[] amountByCase; // index = caseId - 1
+    private final int[] ladder; // amounts sorted ascending
+    private final int[] ladderIndexByCase; // index = caseId - 1
+    private final int[] caseIdByLadderIndex;
+    private final long totalSum;
+    private final long totalSumOfSquares;
+
+    private Board(
+            int[] amountByCase, int[] ladder, int[] ladderIndexByCase, int[] caseIdByLadderIndex) {
+        this.amountByCase = amountByCase;
+        this.ladder = ladder;
+        this.ladderIndexByCase = ladderIndexByCase;
+        this.caseIdByLadderIndex = caseIdByLadderIndex;
+        long sum = 0L, sumSq = 0L;
+        for (int a : amountByCase) {
+            sum += a;
+            sumSq += (long) a * a;
+        }
+        this.totalSum = sum;
+        this.totalSumOfSquares = sumSq;
+    }
+
+    /** Build a board from amounts indexed by {@code caseId - 1}. The array is not retained. */
+    static Board of(int[] amountsByCase) {
+        int n = amountsByCase.length;
+        if (n < 1 || n > MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "Unsupported case count: " + n + " (allowed 1.." + MAX_CASES + ")");
+        }
+        int[] amounts = amountsByCase.clone();
+
+        // Stable insertion sort of case indices by amount (n is tiny); ties keep case order.
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = i;
+            while (j > 0 && amounts[order[j - 1]] > amounts[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+
+        int[] ladder = new int[n];
+        int[] ladderIndexByCase = new int[n];
+        int[] caseIdByLadderIndex = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            int caseIdx = order[rank];
+            ladder[rank] = amounts[caseIdx];
+            ladderIndexByCase[caseIdx] = rank;
+            caseIdByLadderIndex[rank] = caseIdx + 1;
+        }
+        return new Board(amounts, ladder, ladderIndexByCase, caseIdByLadderIndex);
+    }
+
+    /**
+     * Deal a config's precomputed ladder: case {@code i + 1} receives provider slot {@code
+     * slotOfCase[i]}. Shares the config's sorted ladder; nothing is sorted per game.
+     */
+    static Board deal(GameConfig cfg, int[] slotOfCase) {
+        int n = slotOfCase.length;
+        if (n > MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "Unsupported case count: " + n + " (allowed 1.." + MAX_CASES + ")");
+        }
+        int[] ladderAmounts = cfg.ladderAmounts();
+        int[] ladderIndexOfSlot = cfg.ladderIndexOfSlot();
+        int[] amountByCase = new int[n];
+        int[] ladderIndexByCase = new int[n];
+        int[] caseIdByLadderIndex = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slot = slotOfCase[i];
+            amountByCase[i] = ladderAmounts[slot];
+            ladderIndexByCase[i] = ladderIndexOfSlot[slot];
+            caseIdByLadderIndex[ladderIndexOfSlot[slot]] = i + 1;
+        }
+        return new Board(amountByCase, cfg.sortedLadder(), ladderIndexByCase, caseIdByLadderIndex);
+    }
+
+    /**
+     * Fill {@code slots} with a seeded permutation of {@code 0..n-1}: identity followed by the same
+     * swaps {@code Collections.shuffle(list, rng)} performs on a RandomAccess list.
+     */
+    static void shuffleSlots(int[] slots, Random rng) {
+        for (int i = 0; i < slots.length; i++) slots[i] = i;
+        for (int i = slots.length; i > 1; i--) {
+            int j = rng.nextInt(i);
+            int tmp = slots[i - 1];
+            slots[i - 1] = slots[j];
+            slots[j] = tmp;
+        }
+    }
+
+    int caseCount() {
+        return amountByCase.length;
+    }
+
+    /** Bitmask with one bit per case (bit {@code caseId - 1}). */
+    long allCasesMask() {
+        int n = amountByCase.length;
+        return n == Long.SIZE ? -1L : (1L << n) - 1;
+    }
+
+    /** Bitmask with one bit per ladder index. */
+    long allLadderMask() {
+        return allCasesMask(); // one ladder slot per case
+    }
+
+    long totalSum() {
+        return totalSum;
+    }
+
+    long totalSumOfSquares() {
+        return totalSumOfSquares;
+    }
+
+    boolean isValidCaseId(int caseId) {
+        return caseId >= 1 && caseId <= amountByCase.length;
+    }
+
+    int amountOf(int caseId) {
+        return amountByCase[caseId - 1];
+    }
+
+    int ladderIndexOf(int caseId) {
+        return ladderIndexByCase[caseId - 1];
+    }
+
+    int ladderAmount(int ladderIndex) {
+        return ladder[ladderIndex];
+    }
+
+    int caseIdAtLadderIndex(int ladderIndex) {
+        return caseIdByLadderIndex[ladderIndex];
+    }
+
+    /** Ladder index of the lowest-ranked case holding {@code amount}, or -1 if none does. */
+    int ladderIndexOfAmount(int amount) {
+        int lo = 0, hi = ladder.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ladder[mid] < amount) {
+                lo = mid + 1;
+            } else {
+                if (ladder[mid] == amount) found = mid;
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -1,5 +1,6 @@
 package deal.core;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,15 +19,26 @@ public final class DefaultPrizeLadder implements PrizeLadderProvider {
                     25_000, 50_000, 75_000, 100_000, 200_000, 300_000, 400_000, 500_000, 750_000,
                     1_000_000);
 
+    /** Every supported ladder, built once; index = case count (0 and 1 unused). */
+    private static final List<List<Integer>> LADDERS = buildLadders();
+
+    private static List<List<Integer>> buildLadders() {
+        List<List<Integer>> out = new ArrayList<>(26);
+        for (int n = 0; n <= 25; n++) {
+            if (n == 10) out.add(LEGACY_10); // explicit parity for the classic 10-case game
+            else if (n >= 2) out.add(List.copyOf(LEGACY_25.subList(0, n)));
+            else out.add(List.of());
+        }
+        return List.copyOf(out);
+    }
+
     @Override
     public List<Integer> amountsFor(int caseCount) {
         if (caseCount < 2 || caseCount > 25) {
             throw new IllegalArgumentException(
                     "Unsupported case count: " + caseCount + " (allowed 2..25)");
         }
-        if (caseCount == 25) return LEGACY_25;
-        if (caseCount == 10) return LEGACY_10; // explicit parity for the classic 10-case game
-        // For any other N in 2..24, use the first N amounts from the 25-case ladder.
-        return List.copyOf(LEGACY_25.subList(0, caseCount));
+        // For any N other than 10, the first N amounts from the 25-case ladder.
+        return LADDERS.get(caseCount);
     }
 }
@@ -2,56 +2,70 @@ package deal.core;
 
 import deal.core.offer.LegacyOfferPolicy;
 import deal.core.offer.OfferPolicy;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
 
 /** Core game engine: state transitions + banker offer via pluggable policy. */
 public final class Engine {
     private final GameConfig cfg;
     private final Random rng;
+    private final OfferPolicy offerPolicy;
+    private final EngineMetrics metrics; // null: not measured
 
     public Engine(GameConfig cfg, long seed) {
+        this(cfg, seed, LegacyOfferPolicy.DEFAULT);
+    }
+
+    /**
+     * Engine with a custom banker. The policy sees every offer through {@link
+     * OfferPolicy#offerForMask} with masks over {@code cfg}'s ladder, so a {@link
+     * deal.core.offer.CachingOfferPolicy} can be shared by all engines of one config.
+     */
+    public Engine(GameConfig cfg, long seed, OfferPolicy offerPolicy) {
+        this(cfg, seed, offerPolicy, null);
+    }
+
+    /**
+     * Engine that reports its transitions, outcomes and offer/counter latencies into {@code
+     * metrics}, which may be shared with other engines; {@code null} turns reporting off.
+     */
+    public Engine(GameConfig cfg, long seed, OfferPolicy offerPolicy, EngineMetrics metrics) {
+        if (offerPolicy == null) throw new IllegalArgumentException("offerPolicy must not be null");
         this.cfg = cfg;
         this.rng = new Random(seed);
+        this.offerPolicy = offerPolicy;
+        this.metrics = metrics;
     }
 
     /** Start a new game: shuffle amounts, build cases, enter PICK_CASE phase. */
     public GameState start() {
-        // Resolve the ladder provider from GameConfig (support multiple APIs + reflection).
-        PrizeLadderProvider provider = resolveLadderProvider(cfg);
-        List<Integer> ladder = provider.amountsFor(cfg.caseCount());
-        List<Integer> shuffled = new ArrayList<>(ladder);
-        Collections.shuffle(shuffled, rng);
-
-        List<Briefcase> cases = new ArrayList<>(shuffled.size());
-        for (int i = 0; i < shuffled.size(); i++) {
-            // Briefcase record signature: (id, amountDollars, opened)
-            cases.add(new Briefcase(i + 1, shuffled.get(i), false));
-        }
+        var event = new EngineEvents.Start();
+        event.begin();
+        // The ladder is resolved once per GameConfig; a new game only shuffles case slots.
+        int[] slotOfCase = new int[cfg.caseCount()];
+        Board.shuffleSlots(slotOfCase, rng);
+        if (metrics != null) metrics.gameStarted();
 
-        return new GameState(
-                Phase.PICK_CASE,
-                1,
-                cases,
-                null, // playerCaseId
-                new ArrayList<>(), // openedCaseIds
-                null, // currentOfferDollars
-                null, // counterOfferDollars
-                null, // resultDollars
-                0 // toOpenInThisRound
-                );
+        var s =
+                new GameState(
+                        Phase.PICK_CASE,
+                        1,
+                        Board.deal(cfg, slotOfCase),
+                        null, // playerCaseId
+                        0L, // openedMask
+                        null, // currentOfferDollars
+                        null, // counterOfferDollars
+                        null, // resultDollars
+                        0 // toOpenInThisRound
+                        );
+        event.commit(s);
+        return s;
     }
 
     /** Player picks their personal case during PICK_CASE. */
     public GameState pickPlayerCase(GameState s, int caseId) {
         requirePhase(s, Phase.PICK_CASE);
         requireValidCaseId(s, caseId);
-        return s.withPlayerCase(caseId);
+        return observe(s, s.withPlayerCase(caseId));
     }
 
     /**
@@ -68,13 +82,15 @@ public final class Engine {
         }
         if (s.phase() == Phase.PICK_CASE) {
             if (s.playerCaseId() == null) throw new IllegalStateException("Pick your case first");
-            return s.withRoundK(k);
+            return observe(s, s.withRoundK(k));
         }
-        return s.withRoundK(k);
+        return observe(s, s.withRoundK(k));
     }
 
     /** Open a specific unopened case (not the player's); decrements K. */
     public GameState openCase(GameState s, int caseId) {
+        var event = new EngineEvents.OpenCase();
+        event.begin();
         requirePhase(s, Phase.ROUND);
         requireValidCaseId(s, caseId);
         if (s.playerCaseId() != null && caseId == s.playerCaseId()) {
@@ -83,34 +99,52 @@ public final class Engine {
         if (s.isOpened(caseId))
             throw new IllegalArgumentException("Case already opened: " + caseId);
 
-        var s1 = s.withOpened(caseId);
-        return new GameState(
-                s1.phase(),
-                s1.roundIndex(),
-                s1.cases(),
-                s1.playerCaseId(),
-                s1.openedCaseIds(),
-                s1.currentOfferDollars(),
-                s1.counterOfferDollars(),
-                s1.resultDollars(),
-                s1.toOpenInThisRound() - 1);
+        GameState next = observe(s, s.withOpenedInRound(caseId));
+        event.caseId = caseId;
+        event.commit(next);
+        return next;
     }
 
     /** Compute banker offer using the pluggable OfferPolicy (legacy-flavored curve). */
     public GameState computeOffer(GameState s) {
+        var event = new EngineEvents.ComputeOffer();
+        event.begin();
+        GameState next;
+        if (metrics == null) {
+            next = offer(s);
+        } else {
+            long t0 = System.nanoTime();
+            next = offer(s);
+            metrics.offerComputed(System.nanoTime() - t0);
+            observe(s, next);
+        }
+        event.commit(next);
+        return next;
+    }
+
+    private GameState offer(GameState s) {
         if (s.toOpenInThisRound() > 0) {
             throw new IllegalStateException(
                     "Still need to open " + s.toOpenInThisRound() + " case(s)");
         }
-        var remaining = remainingAmounts(s);
-        OfferPolicy.Context ctx =
-                new OfferPolicy.Context(
-                        s.cases().size(), // initial case count
-                        remaining, // unopened amounts
-                        s.openedCaseIds().size(), // opened so far
-                        s.currentOfferDollars() // last offer (may be null)
-                        );
-        int offer = LegacyOfferPolicy.DEFAULT.offer(ctx);
+        Integer lastOffer = s.currentOfferDollars();
+        if (offerPolicy.readsRemainingAmounts()) {
+            var ctx =
+                    new OfferPolicy.Context(
+                            s.caseCount(), s.remainingAmounts(), s.openedCount(), lastOffer);
+            return s.withOffer(offerPolicy.offer(ctx));
+        }
+        int offer =
+                offerPolicy.offerForMask(
+                        s.remainingLadderMask(), // identifies the remaining set
+                        s.caseCount(), // initial case count
+                        s.remainingCount(), // unopened amounts ...
+                        s.remainingSum(),
+                        s.remainingSumOfSquares(),
+                        s.remainingMin(),
+                        s.remainingMax(),
+                        s.openedCount(), // opened so far
+                        lastOffer == null ? OfferPolicy.NO_LAST_OFFER : lastOffer);
         return s.withOffer(offer);
     }
 
@@ -122,15 +156,18 @@ public final class Engine {
     /** Player accepts banker offer. */
     public GameState acceptDeal(GameState s) {
         requirePhase(s, Phase.OFFER);
-        return s.withResult(nonNull(s.currentOfferDollars(), "offer not set"));
+        GameState next = s.withResult(nonNull(s.currentOfferDollars(), "offer not set"));
+        if (metrics != null) metrics.dealt();
+        return observe(s, next);
     }
 
     /** Player declines banker offer; next round or final reveal if two cases remain. */
     public GameState declineDeal(GameState s) {
         requirePhase(s, Phase.OFFER);
-        int remaining = s.cases().size() - s.openedCaseIds().size();
-        if (remaining <= 2) return s.toFinalReveal();
-        return s.nextRound();
+        if (metrics != null) metrics.declined();
+        int remaining = s.remainingCount();
+        if (remaining <= 2) return observe(s, s.toFinalReveal());
+        return observe(s, s.nextRound());
     }
 
     /**
@@ -142,7 +179,7 @@ public final class Engine {
         if (playerCounterDollars <= 0) {
             throw new IllegalArgumentException("Counter must be positive");
         }
-        return s.withCounterOffer(playerCounterDollars);
+        return observe(s, s.withCounterOffer(playerCounterDollars));
     }
 
     /**
@@ -152,6 +189,25 @@ public final class Engine {
      * roundIndex).
      */
     public GameState resolveCounter(GameState s) {
+        var event = new EngineEvents.ResolveCounter();
+        event.begin();
+        GameState next;
+        if (metrics == null) {
+            next = counter(s);
+        } else {
+            long t0 = System.nanoTime();
+            next = counter(s);
+            metrics.counterTimed(System.nanoTime() - t0);
+            metrics.counterResolved(next.phase() == Phase.RESULT);
+            observe(s, next);
+        }
+        event.counter = s.counterOfferDollars();
+        event.accepted = next.phase() == Phase.RESULT;
+        event.commit(next);
+        return next;
+    }
+
+    private GameState counter(GameState s) {
         requirePhase(s, Phase.COUNTEROFFER);
         int counter = nonNull(s.counterOfferDollars(), "counter not set");
 
@@ -162,20 +218,13 @@ public final class Engine {
         }
 
         // Legacy feasibility + EV threshold rule.
-        List<Integer> rem = remainingAmounts(s);
-        int maxRemaining = rem.stream().mapToInt(x -> x).max().orElse(0);
-        double ev = rem.stream().mapToDouble(a -> a).average().orElse(0.0);
-        double acceptanceFactor = Math.min(1.10, 0.95 + 0.03 * s.roundIndex());
-        int threshold = (int) Math.ceil(ev * acceptanceFactor);
-
-        boolean feasible = counter <= maxRemaining;
-        boolean reasonable = counter <= threshold;
-        boolean accepted = feasible && reasonable;
+        boolean accepted =
+                bankerAcceptsCounter(counter, s.remainingMax(), s.remainingMean(), s.roundIndex());
 
         if (accepted) {
             return s.withResult(counter);
         } else {
-            int remaining = s.cases().size() - s.openedCaseIds().size();
+            int remaining = s.remainingCount();
             if (remaining <= 2) return s.toFinalReveal();
             return s.nextRound();
         }
@@ -186,27 +235,56 @@ public final class Engine {
      * to the other case; result is the chosen case's amount.
      */
     public GameState revealFinal(GameState s, boolean swap) {
+        var event = new EngineEvents.RevealFinal();
+        event.begin();
         requirePhase(s, Phase.FINAL_REVEAL);
         int playerId = nonNull(s.playerCaseId(), "player case not set");
 
-        // Collect all unopened case ids (includes player's case).
-        List<Integer> unopened = new ArrayList<>();
-        for (var c : s.cases()) {
-            if (!s.isOpened(c.id())) unopened.add(c.id());
-        }
-        if (unopened.size() != 2) {
+        // Unopened cases (includes player's case) must be exactly the player's plus one other.
+        long unopened = s.unopenedMask();
+        if (Long.bitCount(unopened) != 2) {
             throw new IllegalStateException("Final reveal requires exactly 2 unopened cases");
         }
 
         // Identify the non-player case id.
-        int otherId = (unopened.get(0) == playerId) ? unopened.get(1) : unopened.get(0);
+        int otherId = Long.numberOfTrailingZeros(unopened & ~(1L << (playerId - 1))) + 1;
         int chosenId = swap ? otherId : playerId;
-        int win = amountOf(s, chosenId);
-        return s.withResult(win);
+        int win = s.amountOf(chosenId);
+        GameState next = observe(s, s.withResult(win));
+        event.swap = swap;
+        event.result = win;
+        event.commit(next);
+        return next;
     }
 
     // ---- helpers ----
 
+    /** Cap on {@link #acceptanceFactor}; reached from round 6 on. */
+    static final double MAX_ACCEPTANCE_FACTOR = 1.10;
+
+    /** How far above EV the banker accepts a counter: min(1.10, 0.95 + 0.03 * roundIndex). */
+    static double acceptanceFactor(int roundIndex) {
+        return Math.min(MAX_ACCEPTANCE_FACTOR, 0.95 + 0.03 * roundIndex);
+    }
+
+    /** Largest counter the banker accepts on EV grounds: ceil(EV * acceptanceFactor(round)). */
+    static int counterThreshold(double ev, int roundIndex) {
+        return (int) Math.ceil(ev * acceptanceFactor(roundIndex));
+    }
+
+    /** Rule (B) of {@link #resolveCounter}: counter ≤ max remaining AND ≤ the EV threshold. */
+    static boolean bankerAcceptsCounter(int counter, int maxRemaining, double ev, int roundIndex) {
+        boolean feasible = counter <= maxRemaining;
+        boolean reasonable = counter <= counterThreshold(ev, roundIndex);
+        return feasible && reasonable;
+    }
+
+    /** Count a change of phase from {@code s} to {@code next}, if measured. */
+    private GameState observe(GameState s, GameState next) {
+        if (metrics != null && next.phase() != s.phase()) metrics.entered(next.phase());
+        return next;
+    }
+
     private static void requirePhase(GameState s, Phase expected) {
         if (s.phase() != expected) {
             throw new IllegalStateException("Expected phase " + expected + " but was " + s.phase());
@@ -214,77 +292,19 @@ public final class Engine {
     }
 
     private static void requireValidCaseId(GameState s, int caseId) {
-        if (caseId < 1 || caseId > s.cases().size()) {
+        if (caseId < 1 || caseId > s.caseCount()) {
             throw new IllegalArgumentException("Invalid case id: " + caseId);
         }
     }
 
     private static int countUnopenedNonPlayer(GameState s) {
-        int total = 0;
-        for (var c : s.cases()) {
-            if (s.playerCaseId() != null && c.id() == s.playerCaseId()) continue;
-            if (!s.isOpened(c.id())) total++;
-        }
-        return total;
-    }
-
-    private static List<Integer> remainingAmounts(GameState s) {
-        var opened = new HashSet<>(s.openedCaseIds());
-        List<Integer> out = new ArrayList<>();
-        for (var c : s.cases()) if (!opened.contains(c.id())) out.add(c.amountDollars());
-        return out;
-    }
-
-    private static int amountOf(GameState s, int caseId) {
-        for (var c : s.cases()) if (c.id() == caseId) return c.amountDollars();
-        throw new IllegalArgumentException("No such case id " + caseId);
+        // The player's case is never opened, so it is always part of the unopened count.
+        int unopened = s.caseCount() - s.openedCount();
+        return s.playerCaseId() != null ? unopened - 1 : unopened;
     }
 
     private static <T> T nonNull(T v, String msg) {
         if (v == null) throw new IllegalStateException(msg);
         return v;
     }
-
-    /** Resolve a PrizeLadderProvider from GameConfig without assuming field/method names. */
-    private static PrizeLadderProvider resolveLadderProvider(GameConfig cfg) {
-        // 1) Try common explicit accessor names.
-        for (String name :
-                new String[] {
-                    "ladder", "prizeLadderProvider", "prizeLadder",
-                    "getLadder", "getPrizeLadderProvider", "getPrizeLadder"
-                }) {
-            try {
-                Method m = cfg.getClass().getMethod(name);
-                if (PrizeLadderProvider.class.isAssignableFrom(m.getReturnType())) {
-                    Object v = m.invoke(cfg);
-                    if (v instanceof PrizeLadderProvider p) return p;
-                }
-            } catch (ReflectiveOperationException ignored) {
-            }
-        }
-        // 2) Try any zero-arg method that returns PrizeLadderProvider.
-        for (Method m : cfg.getClass().getMethods()) {
-            try {
-                if (m.getParameterCount() == 0
-                        && PrizeLadderProvider.class.isAssignableFrom(m.getReturnType())) {
-                    Object v = m.invoke(cfg);
-                    if (v instanceof PrizeLadderProvider p) return p;
-                }
-            } catch (ReflectiveOperationException ignored) {
-            }
-        }
-        // 3) Try fields.
-        for (Field f : cfg.getClass().getDeclaredFields()) {
-            try {
-                if (PrizeLadderProvider.class.isAssignableFrom(f.getType())) {
-                    f.setAccessible(true);
-                    Object v = f.get(cfg);
-                    if (v instanceof PrizeLadderProvider p) return p;
-                }
-            } catch (ReflectiveOperationException ignored) {
-            }
-        }
-        // 4) Fallback.
-        return new DefaultPrizeLadder();
-    }
 }
@@ -0,0 +1,91 @@
+package deal.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events for {@link Engine} transitions, so offer computation can be lined up with
+ * GC and safepoints in a recording. All are disabled by default: list them in the recording's
+ * {@code .jfc} settings (e.g. {@code <event name="deal.engine.ComputeOffer"><setting
+ * name="enabled">true</setting></event>}) or call {@code Recording.enable}. Disabled, an event is
+ * a {@code new} that escape analysis removes and a {@code shouldCommit()} that is false.
+ *
+ * <p>Each event spans one successful transition (its duration) and describes the state it led
+ * to; a transition that throws records nothing.
+ */
+final class EngineEvents {
+    private EngineEvents() {}
+
+    @Category({"Deal or No Deal", "Engine"})
+    @Enabled(false)
+    @StackTrace(false)
+    abstract static class Transition extends Event {
+        @Label("Case Count")
+        int caseCount;
+
+        @Label("Remaining Cases")
+        int remainingCount;
+
+        @Label("Round Index")
+        int roundIndex;
+
+        @Label("Offer")
+        @Description("Current banker offer in dollars, 0 if none")
+        int offer;
+
+        /** End the event on {@code next}, if it is being recorded. */
+        final void commit(GameState next) {
+            if (!shouldCommit()) return;
+            caseCount = next.caseCount();
+            remainingCount = next.remainingCount();
+            roundIndex = next.roundIndex();
+            Integer o = next.currentOfferDollars();
+            offer = o == null ? 0 : o;
+            commit();
+        }
+    }
+
+    @Name("deal.engine.Start")
+    @Label("Engine Start")
+    @Description("A new game dealt")
+    static final class Start extends Transition {}
+
+    @Name("deal.engine.OpenCase")
+    @Label("Engine Open Case")
+    static final class OpenCase extends Transition {
+        @Label("Case Id")
+        int caseId;
+    }
+
+    @Name("deal.engine.ComputeOffer")
+    @Label("Engine Compute Offer")
+    @Description("The banker policy pricing the remaining cases")
+    static final class ComputeOffer extends Transition {}
+
+    @Name("deal.engine.ResolveCounter")
+    @Label("Engine Resolve Counter")
+    static final class ResolveCounter extends Transition {
+        @Label("Counter")
+        @Description("The player's counteroffer in dollars")
+        int counter;
+
+        @Label("Accepted")
+        boolean accepted;
+    }
+
+    @Name("deal.engine.RevealFinal")
+    @Label("Engine Reveal Final")
+    static final class RevealFinal extends Transition {
+        @Label("Swap")
+        boolean swap;
+
+        @Label("Result")
+        @Description("Winnings in dollars")
+        int result;
+    }
+}
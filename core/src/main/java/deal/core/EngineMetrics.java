@@ -0,0 +1,271 @@
+package deal.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters and latency histograms for {@link Engine}s; pass one instance to every engine
+ * that should report into it ({@link Engine#Engine(GameConfig, long,
+ * deal.core.offer.OfferPolicy, EngineMetrics)}). Counters are {@link LongAdder}s and the
+ * histograms are {@link LatencyHistogram}s, so engines on many threads record without contending
+ * on a lock. An engine built without metrics skips all of this behind a single null check.
+ *
+ * <p>Read it through the accessors, {@link #snapshot()} or, once {@linkplain #register
+ * registered}, JMX.
+ */
+public final class EngineMetrics {
+    /** JMX domain of {@link #register}ed instances. */
+    public static final String JMX_DOMAIN = "deal.core";
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LongAdder[] entered = new LongAdder[PHASES.length];
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder deals = new LongAdder();
+    private final LongAdder noDeals = new LongAdder();
+    private final LongAdder countersAccepted = new LongAdder();
+    private final LongAdder countersRejected = new LongAdder();
+    private final LatencyHistogram computeOffer = new LatencyHistogram();
+    private final LatencyHistogram resolveCounter = new LatencyHistogram();
+
+    public EngineMetrics() {
+        for (int i = 0; i < entered.length; i++) entered[i] = new LongAdder();
+    }
+
+    // ---- recording, called by Engine ----
+
+    void gameStarted() {
+        gamesStarted.increment();
+        entered[Phase.PICK_CASE.ordinal()].increment();
+    }
+
+    void entered(Phase phase) {
+        entered[phase.ordinal()].increment();
+    }
+
+    void dealt() {
+        deals.increment();
+    }
+
+    void declined() {
+        noDeals.increment();
+    }
+
+    void counterResolved(boolean accepted) {
+        (accepted ? countersAccepted : countersRejected).increment();
+    }
+
+    void offerComputed(long nanos) {
+        computeOffer.record(nanos);
+    }
+
+    void counterTimed(long nanos) {
+        resolveCounter.record(nanos);
+    }
+
+    // ---- reading ----
+
+    public long gamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    /** Games that reached {@link Phase#RESULT}, by deal, accepted counter or final reveal. */
+    public long gamesFinished() {
+        return transitions(Phase.RESULT);
+    }
+
+    /** Changes of phase into {@code phase}; staying in a phase (opening a case) is not one. */
+    public long transitions(Phase phase) {
+        return entered[phase.ordinal()].sum();
+    }
+
+    public long deals() {
+        return deals.sum();
+    }
+
+    public long noDeals() {
+        return noDeals.sum();
+    }
+
+    public long countersAccepted() {
+        return countersAccepted.sum();
+    }
+
+    public long countersRejected() {
+        return countersRejected.sum();
+    }
+
+    /** Wall time of {@link Engine#computeOffer}, banker policy included. */
+    public LatencyHistogram computeOfferLatency() {
+        return computeOffer;
+    }
+
+    public LatencyHistogram resolveCounterLatency() {
+        return resolveCounter;
+    }
+
+    /** Multi-line, human-readable report of every counter and histogram. */
+    public String snapshot() {
+        var sb = new StringBuilder();
+        sb.append(
+                String.format("games: %d started, %d finished%n", gamesStarted(), gamesFinished()));
+        sb.append("transitions:");
+        for (var e : phaseTransitions().entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(e.getValue());
+        }
+        sb.append(System.lineSeparator());
+        sb.append(
+                String.format(
+                        "outcomes: %d deals, %d no-deals, counters %d accepted / %d rejected%n",
+                        deals(), noDeals(), countersAccepted(), countersRejected()));
+        appendLatency(sb, "computeOffer", computeOffer);
+        appendLatency(sb, "resolveCounter", resolveCounter);
+        return sb.toString();
+    }
+
+    private static void appendLatency(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append(
+                String.format(
+                        Locale.US,
+                        "%s: n=%d mean=%.0fns p50=%dns p90=%dns p99=%dns max=%dns%n",
+                        name,
+                        h.count(),
+                        h.mean(),
+                        h.percentile(50),
+                        h.percentile(90),
+                        h.percentile(99),
+                        h.max()));
+    }
+
+    private Map<String, Long> phaseTransitions() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Phase p : PHASES) out.put(p.name(), transitions(p));
+        return out;
+    }
+
+    /**
+     * Register with the platform MBean server as {@code deal.core:type=EngineMetrics,name=<name>}
+     * and return that name (unregister it through the server when done).
+     *
+     * @throws IllegalStateException if the name is taken or registration fails
+     */
+    public ObjectName register(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name must not be blank");
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName on =
+                    new ObjectName(
+                            JMX_DOMAIN + ":type=EngineMetrics,name=" + ObjectName.quote(name));
+            return server.registerMBean(new MXBean(this), on).getObjectName();
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register engine metrics '" + name + "'", e);
+        }
+    }
+
+    /** Adapter, so the JMX getter names stay off the public API. */
+    private static final class MXBean implements EngineMetricsMXBean {
+        private final EngineMetrics m;
+
+        MXBean(EngineMetrics m) {
+            this.m = m;
+        }
+
+        @Override
+        public long getGamesStarted() {
+            return m.gamesStarted();
+        }
+
+        @Override
+        public long getGamesFinished() {
+            return m.gamesFinished();
+        }
+
+        @Override
+        public Map<String, Long> getPhaseTransitions() {
+            return m.phaseTransitions();
+        }
+
+        @Override
+        public long getDeals() {
+            return m.deals();
+        }
+
+        @Override
+        public long getNoDeals() {
+            return m.noDeals();
+        }
+
+        @Override
+        public long getCountersAccepted() {
+            return m.countersAccepted();
+        }
+
+        @Override
+        public long getCountersRejected() {
+            return m.countersRejected();
+        }
+
+        @Override
+        public long getComputeOfferCount() {
+            return m.computeOffer.count();
+        }
+
+        @Override
+        public double getComputeOfferMeanNanos() {
+            return m.computeOffer.mean();
+        }
+
+        @Override
+        public long getComputeOfferP50Nanos() {
+            return m.computeOffer.percentile(50);
+        }
+
+        @Override
+        public long getComputeOfferP99Nanos() {
+            return m.computeOffer.percentile(99);
+        }
+
+        @Override
+        public long getComputeOfferMaxNanos() {
+            return m.computeOffer.max();
+        }
+
+        @Override
+        public long getResolveCounterCount() {
+            return m.resolveCounter.count();
+        }
+
+        @Override
+        public double getResolveCounterMeanNanos() {
+            return m.resolveCounter.mean();
+        }
+
+        @Override
+        public long getResolveCounterP50Nanos() {
+            return m.resolveCounter.percentile(50);
+        }
+
+        @Override
+        public long getResolveCounterP99Nanos() {
+            return m.resolveCounter.percentile(99);
+        }
+
+        @Override
+        public long getResolveCounterMaxNanos() {
+            return m.resolveCounter.max();
+        }
+
+        @Override
+        public String getSnapshot() {
+            return m.snapshot();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package deal.core;
+
+import java.util.Map;
+
+/**
+ * JMX view of an {@link EngineMetrics}, registered by {@link EngineMetrics#register}. Latencies
+ * are in nanoseconds.
+ */
+public interface EngineMetricsMXBean {
+    long getGamesStarted();
+
+    long getGamesFinished();
+
+    /** Transitions into each phase, by phase name. */
+    Map<String, Long> getPhaseTransitions();
+
+    long getDeals();
+
+    long getNoDeals();
+
+    long getCountersAccepted();
+
+    long getCountersRejected();
+
+    long getComputeOfferCount();
+
+    double getComputeOfferMeanNanos();
+
+    long getComputeOfferP50Nanos();
+
+    long getComputeOfferP99Nanos();
+
+    long getComputeOfferMaxNanos();
+
+    long getResolveCounterCount();
+
+    double getResolveCounterMeanNanos();
+
+    long getResolveCounterP50Nanos();
+
+    long getResolveCounterP99Nanos();
+
+    long getResolveCounterMaxNanos();
+
+    /** {@link EngineMetrics#snapshot()}. */
+    String getSnapshot();
+}
@@ -7,14 +7,41 @@ public final class GameConfig {
     private final PrizeLadderProvider ladder;
     private final RoundPolicy policy;
 
+    // Ladder resolved once per config; shared (read-only) by every game dealt from it.
+    private final List<Integer> amounts; // provider order
+    private final int[] ladderAmounts; // provider order, shuffle input
+    private final int[] sortedLadder; // ascending
+    private final int[] ladderIndexOfSlot; // provider slot -> index into sortedLadder
+
     public GameConfig(int caseCount, PrizeLadderProvider ladder, RoundPolicy policy) {
         this.caseCount = caseCount;
         this.ladder = ladder;
         this.policy = policy;
         if (caseCount < 2) throw new IllegalArgumentException("Need at least 2 cases");
-        if (ladder.amountsFor(caseCount).size() != caseCount) {
+        List<Integer> amounts = ladder.amountsFor(caseCount);
+        if (amounts.size() != caseCount) {
             throw new IllegalArgumentException("Ladder size != caseCount");
         }
+        this.amounts = List.copyOf(amounts);
+        this.ladderAmounts = new int[caseCount];
+        for (int i = 0; i < caseCount; i++) ladderAmounts[i] = this.amounts.get(i);
+
+        // Stable sort of provider slots by amount (n is tiny); ties keep provider order.
+        int[] order = new int[caseCount];
+        for (int i = 0; i < caseCount; i++) {
+            int j = i;
+            while (j > 0 && ladderAmounts[order[j - 1]] > ladderAmounts[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        this.sortedLadder = new int[caseCount];
+        this.ladderIndexOfSlot = new int[caseCount];
+        for (int rank = 0; rank < caseCount; rank++) {
+            sortedLadder[rank] = ladderAmounts[order[rank]];
+            ladderIndexOfSlot[order[rank]] = rank;
+        }
     }
 
     public static GameConfig of(int caseCount) {
@@ -25,12 +52,31 @@ public final class GameConfig {
         return caseCount;
     }
 
+    /** The prize ladder this config was built with. */
+    public PrizeLadderProvider ladder() {
+        return ladder;
+    }
+
     public RoundPolicy roundPolicy() {
         return policy;
     }
 
-    /** Prize amounts in dollars. */
+    /** Prize amounts in dollars, in provider order (resolved once, immutable). */
     public List<Integer> amountsDollars() {
-        return ladder.amountsFor(caseCount);
+        return amounts;
+    }
+
+    // ---- package-private views for Engine/MutableGame (never mutated) ----
+
+    int[] ladderAmounts() {
+        return ladderAmounts;
+    }
+
+    int[] sortedLadder() {
+        return sortedLadder;
+    }
+
+    int[] ladderIndexOfSlot() {
+        return ladderIndexOfSlot;
     }
 }
@@ -1,21 +1,32 @@
 package deal.core;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
+/**
+ * Immutable game snapshot. The shuffled board is shared by every state of a game and opened cases
+ * are a {@code long} bitmask (bit {@code caseId - 1}), so transitions copy a handful of words
+ * instead of the case lists.
+ *
+ * <p>Aggregates over the unopened amounts (count, sum, sum of squares, min, max) are carried along
+ * and updated in O(1) by {@link #withOpened(int)}, so EV and spread never require a rescan.
+ */
 public final class GameState {
     private final Phase phase;
     private final int roundIndex;
-    private final List<Briefcase> cases;
+    private final Board board; // shared by all states of one game
     private final Integer playerCaseId; // null until chosen
-    private final List<Integer> openedCaseIds;
+    private final long openedMask; // bit (caseId - 1) set once opened
     private final Integer currentOfferDollars; // null until set
     private final Integer counterOfferDollars; // null until set
     private final Integer resultDollars; // null until RESULT
     private final int toOpenInThisRound; // remaining K to open this round
+    private final boolean roundKChosen; // K was chosen this round: the offer follows the opens
+    private final long remainingLadderMask; // bit i set while ladder amount i is unopened
+    private final long remainingSum;
+    private final long remainingSumOfSquares;
 
     public GameState(
             Phase phase,
@@ -27,15 +38,106 @@ public final class GameState {
             Integer counterOfferDollars,
             Integer resultDollars,
             int toOpenInThisRound) {
+        this(
+                phase,
+                roundIndex,
+                boardOf(cases),
+                playerCaseId,
+                maskOf(cases.size(), openedCaseIds),
+                currentOfferDollars,
+                counterOfferDollars,
+                resultDollars,
+                toOpenInThisRound);
+    }
+
+    GameState(
+            Phase phase,
+            int roundIndex,
+            Board board,
+            Integer playerCaseId,
+            long openedMask,
+            Integer currentOfferDollars,
+            Integer counterOfferDollars,
+            Integer resultDollars,
+            int toOpenInThisRound) {
+        this(
+                phase,
+                roundIndex,
+                board,
+                playerCaseId,
+                openedMask,
+                currentOfferDollars,
+                counterOfferDollars,
+                resultDollars,
+                toOpenInThisRound,
+                toOpenInThisRound > 0);
+    }
+
+    GameState(
+            Phase phase,
+            int roundIndex,
+            Board board,
+            Integer playerCaseId,
+            long openedMask,
+            Integer currentOfferDollars,
+            Integer counterOfferDollars,
+            Integer resultDollars,
+            int toOpenInThisRound,
+            boolean roundKChosen) {
         this.phase = Objects.requireNonNull(phase);
         this.roundIndex = roundIndex;
-        this.cases = List.copyOf(cases);
+        this.board = board;
         this.playerCaseId = playerCaseId;
-        this.openedCaseIds = List.copyOf(openedCaseIds);
+        this.openedMask = openedMask;
         this.currentOfferDollars = currentOfferDollars;
         this.counterOfferDollars = counterOfferDollars;
         this.resultDollars = resultDollars;
         this.toOpenInThisRound = toOpenInThisRound;
+        this.roundKChosen = roundKChosen;
+
+        long ladderMask = board.allLadderMask();
+        long sum = board.totalSum();
+        long sumSq = board.totalSumOfSquares();
+        for (long m = openedMask; m != 0; m &= m - 1) {
+            int id = Long.numberOfTrailingZeros(m) + 1;
+            long a = board.amountOf(id);
+            ladderMask &= ~(1L << board.ladderIndexOf(id));
+            sum -= a;
+            sumSq -= a * a;
+        }
+        this.remainingLadderMask = ladderMask;
+        this.remainingSum = sum;
+        this.remainingSumOfSquares = sumSq;
+    }
+
+    /** Transition constructor: aggregates are supplied by the caller, nothing is rescanned. */
+    private GameState(
+            GameState from,
+            Phase phase,
+            int roundIndex,
+            Integer playerCaseId,
+            long openedMask,
+            Integer currentOfferDollars,
+            Integer counterOfferDollars,
+            Integer resultDollars,
+            int toOpenInThisRound,
+            boolean roundKChosen,
+            long remainingLadderMask,
+            long remainingSum,
+            long remainingSumOfSquares) {
+        this.phase = Objects.requireNonNull(phase);
+        this.roundIndex = roundIndex;
+        this.board = from.board;
+        this.playerCaseId = playerCaseId;
+        this.openedMask = openedMask;
+        this.currentOfferDollars = currentOfferDollars;
+        this.counterOfferDollars = counterOfferDollars;
+        this.resultDollars = resultDollars;
+        this.toOpenInThisRound = toOpenInThisRound;
+        this.roundKChosen = roundKChosen;
+        this.remainingLadderMask = remainingLadderMask;
+        this.remainingSum = remainingSum;
+        this.remainingSumOfSquares = remainingSumOfSquares;
     }
 
     static GameState initial(List<Briefcase> shuffled) {
@@ -50,16 +152,23 @@ public final class GameState {
         return roundIndex;
     }
 
+    /** All briefcases in id order; materialized on each call, prefer the primitive accessors. */
     public List<Briefcase> cases() {
-        return cases;
+        int n = board.caseCount();
+        List<Briefcase> out = new ArrayList<>(n);
+        for (int id = 1; id <= n; id++) {
+            out.add(new Briefcase(id, board.amountOf(id), isOpened(id)));
+        }
+        return Collections.unmodifiableList(out);
     }
 
     public Integer playerCaseId() {
         return playerCaseId;
     }
 
+    /** IDs of opened briefcases, ascending. */
     public List<Integer> openedCaseIds() {
-        return openedCaseIds;
+        return idsOf(openedMask);
     }
 
     public Integer currentOfferDollars() {
@@ -78,44 +187,129 @@ public final class GameState {
         return toOpenInThisRound;
     }
 
+    /**
+     * Whether K was chosen in this ROUND. With {@link #toOpenInThisRound()} at zero this tells the
+     * offer point (the round's cases are open) from a round start (K is still to choose).
+     */
+    public boolean roundKChosen() {
+        return roundKChosen;
+    }
+
+    /** Total number of briefcases in this game. */
+    public int caseCount() {
+        return board.caseCount();
+    }
+
+    /** Number of opened briefcases. */
+    public int openedCount() {
+        return Long.bitCount(openedMask);
+    }
+
+    /** Opened briefcases as a bitmask: bit {@code caseId - 1} is set once that case is opened. */
+    public long openedMask() {
+        return openedMask;
+    }
+
+    /** Amount (dollars) inside the given case, opened or not. */
+    public int amountOf(int caseId) {
+        if (!board.isValidCaseId(caseId)) {
+            throw new IllegalArgumentException("No such case id " + caseId);
+        }
+        return board.amountOf(caseId);
+    }
+
+    /** Id of the case holding {@code amountDollars}, opened or not; the lowest if several do. */
+    public int caseIdForAmount(int amountDollars) {
+        int idx = board.ladderIndexOfAmount(amountDollars);
+        if (idx < 0) throw new IllegalArgumentException("No case holds " + amountDollars);
+        int id = board.caseIdAtLadderIndex(idx);
+        // A dealt board orders equal amounts by provider slot, not by case id.
+        int n = board.caseCount();
+        for (int i = idx + 1; i < n && board.ladderAmount(i) == amountDollars; i++) {
+            id = Math.min(id, board.caseIdAtLadderIndex(i));
+        }
+        return id;
+    }
+
+    /** Number of unopened briefcases (including player's own). */
+    public int remainingCount() {
+        return Long.bitCount(remainingLadderMask);
+    }
+
+    /** Sum of the unopened amounts, in dollars. */
+    public long remainingSum() {
+        return remainingSum;
+    }
+
+    /** Sum of the squared unopened amounts. */
+    public long remainingSumOfSquares() {
+        return remainingSumOfSquares;
+    }
+
+    /** Smallest unopened amount, or 0 when nothing remains. */
+    public int remainingMin() {
+        if (remainingLadderMask == 0) return 0;
+        return board.ladderAmount(Long.numberOfTrailingZeros(remainingLadderMask));
+    }
+
+    /** Largest unopened amount, or 0 when nothing remains. */
+    public int remainingMax() {
+        if (remainingLadderMask == 0) return 0;
+        return board.ladderAmount(Long.SIZE - 1 - Long.numberOfLeadingZeros(remainingLadderMask));
+    }
+
+    /** Mean of the unopened amounts (the naive EV), or 0.0 when nothing remains. */
+    public double remainingMean() {
+        int n = remainingCount();
+        return n == 0 ? 0.0 : remainingSum / (double) n;
+    }
+
+    /**
+     * Unopened amounts as a bitmask over the sorted prize ladder: bit {@code i} is set while the
+     * {@code i}-th smallest amount of this game is still in play.
+     */
+    public long remainingLadderMask() {
+        return remainingLadderMask;
+    }
+
+    /** Unopened amounts (including the player's case), ascending. */
+    public List<Integer> remainingAmounts() {
+        List<Integer> out = new ArrayList<>(remainingCount());
+        for (long m = remainingLadderMask; m != 0; m &= m - 1) {
+            out.add(board.ladderAmount(Long.numberOfTrailingZeros(m)));
+        }
+        return out;
+    }
+
     /** Unopened briefcases (including player's own). */
     public List<Briefcase> unopened() {
-        var opened = new HashSet<>(openedCaseIds);
-        return cases.stream().filter(c -> !opened.contains(c.id())).collect(Collectors.toList());
+        long mask = unopenedMask();
+        List<Briefcase> out = new ArrayList<>(Long.bitCount(mask));
+        for (long m = mask; m != 0; m &= m - 1) {
+            int id = Long.numberOfTrailingZeros(m) + 1;
+            out.add(new Briefcase(id, board.amountOf(id), false));
+        }
+        return out;
     }
 
     /** IDs of unopened briefcases. */
     public List<Integer> remainingUnopenedIds() {
-        var opened = new HashSet<>(openedCaseIds);
-        List<Integer> out = new ArrayList<>();
-        for (var c : cases) if (!opened.contains(c.id())) out.add(c.id());
-        return out;
+        return idsOf(unopenedMask());
     }
 
     public boolean isOpened(int id) {
-        return openedCaseIds.contains(id);
+        return board.isValidCaseId(id) && (openedMask & (1L << (id - 1))) != 0;
     }
 
     public GameState withOffer(int dollars) {
-        return new GameState(
-                Phase.OFFER,
-                roundIndex,
-                cases,
-                playerCaseId,
-                openedCaseIds,
-                dollars,
-                null,
-                null,
-                0);
+        return with(Phase.OFFER, roundIndex, playerCaseId, dollars, null, null, 0);
     }
 
     public GameState withCounterOffer(int dollars) {
-        return new GameState(
+        return with(
                 Phase.COUNTEROFFER,
                 roundIndex,
-                cases,
                 playerCaseId,
-                openedCaseIds,
                 currentOfferDollars,
                 dollars,
                 null,
@@ -123,69 +317,154 @@ public final class GameState {
     }
 
     public GameState withRoundK(int k) {
-        return new GameState(
-                Phase.ROUND, roundIndex, cases, playerCaseId, openedCaseIds, null, null, null, k);
+        return with(Phase.ROUND, roundIndex, playerCaseId, null, null, null, k);
     }
 
     public GameState nextRound() {
-        return new GameState(
-                Phase.ROUND,
-                roundIndex + 1,
-                cases,
+        return with(Phase.ROUND, roundIndex + 1, playerCaseId, null, null, null, 0);
+    }
+
+    public GameState withOpened(int caseId) {
+        return opened(caseId, toOpenInThisRound);
+    }
+
+    public GameState withPlayerCase(int id) {
+        return with(Phase.ROUND, roundIndex, id, null, null, null, 0);
+    }
+
+    public GameState toFinalReveal() {
+        return with(Phase.FINAL_REVEAL, roundIndex, playerCaseId, null, null, null, 0);
+    }
+
+    public GameState withResult(int dollars) {
+        return with(
+                Phase.RESULT,
+                roundIndex,
                 playerCaseId,
-                openedCaseIds,
-                null,
-                null,
-                null,
+                currentOfferDollars,
+                counterOfferDollars,
+                dollars,
                 0);
     }
 
-    public GameState withOpened(int caseId) {
-        var newOpened = new ArrayList<>(openedCaseIds);
-        newOpened.add(caseId);
-        var newCases = new ArrayList<Briefcase>(cases.size());
-        for (var c : cases)
-            newCases.add(c.id() == caseId ? new Briefcase(c.id(), c.amountDollars(), true) : c);
+    // ---- package-private helpers for Engine ----
+
+    /** Open a case and consume one pick of this round's K in a single transition. */
+    GameState withOpenedInRound(int caseId) {
+        return opened(caseId, toOpenInThisRound - 1);
+    }
+
+    long unopenedMask() {
+        return board.allCasesMask() & ~openedMask;
+    }
+
+    private GameState opened(int caseId, int toOpen) {
+        if (!board.isValidCaseId(caseId)) {
+            throw new IllegalArgumentException("Invalid case id: " + caseId);
+        }
+        long bit = 1L << (caseId - 1);
+        if ((openedMask & bit) != 0) {
+            return with(
+                    phase,
+                    roundIndex,
+                    playerCaseId,
+                    currentOfferDollars,
+                    counterOfferDollars,
+                    resultDollars,
+                    toOpen,
+                    roundKChosen);
+        }
+        long a = board.amountOf(caseId);
         return new GameState(
+                this,
                 phase,
                 roundIndex,
-                List.copyOf(newCases),
                 playerCaseId,
-                List.copyOf(newOpened),
+                openedMask | bit,
                 currentOfferDollars,
                 counterOfferDollars,
                 resultDollars,
-                toOpenInThisRound);
+                toOpen,
+                roundKChosen,
+                remainingLadderMask & ~(1L << board.ladderIndexOf(caseId)),
+                remainingSum - a,
+                remainingSumOfSquares - a * a);
     }
 
-    public GameState withPlayerCase(int id) {
-        return new GameState(
-                Phase.ROUND, roundIndex, cases, id, openedCaseIds, null, null, null, 0);
-    }
-
-    public GameState toFinalReveal() {
-        return new GameState(
-                Phase.FINAL_REVEAL,
+    /** Same board, opened set and aggregates; new phase/offer fields. */
+    private GameState with(
+            Phase phase,
+            int roundIndex,
+            Integer playerCaseId,
+            Integer currentOfferDollars,
+            Integer counterOfferDollars,
+            Integer resultDollars,
+            int toOpenInThisRound) {
+        return with(
+                phase,
                 roundIndex,
-                cases,
                 playerCaseId,
-                openedCaseIds,
-                null,
-                null,
-                null,
-                0);
+                currentOfferDollars,
+                counterOfferDollars,
+                resultDollars,
+                toOpenInThisRound,
+                toOpenInThisRound > 0);
     }
 
-    public GameState withResult(int dollars) {
+    private GameState with(
+            Phase phase,
+            int roundIndex,
+            Integer playerCaseId,
+            Integer currentOfferDollars,
+            Integer counterOfferDollars,
+            Integer resultDollars,
+            int toOpenInThisRound,
+            boolean roundKChosen) {
         return new GameState(
-                Phase.RESULT,
+                this,
+                phase,
                 roundIndex,
-                cases,
                 playerCaseId,
-                openedCaseIds,
+                openedMask,
                 currentOfferDollars,
                 counterOfferDollars,
-                dollars,
-                0);
+                resultDollars,
+                toOpenInThisRound,
+                roundKChosen,
+                remainingLadderMask,
+                remainingSum,
+                remainingSumOfSquares);
+    }
+
+    private static List<Integer> idsOf(long mask) {
+        List<Integer> out = new ArrayList<>(Long.bitCount(mask));
+        for (long m = mask; m != 0; m &= m - 1) out.add(Long.numberOfTrailingZeros(m) + 1);
+        return out;
+    }
+
+    private static Board boardOf(List<Briefcase> cases) {
+        int[] amounts = new int[cases.size()];
+        boolean[] seen = new boolean[cases.size()];
+        for (var c : cases) {
+            int id = c.id();
+            if (id < 1 || id > amounts.length || seen[id - 1]) {
+                throw new IllegalArgumentException(
+                        "Case ids must be unique and within 1.." + amounts.length + ": " + id);
+            }
+            seen[id - 1] = true;
+            amounts[id - 1] = c.amountDollars();
+        }
+        return Board.of(amounts);
+    }
+
+    private static long maskOf(int caseCount, List<Integer> openedCaseIds) {
+        long mask = 0L;
+        for (int id : openedCaseIds) {
+            if (id < 1 || id > caseCount) {
+                throw new IllegalArgumentException("Invalid opened case id: " + id);
+            }
+            mask |= 1L << (id - 1);
+        }
+        return mask;
     }
 }
@@ -0,0 +1,89 @@
+package deal.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative durations in nanoseconds, for many recording threads.
+ *
+ * <p>Buckets are log-linear: values below 16 get a bucket each, and every power-of-two range
+ * above is split into 8 equal buckets, so a percentile is off by at most 12.5% at any scale. The
+ * 488 bucket counts live in one {@link AtomicLongArray}; recording is an index computation and an
+ * atomic increment, with no locks and no allocation. Readers see a consistent-enough view for
+ * monitoring, not a snapshot.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3; // 8 buckets per power of two
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = 2 * SUB_COUNT; // values below this are exact
+    private static final int LINEAR_BITS = 4; // log2(LINEAR)
+    private static final int BUCKETS = LINEAR + (63 - LINEAR_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /** Record one duration; negative values (a clock step backwards) count as 0. */
+    public void record(long nanos) {
+        long v = Math.max(0L, nanos);
+        counts.getAndIncrement(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /** Mean in nanoseconds, 0.0 before the first value. */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : sum.sum() / (double) n;
+    }
+
+    /** Largest value recorded, exactly; 0 before the first value. */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the {@code percentile}-th value (0 &lt; p &lt;= 100),
+     * capped at {@link #max()}; 0 before the first value.
+     */
+    public long percentile(double percentile) {
+        if (!(percentile > 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("percentile must be in (0..100]: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0L;
+        long rank = (long) Math.ceil(total * (percentile / 100.0));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    static int bucketOf(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v); // >= LINEAR_BITS
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR + (exp - LINEAR_BITS) * SUB_COUNT + sub;
+    }
+
+    /** Largest value that lands in {@code bucket}. */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB_COUNT + LINEAR_BITS;
+        long sub = (bucket - LINEAR) % SUB_COUNT;
+        long width = 1L << (exp - SUB_BITS);
+        long lower = (1L << exp) + sub * width;
+        return lower + (width - 1);
+    }
+}
@@ -0,0 +1,400 @@
+package deal.core;
+
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mutable twin of {@link Engine} for bulk simulation: the same rules (pick, chooseToOpen, open,
+ * offer, counter, final reveal) applied in place over primitive arrays. {@link #reset(long)} deals
+ * a new game exactly like {@code new Engine(cfg, seed).start()}, so one instance can play millions
+ * of games without producing per-transition garbage.
+ *
+ * <p>Not thread-safe: use one instance per thread.
+ */
+public final class MutableGame {
+    private final GameConfig cfg;
+    private final int caseCount;
+    private final int[] ladder; // provider order (shuffle input, matches Engine.start)
+    private final int[] sortedLadder; // ascending
+    private final int[] ladderIndexOfSlot; // provider slot -> index into sortedLadder
+    private final long allCasesMask;
+    private final long totalSum;
+    private final long totalSumOfSquares;
+    private final Random rng = new Random(0L);
+    private final OfferPolicy offerPolicy;
+
+    // per-game board
+    private final int[] slotOfCase; // index = caseId - 1
+    private final int[] amountByCase; // index = caseId - 1
+
+    // per-game state (mirrors GameState)
+    private Phase phase = Phase.INIT;
+    private int roundIndex;
+    private int playerCaseId; // 0 until chosen
+    private long openedMask;
+    private long remainingLadderMask;
+    private long remainingSum;
+    private long remainingSumOfSquares;
+    private int toOpenInThisRound;
+    private boolean roundKChosen;
+    private boolean hasOffer;
+    private int currentOfferDollars;
+    private boolean hasCounter;
+    private int counterOfferDollars;
+    private boolean hasResult;
+    private int resultDollars;
+
+    public MutableGame(GameConfig cfg) {
+        this(cfg, LegacyOfferPolicy.DEFAULT);
+    }
+
+    /** Game with a custom banker; offers go through {@link OfferPolicy#offerForMask}. */
+    public MutableGame(GameConfig cfg, OfferPolicy offerPolicy) {
+        if (offerPolicy == null) throw new IllegalArgumentException("offerPolicy must not be null");
+        this.offerPolicy = offerPolicy;
+        this.cfg = cfg;
+        this.caseCount = cfg.caseCount();
+        if (caseCount > Board.MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "Unsupported case count: " + caseCount + " (max " + Board.MAX_CASES + ")");
+        }
+        // Precomputed once per GameConfig and never mutated, so safe to share.
+        this.ladder = cfg.ladderAmounts();
+        this.sortedLadder = cfg.sortedLadder();
+        this.ladderIndexOfSlot = cfg.ladderIndexOfSlot();
+        long sum = 0L, sumSq = 0L;
+        for (int a : sortedLadder) {
+            sum += a;
+            sumSq += (long) a * a;
+        }
+        this.allCasesMask = caseCount == Long.SIZE ? -1L : (1L << caseCount) - 1;
+        this.totalSum = sum;
+        this.totalSumOfSquares = sumSq;
+        this.slotOfCase = new int[caseCount];
+        this.amountByCase = new int[caseCount];
+    }
+
+    /** Deal a new game: same shuffle as {@code new Engine(cfg, seed).start()}; enters PICK_CASE. */
+    public void reset(long seed) {
+        rng.setSeed(seed);
+        Board.shuffleSlots(slotOfCase, rng);
+        for (int i = 0; i < caseCount; i++) amountByCase[i] = ladder[slotOfCase[i]];
+
+        phase = Phase.PICK_CASE;
+        roundIndex = 1;
+        playerCaseId = 0;
+        openedMask = 0L;
+        remainingLadderMask = allCasesMask;
+        remainingSum = totalSum;
+        remainingSumOfSquares = totalSumOfSquares;
+        toOpenInThisRound = 0;
+        roundKChosen = false;
+        hasOffer = false;
+        hasCounter = false;
+        hasResult = false;
+    }
+
+    /** Player picks their personal case during PICK_CASE. */
+    public void pickPlayerCase(int caseId) {
+        requirePhase(Phase.PICK_CASE);
+        requireValidCaseId(caseId);
+        playerCaseId = caseId;
+        enter(Phase.ROUND, 0);
+    }
+
+    /** Player chooses how many cases to open this round (same validation as the Engine). */
+    public void chooseToOpen(int k) {
+        if (phase != Phase.ROUND && phase != Phase.PICK_CASE) {
+            throw new IllegalStateException("chooseToOpen only allowed at round start");
+        }
+        int available = countUnopenedNonPlayer();
+        if (k <= 0 || k > Math.max(1, available - 1)) {
+            throw new IllegalArgumentException("Invalid K for this round: " + k);
+        }
+        if (phase == Phase.PICK_CASE && playerCaseId == 0) {
+            throw new IllegalStateException("Pick your case first");
+        }
+        enter(Phase.ROUND, k);
+    }
+
+    /** Open a specific unopened case (not the player's); decrements K. Returns its amount. */
+    public int openCase(int caseId) {
+        requirePhase(Phase.ROUND);
+        requireValidCaseId(caseId);
+        if (caseId == playerCaseId) {
+            throw new IllegalArgumentException("Cannot open the player's own case");
+        }
+        if (isOpened(caseId)) throw new IllegalArgumentException("Case already opened: " + caseId);
+
+        int amount = amountByCase[caseId - 1];
+        openedMask |= 1L << (caseId - 1);
+        remainingLadderMask &= ~(1L << ladderIndexOfSlot[slotOfCase[caseId - 1]]);
+        remainingSum -= amount;
+        remainingSumOfSquares -= (long) amount * amount;
+        toOpenInThisRound--;
+        return amount;
+    }
+
+    /** Compute the banker offer; enters OFFER. Returns the offer in dollars. */
+    public int computeOffer() {
+        if (toOpenInThisRound > 0) {
+            throw new IllegalStateException("Still need to open " + toOpenInThisRound + " case(s)");
+        }
+        int offer;
+        if (offerPolicy.readsRemainingAmounts()) {
+            offer =
+                    offerPolicy.offer(
+                            new OfferPolicy.Context(
+                                    caseCount,
+                                    remainingAmounts(),
+                                    openedCount(),
+                                    hasOffer ? currentOfferDollars : null));
+        } else {
+            offer =
+                    offerPolicy.offerForMask(
+                            remainingLadderMask,
+                            caseCount,
+                            remainingCount(),
+                            remainingSum,
+                            remainingSumOfSquares,
+                            remainingMin(),
+                            remainingMax(),
+                            openedCount(),
+                            hasOffer ? currentOfferDollars : OfferPolicy.NO_LAST_OFFER);
+        }
+        enter(Phase.OFFER, 0);
+        hasOffer = true;
+        currentOfferDollars = offer;
+        return offer;
+    }
+
+    /** Unopened amounts, ascending; only built for policies that read them. */
+    private List<Integer> remainingAmounts() {
+        List<Integer> out = new ArrayList<>(remainingCount());
+        for (long m = remainingLadderMask; m != 0; m &= m - 1) {
+            out.add(sortedLadder[Long.numberOfTrailingZeros(m)]);
+        }
+        return out;
+    }
+
+    /** Player accepts banker offer. Returns the result in dollars. */
+    public int acceptDeal() {
+        requirePhase(Phase.OFFER);
+        if (!hasOffer) throw new IllegalStateException("offer not set");
+        return finish(currentOfferDollars);
+    }
+
+    /** Player declines banker offer; next round or final reveal if two cases remain. */
+    public void declineDeal() {
+        requirePhase(Phase.OFFER);
+        advanceAfterNoDeal();
+    }
+
+    /** Player proposes a counteroffer during OFFER; enters COUNTEROFFER. */
+    public void proposeCounter(int playerCounterDollars) {
+        requirePhase(Phase.OFFER);
+        if (playerCounterDollars <= 0) {
+            throw new IllegalArgumentException("Counter must be positive");
+        }
+        phase = Phase.COUNTEROFFER;
+        hasCounter = true;
+        counterOfferDollars = playerCounterDollars;
+        hasResult = false;
+        toOpenInThisRound = 0;
+        roundKChosen = false;
+    }
+
+    /** Banker decision, same rule as {@link Engine#resolveCounter}. Returns true if accepted. */
+    public boolean resolveCounter() {
+        requirePhase(Phase.COUNTEROFFER);
+        if (!hasCounter) throw new IllegalStateException("counter not set");
+        int counter = counterOfferDollars;
+
+        boolean accepted =
+                (hasOffer && counter <= currentOfferDollars)
+                        || Engine.bankerAcceptsCounter(
+                                counter, remainingMax(), remainingMean(), roundIndex);
+        if (accepted) {
+            finish(counter);
+        } else {
+            advanceAfterNoDeal();
+        }
+        return accepted;
+    }
+
+    /** Final reveal with optional swap. Returns the result in dollars. */
+    public int revealFinal(boolean swap) {
+        requirePhase(Phase.FINAL_REVEAL);
+        if (playerCaseId == 0) throw new IllegalStateException("player case not set");
+        long unopened = allCasesMask & ~openedMask;
+        if (Long.bitCount(unopened) != 2) {
+            throw new IllegalStateException("Final reveal requires exactly 2 unopened cases");
+        }
+        int otherId = Long.numberOfTrailingZeros(unopened & ~(1L << (playerCaseId - 1))) + 1;
+        int chosenId = swap ? otherId : playerCaseId;
+        return finish(amountByCase[chosenId - 1]);
+    }
+
+    // ---- accessors ----
+
+    public Phase phase() {
+        return phase;
+    }
+
+    public int roundIndex() {
+        return roundIndex;
+    }
+
+    public int caseCount() {
+        return caseCount;
+    }
+
+    /** The player's case id, or 0 before PICK_CASE completes. */
+    public int playerCaseId() {
+        return playerCaseId;
+    }
+
+    public int toOpenInThisRound() {
+        return toOpenInThisRound;
+    }
+
+    public long openedMask() {
+        return openedMask;
+    }
+
+    public int openedCount() {
+        return Long.bitCount(openedMask);
+    }
+
+    public boolean isOpened(int caseId) {
+        return caseId >= 1 && caseId <= caseCount && (openedMask & (1L << (caseId - 1))) != 0;
+    }
+
+    public int amountOf(int caseId) {
+        requireValidCaseId(caseId);
+        return amountByCase[caseId - 1];
+    }
+
+    public int remainingCount() {
+        return Long.bitCount(remainingLadderMask);
+    }
+
+    public long remainingSum() {
+        return remainingSum;
+    }
+
+    public long remainingSumOfSquares() {
+        return remainingSumOfSquares;
+    }
+
+    public int remainingMin() {
+        if (remainingLadderMask == 0) return 0;
+        return sortedLadder[Long.numberOfTrailingZeros(remainingLadderMask)];
+    }
+
+    public int remainingMax() {
+        if (remainingLadderMask == 0) return 0;
+        return sortedLadder[Long.SIZE - 1 - Long.numberOfLeadingZeros(remainingLadderMask)];
+    }
+
+    public double remainingMean() {
+        int n = remainingCount();
+        return n == 0 ? 0.0 : remainingSum / (double) n;
+    }
+
+    public long remainingLadderMask() {
+        return remainingLadderMask;
+    }
+
+    public boolean hasOffer() {
+        return hasOffer;
+    }
+
+    /** Current banker offer; only meaningful when {@link #hasOffer()}. */
+    public int currentOfferDollars() {
+        return currentOfferDollars;
+    }
+
+    public boolean hasCounterOffer() {
+        return hasCounter;
+    }
+
+    /** Pending counteroffer; only meaningful when {@link #hasCounterOffer()}. */
+    public int counterOfferDollars() {
+        return counterOfferDollars;
+    }
+
+    public boolean hasResult() {
+        return hasResult;
+    }
+
+    /** Final winnings; only meaningful when {@link #hasResult()}. */
+    public int resultDollars() {
+        return resultDollars;
+    }
+
+    /** Immutable copy of the current state (allocates; meant for debugging and tests). */
+    public GameState snapshot() {
+        return new GameState(
+                phase,
+                roundIndex,
+                Board.deal(cfg, slotOfCase),
+                playerCaseId == 0 ? null : playerCaseId,
+                openedMask,
+                hasOffer ? currentOfferDollars : null,
+                hasCounter ? counterOfferDollars : null,
+                hasResult ? resultDollars : null,
+                toOpenInThisRound,
+                roundKChosen);
+    }
+
+    // ---- helpers ----
+
+    /** Common shape of GameState transitions that clear offer/counter/result. */
+    private void enter(Phase next, int toOpen) {
+        phase = next;
+        toOpenInThisRound = toOpen;
+        roundKChosen = toOpen > 0;
+        hasOffer = false;
+        hasCounter = false;
+        hasResult = false;
+    }
+
+    private void advanceAfterNoDeal() {
+        if (remainingCount() <= 2) {
+            enter(Phase.FINAL_REVEAL, 0);
+        } else {
+            roundIndex++;
+            enter(Phase.ROUND, 0);
+        }
+    }
+
+    private int finish(int dollars) {
+        phase = Phase.RESULT;
+        toOpenInThisRound = 0;
+        roundKChosen = false;
+        hasResult = true;
+        resultDollars = dollars;
+        return dollars;
+    }
+
+    private int countUnopenedNonPlayer() {
+        int unopened = caseCount - openedCount();
+        return playerCaseId != 0 ? unopened - 1 : unopened;
+    }
+
+    private void requirePhase(Phase expected) {
+        if (phase != expected) {
+            throw new IllegalStateException("Expected phase " + expected + " but was " + phase);
+        }
+    }
+
+    private void requireValidCaseId(int caseId) {
+        if (caseId < 1 || caseId > caseCount) {
+            throw new IllegalArgumentException("Invalid case id: " + caseId);
+        }
+    }
+}
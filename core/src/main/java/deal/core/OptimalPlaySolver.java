@@ -0,0 +1,257 @@
+package deal.core;
+
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Exact expected winnings under optimal play, against {@link LegacyOfferPolicy} as the banker.
+ *
+ * <p>The player never knows which amount is in their own case, so from their point of view every
+ * opened case is a uniform draw from the remaining ladder. The value of a position therefore
+ * depends only on the bitmask of remaining ladder indices and, when counters are modelled, on the
+ * round index (the banker's counter acceptance factor grows until round 6, then stays flat). The
+ * legacy offer ignores the round, the last offer and which cases were opened.
+ *
+ * <p>Opening one case per round is always optimal: opening K at once is the same random walk with
+ * fewer decision points, and a later round never lowers the counter threshold. The table holds the
+ * value at the offer point, {@code W(mask, round)}, for every mask of two or more amounts; a round
+ * start is the mean of {@code W} over the one-case-smaller masks, so all queries are O(caseCount).
+ *
+ * <p>The table is a {@code float[]} of {@code 2^caseCount} entries per round bucket (128 MiB for
+ * 25 cases without counters, six times that with), filled level by level in parallel: every mask
+ * of size {@code s} depends only on masks of size {@code s - 1}.
+ */
+public final class OptimalPlaySolver {
+    /** Largest ladder the table is built for (2^25 masks per round bucket). */
+    public static final int MAX_CASES = 25;
+
+    private static final int CHUNK = 1 << 12; // masks per parallel work item
+
+    private final int caseCount;
+    private final int[] ladder; // ascending; bit i of a mask = ladder[i]
+    private final boolean counters;
+    private final int buckets; // round buckets: 1 without counters
+    private final float[] offerPointValue; // index = bucket << caseCount | mask
+
+    private OptimalPlaySolver(GameConfig cfg, boolean counters) {
+        this.caseCount = cfg.caseCount();
+        if (caseCount > MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "Unsupported case count: " + caseCount + " (max " + MAX_CASES + ")");
+        }
+        this.ladder = cfg.sortedLadder();
+        this.counters = counters;
+        this.buckets = counters ? saturationRound() : 1;
+        this.offerPointValue = new float[buckets << caseCount];
+    }
+
+    /** Solve every position of {@code cfg} with deal / no deal only (no counteroffers). */
+    public static OptimalPlaySolver solve(GameConfig cfg) {
+        return solve(cfg, false);
+    }
+
+    /**
+     * Solve every position of {@code cfg}. With {@code counters} the player may also counter; since
+     * the banker's rule is deterministic, the best counter is the largest one it accepts.
+     */
+    public static OptimalPlaySolver solve(GameConfig cfg, boolean counters) {
+        var solver = new OptimalPlaySolver(cfg, counters);
+        solver.fill();
+        return solver;
+    }
+
+    public int caseCount() {
+        return caseCount;
+    }
+
+    public boolean modelsCounters() {
+        return counters;
+    }
+
+    /**
+     * Expected final winnings from {@code s} under optimal play. {@code s} must come from a game
+     * with this solver's config. A pending offer or counter is valued as it stands; a round whose
+     * cases are all open is valued at the offer that comes next.
+     */
+    public double value(GameState s) {
+        requireSameLadder(s);
+        long mask = s.remainingLadderMask();
+        int round = s.roundIndex();
+        return switch (s.phase()) {
+            case INIT, PICK_CASE -> roundStartValue(fullMask(), 1);
+            case ROUND -> {
+                int k = s.toOpenInThisRound();
+                if (k == 0 && !s.roundKChosen()) yield roundStartValue(mask, round);
+                yield midRoundValue(mask, round, k, new HashMap<>()); // k == 0: the offer point
+            }
+            case OFFER -> {
+                double best = Math.max(s.currentOfferDollars(), noDealValue(mask, round));
+                yield counters ? Math.max(best, bestCounter(mask, round)) : best;
+            }
+            case COUNTEROFFER -> {
+                int counter = s.counterOfferDollars();
+                Integer offer = s.currentOfferDollars();
+                boolean accepted =
+                        (offer != null && counter <= offer)
+                                || Engine.bankerAcceptsCounter(
+                                        counter, s.remainingMax(), s.remainingMean(), round);
+                yield accepted ? counter : noDealValue(mask, round);
+            }
+            case FINAL_REVEAL -> s.remainingMean(); // keep or swap: either case is a coin flip
+            case RESULT -> s.resultDollars();
+        };
+    }
+
+    /**
+     * Expected winnings of declining the offer (or having a counter rejected) in {@code s}, then
+     * playing optimally. Requires phase OFFER or COUNTEROFFER.
+     */
+    public double noDealValue(GameState s) {
+        requireSameLadder(s);
+        if (s.phase() != Phase.OFFER && s.phase() != Phase.COUNTEROFFER) {
+            throw new IllegalStateException(
+                    "noDealValue needs phase OFFER or COUNTEROFFER but was " + s.phase());
+        }
+        return noDealValue(s.remainingLadderMask(), s.roundIndex());
+    }
+
+    /**
+     * The largest counter the banker is sure to accept in {@code s} (never below the current
+     * offer). Requires phase OFFER.
+     */
+    public int bestCounter(GameState s) {
+        requireSameLadder(s);
+        if (s.phase() != Phase.OFFER) {
+            throw new IllegalStateException("bestCounter needs phase OFFER but was " + s.phase());
+        }
+        int counter = bestCounter(s.remainingLadderMask(), s.roundIndex());
+        return Math.max(s.currentOfferDollars(), counter);
+    }
+
+    // ---- table ----
+
+    private void fill() {
+        int chunks = Math.max(1, (1 << caseCount) / CHUNK);
+        int chunkSize = (1 << caseCount) / chunks;
+        for (int size = 2; size <= caseCount; size++) {
+            final int s = size;
+            IntStream.range(0, chunks)
+                    .parallel()
+                    .forEach(
+                            c -> {
+                                int end = (c + 1) * chunkSize;
+                                for (int mask = c * chunkSize; mask < end; mask++) {
+                                    if (Integer.bitCount(mask) == s) fillMask(mask);
+                                }
+                            });
+        }
+    }
+
+    /** Offer-point values of {@code mask} for every round bucket; smaller masks are done. */
+    private void fillMask(int mask) {
+        int n = Integer.bitCount(mask);
+        long sum = 0L, sumSq = 0L;
+        for (int m = mask; m != 0; m &= m - 1) {
+            int a = ladder[Integer.numberOfTrailingZeros(m)];
+            sum += a;
+            sumSq += (long) a * a;
+        }
+        int min = ladder[Integer.numberOfTrailingZeros(mask)];
+        int max = ladder[31 - Integer.numberOfLeadingZeros(mask)];
+        double mean = sum / (double) n;
+        int offer = offer(n, sum, sumSq, min, max);
+
+        for (int b = 0; b < buckets; b++) {
+            double best = offer;
+            if (counters) {
+                best = Math.max(best, Math.min(max, Engine.counterThreshold(mean, b + 1)));
+            }
+            double noDeal = n <= 2 ? mean : average(mask, nextBucket(b));
+            offerPointValue[(b << caseCount) | mask] = (float) Math.max(best, noDeal);
+        }
+    }
+
+    private int offer(int n, long sum, long sumSq, int min, int max) {
+        return LegacyOfferPolicy.DEFAULT.offer(
+                caseCount, n, sum, sumSq, min, max, caseCount - n, OfferPolicy.NO_LAST_OFFER);
+    }
+
+    /** Mean offer-point value after one uniformly random case of {@code mask} is opened. */
+    private double average(int mask, int bucket) {
+        int base = bucket << caseCount;
+        double total = 0.0;
+        for (int m = mask; m != 0; m &= m - 1) {
+            total += offerPointValue[base | (mask & ~Integer.lowestOneBit(m))];
+        }
+        return total / Integer.bitCount(mask);
+    }
+
+    // ---- queries ----
+
+    private double roundStartValue(long mask, int round) {
+        int m = (int) mask;
+        if (Integer.bitCount(m) <= 2) return mean(m); // no offer is left to make
+        return average(m, bucketOf(round));
+    }
+
+    private double noDealValue(long mask, int round) {
+        int m = (int) mask;
+        if (Integer.bitCount(m) <= 2) return mean(m); // straight to the final reveal
+        return roundStartValue(mask, round + 1);
+    }
+
+    private int bestCounter(long mask, int round) {
+        int m = (int) mask;
+        int max = ladder[31 - Integer.numberOfLeadingZeros(m)];
+        return Math.min(max, Engine.counterThreshold(mean(m), round));
+    }
+
+    /** {@code toOpen} more random cases still to open this round (the player picked K > 1). */
+    private double midRoundValue(long mask, int round, int toOpen, Map<Long, Double> memo) {
+        if (toOpen == 0) return offerPointValue[(bucketOf(round) << caseCount) | (int) mask];
+        Double hit = memo.get(mask);
+        if (hit != null) return hit;
+        double total = 0.0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            total += midRoundValue(mask & ~Long.lowestOneBit(m), round, toOpen - 1, memo);
+        }
+        double v = total / Long.bitCount(mask);
+        memo.put(mask, v);
+        return v;
+    }
+
+    private double mean(int mask) {
+        long sum = 0L;
+        for (int m = mask; m != 0; m &= m - 1) sum += ladder[Integer.numberOfTrailingZeros(m)];
+        return sum / (double) Integer.bitCount(mask);
+    }
+
+    private int bucketOf(int round) {
+        return Math.min(Math.max(round, 1), buckets) - 1;
+    }
+
+    private int nextBucket(int bucket) {
+        return Math.min(bucket + 1, buckets - 1);
+    }
+
+    private long fullMask() {
+        return (1L << caseCount) - 1;
+    }
+
+    private void requireSameLadder(GameState s) {
+        if (s.caseCount() != caseCount) {
+            throw new IllegalArgumentException(
+                    "State has " + s.caseCount() + " cases, solver has " + caseCount);
+        }
+    }
+
+    /** First round from which the counter acceptance factor no longer changes. */
+    private static int saturationRound() {
+        int r = 1;
+        while (Engine.acceptanceFactor(r) < Engine.MAX_ACCEPTANCE_FACTOR) r++;
+        return r;
+    }
+}
@@ -0,0 +1,204 @@
+package deal.core.offer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe memo in front of a policy whose offer is a pure function of the remaining
+ * set and the initial case count (true of {@link LegacyOfferPolicy}, which ignores the opened
+ * count and the last offer). Only {@link #offerForMask} is cached; every other entry point goes
+ * straight to the delegate.
+ *
+ * <p>Keys are the 32-bit word {@code ladderMask | initialCaseCount << 25}, so one instance may
+ * serve several case counts but only one ladder per case count. The table is 4-way set
+ * associative; each slot packs key and offer into a single {@code long}, so readers never see a
+ * torn entry and no locks are taken. A full set evicts with second chance (CLOCK): a hit marks its
+ * slot referenced, and an insert takes the first unreferenced way, clearing marks as it passes.
+ */
+public final class CachingOfferPolicy implements OfferPolicy {
+    /** Hit, miss and eviction counts since construction. */
+    public record Stats(long hits, long misses, long evictions) {
+        public long requests() {
+            return hits + misses;
+        }
+
+        /** Hits over requests, 0.0 before the first request. */
+        public double hitRate() {
+            long n = requests();
+            return n == 0 ? 0.0 : hits / (double) n;
+        }
+    }
+
+    private static final int WAYS = 4;
+    private static final int MAX_CAPACITY = 1 << 28;
+    private static final int MASK_BITS = 25; // initialCaseCount <= 25
+    private static final int KEY_BITS = (1 << 30) - 1; // mask + case count
+    private static final long REFERENCED = 1L << 62; // key bit 30
+    private static final long EMPTY = 0L; // mask 0 is never a valid key
+
+    private final OfferPolicy delegate;
+    private final AtomicLongArray slots;
+    private final int setShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Cache up to {@code capacity} offers (rounded up to a power of two, at least 4). */
+    public CachingOfferPolicy(OfferPolicy delegate, int capacity) {
+        if (delegate == null) throw new IllegalArgumentException("delegate must not be null");
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "capacity must be in [1.." + MAX_CAPACITY + "], got " + capacity);
+        }
+        int slotCount = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.delegate = delegate;
+        this.slots = new AtomicLongArray(slotCount);
+        this.setShift = 32 - Integer.numberOfTrailingZeros(slotCount / WAYS);
+    }
+
+    public OfferPolicy delegate() {
+        return delegate;
+    }
+
+    /** Number of slots (the most offers held at once). */
+    public int capacity() {
+        return slots.length();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /** As the delegate; callers then bypass the cache for a delegate that reads the amounts. */
+    @Override
+    public boolean readsRemainingAmounts() {
+        return delegate.readsRemainingAmounts();
+    }
+
+    @Override
+    public int offerForMask(
+            long ladderMask,
+            int initialCaseCount,
+            int remainingCount,
+            long remainingSum,
+            long remainingSumOfSquares,
+            int minRemaining,
+            int maxRemaining,
+            int openedSoFar,
+            int lastOffer) {
+        if (ladderMask <= 0L
+                || ladderMask >= 1L << MASK_BITS
+                || initialCaseCount < 2
+                || initialCaseCount > 25) {
+            // Not representable as a key; let the delegate validate and compute.
+            return delegate.offerForMask(
+                    ladderMask,
+                    initialCaseCount,
+                    remainingCount,
+                    remainingSum,
+                    remainingSumOfSquares,
+                    minRemaining,
+                    maxRemaining,
+                    openedSoFar,
+                    lastOffer);
+        }
+        int key = (int) ladderMask | initialCaseCount << MASK_BITS;
+        int base = setOf(key) * WAYS;
+        for (int w = 0; w < WAYS; w++) {
+            long e = slots.get(base + w);
+            if (((int) (e >>> 32) & KEY_BITS) == key) {
+                if ((e & REFERENCED) == 0) slots.compareAndSet(base + w, e, e | REFERENCED);
+                hits.increment();
+                return (int) e;
+            }
+        }
+
+        misses.increment();
+        int offer =
+                delegate.offerForMask(
+                        ladderMask,
+                        initialCaseCount,
+                        remainingCount,
+                        remainingSum,
+                        remainingSumOfSquares,
+                        minRemaining,
+                        maxRemaining,
+                        openedSoFar,
+                        lastOffer);
+        insert(base, (long) key << 32 | (offer & 0xFFFF_FFFFL));
+        return offer;
+    }
+
+    @Override
+    public int offer(Context ctx) {
+        return delegate.offer(ctx);
+    }
+
+    @Override
+    public int offer(
+            int initialCaseCount,
+            int remainingCount,
+            long remainingSum,
+            long remainingSumOfSquares,
+            int minRemaining,
+            int maxRemaining,
+            int openedSoFar,
+            int lastOffer) {
+        return delegate.offer(
+                initialCaseCount,
+                remainingCount,
+                remainingSum,
+                remainingSumOfSquares,
+                minRemaining,
+                maxRemaining,
+                openedSoFar,
+                lastOffer);
+    }
+
+    @Override
+    public int offer(
+            int[] amounts, int len, int initialCaseCount, int openedSoFar, int lastOffer) {
+        return delegate.offer(amounts, len, initialCaseCount, openedSoFar, lastOffer);
+    }
+
+    @Override
+    public void offerBatch(
+            int[] amounts, int[] offsets, int count, int initialCaseCount, int[] out) {
+        delegate.offerBatch(amounts, offsets, count, initialCaseCount, out);
+    }
+
+    @Override
+    public void offerBatch(
+            int[] ladder, long[] masks, int count, int initialCaseCount, int[] out) {
+        delegate.offerBatch(ladder, masks, count, initialCaseCount, out);
+    }
+
+    // ---- table ----
+
+    private int setOf(int key) {
+        return setShift == 32 ? 0 : (key * 0x9E3779B9) >>> setShift; // Fibonacci hashing
+    }
+
+    /**
+     * Second-chance insert into the set at {@code base}. Two sweeps always find a way unless other
+     * threads keep winning the CAS races; then the entry is simply not cached.
+     */
+    private void insert(int base, long entry) {
+        for (int sweep = 0; sweep < 2; sweep++) {
+            for (int w = 0; w < WAYS; w++) {
+                int i = base + w;
+                long e = slots.get(i);
+                if (e == EMPTY) {
+                    if (slots.compareAndSet(i, EMPTY, entry)) return;
+                } else if ((e & REFERENCED) == 0) {
+                    if (slots.compareAndSet(i, e, entry)) {
+                        evictions.increment();
+                        return;
+                    }
+                } else {
+                    slots.compareAndSet(i, e, e & ~REFERENCED);
+                }
+            }
+        }
+    }
+}
@@ -11,29 +11,168 @@ import java.util.List;
  */
 public final class LegacyOfferPolicy implements OfferPolicy {
 
+    /** Lowest offer/EV ratio the curve goes to, whatever the risk penalty. */
+    public static final double RATIO_FLOOR = 0.46;
+
+    /**
+     * The curve's tunables, e.g. fitted to transcripts with {@code deal.analytics.OfferCalibrator}.
+     *
+     * @param startRatio first offer relative to EV, before the risk penalty
+     * @param endRatio late-game target relative to EV
+     * @param maxRatio hard ceiling relative to EV, in [{@link #RATIO_FLOOR}..1]
+     * @param minPadFrac offers stay this fraction of the remaining range above the minimum
+     * @param maxPadFrac offers stay this fraction of the remaining range below the maximum
+     */
+    public record Params(
+            double startRatio,
+            double endRatio,
+            double maxRatio,
+            double minPadFrac,
+            double maxPadFrac) {
+        /** The hand-tuned legacy values. */
+        public static final Params DEFAULTS = new Params(0.55, 0.93, 0.97, 0.05, 0.02);
+
+        public Params {
+            if (!(maxRatio >= RATIO_FLOOR && maxRatio <= 1.0)) {
+                throw new IllegalArgumentException(
+                        "maxRatio must be in [" + RATIO_FLOOR + "..1], got " + maxRatio);
+            }
+            if (!(startRatio > 0.0 && startRatio <= maxRatio)) {
+                throw new IllegalArgumentException(
+                        "startRatio must be in (0.." + maxRatio + "], got " + startRatio);
+            }
+            if (!(endRatio > 0.0 && endRatio <= maxRatio)) {
+                throw new IllegalArgumentException(
+                        "endRatio must be in (0.." + maxRatio + "], got " + endRatio);
+            }
+            if (!(minPadFrac >= 0.0 && maxPadFrac >= 0.0 && minPadFrac + maxPadFrac < 1.0)) {
+                throw new IllegalArgumentException(
+                        "pads must be >= 0 and leave part of the range, got "
+                                + minPadFrac
+                                + " and "
+                                + maxPadFrac);
+            }
+        }
+    }
+
     /** A ready-to-use singleton with decent defaults. */
-    public static final LegacyOfferPolicy DEFAULT = new LegacyOfferPolicy();
-
-    // Tunables (can be exposed later if you want to fit against transcripts)
-    private final double startRatio = 0.55; // first offer relative to EV
-    private final double endRatio = 0.93; // late-game target relative to EV
-    private final double maxRatio = 0.97; // hard safety ceiling
-    private final double minPadFrac = 0.05; // don't go below min + 5% range
-    private final double maxPadFrac = 0.02; // don't go above max - 2% range
+    public static final LegacyOfferPolicy DEFAULT = new LegacyOfferPolicy(Params.DEFAULTS);
+
+    private final Params params;
+    // Tunables, unpacked for the curve
+    private final double startRatio; // first offer relative to EV
+    private final double endRatio; // late-game target relative to EV
+    private final double maxRatio; // hard safety ceiling
+    private final double minPadFrac; // don't go below min + pad of the range
+    private final double maxPadFrac; // don't go above max - pad of the range
     private final boolean roundHuman = true;
 
+    /** The legacy curve, {@link Params#DEFAULTS}; {@link #DEFAULT} is one ready-made. */
+    public LegacyOfferPolicy() {
+        this(Params.DEFAULTS);
+    }
+
+    public LegacyOfferPolicy(Params params) {
+        if (params == null) throw new IllegalArgumentException("params must not be null");
+        this.params = params;
+        this.startRatio = params.startRatio();
+        this.endRatio = params.endRatio();
+        this.maxRatio = params.maxRatio();
+        this.minPadFrac = params.minPadFrac();
+        this.maxPadFrac = params.maxPadFrac();
+    }
+
+    public Params params() {
+        return params;
+    }
+
+    /** The curve reads only the aggregates. */
+    @Override
+    public boolean readsRemainingAmounts() {
+        return false;
+    }
+
     @Override
     public int offer(Context ctx) {
-        final List<Integer> amounts = ctx.remainingAmounts;
-        // Guard rails
-        int n = amounts.size();
-        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
-        long sum = 0L;
-        for (int a : amounts) {
-            min = Math.min(min, a);
-            max = Math.max(max, a);
-            sum += a;
+        return offer(
+                ctx.initialCaseCount,
+                ctx.remainingCount,
+                ctx.remainingSum,
+                ctx.remainingSumOfSquares,
+                ctx.minRemaining,
+                ctx.maxRemaining,
+                ctx.openedSoFar,
+                ctx.lastOffer == null ? NO_LAST_OFFER : ctx.lastOffer);
+    }
+
+    /** The actual curve: primitives only, allocation-free. Ignores openedSoFar and lastOffer. */
+    @Override
+    public int offer(
+            int initialCaseCount,
+            int remainingCount,
+            long remainingSum,
+            long remainingSumOfSquares,
+            int minRemaining,
+            int maxRemaining,
+            int openedSoFar,
+            int lastOffer) {
+        Context.checkAggregates(initialCaseCount, remainingCount, minRemaining, maxRemaining);
+        return curve(
+                initialCaseCount,
+                remainingCount,
+                remainingSum,
+                remainingSumOfSquares,
+                minRemaining,
+                maxRemaining);
+    }
+
+    /** Fused loop over the sets: aggregate, then the curve; no context, no virtual call. */
+    @Override
+    public void offerBatch(
+            int[] amounts, int[] offsets, int count, int initialCaseCount, int[] out) {
+        Context.checkBatch(offsets.length - 1, count, out);
+        Context.checkInitialCaseCount(initialCaseCount);
+        for (int i = 0; i < count; i++) {
+            int from = offsets[i], to = offsets[i + 1];
+            if (to <= from) throw new IllegalArgumentException("Empty set at index " + i);
+            long sum = 0L, sumSq = 0L;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int j = from; j < to; j++) {
+                int a = amounts[j];
+                sum += a;
+                sumSq += (long) a * a;
+                min = Math.min(min, a);
+                max = Math.max(max, a);
+            }
+            out[i] = curve(initialCaseCount, to - from, sum, sumSq, min, max);
         }
+    }
+
+    /** Fused loop over the masks; min and max come straight from the lowest and highest bit. */
+    @Override
+    public void offerBatch(
+            int[] ladder, long[] masks, int count, int initialCaseCount, int[] out) {
+        Context.checkBatch(masks.length, count, out);
+        Context.checkInitialCaseCount(initialCaseCount);
+        for (int i = 0; i < count; i++) {
+            long mask = masks[i];
+            if (mask == 0L || 64 - Long.numberOfLeadingZeros(mask) > ladder.length) {
+                throw new IllegalArgumentException("Bad ladder mask at index " + i + ": " + mask);
+            }
+            long sum = 0L, sumSq = 0L;
+            for (long m = mask; m != 0L; m &= m - 1) {
+                int a = ladder[Long.numberOfTrailingZeros(m)];
+                sum += a;
+                sumSq += (long) a * a;
+            }
+            int min = ladder[Long.numberOfTrailingZeros(mask)];
+            int max = ladder[63 - Long.numberOfLeadingZeros(mask)];
+            out[i] = curve(initialCaseCount, Long.bitCount(mask), sum, sumSq, min, max);
+        }
+    }
+
+    private int curve(int initialCaseCount, int n, long sum, long sumSq, int min, int max) {
+        // Guard rails (aggregates are precomputed, no rescan of the amounts)
         double ev = sum / (double) n;
         if (ev <= 0 || min == max) {
             // Degenerate: all same or zero-ish -> just return that value.
@@ -41,12 +180,12 @@ public final class LegacyOfferPolicy implements OfferPolicy {
         }
 
         // Progress based on remaining fraction (no need to know exact rounds)
-        double remainingFrac = n / (double) ctx.initialCaseCount; // 1.0 at start -> -> ~0
+        double remainingFrac = n / (double) initialCaseCount; // 1.0 at start -> -> ~0
         double progress = 1.0 - remainingFrac; // 0 at start -> -> ~1 late
         progress = clamp01(progress);
 
         // Risk (normalized stddev / EV). Penalize more when early.
-        double std = stddev(amounts, ev);
+        double std = Math.sqrt(Context.variance(n, sum, sumSq));
         double risk = std / Math.max(1.0, ev); // ~0..3 typical
         double riskPenalty = 0.15 * clamp(risk, 0.0, 2.0) * (1.0 - progress);
 
@@ -54,7 +193,7 @@ public final class LegacyOfferPolicy implements OfferPolicy {
         double ratio = lerp(startRatio, endRatio, progress) - riskPenalty;
 
         // Floor tweaked so early offers don't dip too low (keeps tests + legacy flavor happy)
-        ratio = clamp(ratio, 0.46, maxRatio);
+        ratio = clamp(ratio, RATIO_FLOOR, maxRatio);
 
         // Compute offer
         double raw = ev * ratio;
@@ -81,15 +220,6 @@ public final class LegacyOfferPolicy implements OfferPolicy {
 
     // ---------- helpers ----------
 
-    private static double stddev(List<Integer> xs, double mean) {
-        double acc = 0.0;
-        for (int x : xs) {
-            double d = x - mean;
-            acc += d * d;
-        }
-        return Math.sqrt(acc / xs.size());
-    }
-
     private static double lerp(double a, double b, double t) {
         return a + (b - a) * t;
     }
@@ -1,16 +1,23 @@
 package deal.core.offer;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /** Strategy interface for computing banker offers, in dollars (integers). */
 public interface OfferPolicy {
 
-    /** Immutable input for offer computation. */
+    /**
+     * Immutable input for offer computation. Besides the amounts themselves it carries aggregates
+     * over them (count, sum, sum of squares, min, max) so policies can read EV and spread in O(1).
+     */
     public static final class Context {
         /** The number of cases at game start (e.g., 10 or 25). */
         public final int initialCaseCount;
 
-        /** Remaining unopened amounts, in dollars (unsorted ok). Must be non-empty. */
+        /**
+         * Remaining unopened amounts, in dollars (unsorted ok). Empty when the context was built
+         * from aggregates via {@link #ofAggregates}; use the aggregate fields instead.
+         */
         public final List<Integer> remainingAmounts;
 
         /** How many cases have been opened so far (monotone, can be 0). */
@@ -19,25 +26,310 @@ public interface OfferPolicy {
         /** The most recent banker offer, or null if none yet. */
         public final Integer lastOffer;
 
+        /** Number of remaining unopened amounts (always >= 1). */
+        public final int remainingCount;
+
+        /** Sum of the remaining amounts. */
+        public final long remainingSum;
+
+        /** Sum of the squared remaining amounts. */
+        public final long remainingSumOfSquares;
+
+        /** Smallest remaining amount. */
+        public final int minRemaining;
+
+        /** Largest remaining amount. */
+        public final int maxRemaining;
+
         public Context(
                 int initialCaseCount,
                 List<Integer> remainingAmounts,
                 int openedSoFar,
                 Integer lastOffer) {
-            if (initialCaseCount < 2 || initialCaseCount > 25) {
-                throw new IllegalArgumentException(
-                        "initialCaseCount must be in [2..25], got " + initialCaseCount);
-            }
+            this.initialCaseCount = checkInitialCaseCount(initialCaseCount);
             if (remainingAmounts == null || remainingAmounts.isEmpty()) {
                 throw new IllegalArgumentException("remainingAmounts must be non-empty");
             }
-            this.initialCaseCount = initialCaseCount;
+            long sum = 0L, sumSq = 0L;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int a : remainingAmounts) {
+                sum += a;
+                sumSq += (long) a * a;
+                min = Math.min(min, a);
+                max = Math.max(max, a);
+            }
             this.remainingAmounts = List.copyOf(remainingAmounts);
             this.openedSoFar = Math.max(0, openedSoFar);
             this.lastOffer = lastOffer;
+            this.remainingCount = remainingAmounts.size();
+            this.remainingSum = sum;
+            this.remainingSumOfSquares = sumSq;
+            this.minRemaining = min;
+            this.maxRemaining = max;
+        }
+
+        private Context(
+                int initialCaseCount,
+                int remainingCount,
+                long remainingSum,
+                long remainingSumOfSquares,
+                int minRemaining,
+                int maxRemaining,
+                int openedSoFar,
+                Integer lastOffer) {
+            checkAggregates(initialCaseCount, remainingCount, minRemaining, maxRemaining);
+            this.initialCaseCount = initialCaseCount;
+            this.remainingAmounts = List.of();
+            this.openedSoFar = Math.max(0, openedSoFar);
+            this.lastOffer = lastOffer;
+            this.remainingCount = remainingCount;
+            this.remainingSum = remainingSum;
+            this.remainingSumOfSquares = remainingSumOfSquares;
+            this.minRemaining = minRemaining;
+            this.maxRemaining = maxRemaining;
+        }
+
+        /** Build a context straight from running aggregates (no amount list). */
+        public static Context ofAggregates(
+                int initialCaseCount,
+                int remainingCount,
+                long remainingSum,
+                long remainingSumOfSquares,
+                int minRemaining,
+                int maxRemaining,
+                int openedSoFar,
+                Integer lastOffer) {
+            return new Context(
+                    initialCaseCount,
+                    remainingCount,
+                    remainingSum,
+                    remainingSumOfSquares,
+                    minRemaining,
+                    maxRemaining,
+                    openedSoFar,
+                    lastOffer);
+        }
+
+        /** Mean of the remaining amounts (the naive EV). */
+        public double mean() {
+            return remainingSum / (double) remainingCount;
+        }
+
+        /** Population variance of the remaining amounts (n*sumSq - sum^2, scaled by n^2). */
+        public double variance() {
+            return variance(remainingCount, remainingSum, remainingSumOfSquares);
+        }
+
+        /** {@link #variance()} over raw aggregates, for the primitive entry points. */
+        static double variance(int count, long sum, long sumOfSquares) {
+            double n = count;
+            double var = (n * sumOfSquares - (double) sum * sum) / (n * n);
+            return Math.max(0.0, var);
+        }
+
+        /** The checks {@link #ofAggregates} performs, without building a context. */
+        static void checkAggregates(
+                int initialCaseCount, int remainingCount, int minRemaining, int maxRemaining) {
+            checkInitialCaseCount(initialCaseCount);
+            if (remainingCount < 1) {
+                throw new IllegalArgumentException("remainingCount must be >= 1");
+            }
+            if (minRemaining > maxRemaining) {
+                throw new IllegalArgumentException(
+                        "minRemaining > maxRemaining: " + minRemaining + " > " + maxRemaining);
+            }
+        }
+
+        /** Shared bounds check of the {@code offerBatch} entry points. */
+        static void checkBatch(int sets, int count, int[] out) {
+            if (count < 0 || count > sets || count > out.length) {
+                throw new IllegalArgumentException(
+                        "count "
+                                + count
+                                + " exceeds input ("
+                                + sets
+                                + ") or out ("
+                                + out.length
+                                + ")");
+            }
+        }
+
+        static int checkInitialCaseCount(int initialCaseCount) {
+            if (initialCaseCount < 2 || initialCaseCount > 25) {
+                throw new IllegalArgumentException(
+                        "initialCaseCount must be in [2..25], got " + initialCaseCount);
+            }
+            return initialCaseCount;
         }
     }
 
+    /** {@code lastOffer} value meaning "no offer yet" in the primitive overloads. */
+    int NO_LAST_OFFER = -1;
+
     /** Compute the banker offer for the given context (whole dollars). */
     int offer(Context ctx);
+
+    /**
+     * Whether {@link #offer(Context)} reads {@link Context#remainingAmounts}. True by default, so
+     * a policy that only implements {@code offer(Context)} (e.g. a lambda) is always given the
+     * amounts: the array overloads build them into its context, and callers that hold the board
+     * ({@link deal.core.Engine}, {@link deal.core.MutableGame}) call {@code offer(Context)} instead
+     * of the aggregate overloads. Policies that work from the aggregates alone return false.
+     */
+    default boolean readsRemainingAmounts() {
+        return true;
+    }
+
+    /**
+     * Primitive entry point over precomputed aggregates of the remaining amounts: no boxing and no
+     * context object. Pass {@link #NO_LAST_OFFER} when there was no previous offer. The default
+     * adapts to {@link #offer(Context)} with a context whose {@code remainingAmounts} is empty, as
+     * the amounts are not known here; policies on hot paths should override it.
+     */
+    default int offer(
+            int initialCaseCount,
+            int remainingCount,
+            long remainingSum,
+            long remainingSumOfSquares,
+            int minRemaining,
+            int maxRemaining,
+            int openedSoFar,
+            int lastOffer) {
+        return offer(
+                Context.ofAggregates(
+                        initialCaseCount,
+                        remainingCount,
+                        remainingSum,
+                        remainingSumOfSquares,
+                        minRemaining,
+                        maxRemaining,
+                        openedSoFar,
+                        lastOffer == NO_LAST_OFFER ? null : lastOffer));
+    }
+
+    /**
+     * {@link #offer(int, int, long, long, int, int, int, int)} for a remaining set that is also
+     * identified by {@code ladderMask}: bit {@code k} set means the {@code k}-th smallest amount of
+     * the game's ladder is still in play. Masks passed to one policy instance must all index the
+     * same ladder. Policies that are a pure function of the remaining set may memoize on the mask
+     * (see {@link CachingOfferPolicy}); the default ignores it.
+     */
+    default int offerForMask(
+            long ladderMask,
+            int initialCaseCount,
+            int remainingCount,
+            long remainingSum,
+            long remainingSumOfSquares,
+            int minRemaining,
+            int maxRemaining,
+            int openedSoFar,
+            int lastOffer) {
+        return offer(
+                initialCaseCount,
+                remainingCount,
+                remainingSum,
+                remainingSumOfSquares,
+                minRemaining,
+                maxRemaining,
+                openedSoFar,
+                lastOffer);
+    }
+
+    /**
+     * Primitive entry point over the first {@code len} entries of {@code amounts} (unsorted ok;
+     * read once, never retained or modified). Aggregates in one pass, then delegates to the
+     * aggregate overload; a policy that {@linkplain #readsRemainingAmounts reads the amounts} gets
+     * them in a full context instead.
+     */
+    default int offer(
+            int[] amounts, int len, int initialCaseCount, int openedSoFar, int lastOffer) {
+        if (len < 1 || len > amounts.length) {
+            throw new IllegalArgumentException(
+                    "len must be in [1.." + amounts.length + "], got " + len);
+        }
+        if (readsRemainingAmounts()) {
+            return offer(
+                    new Context(
+                            initialCaseCount,
+                            listOf(amounts, 0, len),
+                            openedSoFar,
+                            lastOffer == NO_LAST_OFFER ? null : lastOffer));
+        }
+        long sum = 0L, sumSq = 0L;
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int i = 0; i < len; i++) {
+            int a = amounts[i];
+            sum += a;
+            sumSq += (long) a * a;
+            min = Math.min(min, a);
+            max = Math.max(max, a);
+        }
+        return offer(initialCaseCount, len, sum, sumSq, min, max, openedSoFar, lastOffer);
+    }
+
+    /**
+     * Offers for {@code count} amount sets in structure-of-arrays form: set {@code i} is {@code
+     * amounts[offsets[i] .. offsets[i + 1])}, its offer goes to {@code out[i]}. Each set is valued
+     * as a what-if with {@code initialCaseCount - size} cases opened and no previous offer.
+     */
+    default void offerBatch(
+            int[] amounts, int[] offsets, int count, int initialCaseCount, int[] out) {
+        Context.checkBatch(offsets.length - 1, count, out);
+        for (int i = 0; i < count; i++) {
+            int from = offsets[i], len = offsets[i + 1] - from;
+            if (len < 1) throw new IllegalArgumentException("Empty set at index " + i);
+            if (readsRemainingAmounts()) {
+                var set = listOf(amounts, from, len);
+                out[i] = offer(new Context(initialCaseCount, set, initialCaseCount - len, null));
+                continue;
+            }
+            long sum = 0L, sumSq = 0L;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int j = from; j < from + len; j++) {
+                int a = amounts[j];
+                sum += a;
+                sumSq += (long) a * a;
+                min = Math.min(min, a);
+                max = Math.max(max, a);
+            }
+            out[i] =
+                    offer(
+                            initialCaseCount,
+                            len,
+                            sum,
+                            sumSq,
+                            min,
+                            max,
+                            initialCaseCount - len,
+                            NO_LAST_OFFER);
+        }
+    }
+
+    /**
+     * Offers for {@code count} subsets of a sorted {@code ladder}: bit {@code k} of {@code
+     * masks[i]} selects {@code ladder[k]}, the offer goes to {@code out[i]}. Same what-if
+     * semantics as the offsets form.
+     */
+    default void offerBatch(
+            int[] ladder, long[] masks, int count, int initialCaseCount, int[] out) {
+        Context.checkBatch(masks.length, count, out);
+        int[] subset = new int[ladder.length];
+        for (int i = 0; i < count; i++) {
+            long mask = masks[i];
+            if (mask == 0L || 64 - Long.numberOfLeadingZeros(mask) > ladder.length) {
+                throw new IllegalArgumentException("Bad ladder mask at index " + i + ": " + mask);
+            }
+            int len = 0;
+            for (long m = mask; m != 0L; m &= m - 1) {
+                subset[len++] = ladder[Long.numberOfTrailingZeros(m)];
+            }
+            out[i] = offer(subset, len, initialCaseCount, initialCaseCount - len, NO_LAST_OFFER);
+        }
+    }
+
+    private static List<Integer> listOf(int[] amounts, int from, int len) {
+        List<Integer> out = new ArrayList<>(len);
+        for (int i = from; i < from + len; i++) out.add(amounts[i]);
+        return out;
+    }
 }
@@ -13,6 +13,15 @@ class ConfigRulesTest {
         assertThat(cfg10.amountsDollars()).hasSize(10);
     }
 
+    @Test
+    void ladder_is_typed_and_resolved_once() {
+        var ladder = new DefaultPrizeLadder();
+        var cfg = new GameConfig(8, ladder, new CustomPerRoundPolicy());
+        assertThat(cfg.ladder()).isSameAs(ladder);
+        assertThat(cfg.amountsDollars()).isSameAs(cfg.amountsDollars());
+        assertThat(cfg.amountsDollars()).isEqualTo(ladder.amountsFor(8));
+    }
+
     @Test
     void customPolicyAllowsReasonableKs() {
         // Use a small game to check policy boundaries.
@@ -1,6 +1,7 @@
 package deal.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -30,4 +31,10 @@ final class DefaultPrizeLadderTest {
         assertEquals(25, amounts.size());
         assertEquals(1_000_000, (int) amounts.get(24));
     }
+
+    @Test
+    void ladders_are_precomputed_once() {
+        var ladder = new DefaultPrizeLadder();
+        assertSame(ladder.amountsFor(7), new DefaultPrizeLadder().amountsFor(7));
+    }
 }
@@ -0,0 +1,112 @@
+package deal.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EngineEventsTest {
+    @TempDir Path dir;
+
+    private static final List<String> NAMES =
+            List.of(
+                    "deal.engine.Start",
+                    "deal.engine.OpenCase",
+                    "deal.engine.ComputeOffer",
+                    "deal.engine.ResolveCounter",
+                    "deal.engine.RevealFinal");
+
+    /** Round 1 counters out of reach, the rest declined to the end; swap at the reveal. */
+    private static void play(Engine e) {
+        var s = e.pickPlayerCase(e.start(), 1);
+        boolean countered = false;
+        while (s.phase() != Phase.FINAL_REVEAL) {
+            s = e.chooseToOpen(s, 1);
+            for (int id = 2; ; id++) {
+                if (!s.isOpened(id)) {
+                    s = e.openCase(s, id);
+                    break;
+                }
+            }
+            s = e.computeOffer(s);
+            if (!countered) {
+                s = e.resolveCounter(e.proposeCounter(s, Integer.MAX_VALUE));
+                countered = true;
+            } else {
+                s = e.declineDeal(s);
+            }
+        }
+        e.revealFinal(s, true);
+    }
+
+    private List<RecordedEvent> record(Recording r) throws IOException {
+        r.start();
+        play(new Engine(GameConfig.of(10), 7L));
+        r.stop();
+        Path file = dir.resolve("engine.jfr");
+        r.dump(file);
+        List<RecordedEvent> out = new ArrayList<>();
+        for (RecordedEvent ev : RecordingFile.readAllEvents(file)) {
+            if (ev.getEventType().getName().startsWith("deal.engine.")) out.add(ev);
+        }
+        return out;
+    }
+
+    @Test
+    void records_each_transition_when_enabled() throws IOException {
+        List<RecordedEvent> events;
+        try (var r = new Recording()) {
+            for (String name : NAMES) r.enable(name);
+            events = record(r);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (RecordedEvent ev : events) names.add(ev.getEventType().getName());
+        assertThat(names.get(0)).isEqualTo("deal.engine.Start");
+        assertThat(names.get(names.size() - 1)).isEqualTo("deal.engine.RevealFinal");
+        assertThat(names.stream().filter("deal.engine.OpenCase"::equals).count()).isEqualTo(8);
+        assertThat(names.stream().filter("deal.engine.ComputeOffer"::equals).count()).isEqualTo(8);
+        assertThat(names.stream().filter("deal.engine.ResolveCounter"::equals).count())
+                .isEqualTo(1);
+
+        for (RecordedEvent ev : events) {
+            assertThat(ev.getInt("caseCount")).isEqualTo(10);
+            assertThat(ev.getDuration().isNegative()).isFalse();
+            switch (ev.getEventType().getName()) {
+                case "deal.engine.Start" -> {
+                    assertThat(ev.getInt("remainingCount")).isEqualTo(10);
+                    assertThat(ev.getInt("offer")).isZero();
+                }
+                case "deal.engine.ComputeOffer" -> assertThat(ev.getInt("offer")).isPositive();
+                case "deal.engine.ResolveCounter" -> {
+                    assertThat(ev.getInt("counter")).isEqualTo(Integer.MAX_VALUE);
+                    assertThat(ev.getBoolean("accepted")).isFalse();
+                    assertThat(ev.getInt("roundIndex")).isEqualTo(2); // on to round 2
+                }
+                case "deal.engine.RevealFinal" -> {
+                    assertThat(ev.getBoolean("swap")).isTrue();
+                    assertThat(ev.getInt("result")).isPositive();
+                    assertThat(ev.getInt("remainingCount")).isEqualTo(2);
+                }
+                default -> {}
+            }
+        }
+    }
+
+    @Test
+    void are_off_in_the_default_and_profile_settings() throws Exception {
+        for (String config : List.of("default", "profile")) {
+            try (var r = new Recording(Configuration.getConfiguration(config))) {
+                assertThat(record(r)).isEmpty();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package deal.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.offer.LegacyOfferPolicy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+
+class EngineMetricsTest {
+
+    /** Open one case a round and decline until the final reveal; keep the case. */
+    private static GameState playToTheEnd(Engine e) {
+        var s = e.pickPlayerCase(e.start(), 1);
+        while (s.phase() != Phase.FINAL_REVEAL) {
+            s = e.chooseToOpen(s, 1);
+            for (int id = 2; ; id++) {
+                if (!s.isOpened(id)) {
+                    s = e.openCase(s, id);
+                    break;
+                }
+            }
+            s = e.computeOffer(s);
+            s = e.declineDeal(s);
+        }
+        return e.revealFinal(s, false);
+    }
+
+    @Test
+    void counts_games_transitions_outcomes_and_offer_latencies() {
+        var metrics = new EngineMetrics();
+        var cfg = GameConfig.of(10);
+        var e = new Engine(cfg, 3L, LegacyOfferPolicy.DEFAULT, metrics);
+        playToTheEnd(e);
+
+        // one deal, one accepted counter (at the offer), one rejected counter
+        var s = e.pickPlayerCase(e.start(), 1);
+        s = e.computeOffer(e.openCase(e.chooseToOpen(s, 1), 2));
+        e.acceptDeal(s);
+        e.resolveCounter(e.proposeCounter(s, s.currentOfferDollars()));
+        var rejected = e.resolveCounter(e.proposeCounter(s, Integer.MAX_VALUE));
+        assertThat(rejected.phase()).isEqualTo(Phase.ROUND);
+
+        assertThat(metrics.gamesStarted()).isEqualTo(2);
+        assertThat(metrics.gamesFinished()).isEqualTo(3); // the branches of game 2 both ended
+        assertThat(metrics.deals()).isEqualTo(1);
+        assertThat(metrics.noDeals()).isEqualTo(8); // 10 cases: 8 opened, one per declined round
+        assertThat(metrics.countersAccepted()).isEqualTo(1);
+        assertThat(metrics.countersRejected()).isEqualTo(1);
+        assertThat(metrics.transitions(Phase.PICK_CASE)).isEqualTo(2);
+        assertThat(metrics.transitions(Phase.OFFER)).isEqualTo(9);
+        assertThat(metrics.transitions(Phase.COUNTEROFFER)).isEqualTo(2);
+        assertThat(metrics.transitions(Phase.FINAL_REVEAL)).isEqualTo(1);
+        assertThat(metrics.computeOfferLatency().count()).isEqualTo(9);
+        assertThat(metrics.resolveCounterLatency().count()).isEqualTo(2);
+        assertThat(metrics.computeOfferLatency().max()).isPositive();
+
+        String report = metrics.snapshot();
+        assertThat(report).contains("games: 2 started, 3 finished");
+        assertThat(report).contains("counters 1 accepted / 1 rejected");
+        assertThat(report).contains("computeOffer: n=9");
+    }
+
+    @Test
+    void engines_without_metrics_play_the_same_game() {
+        var cfg = GameConfig.of(25);
+        var metrics = new EngineMetrics();
+        var measured = playToTheEnd(new Engine(cfg, 11L, LegacyOfferPolicy.DEFAULT, metrics));
+        var plain = playToTheEnd(new Engine(cfg, 11L));
+        assertThat(measured.resultDollars()).isEqualTo(plain.resultDollars());
+        assertThat(measured.currentOfferDollars()).isEqualTo(plain.currentOfferDollars());
+    }
+
+    @Test
+    void histogram_percentiles_are_within_one_bucket() {
+        var h = new LatencyHistogram();
+        assertThat(h.percentile(50)).isZero();
+        for (long v = 1; v <= 100_000; v++) h.record(v);
+        assertThat(h.count()).isEqualTo(100_000);
+        assertThat(h.max()).isEqualTo(100_000);
+        assertThat(h.mean()).isCloseTo(50_000.5, within(1e-6));
+        assertThat(h.percentile(50)).isBetween(50_000L, 56_250L);
+        assertThat(h.percentile(99)).isBetween(99_000L, 100_000L);
+        assertThat(h.percentile(100)).isEqualTo(100_000);
+        assertThatThrownBy(() -> h.percentile(0)).isInstanceOf(IllegalArgumentException.class);
+
+        for (int b = 0; b < 487; b++) {
+            assertThat(LatencyHistogram.bucketOf(LatencyHistogram.upperBound(b))).isEqualTo(b);
+            assertThat(LatencyHistogram.bucketOf(LatencyHistogram.upperBound(b) + 1))
+                    .isEqualTo(b + 1);
+        }
+        assertThat(LatencyHistogram.upperBound(487)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void engines_on_many_threads_share_one_instance() throws Exception {
+        var metrics = new EngineMetrics();
+        var cfg = GameConfig.of(10);
+        int threads = 8, gamesEach = 500;
+        var go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread w =
+                    new Thread(
+                            () -> {
+                                try {
+                                    go.await();
+                                } catch (InterruptedException ex) {
+                                    return;
+                                }
+                                var e = new Engine(cfg, seed, LegacyOfferPolicy.DEFAULT, metrics);
+                                for (int g = 0; g < gamesEach; g++) playToTheEnd(e);
+                            });
+            w.start();
+            workers.add(w);
+        }
+        go.countDown();
+        for (Thread w : workers) w.join();
+
+        long games = (long) threads * gamesEach;
+        assertThat(metrics.gamesStarted()).isEqualTo(games);
+        assertThat(metrics.gamesFinished()).isEqualTo(games);
+        assertThat(metrics.computeOfferLatency().count()).isEqualTo(games * 8);
+    }
+
+    @Test
+    void is_readable_over_jmx() throws Exception {
+        var metrics = new EngineMetrics();
+        var e = new Engine(GameConfig.of(10), 5L, LegacyOfferPolicy.DEFAULT, metrics);
+        playToTheEnd(e);
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test \"one\"");
+        try {
+            assertThat(name.getDomain()).isEqualTo(EngineMetrics.JMX_DOMAIN);
+            assertThat(server.getAttribute(name, "GamesFinished")).isEqualTo(1L);
+            assertThat(server.getAttribute(name, "ComputeOfferCount")).isEqualTo(8L);
+            assertThat((String) server.getAttribute(name, "Snapshot")).contains("1 finished");
+            assertThatThrownBy(() -> metrics.register("test \"one\""))
+                    .isInstanceOf(IllegalStateException.class);
+            var byPhase = (TabularData) server.getAttribute(name, "PhaseTransitions");
+            assertThat(byPhase.size()).isEqualTo(Phase.values().length);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -2,7 +2,10 @@ package deal.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class EngineStartTest {
@@ -24,4 +27,15 @@ class EngineStartTest {
         assertThat(seq1).isEqualTo(seq2); // same seed -> same shuffle
         assertThat(seq1).isNotEqualTo(seq3); // different seed -> likely different shuffle
     }
+
+    @Test
+    void start_deals_same_order_as_collections_shuffle() {
+        var cfg = GameConfig.of(25);
+        var expected = new ArrayList<>(cfg.amountsDollars());
+        Collections.shuffle(expected, new Random(99L));
+
+        var s = new Engine(cfg, 99L).start();
+        var dealt = s.cases().stream().map(Briefcase::amountDollars).toList();
+        assertThat(dealt).isEqualTo(expected);
+    }
 }
@@ -0,0 +1,104 @@
+package deal.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GameStateTest {
+
+    private static GameState fiveCases() {
+        var cases =
+                List.of(
+                        new Briefcase(1, 500, false),
+                        new Briefcase(2, 100, false),
+                        new Briefcase(3, 5_000, false),
+                        new Briefcase(4, 200, false),
+                        new Briefcase(5, 1_000, false));
+        return roundState(cases).withPlayerCase(1);
+    }
+
+    private static GameState roundState(List<Briefcase> cases) {
+        return new GameState(Phase.ROUND, 1, cases, null, List.of(), null, null, null, 0);
+    }
+
+    @Test
+    void withOpened_tracks_bitmask_and_leaves_original_untouched() {
+        var s0 = fiveCases();
+        var s1 = s0.withOpened(3).withOpened(5);
+
+        assertThat(s0.openedCount()).isEqualTo(0);
+        assertThat(s0.isOpened(3)).isFalse();
+
+        assertThat(s1.isOpened(3)).isTrue();
+        assertThat(s1.isOpened(5)).isTrue();
+        assertThat(s1.isOpened(2)).isFalse();
+        assertThat(s1.openedMask()).isEqualTo(0b10100L);
+        assertThat(s1.openedCaseIds()).containsExactly(3, 5);
+        assertThat(s1.remainingUnopenedIds()).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    void legacy_accessors_reflect_compact_state() {
+        var s = fiveCases().withOpened(2);
+
+        assertThat(s.cases()).hasSize(5);
+        assertThat(s.cases().get(1)).isEqualTo(new Briefcase(2, 100, true));
+        assertThat(s.cases().get(0)).isEqualTo(new Briefcase(1, 500, false));
+        assertThat(s.unopened()).hasSize(4);
+        assertThat(s.unopened().stream().noneMatch(c -> c.id() == 2)).isTrue();
+    }
+
+    @Test
+    void amount_lookups_in_both_directions() {
+        var s = fiveCases();
+
+        assertThat(s.amountOf(3)).isEqualTo(5_000);
+        assertThat(s.caseIdForAmount(200)).isEqualTo(4);
+        assertThat(s.caseIdForAmount(500)).isEqualTo(1);
+        assertThatThrownBy(() -> s.caseIdForAmount(7))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> s.amountOf(6)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void equal_amounts_map_to_the_lowest_case_id() {
+        var cfg = new GameConfig(6, n -> List.of(5, 1, 5, 9, 5, 1), new CustomPerRoundPolicy());
+        for (long seed = 0; seed < 20; seed++) {
+            var s = new Engine(cfg, seed).start();
+            for (int amount : List.of(1, 5, 9)) {
+                int lowest = 1;
+                while (s.amountOf(lowest) != amount) lowest++;
+                assertThat(s.caseIdForAmount(amount)).isEqualTo(lowest);
+            }
+        }
+    }
+
+    @Test
+    void remaining_aggregates_follow_opened_cases() {
+        var s0 = fiveCases();
+        assertThat(s0.remainingCount()).isEqualTo(5);
+        assertThat(s0.remainingSum()).isEqualTo(6_800L);
+        assertThat(s0.remainingMin()).isEqualTo(100);
+        assertThat(s0.remainingMax()).isEqualTo(5_000);
+
+        // open the min (case 2) and the max (case 3)
+        var s1 = s0.withOpened(2).withOpened(3);
+        assertThat(s1.remainingCount()).isEqualTo(3);
+        assertThat(s1.remainingSum()).isEqualTo(1_700L);
+        assertThat(s1.remainingSumOfSquares()).isEqualTo(500L * 500 + 200L * 200 + 1_000L * 1_000);
+        assertThat(s1.remainingMin()).isEqualTo(200);
+        assertThat(s1.remainingMax()).isEqualTo(1_000);
+        assertThat(s1.remainingMean()).isEqualTo(1_700 / 3.0);
+        assertThat(s1.remainingLadderMask()).isEqualTo(0b01110L); // ladder 100,200,500,1000,5000
+
+        // re-opening is a no-op for the aggregates
+        assertThat(s1.withOpened(3).remainingSum()).isEqualTo(1_700L);
+    }
+
+    @Test
+    void rejects_duplicate_case_ids() {
+        var cases = List.of(new Briefcase(1, 100, false), new Briefcase(1, 200, false));
+        assertThatThrownBy(() -> roundState(cases)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
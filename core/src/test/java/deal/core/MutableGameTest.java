@@ -0,0 +1,124 @@
+package deal.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Differential test: MutableGame must replay Engine exactly for the same seed and actions. */
+class MutableGameTest {
+
+    @Test
+    void matches_engine_on_random_playthroughs() {
+        for (int cases : new int[] {3, 5, 10, 25}) {
+            var cfg = GameConfig.of(cases);
+            var game = new MutableGame(cfg); // reused across all seeds
+            for (long seed = 0; seed < 300; seed++) {
+                playBoth(cfg, game, seed);
+            }
+        }
+    }
+
+    @Test
+    void reset_deals_same_board_as_engine_start() {
+        PrizeLadderProvider ladder = n -> List.of(100, 200, 500, 1_000, 5_000).subList(0, n);
+        var cfg = new GameConfig(5, ladder, new CustomPerRoundPolicy());
+        var game = new MutableGame(cfg);
+
+        game.reset(123L);
+        var s = new Engine(cfg, 123L).start();
+        for (int id = 1; id <= 5; id++) assertThat(game.amountOf(id)).isEqualTo(s.amountOf(id));
+        assertThat(game.phase()).isEqualTo(Phase.PICK_CASE);
+        assertThat(game.roundIndex()).isEqualTo(s.roundIndex());
+    }
+
+    @Test
+    void rejects_same_invalid_moves_as_engine() {
+        var game = new MutableGame(GameConfig.of(10));
+        game.reset(7L);
+        assertThatThrownBy(() -> game.openCase(2)).isInstanceOf(IllegalStateException.class);
+        game.pickPlayerCase(1);
+        assertThatThrownBy(() -> game.chooseToOpen(9)).isInstanceOf(IllegalArgumentException.class);
+        game.chooseToOpen(1);
+        assertThatThrownBy(() -> game.openCase(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(game::computeOffer).isInstanceOf(IllegalStateException.class);
+    }
+
+    /** Drive Engine and MutableGame with the same scripted choices, comparing after each step. */
+    private static void playBoth(GameConfig cfg, MutableGame game, long seed) {
+        var engine = new Engine(cfg, seed);
+        var s = engine.start();
+        game.reset(seed);
+        assertSame(s, game);
+
+        var script = new Random(seed * 31 + cfg.caseCount());
+        int pick = 1 + script.nextInt(cfg.caseCount());
+        s = engine.pickPlayerCase(s, pick);
+        game.pickPlayerCase(pick);
+        assertSame(s, game);
+
+        while (s.phase() != Phase.RESULT) {
+            if (s.phase() == Phase.FINAL_REVEAL) {
+                boolean swap = script.nextBoolean();
+                s = engine.revealFinal(s, swap);
+                assertThat(game.revealFinal(swap)).isEqualTo(s.resultDollars());
+                assertSame(s, game);
+                break;
+            }
+
+            int available = s.remainingCount() - 1;
+            int k = 1 + script.nextInt(Math.max(1, available - 1));
+            s = engine.chooseToOpen(s, k);
+            game.chooseToOpen(k);
+            while (s.toOpenInThisRound() > 0) {
+                int id;
+                do {
+                    id = 1 + script.nextInt(cfg.caseCount());
+                } while (id == pick || s.isOpened(id));
+                s = engine.openCase(s, id);
+                assertThat(game.openCase(id)).isEqualTo(s.amountOf(id));
+                assertSame(s, game);
+            }
+
+            s = engine.computeOffer(s);
+            assertThat(game.computeOffer()).isEqualTo(s.currentOfferDollars());
+            assertSame(s, game);
+
+            int choice = script.nextInt(4);
+            if (choice == 0) {
+                s = engine.acceptDeal(s);
+                game.acceptDeal();
+            } else if (choice == 1) {
+                int counter = 1 + script.nextInt(Math.max(1, s.remainingMax()));
+                s = engine.proposeCounter(s, counter);
+                game.proposeCounter(counter);
+                assertSame(s, game);
+                s = engine.resolveCounter(s);
+                assertThat(game.resolveCounter()).isEqualTo(s.phase() == Phase.RESULT);
+            } else {
+                s = engine.declineDeal(s);
+                game.declineDeal();
+            }
+            assertSame(s, game);
+        }
+    }
+
+    private static void assertSame(GameState s, MutableGame g) {
+        assertThat(g.phase()).isEqualTo(s.phase());
+        assertThat(g.roundIndex()).isEqualTo(s.roundIndex());
+        assertThat(g.openedMask()).isEqualTo(s.openedMask());
+        assertThat(g.toOpenInThisRound()).isEqualTo(s.toOpenInThisRound());
+        assertThat(g.remainingSum()).isEqualTo(s.remainingSum());
+        assertThat(g.remainingSumOfSquares()).isEqualTo(s.remainingSumOfSquares());
+        assertThat(g.remainingMin()).isEqualTo(s.remainingMin());
+        assertThat(g.remainingMax()).isEqualTo(s.remainingMax());
+
+        var snap = g.snapshot();
+        assertThat(snap.playerCaseId()).isEqualTo(s.playerCaseId());
+        assertThat(snap.currentOfferDollars()).isEqualTo(s.currentOfferDollars());
+        assertThat(snap.counterOfferDollars()).isEqualTo(s.counterOfferDollars());
+        assertThat(snap.resultDollars()).isEqualTo(s.resultDollars());
+        assertThat(snap.cases()).isEqualTo(s.cases());
+    }
+}
@@ -0,0 +1,153 @@
+package deal.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class OptimalPlaySolverTest {
+    private static final List<Integer> SEVEN = List.of(1, 5, 10, 100, 500, 1_000, 5_000);
+    private static final GameConfig CFG =
+            new GameConfig(7, n -> SEVEN.subList(0, n), new CustomPerRoundPolicy());
+
+    @Test
+    void matches_brute_force_expectimax_over_every_k() {
+        for (boolean counters : new boolean[] {false, true}) {
+            var solver = OptimalPlaySolver.solve(CFG, counters);
+            var engine = new Engine(CFG, 3L);
+            var s = engine.pickPlayerCase(engine.start(), 1);
+
+            double expected = roundStart(SEVEN, 1, counters);
+            assertThat(solver.value(s)).isCloseTo(expected, within(expected * 1e-5));
+
+            // K = 3, one case opened: two more random opens before the offer
+            s = engine.openCase(engine.chooseToOpen(s, 3), 2);
+            double mid = opened(remaining(s), 2, 1, counters);
+            assertThat(solver.value(s)).isCloseTo(mid, within(mid * 1e-5));
+        }
+    }
+
+    @Test
+    void offer_phase_values_bound_each_option() {
+        var solver = OptimalPlaySolver.solve(CFG, true);
+        var engine = new Engine(CFG, 11L);
+        var s = engine.pickPlayerCase(engine.start(), 4);
+        while (s.phase() != Phase.FINAL_REVEAL) {
+            s = engine.openCase(engine.chooseToOpen(s, 1), firstClosed(s));
+            s = engine.computeOffer(s);
+
+            double value = solver.value(s);
+            assertThat(value).isGreaterThanOrEqualTo(s.currentOfferDollars());
+            assertThat(value).isGreaterThanOrEqualTo(solver.noDealValue(s) - 1e-6);
+            assertThat(value).isGreaterThanOrEqualTo(solver.bestCounter(s));
+            assertThat(solver.bestCounter(s)).isGreaterThanOrEqualTo(s.currentOfferDollars());
+            if (s.remainingCount() == 2) {
+                assertThat(solver.noDealValue(s)).isEqualTo(s.remainingMean());
+            }
+            s = engine.declineDeal(s);
+        }
+        assertThat(solver.value(s)).isEqualTo(s.remainingMean());
+        s = engine.revealFinal(s, false);
+        assertThat(solver.value(s)).isEqualTo((double) s.resultDollars());
+    }
+
+    @Test
+    void values_the_offer_point_after_the_rounds_last_open() {
+        for (boolean counters : new boolean[] {false, true}) {
+            var solver = OptimalPlaySolver.solve(CFG, counters);
+            var engine = new Engine(CFG, 5L);
+            var s = engine.pickPlayerCase(engine.start(), 7);
+            while (s.remainingCount() > 2) {
+                s = engine.chooseToOpen(s, 1);
+                assertThat(s.roundKChosen()).isTrue();
+                s = engine.openCase(s, firstClosed(s));
+                double offerPoint = solver.value(engine.computeOffer(s));
+                assertThat(solver.value(s)).isCloseTo(offerPoint, within(offerPoint * 1e-5));
+                s = engine.declineDeal(engine.computeOffer(s));
+            }
+        }
+
+        // A MutableGame snapshot keeps the distinction.
+        var solver = OptimalPlaySolver.solve(CFG);
+        var game = new MutableGame(CFG);
+        game.reset(5L);
+        game.pickPlayerCase(7);
+        game.chooseToOpen(2);
+        game.openCase(1);
+        game.openCase(2);
+        double afterOpens = solver.value(game.snapshot());
+        game.computeOffer();
+        double offerPoint = solver.value(game.snapshot());
+        assertThat(afterOpens).isCloseTo(offerPoint, within(offerPoint * 1e-5));
+    }
+
+    @Test
+    void never_worth_less_than_playing_to_the_end() {
+        var s = new Engine(GameConfig.of(10), 5L).start();
+        var solver = OptimalPlaySolver.solve(GameConfig.of(10));
+        assertThat(solver.value(s)).isGreaterThanOrEqualTo(s.remainingMean() - 1e-3);
+        assertThat(solver.modelsCounters()).isFalse();
+    }
+
+    @Test
+    void rejects_unsupported_ladders_and_phases() {
+        List<Integer> big = IntStream.rangeClosed(1, 26).boxed().toList();
+        var cfg26 = new GameConfig(26, n -> big, new CustomPerRoundPolicy());
+        assertThatThrownBy(() -> OptimalPlaySolver.solve(cfg26))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        var solver = OptimalPlaySolver.solve(CFG);
+        var start = new Engine(CFG, 1L).start();
+        assertThatThrownBy(() -> solver.noDealValue(start))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> solver.value(new Engine(GameConfig.of(10), 1L).start()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ---- brute force: every K, amounts as lists, list-built offer contexts, unbounded rounds ----
+
+    private static double roundStart(List<Integer> rem, int round, boolean counters) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int k = 1; k <= Math.max(1, rem.size() - 2); k++) {
+            best = Math.max(best, opened(rem, k, round, counters));
+        }
+        return best;
+    }
+
+    private static double opened(List<Integer> rem, int k, int round, boolean counters) {
+        if (k == 0) return offerPoint(rem, round, counters);
+        double total = 0.0;
+        for (int i = 0; i < rem.size(); i++) {
+            List<Integer> next = new ArrayList<>(rem);
+            next.remove(i);
+            total += opened(next, k - 1, round, counters);
+        }
+        return total / rem.size();
+    }
+
+    private static double offerPoint(List<Integer> rem, int round, boolean counters) {
+        var ctx = new OfferPolicy.Context(SEVEN.size(), rem, SEVEN.size() - rem.size(), null);
+        double mean = rem.stream().mapToInt(Integer::intValue).average().orElseThrow();
+        double best = LegacyOfferPolicy.DEFAULT.offer(ctx);
+        if (counters) {
+            int max = rem.stream().mapToInt(Integer::intValue).max().orElseThrow();
+            best = Math.max(best, Math.min(max, Engine.counterThreshold(mean, round)));
+        }
+        double noDeal = rem.size() <= 2 ? mean : roundStart(rem, round + 1, counters);
+        return Math.max(best, noDeal);
+    }
+
+    private static List<Integer> remaining(GameState s) {
+        List<Integer> out = new ArrayList<>();
+        for (int id = 1; id <= s.caseCount(); id++) if (!s.isOpened(id)) out.add(s.amountOf(id));
+        return out;
+    }
+
+    private static int firstClosed(GameState s) {
+        for (int id = 1; ; id++) if (id != s.playerCaseId() && !s.isOpened(id)) return id;
+    }
+}
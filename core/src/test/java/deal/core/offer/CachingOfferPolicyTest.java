@@ -0,0 +1,131 @@
+package deal.core.offer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.Phase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class CachingOfferPolicyTest {
+    private static final int[] LADDER = {
+        1, 5, 10, 25, 50, 75, 100, 200, 300, 400, 500, 750, 1_000, 5_000, 10_000, 25_000, 50_000,
+        75_000, 100_000, 200_000, 300_000, 400_000, 500_000, 750_000, 1_000_000
+    };
+
+    @Test
+    void second_lookup_of_a_mask_is_a_hit() {
+        var cache = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 64);
+        long mask = 0b1_0000_0000_0000_0000_1001_0110L;
+
+        int first = offerForMask(cache, mask);
+        int second = offerForMask(cache, mask);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first).isEqualTo(offerForMask(LegacyOfferPolicy.DEFAULT, mask));
+        assertThat(cache.stats()).isEqualTo(new CachingOfferPolicy.Stats(1, 1, 0));
+        assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void small_cache_evicts_but_never_returns_a_wrong_offer() {
+        var cache = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 16);
+        var rng = new SplittableRandom(1);
+        for (int i = 0; i < 5_000; i++) {
+            long mask = 1L + rng.nextInt((1 << 25) - 1);
+            if (i % 2 == 0) mask = 0b111L << (i % 8); // four hot keys
+            assertThat(offerForMask(cache, mask))
+                    .isEqualTo(offerForMask(LegacyOfferPolicy.DEFAULT, mask));
+        }
+        var st = cache.stats();
+        assertThat(cache.capacity()).isEqualTo(16);
+        assertThat(st.requests()).isEqualTo(5_000L);
+        assertThat(st.hits()).isPositive();
+        assertThat(st.evictions()).isPositive();
+    }
+
+    @Test
+    void concurrent_lookups_agree_with_delegate() throws Exception {
+        var cache = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 256);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+                Callable<Integer> task =
+                        () -> {
+                            var rng = new SplittableRandom(seed);
+                            int wrong = 0;
+                            for (int i = 0; i < 20_000; i++) {
+                                long mask = 1L + rng.nextInt(2_000); // heavy key overlap
+                                int expected = offerForMask(LegacyOfferPolicy.DEFAULT, mask);
+                                if (offerForMask(cache, mask) != expected) wrong++;
+                            }
+                            return wrong;
+                        };
+                results.add(pool.submit(task));
+            }
+            for (var f : results) assertThat(f.get()).isZero();
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(cache.stats().requests()).isEqualTo(8L * 20_000);
+    }
+
+    @Test
+    void engine_uses_cache_transparently() {
+        var cfg = GameConfig.of(25);
+        var cache = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 1 << 12);
+        for (long seed = 0; seed < 20; seed++) {
+            var plain = new Engine(cfg, seed);
+            var cached = new Engine(cfg, seed, cache);
+            var a = plain.pickPlayerCase(plain.start(), 1);
+            var b = cached.pickPlayerCase(cached.start(), 1);
+            while (a.phase() != Phase.FINAL_REVEAL) {
+                int id = nextClosed(a);
+                a = plain.computeOffer(plain.openCase(plain.chooseToOpen(a, 1), id));
+                b = cached.computeOffer(cached.openCase(cached.chooseToOpen(b, 1), id));
+                assertThat(b.currentOfferDollars()).isEqualTo(a.currentOfferDollars());
+                a = plain.declineDeal(a);
+                b = cached.declineDeal(b);
+            }
+        }
+        // opening in id order from the same ladder revisits subsets across seeds
+        assertThat(cache.stats().hits()).isPositive();
+    }
+
+    @Test
+    void unkeyable_requests_bypass_the_table() {
+        var cache = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 8);
+        assertThatThrownBy(() -> cache.offerForMask(0L, 25, 0, 0, 0, 0, 0, 25, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.stats().requests()).isZero();
+        assertThatThrownBy(() -> new CachingOfferPolicy(null, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int offerForMask(OfferPolicy policy, long mask) {
+        long sum = 0, sumSq = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            int a = LADDER[Long.numberOfTrailingZeros(m)];
+            sum += a;
+            sumSq += (long) a * a;
+        }
+        int n = Long.bitCount(mask);
+        int min = LADDER[Long.numberOfTrailingZeros(mask)];
+        int max = LADDER[63 - Long.numberOfLeadingZeros(mask)];
+        return policy.offerForMask(
+                mask, 25, n, sum, sumSq, min, max, 25 - n, OfferPolicy.NO_LAST_OFFER);
+    }
+
+    private static int nextClosed(deal.core.GameState s) {
+        for (int id = 1; ; id++) if (id != s.playerCaseId() && !s.isOpened(id)) return id;
+    }
+}
@@ -1,7 +1,15 @@
 package deal.core.offer;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.MutableGame;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
@@ -69,4 +77,147 @@ final class LegacyOfferPolicyTest {
         int offer = policy.offer(ctx);
         assertTrue(offer >= 100 && offer <= 1_000_000, "offer within min/max");
     }
+
+    @Test
+    void aggregateContext_matchesListContext() {
+        var policy = LegacyOfferPolicy.DEFAULT;
+        var amounts = L25.subList(3, 17);
+        long sum = 0, sumSq = 0;
+        for (int a : amounts) {
+            sum += a;
+            sumSq += (long) a * a;
+        }
+        var fromList = new OfferPolicy.Context(25, amounts, 11, null);
+        var fromAggregates =
+                OfferPolicy.Context.ofAggregates(
+                        25, amounts.size(), sum, sumSq, 25, 25_000, 11, null);
+
+        assertEquals(policy.offer(fromList), policy.offer(fromAggregates));
+        assertEquals(fromList.variance(), fromAggregates.variance(), 0.0);
+    }
+
+    @Test
+    void primitiveOverloads_matchContext_withoutTouchingInput() {
+        var policy = LegacyOfferPolicy.DEFAULT;
+        for (int from = 0; from < 20; from += 3) {
+            var amounts = L25.subList(from, L25.size());
+            int opened = 25 - amounts.size();
+            int expected = policy.offer(new OfferPolicy.Context(25, amounts, opened, 5_000));
+
+            // unsorted, with trailing junk beyond len
+            int[] arr = new int[amounts.size() + 2];
+            for (int i = 0; i < amounts.size(); i++) arr[i] = amounts.get(amounts.size() - 1 - i);
+            arr[arr.length - 2] = 999_999_999;
+            arr[arr.length - 1] = -7;
+            int[] copy = arr.clone();
+
+            assertEquals(expected, policy.offer(arr, amounts.size(), 25, opened, 5_000));
+            assertEquals(
+                    expected,
+                    policy.offer(arr, amounts.size(), 25, opened, OfferPolicy.NO_LAST_OFFER));
+            assertArrayEquals(copy, arr);
+        }
+    }
+
+    @Test
+    void primitiveOverloads_validateLikeContext() {
+        var policy = LegacyOfferPolicy.DEFAULT;
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offer(new int[] {1, 2}, 0, 25, 0, OfferPolicy.NO_LAST_OFFER));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offer(new int[] {1, 2}, 2, 26, 0, OfferPolicy.NO_LAST_OFFER));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offer(25, 2, 3L, 5L, 2, 1, 23, OfferPolicy.NO_LAST_OFFER));
+    }
+
+    @Test
+    void defaultPrimitiveOverload_adaptsToContext() {
+        OfferPolicy half = ctx -> (int) (ctx.mean() / 2);
+        assertEquals(50, half.offer(new int[] {40, 160}, 2, 10, 8, OfferPolicy.NO_LAST_OFFER));
+    }
+
+    @Test
+    void contextOnlyPolicy_getsTheRemainingAmounts_fromTheEngines() {
+        OfferPolicy halfMax = ctx -> Collections.max(ctx.remainingAmounts) / 2;
+        var cfg = GameConfig.of(10);
+        var engine = new Engine(cfg, 7L, halfMax);
+        GameState s = engine.pickPlayerCase(engine.start(), 1);
+        s = engine.chooseToOpen(s, 2);
+        s = engine.openCase(engine.openCase(s, 2), 3);
+        s = engine.computeOffer(s);
+        assertEquals(s.remainingMax() / 2, (int) s.currentOfferDollars());
+        assertEquals((int) Collections.max(s.remainingAmounts()), s.remainingMax());
+
+        var game = new MutableGame(cfg, halfMax);
+        game.reset(7L);
+        game.pickPlayerCase(1);
+        game.chooseToOpen(2);
+        game.openCase(2);
+        game.openCase(3);
+        assertEquals((int) s.currentOfferDollars(), game.computeOffer());
+    }
+
+    @Test
+    void contextOnlyPolicy_getsTheRemainingAmounts_inBatches() {
+        OfferPolicy halfMax = ctx -> Collections.max(ctx.remainingAmounts) / 2;
+        int[] ladder = {1, 10, 100, 1_000};
+        int[] byMask = new int[2];
+        halfMax.offerBatch(ladder, new long[] {0b0011L, 0b1010L}, 2, 4, byMask);
+        assertArrayEquals(new int[] {5, 500}, byMask);
+
+        int[] byOffsets = new int[2];
+        halfMax.offerBatch(new int[] {1, 10, 10, 1_000}, new int[] {0, 2, 4}, 2, 4, byOffsets);
+        assertArrayEquals(new int[] {5, 500}, byOffsets);
+        assertEquals(50, halfMax.offer(new int[] {100, 1}, 2, 4, 2, OfferPolicy.NO_LAST_OFFER));
+    }
+
+    @Test
+    void offerBatch_matchesSingleOffers_inBothLayouts() {
+        int[] ladder = L25.stream().mapToInt(Integer::intValue).toArray();
+        var rng = new java.util.Random(3);
+        int count = 500;
+        long[] masks = new long[count];
+        int[] offsets = new int[count + 1];
+        int[] flat = new int[count * ladder.length];
+        for (int i = 0; i < count; i++) {
+            masks[i] = 1L + rng.nextInt((1 << ladder.length) - 1);
+            offsets[i + 1] = offsets[i];
+            for (int k = 0; k < ladder.length; k++) {
+                if ((masks[i] & (1L << k)) != 0) flat[offsets[i + 1]++] = ladder[k];
+            }
+        }
+
+        OfferPolicy lambda = ctx -> (int) Math.round(ctx.mean() * 0.5 + ctx.maxRemaining * 0.1);
+        for (OfferPolicy policy : List.of(LegacyOfferPolicy.DEFAULT, lambda)) {
+            int[] byMask = new int[count];
+            int[] byOffsets = new int[count];
+            policy.offerBatch(ladder, masks, count, 25, byMask);
+            policy.offerBatch(flat, offsets, count, 25, byOffsets);
+            for (int i = 0; i < count; i++) {
+                int len = offsets[i + 1] - offsets[i];
+                int[] set = java.util.Arrays.copyOfRange(flat, offsets[i], offsets[i + 1]);
+                int single = policy.offer(set, len, 25, 25 - len, OfferPolicy.NO_LAST_OFFER);
+                assertEquals(single, byMask[i], "mask " + masks[i]);
+                assertEquals(single, byOffsets[i], "set " + i);
+            }
+        }
+    }
+
+    @Test
+    void offerBatch_rejectsBadInput() {
+        int[] ladder = {1, 10, 100};
+        var policy = LegacyOfferPolicy.DEFAULT;
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offerBatch(ladder, new long[] {0b1000L}, 1, 3, new int[1]));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offerBatch(ladder, new long[] {0b11L}, 2, 3, new int[2]));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> policy.offerBatch(ladder, new int[] {0, 2, 2}, 2, 3, new int[2]));
+    }
 }
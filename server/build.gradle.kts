@@ -0,0 +1,18 @@
+plugins { id("application") }
+java { toolchain { languageVersion.set(JavaLanguageVersion.of(17)) } }
+dependencies {
+    implementation(project(":core"))
+
+    testImplementation(platform("org.junit:junit-bom:5.11.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    testImplementation("org.assertj:assertj-core:3.26.3")
+}
+application {
+    mainClass.set("deal.server.ServerMain")
+    // Small JSON replies on keep-alive connections: without TCP_NODELAY, Nagle and delayed ACKs
+    // add tens of milliseconds to every response.
+    applicationDefaultJvmArgs = listOf("-Dsun.net.httpserver.nodelay=true")
+}
+tasks.test { systemProperty("sun.net.httpserver.nodelay", "true") }
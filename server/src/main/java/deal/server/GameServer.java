@@ -0,0 +1,443 @@
+package deal.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import deal.core.EngineMetrics;
+import deal.core.LatencyHistogram;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays {@link deal.core.Engine} games over HTTP for many players at once, on the JDK's built-in
+ * {@link HttpServer}. Every request is handled on its own virtual thread when the JDK has them
+ * (21+), otherwise on a fixed pool; handlers never block on anything but their own socket.
+ *
+ * <p>Routes (parameters in the query string, replies are JSON game states):
+ *
+ * <pre>
+ * POST   /games?cases=N                 deal a new game (201)
+ * GET    /games/{id}                    current state
+ * DELETE /games/{id}                    forget the game (204)
+ * POST   /games/{id}/pick?case=N        pickPlayerCase
+ * POST   /games/{id}/choose?count=K     chooseToOpen
+ * POST   /games/{id}/open?case=N        openCase
+ * POST   /games/{id}/offer              computeOffer
+ * POST   /games/{id}/accept             acceptDeal
+ * POST   /games/{id}/decline            declineDeal
+ * POST   /games/{id}/counter?amount=N   proposeCounter
+ * POST   /games/{id}/resolve            resolveCounter
+ * POST   /games/{id}/reveal?swap=B      revealFinal
+ * GET    /stats                         sessions, request latency, engine metrics (text)
+ * </pre>
+ *
+ * Engine rejections map to 400 (bad argument) and 409 (wrong phase, or another action on the
+ * same game won the race); unknown games and routes are 404. Games live in a {@link SessionStore}
+ * capped at {@code maxSessions} with an idle TTL; one scheduled thread turns its timing wheel.
+ *
+ * <p>Given a log directory, every deal and action is in the {@link SessionLog} before its reply
+ * is sent (503 if the log cannot take it), a snapshot bounds the log every {@link
+ * #SNAPSHOT_INTERVAL}, and a server started on the same directory replays the games that were
+ * live when the last one stopped or crashed.
+ */
+public final class GameServer implements AutoCloseable {
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(30);
+    public static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(1);
+
+    /** Record code of each action route. */
+    private static final Map<String, Integer> ACTIONS =
+            Map.of(
+                    "pick", SessionLogFormat.PICK,
+                    "choose", SessionLogFormat.CHOOSE,
+                    "open", SessionLogFormat.OPEN,
+                    "offer", SessionLogFormat.OFFER,
+                    "accept", SessionLogFormat.ACCEPT,
+                    "decline", SessionLogFormat.DECLINE,
+                    "counter", SessionLogFormat.COUNTER,
+                    "resolve", SessionLogFormat.RESOLVE,
+                    "reveal", SessionLogFormat.REVEAL);
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService expiry;
+    private final boolean virtualThreads;
+    private final Sessions sessions;
+    private final SessionLog log; // null: not persisted
+    private final int threads;
+    private final int recovered;
+    private final int rejected;
+    private final EngineMetrics metrics; // null: not measured
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /** Server with the default session cap and idle TTL. */
+    public GameServer(
+            InetSocketAddress address,
+            int backlog,
+            int fallbackThreads,
+            OfferPolicy banker,
+            EngineMetrics metrics)
+            throws IOException {
+        this(
+                address,
+                backlog,
+                fallbackThreads,
+                banker,
+                metrics,
+                DEFAULT_MAX_SESSIONS,
+                DEFAULT_IDLE_TTL,
+                null);
+    }
+
+    /**
+     * Bind to {@code address} (port 0 picks a free one); call {@link #start}. {@code
+     * fallbackThreads} sizes the pool used when virtual threads are unavailable; {@code metrics}
+     * may be null. At most {@code maxSessions} games are kept, each until it sits {@code
+     * idleTtl} without a request. With a {@code logDir} (null: games are lost on exit) the games
+     * logged there are recovered first, on {@code fallbackThreads} threads.
+     */
+    public GameServer(
+            InetSocketAddress address,
+            int backlog,
+            int fallbackThreads,
+            OfferPolicy banker,
+            EngineMetrics metrics,
+            int maxSessions,
+            Duration idleTtl,
+            Path logDir)
+            throws IOException {
+        if (banker == null) throw new IllegalArgumentException("banker must not be null");
+        if (fallbackThreads < 1) throw new IllegalArgumentException("fallbackThreads must be >= 1");
+        this.threads = fallbackThreads;
+        this.log = logDir == null ? null : SessionLog.open(logDir);
+        try {
+            this.sessions = new Sessions(banker, metrics, maxSessions, idleTtl, log);
+            if (log != null) {
+                var games = SessionLog.read(logDir, log.segment() - 1, threads);
+                this.rejected = sessions.recover(games.values(), threads);
+                this.recovered = games.size() - rejected;
+            } else {
+                this.rejected = 0;
+                this.recovered = 0;
+            }
+            this.http = HttpServer.create(address, backlog);
+        } catch (IOException | RuntimeException e) {
+            if (log != null) {
+                try {
+                    log.close(); // stops its flusher thread
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        this.metrics = metrics;
+        ExecutorService virtual = virtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : fixedPool(fallbackThreads);
+        http.setExecutor(executor);
+        http.createContext("/games", this::games);
+        http.createContext("/stats", this::stats);
+        this.expiry =
+                Executors.newScheduledThreadPool(
+                        2,
+                        r -> {
+                            Thread t = new Thread(r, "deal-session-expiry");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /** Server with the given session cap and idle TTL and no log. */
+    public GameServer(
+            InetSocketAddress address,
+            int backlog,
+            int fallbackThreads,
+            OfferPolicy banker,
+            EngineMetrics metrics,
+            int maxSessions,
+            Duration idleTtl)
+            throws IOException {
+        this(address, backlog, fallbackThreads, banker, metrics, maxSessions, idleTtl, null);
+    }
+
+    public GameServer start() {
+        http.start();
+        long tick = SessionStore.DEFAULT_TICK.toNanos();
+        expiry.scheduleWithFixedDelay(sessions.store()::expire, tick, tick, TimeUnit.NANOSECONDS);
+        if (log != null) {
+            long every = SNAPSHOT_INTERVAL.toNanos();
+            expiry.scheduleWithFixedDelay(this::snapshot, every, every, TimeUnit.NANOSECONDS);
+        }
+        return this;
+    }
+
+    private void snapshot() {
+        try {
+            log.snapshot(threads);
+        } catch (IOException e) {
+            // the log keeps growing until the next attempt; appends report a broken log
+        }
+    }
+
+    /** The bound port. */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /** True when requests run on virtual threads, false on the fallback pool. */
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /** Number of live games. */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /** Hits, misses, evictions and expirations of the session store. */
+    public SessionStore.Stats sessionStats() {
+        return sessions.store().stats();
+    }
+
+    /** Games replayed from the log at startup. */
+    public int recoveredSessions() {
+        return recovered;
+    }
+
+    /** Logged games the engine rejected on replay, and so dropped, at startup. */
+    public int rejectedSessions() {
+        return rejected;
+    }
+
+    /** Request handling latency, from routing to the reply being written. */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    /**
+     * Stop accepting, give in-flight requests up to a second, then stop the executor and commit
+     * what is left of the log.
+     */
+    @Override
+    public void close() {
+        http.stop(1);
+        expiry.shutdownNow();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                // nothing left to report it to; recovery stops at what reached the disk
+            }
+        }
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} when this JDK has it (looked up
+     * reflectively: the code targets 17), else null.
+     */
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // 17, or 19/20 without --enable-preview
+        }
+    }
+
+    private static ExecutorService fixedPool(int threads) {
+        var n = new AtomicInteger();
+        return Executors.newFixedThreadPool(
+                threads,
+                r -> {
+                    Thread t = new Thread(r, "deal-http-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    // ---- handlers ----
+
+    private void games(HttpExchange ex) throws IOException {
+        long t0 = System.nanoTime();
+        try (ex) {
+            route(ex);
+        } finally {
+            latency.record(System.nanoTime() - t0);
+        }
+    }
+
+    private void route(HttpExchange ex) throws IOException {
+        String method = ex.getRequestMethod();
+        URI uri = ex.getRequestURI();
+        String[] parts = uri.getPath().split("/"); // "", "games", id, action
+        if (parts.length > 4 || !parts[1].equals("games")) {
+            send(ex, 404, JSON, StateJson.error("No such route: " + uri.getPath()));
+            return;
+        }
+        String query = uri.getRawQuery();
+        try {
+            if (parts.length <= 2) {
+                if (!method.equals("POST")) {
+                    send(ex, 405, JSON, StateJson.error("Use POST to deal a game"));
+                    return;
+                }
+                Session s = sessions.create(intParam(query, "cases", 25));
+                send(ex, 201, JSON, StateJson.encode(s.id(), s.state()));
+                return;
+            }
+            Session session = sessions.get(parts[2]);
+            if (session == null) {
+                send(ex, 404, JSON, StateJson.error("No such game: " + parts[2]));
+                return;
+            }
+            if (parts.length == 3) {
+                switch (method) {
+                    case "GET" -> send(ex, 200, JSON, StateJson.encode(parts[2], session.state()));
+                    case "DELETE" -> {
+                        sessions.remove(session.id());
+                        send(ex, 204, JSON, null);
+                    }
+                    default -> send(ex, 405, JSON, StateJson.error("Use GET or DELETE"));
+                }
+                return;
+            }
+            if (!method.equals("POST")) {
+                send(ex, 405, JSON, StateJson.error("Actions are POSTed"));
+                return;
+            }
+            Integer code = ACTIONS.get(parts[3]);
+            if (code == null) {
+                send(ex, 404, JSON, StateJson.error("No such action: " + parts[3]));
+                return;
+            }
+            var next = session.apply(code, argument(code, query));
+            send(ex, 200, JSON, StateJson.encode(session.id(), next));
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            send(ex, 400, JSON, StateJson.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            send(ex, 409, JSON, StateJson.error(e.getMessage()));
+        } catch (IOException e) { // from the log; a broken exchange fails this send as well
+            send(ex, 503, JSON, StateJson.error("Game not saved: " + e.getMessage()));
+        }
+    }
+
+    /** The query parameter the action with record {@code code} takes, 0 if none. */
+    private static int argument(int code, String query) {
+        return switch (code) {
+            case SessionLogFormat.PICK, SessionLogFormat.OPEN -> intParam(query, "case", -1);
+            case SessionLogFormat.CHOOSE -> intParam(query, "count", -1);
+            case SessionLogFormat.COUNTER -> intParam(query, "amount", -1);
+            case SessionLogFormat.REVEAL -> boolParam(query, "swap") ? 1 : 0;
+            default -> 0;
+        };
+    }
+
+    private void stats(HttpExchange ex) throws IOException {
+        try (ex) {
+            var st = sessions.store().stats();
+            var out = new StringBuilder();
+            out.append(
+                    String.format(
+                            Locale.US,
+                            "sessions=%d/%d threads=%s%n"
+                                    + "lookups: hits=%d misses=%d evictions=%d expirations=%d%n"
+                                    + "requests=%d latency p50=%dus p99=%dus max=%dus%n",
+                            sessions.size(),
+                            sessions.store().maxEntries(),
+                            virtualThreads ? "virtual" : "pool",
+                            st.hits(),
+                            st.misses(),
+                            st.evictions(),
+                            st.expirations(),
+                            latency.count(),
+                            latency.percentile(50) / 1_000,
+                            latency.percentile(99) / 1_000,
+                            latency.max() / 1_000));
+            if (log != null) {
+                var ls = log.stats();
+                out.append(
+                        String.format(
+                                Locale.US,
+                                "log: records=%d commits=%d records/commit=%.1f bytes=%d"
+                                        + " recovered=%d rejected=%d%n",
+                                ls.records(),
+                                ls.commits(),
+                                ls.recordsPerCommit(),
+                                ls.bytes(),
+                                recovered,
+                                rejected));
+            }
+            if (metrics != null) out.append(metrics.snapshot());
+            send(ex, 200, TEXT, out.toString());
+        }
+    }
+
+    // ---- plumbing ----
+
+    private static void send(HttpExchange ex, int status, String type, String body)
+            throws IOException {
+        if (body == null) {
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", type);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /** Value of {@code name} in a raw query string, or null. */
+    static String param(String query, String name) {
+        if (query == null) return null;
+        for (int at = 0; at < query.length(); ) {
+            int end = query.indexOf('&', at);
+            if (end < 0) end = query.length();
+            int eq = query.indexOf('=', at);
+            if (eq - at == name.length() && eq < end && query.startsWith(name, at)) {
+                return query.substring(eq + 1, end);
+            }
+            at = end + 1;
+        }
+        return null;
+    }
+
+    private static int intParam(String query, String name, int absent) {
+        String v = param(query, name);
+        if (v == null) {
+            if (absent >= 0) return absent;
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return Integer.parseInt(v);
+    }
+
+    private static boolean boolParam(String query, String name) {
+        String v = param(query, name);
+        if (v == null || v.equals("false")) return false;
+        if (v.equals("true")) return true;
+        throw new IllegalArgumentException(name + " must be true or false, got " + v);
+    }
+}
@@ -0,0 +1,108 @@
+package deal.server;
+
+import deal.core.EngineMetrics;
+import deal.core.offer.CachingOfferPolicy;
+import deal.core.offer.LegacyOfferPolicy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+/** Game server CLI: serves {@link GameServer} until the process is stopped. */
+public final class ServerMain {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = "0.0.0.0";
+        int port = 8080;
+        int backlog = 1024;
+        int threads = 2 * Runtime.getRuntime().availableProcessors();
+        int maxSessions = GameServer.DEFAULT_MAX_SESSIONS;
+        long idleSeconds = GameServer.DEFAULT_IDLE_TTL.toSeconds();
+        Path logDir = null;
+        boolean withMetrics = false;
+        try {
+            for (String a : args) {
+                if (a.equals("--help") || a.equals("-h")) {
+                    System.out.println(usage());
+                    return;
+                } else if (a.startsWith("--host=")) {
+                    host = a.substring("--host=".length());
+                } else if (a.startsWith("--port=")) {
+                    port = Integer.parseInt(a.substring("--port=".length()));
+                } else if (a.startsWith("--backlog=")) {
+                    backlog = Integer.parseInt(a.substring("--backlog=".length()));
+                } else if (a.startsWith("--threads=")) {
+                    threads = Integer.parseInt(a.substring("--threads=".length()));
+                } else if (a.startsWith("--max-sessions=")) {
+                    maxSessions = Integer.parseInt(a.substring("--max-sessions=".length()));
+                } else if (a.startsWith("--idle-ttl=")) {
+                    idleSeconds = Long.parseLong(a.substring("--idle-ttl=".length()));
+                } else if (a.startsWith("--log-dir=")) {
+                    logDir = Path.of(a.substring("--log-dir=".length()));
+                } else if (a.equals("--metrics")) {
+                    withMetrics = true;
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + a);
+                }
+            }
+            if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+            if (maxSessions < 1) throw new IllegalArgumentException("max-sessions must be >= 1");
+            if (idleSeconds < 1) throw new IllegalArgumentException("idle-ttl must be >= 1");
+        } catch (IllegalArgumentException ex) { // includes NumberFormatException
+            System.err.println(ex.getMessage());
+            System.err.println();
+            System.err.println(usage());
+            System.exit(2);
+            return;
+        }
+
+        // Every session of one case count shares the ladder, so one memo serves all players.
+        var banker = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 1 << 20);
+        EngineMetrics metrics = withMetrics ? new EngineMetrics() : null;
+        if (metrics != null) metrics.register("server");
+        var address = new InetSocketAddress(host, port);
+        var idleTtl = Duration.ofSeconds(idleSeconds);
+        var server =
+                new GameServer(
+                                address,
+                                backlog,
+                                threads,
+                                banker,
+                                metrics,
+                                maxSessions,
+                                idleTtl,
+                                logDir)
+                        .start();
+        if (logDir != null) {
+            System.out.printf(
+                    "Recovered %d games from %s (%d rejected)%n",
+                    server.recoveredSessions(), logDir, server.rejectedSessions());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "deal-http-shutdown"));
+        System.out.printf(
+                "Serving on %s:%d (%s)%n",
+                host,
+                server.port(),
+                server.virtualThreads() ? "virtual threads" : threads + " threads");
+        new CountDownLatch(1).await(); // until the process is stopped
+    }
+
+    static String usage() {
+        return String.join(
+                System.lineSeparator(),
+                "Deal or No Deal game server",
+                "Usage:",
+                "  --host=<addr>    Address to bind (default: 0.0.0.0).",
+                "  --port=<N>       Port; 0 picks a free one (default: 8080).",
+                "  --backlog=<N>    Pending connection queue (default: 1024).",
+                "  --threads=<N>    Request threads when the JDK has no virtual threads"
+                        + " (default: 2 x processors).",
+                "  --max-sessions=<N>  Games kept at once; the least recently played goes first"
+                        + " (default: 100000).",
+                "  --idle-ttl=<s>   Seconds a game is kept without a request (default: 1800).",
+                "  --log-dir=<path> Log games there and recover them on restart (default: none).",
+                "  --metrics        Measure the engines (also over JMX); see GET /stats.",
+                "  --help | -h      Show this help.");
+    }
+}
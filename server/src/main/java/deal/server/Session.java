@@ -0,0 +1,101 @@
+package deal.server;
+
+import static deal.server.SessionLogFormat.*;
+
+import deal.core.Engine;
+import deal.core.GameState;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * One player's game: the engine that dealt it and the current immutable {@link GameState}. An
+ * action claims the session with a compare-and-set on a busy flag (no lock is held, so nothing
+ * pins a virtual thread), computes the next state, appends its record to the {@link SessionLog}
+ * if there is one and publishes the state once the record is durable, so nobody sees a move the
+ * log could still lose. A second action arriving meanwhile does not wait: it gets {@link
+ * IllegalStateException}, which the server reports as a conflict. Claiming keeps a session's
+ * records in the order its states were built; the claim is per session, so a player only ever
+ * waits for the fsync of their own move, which group commit shares with everyone else's.
+ */
+final class Session {
+    private final long key;
+    private final String id;
+    private final long seed;
+    private final Engine engine;
+    private final SessionLog log; // null: not persisted
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private volatile GameState state;
+
+    Session(long key, long seed, Engine engine, GameState state, SessionLog log) {
+        this.key = key;
+        this.id = idOf(key);
+        this.seed = seed;
+        this.engine = engine;
+        this.state = state;
+        this.log = log;
+    }
+
+    /** 16 hex digits. */
+    static String idOf(long key) {
+        String hex = Long.toHexString(key);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    long key() {
+        return key;
+    }
+
+    String id() {
+        return id;
+    }
+
+    /** Seed of the deal; never sent to the player, who could otherwise read the board. */
+    long seed() {
+        return seed;
+    }
+
+    Engine engine() {
+        return engine;
+    }
+
+    GameState state() {
+        return state;
+    }
+
+    /** Apply the action with record {@code code} and argument {@code arg}, durably if logged. */
+    GameState apply(int code, int arg) throws IOException {
+        return apply(s -> replay(engine, s, code, arg), code, arg);
+    }
+
+    /** {@link #apply(int, int)} with the transition given separately; engine exceptions pass. */
+    GameState apply(UnaryOperator<GameState> action, int code, int arg) throws IOException {
+        if (!busy.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another action on game " + id + " is in progress");
+        }
+        try {
+            GameState next = action.apply(state);
+            if (log != null) log.awaitDurable(log.action(key, code, arg));
+            state = next; // a failed commit leaves the game where the log has it
+            return next;
+        } finally {
+            busy.set(false);
+        }
+    }
+
+    /** The engine call behind a log record. */
+    static GameState replay(Engine e, GameState s, int code, int arg) {
+        return switch (code) {
+            case PICK -> e.pickPlayerCase(s, arg);
+            case CHOOSE -> e.chooseToOpen(s, arg);
+            case OPEN -> e.openCase(s, arg);
+            case OFFER -> e.computeOffer(s);
+            case ACCEPT -> e.acceptDeal(s);
+            case DECLINE -> e.declineDeal(s);
+            case COUNTER -> e.proposeCounter(s, arg);
+            case RESOLVE -> e.resolveCounter(s);
+            case REVEAL -> e.revealFinal(s, arg != 0);
+            default -> throw new IllegalArgumentException("Not an action code: " + code);
+        };
+    }
+}
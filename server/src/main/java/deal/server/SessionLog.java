@@ -0,0 +1,422 @@
+package deal.server;
+
+import static deal.server.SessionLogFormat.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log of session transitions (see {@link SessionLogFormat}) with group commit.
+ * Appending only encodes the record into a shared buffer under a short lock and returns its
+ * sequence number; one flusher thread swaps the buffer out, writes it and forces it to disk, then
+ * wakes everyone whose record was in that batch. While one {@code force} runs, the next batch
+ * fills, so under load many players share each fsync and a click costs one fsync's latency, not
+ * one fsync.
+ *
+ * <p>{@link #snapshot} seals the current segment and compacts everything up to it into a snapshot
+ * of the sessions still live, so recovery reads the snapshot and the segments after it, however
+ * long the server has been up. {@link #read} does that on a pool: files are parsed in parallel
+ * and folded in order.
+ */
+final class SessionLog implements AutoCloseable {
+    /** Records, forced batches and bytes written since opening. */
+    record Stats(long records, long commits, long bytes) {
+        /** Records per fsync, 0.0 before the first. */
+        double recordsPerCommit() {
+            return commits == 0 ? 0.0 : records / (double) commits;
+        }
+    }
+
+    /** The live part of a session's history: its deal and the actions applied to it. */
+    static final class Game {
+        final long session;
+        final int cases;
+        final long seed;
+        int actions;
+        byte[] codes = new byte[16];
+        int[] args = new int[16];
+
+        Game(long session, int cases, long seed) {
+            this.session = session;
+            this.cases = cases;
+            this.seed = seed;
+        }
+
+        void add(int code, int arg) {
+            if (actions == codes.length) {
+                codes = Arrays.copyOf(codes, 2 * actions);
+                args = Arrays.copyOf(args, 2 * actions);
+            }
+            codes[actions] = (byte) code;
+            args[actions] = arg;
+            actions++;
+        }
+    }
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    private static final Pattern FILE_NAME =
+            Pattern.compile("segment-\\d{16}\\.wal|snapshot-\\d{16}\\.snap");
+
+    private final Path dir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition(); // flusher: records or a rotation pending
+    private final Condition committed = lock.newCondition(); // appenders: batch forced
+    private final ReentrantLock compacting = new ReentrantLock();
+    private final Thread flusher;
+
+    // guarded by lock
+    private ByteBuffer filling = ByteBuffer.allocate(INITIAL_BUFFER);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER);
+    private long appended;
+    private long durable;
+    private long commits;
+    private long bytes;
+    private boolean rotateRequested;
+    private long sealed; // last segment closed for good
+    private IOException failure;
+    private boolean closed;
+
+    // flusher thread only
+    private FileChannel channel;
+    private long segment;
+
+    private SessionLog(Path dir, long segment) throws IOException {
+        this.dir = dir;
+        this.segment = segment;
+        this.sealed = segment - 1;
+        this.channel = create(segmentPath(segment));
+        syncDirectory(dir);
+        this.flusher = new Thread(this::flushLoop, "deal-session-log");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Start a new segment in {@code dir} (created if missing) after every existing one; {@link
+     * #read} the older ones first to recover their sessions.
+     */
+    static SessionLog open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) { // left by a compaction that did not finish
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(".tmp")) Files.delete(p);
+            }
+        }
+        long last = 0L;
+        for (Path p : list(dir)) last = Math.max(last, numberOf(p));
+        return new SessionLog(dir, last + 1);
+    }
+
+    /** The segment this log appends to; {@link #read} everything before it. */
+    long segment() {
+        lock.lock();
+        try {
+            return sealed + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long begin(long session, int cases, long seed) throws IOException {
+        return append(session, BEGIN, cases, seed);
+    }
+
+    long action(long session, int code, int arg) throws IOException {
+        if (code == BEGIN || code == END) throw new IllegalArgumentException("Not an action");
+        return append(session, code, arg, 0L);
+    }
+
+    long end(long session) throws IOException {
+        return append(session, END, 0, 0L);
+    }
+
+    private long append(long session, int code, int arg, long seed) throws IOException {
+        lock.lock();
+        try {
+            if (failure != null) throw new IOException("Session log failed", failure);
+            if (closed) throw new IOException("Session log closed");
+            if (filling.remaining() < MAX_RECORD) {
+                var bigger = ByteBuffer.allocate(2 * filling.capacity());
+                filling = bigger.put(filling.flip());
+            }
+            encode(filling, session, code, arg, seed);
+            if (filling.position() <= MAX_RECORD) work.signal(); // first of a batch
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Block until record {@code seq} is on disk. */
+    void awaitDurable(long seq) throws IOException {
+        lock.lock();
+        try {
+            while (durable < seq && failure == null) committed.awaitUninterruptibly();
+            if (durable < seq) throw new IOException("Session log failed", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(durable, commits, bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long upTo;
+            boolean rotate;
+            lock.lock();
+            try {
+                while (filling.position() == 0 && !rotateRequested && !closed) {
+                    work.awaitUninterruptibly();
+                }
+                if (filling.position() == 0 && !rotateRequested) return; // closed and drained
+                batch = filling;
+                filling = spare;
+                spare = batch;
+                upTo = appended;
+                rotate = rotateRequested;
+                rotateRequested = false;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                int n = batch.flip().remaining();
+                while (batch.hasRemaining()) channel.write(batch);
+                batch.clear();
+                if (n > 0) channel.force(false);
+                if (rotate) {
+                    channel.close();
+                    channel = create(segmentPath(++segment));
+                    syncDirectory(dir);
+                }
+                lock.lock();
+                try {
+                    durable = upTo;
+                    bytes += n;
+                    if (n > 0) commits++;
+                    if (rotate) sealed = segment - 1;
+                    committed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    committed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Seal the current segment, then replace it and everything before it by one snapshot of the
+     * sessions still live. Appends go on meanwhile, into the next segment.
+     */
+    void snapshot(int threads) throws IOException {
+        long upTo;
+        lock.lock();
+        try {
+            if (failure != null) throw new IOException("Session log failed", failure);
+            if (closed) throw new IOException("Session log closed");
+            long before = sealed;
+            rotateRequested = true;
+            work.signal();
+            while (sealed == before && failure == null) committed.awaitUninterruptibly();
+            if (sealed == before) throw new IOException("Session log failed", failure);
+            upTo = sealed;
+        } finally {
+            lock.unlock();
+        }
+        compacting.lock();
+        try {
+            compact(dir, upTo, threads);
+        } finally {
+            compacting.unlock();
+        }
+    }
+
+    private static void compact(Path dir, long upTo, int threads) throws IOException {
+        Map<Long, Game> live = read(dir, upTo, threads);
+        var buf = ByteBuffer.allocate(INITIAL_BUFFER);
+        Path tmp = dir.resolve(String.format("snapshot-%016d.tmp", upTo));
+        try (FileChannel out = create(tmp)) {
+            for (Game g : live.values()) {
+                buf = room(buf, out, MAX_RECORD);
+                encode(buf, g.session, BEGIN, g.cases, g.seed);
+                for (int i = 0; i < g.actions; i++) {
+                    buf = room(buf, out, MAX_RECORD);
+                    encode(buf, g.session, g.codes[i], g.args[i], 0L);
+                }
+            }
+            buf.flip();
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(false);
+        }
+        Files.move(tmp, snapshotPath(dir, upTo), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(dir); // the rename must be durable before what it replaces goes
+        for (Path p : list(dir)) {
+            if (numberOf(p) <= upTo && !p.equals(snapshotPath(dir, upTo))) Files.delete(p);
+        }
+    }
+
+    /** {@code buf} with room for {@code needed} more bytes, writing it out when full. */
+    private static ByteBuffer room(ByteBuffer buf, FileChannel out, int needed)
+            throws IOException {
+        if (buf.remaining() >= needed) return buf;
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+        return buf.clear();
+    }
+
+    /**
+     * The sessions live at the end of segment {@code upTo}: the newest snapshot at or below it,
+     * then the segments after that, parsed on {@code threads} threads and folded in order. A
+     * session's history ends at its END record; records of unknown sessions are ignored.
+     */
+    static Map<Long, Game> read(Path dir, long upTo, int threads) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            long base = 0L;
+            for (Path p : list(dir)) {
+                if (isSnapshot(p) && numberOf(p) <= upTo) base = Math.max(base, numberOf(p));
+            }
+            if (base > 0) files.add(snapshotPath(dir, base));
+            for (Path p : list(dir)) {
+                long n = numberOf(p);
+                if (!isSnapshot(p) && n > base && n <= upTo) files.add(p);
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ByteBuffer>> parts = new ArrayList<>(files.size());
+            for (Path p : files) parts.add(pool.submit(() -> records(p)));
+            Map<Long, Game> live = new LinkedHashMap<>();
+            var r = new SessionLogFormat.Record();
+            for (Future<ByteBuffer> f : parts) {
+                ByteBuffer in = f.get();
+                while (r.read(in)) {
+                    if (r.code == BEGIN) {
+                        live.put(r.session, new Game(r.session, r.arg, r.seed));
+                    } else if (r.code == END) {
+                        live.remove(r.session);
+                    } else {
+                        Game g = live.get(r.session);
+                        if (g != null) g.add(r.code, r.arg);
+                    }
+                }
+            }
+            return live;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + dir, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Reading failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** The records of one file, positioned after the header; parsing stops at a torn tail. */
+    private static ByteBuffer records(Path p) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(p));
+        if (in.remaining() < HEADER_BYTES) return in.position(in.limit()); // torn at birth
+        if (in.getInt() != MAGIC) throw new IOException(p + ": not a session log");
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException(p + ": unsupported version " + version);
+        return in;
+    }
+
+    /** Let the flusher commit what is pending, then stop it. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static FileChannel create(Path p) throws IOException {
+        var ch = FileChannel.open(p, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ch.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+        return ch;
+    }
+
+    /** Make created, renamed and deleted entries durable, where the platform allows it. */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException unsupported) {
+            // e.g. Windows cannot open a directory; its renames are durable without this
+        }
+    }
+
+    private Path segmentPath(long n) {
+        return dir.resolve(String.format("segment-%016d.wal", n));
+    }
+
+    private static Path snapshotPath(Path dir, long n) {
+        return dir.resolve(String.format("snapshot-%016d.snap", n));
+    }
+
+    private static boolean isSnapshot(Path p) {
+        return p.getFileName().toString().startsWith("snapshot-");
+    }
+
+    /** Segments and snapshots of {@code dir}, by number. */
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long numberOf(Path p) {
+        String name = p.getFileName().toString();
+        int dash = name.indexOf('-');
+        return Long.parseLong(name.substring(dash + 1, dash + 17));
+    }
+}
@@ -0,0 +1,122 @@
+package deal.server;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the session write-ahead log, {@link SessionLog} (multi-byte fixed fields big-endian):
+ *
+ * <pre>
+ * file    := MAGIC:int VERSION:int record*
+ * record  := len:byte payload crc32c(payload):int
+ * payload := session:long BEGIN cases:byte seed:long
+ *          | session:long PICK caseId:varint | CHOOSE k:varint | OPEN caseId:varint
+ *          | session:long OFFER | ACCEPT | DECLINE | RESOLVE | END
+ *          | session:long COUNTER dollars:varint | REVEAL swap:varint
+ * </pre>
+ *
+ * One record per {@link deal.core.Engine} transition a player asked for, so replaying a session's
+ * records from its seed rebuilds its state exactly; offers are recomputed, never stored. A record
+ * is 14 to 23 bytes. A crash can tear the last record of the last segment: a bad length or
+ * checksum ends the file. Segments are {@code segment-N.wal}; {@code snapshot-N.snap} holds, in
+ * the same record format, the sessions still live after segment N and the records that built
+ * them.
+ */
+final class SessionLogFormat {
+    private SessionLogFormat() {}
+
+    static final int MAGIC = 0x444E4457; // "DNDW"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int MAX_PAYLOAD = 8 + 1 + 1 + 8;
+    static final int MAX_RECORD = 1 + MAX_PAYLOAD + 4;
+
+    // record codes; part of the file format, so only append
+    static final int BEGIN = 1;
+    static final int PICK = 2;
+    static final int CHOOSE = 3;
+    static final int OPEN = 4;
+    static final int OFFER = 5;
+    static final int ACCEPT = 6;
+    static final int DECLINE = 7;
+    static final int COUNTER = 8;
+    static final int RESOLVE = 9;
+    static final int REVEAL = 10;
+    static final int END = 11;
+
+    /** Codes whose record carries a varint argument. */
+    static boolean hasArg(int code) {
+        return code == PICK || code == CHOOSE || code == OPEN || code == COUNTER || code == REVEAL;
+    }
+
+    /** Append one record; {@code arg} is the action's argument, or the case count of a BEGIN. */
+    static void encode(ByteBuffer out, long session, int code, int arg, long seed) {
+        int start = out.position();
+        out.put((byte) 0); // length, patched below
+        out.putLong(session);
+        out.put((byte) code);
+        if (code == BEGIN) {
+            out.put((byte) arg);
+            out.putLong(seed);
+        } else if (hasArg(code)) {
+            if (arg < 0) throw new IllegalArgumentException("Negative action argument: " + arg);
+            for (int v = arg; ; v >>>= 7) {
+                if ((v & ~0x7F) == 0) {
+                    out.put((byte) v);
+                    break;
+                }
+                out.put((byte) (v & 0x7F | 0x80));
+            }
+        }
+        int len = out.position() - start - 1;
+        out.put(start, (byte) len);
+        var crc = new CRC32C();
+        crc.update(out.array(), out.arrayOffset() + start + 1, len);
+        out.putInt((int) crc.getValue());
+    }
+
+    /** The session, code, argument and seed of the record at {@code in}'s position. */
+    static final class Record {
+        long session;
+        int code;
+        int arg;
+        long seed;
+
+        /**
+         * Read the next record and advance; false at the end of the data or at a torn or corrupt
+         * record, which leaves the position where that record starts.
+         */
+        boolean read(ByteBuffer in) {
+            int start = in.position();
+            if (in.remaining() < 1) return false;
+            int len = in.get(start) & 0xFF;
+            if (len < 9 || len > MAX_PAYLOAD || in.remaining() < 1 + len + 4) return false;
+            var crc = new CRC32C();
+            crc.update(in.array(), in.arrayOffset() + start + 1, len);
+            if ((int) crc.getValue() != in.getInt(start + 1 + len)) return false;
+
+            var p = in.duplicate().position(start + 1).limit(start + 1 + len);
+            session = p.getLong();
+            code = p.get() & 0xFF;
+            arg = 0;
+            seed = 0L;
+            if (code == BEGIN) {
+                if (p.remaining() != 9) return false;
+                arg = p.get() & 0xFF;
+                seed = p.getLong();
+            } else if (hasArg(code)) {
+                for (int shift = 0; ; shift += 7) {
+                    if (!p.hasRemaining() || shift > 28) return false;
+                    int b = p.get();
+                    arg |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                if (p.hasRemaining() || arg < 0) return false;
+            } else if (code < BEGIN || code > END || p.hasRemaining()) {
+                return false;
+            }
+            in.position(start + 1 + len + 4);
+            return true;
+        }
+    }
+}
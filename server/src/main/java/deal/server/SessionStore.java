@@ -0,0 +1,364 @@
+package deal.server;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent map for parked sessions: at most {@code maxEntries} entries, each dropped
+ * once it goes {@code idleTtl} without a {@link #get}, and the least recently used dropped first
+ * when the store is full.
+ *
+ * <p>Keys hash to one of a power-of-two number of segments, each a {@link ReentrantLock} (no
+ * monitor, so virtual threads never pin) around a hash map whose nodes are also threaded on an
+ * intrusive LRU list and an intrusive hashed timing wheel. The cap is split evenly across
+ * segments and LRU order is kept per segment, as in segmented caches generally. The wheel has one
+ * slot per {@code tick} and spans more than the TTL; a node sits in the slot of the tick after
+ * its deadline. A hit only moves the deadline forward, and the node is moved to its new slot
+ * lazily, when the wheel reaches the old one. {@link #expire} turns every segment's wheel up to
+ * now, so expiring costs O(ticks elapsed + entries due), and there is never a timer per session.
+ * An expired entry that the wheel has not reached yet is still never returned.
+ *
+ * <p>{@code onDrop} hears about every entry dropped by eviction or expiry (not by {@link
+ * #remove}); it is called outside the segment locks.
+ */
+public final class SessionStore<K, V> {
+    /** Hits, misses, LRU evictions and TTL expirations since construction. */
+    public record Stats(long hits, long misses, long evictions, long expirations) {
+        public long requests() {
+            return hits + misses;
+        }
+
+        /** Hits over requests, 0.0 before the first request. */
+        public double hitRate() {
+            long n = requests();
+            return n == 0 ? 0.0 : hits / (double) n;
+        }
+    }
+
+    public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+
+    private static final int MAX_SEGMENTS = 64;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final LongSupplier clock;
+    private final long origin;
+    private final BiConsumer<K, V> onDrop; // null: nobody listens
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public SessionStore(int maxEntries, Duration idleTtl) {
+        this(maxEntries, idleTtl, DEFAULT_TICK, null);
+    }
+
+    /** Store whose expiry is accurate to one {@code tick}; {@code onDrop} may be null. */
+    public SessionStore(int maxEntries, Duration idleTtl, Duration tick, BiConsumer<K, V> onDrop) {
+        this(
+                maxEntries,
+                idleTtl.toNanos(),
+                tick.toNanos(),
+                defaultSegments(maxEntries),
+                onDrop,
+                System::nanoTime);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SessionStore(
+            int maxEntries,
+            long ttlNanos,
+            long tickNanos,
+            int segmentCount,
+            BiConsumer<K, V> onDrop,
+            LongSupplier clock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be >= 1");
+        if (tickNanos <= 0) throw new IllegalArgumentException("tick must be positive");
+        if (ttlNanos < tickNanos) throw new IllegalArgumentException("idleTtl must be >= tick");
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segments must be a power of two");
+        }
+        long ticks = ttlNanos / tickNanos + 2; // a deadline is never a full turn ahead
+        if (ticks > 1 << 20) throw new IllegalArgumentException("idleTtl / tick must be <= 2^20");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.tickNanos = tickNanos;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.onDrop = onDrop;
+        int slots = Integer.highestOneBit((int) ticks - 1) << 1;
+        int perSegment = (maxEntries + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment, slots, tickNanos);
+        }
+    }
+
+    /** Enough segments to spread the cores' traffic, but never fewer than 64 entries each. */
+    private static int defaultSegments(int maxEntries) {
+        int want = Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1;
+        int n = Math.min(MAX_SEGMENTS, want);
+        while (n > 1 && maxEntries / n < 64) n >>= 1;
+        return n;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public Duration idleTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    /** The value under {@code key}, now most recently used with a fresh TTL; null if absent. */
+    public V get(K key) {
+        long now = now();
+        Segment<K, V> seg = segmentFor(key);
+        V value;
+        Node<K, V> expired = null;
+        seg.lock();
+        try {
+            Node<K, V> n = seg.map.get(key);
+            if (n == null) {
+                value = null;
+            } else if (n.deadline <= now) {
+                seg.unlink(n);
+                expired = n;
+                value = null;
+            } else {
+                n.deadline = now + ttlNanos;
+                seg.touch(n);
+                value = n.value;
+            }
+        } finally {
+            seg.unlock();
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            if (expired != null) dropped(expired, expirations);
+        }
+        return value;
+    }
+
+    /**
+     * Add {@code value} unless {@code key} is present (and unexpired); returns the present value,
+     * or null if {@code value} went in. A full segment evicts its least recently used entry.
+     */
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null) throw new IllegalArgumentException("null key or value");
+        long now = now();
+        Segment<K, V> seg = segmentFor(key);
+        Node<K, V> expired = null;
+        Node<K, V> evicted = null;
+        seg.lock();
+        try {
+            Node<K, V> n = seg.map.get(key);
+            if (n != null) {
+                if (n.deadline > now) return n.value;
+                seg.unlink(n);
+                expired = n;
+            }
+            n = new Node<>(key, value, now + ttlNanos);
+            seg.link(n);
+            if (seg.map.size() > seg.capacity) {
+                evicted = seg.lruHead;
+                seg.unlink(evicted);
+            }
+        } finally {
+            seg.unlock();
+        }
+        if (expired != null) dropped(expired, expirations);
+        if (evicted != null) dropped(evicted, evictions);
+        return null;
+    }
+
+    /**
+     * Remove {@code key}; returns its value, or null if it was absent. An expired entry counts as
+     * absent: it is dropped as an expiration instead.
+     */
+    public V remove(K key) {
+        long now = now();
+        Segment<K, V> seg = segmentFor(key);
+        Node<K, V> n;
+        seg.lock();
+        try {
+            n = seg.map.get(key);
+            if (n == null) return null;
+            seg.unlink(n);
+        } finally {
+            seg.unlock();
+        }
+        if (n.deadline > now) return n.value;
+        dropped(n, expirations);
+        return null;
+    }
+
+    /** Entries held, including expired ones {@link #expire} has not reached yet. */
+    public int size() {
+        int total = 0;
+        for (Segment<K, V> seg : segments) total += seg.size;
+        return total;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    /**
+     * Turn every segment's wheel up to now, dropping what is due; returns how many entries went.
+     * Call it about once a tick (the server does, from one scheduled thread).
+     */
+    public int expire() {
+        long now = now();
+        long nowTick = now / tickNanos;
+        List<Node<K, V>> due = new ArrayList<>();
+        for (Segment<K, V> seg : segments) {
+            seg.lock();
+            try {
+                seg.advance(nowTick, now, due);
+            } finally {
+                seg.unlock();
+            }
+        }
+        for (Node<K, V> n : due) dropped(n, expirations);
+        return due.size();
+    }
+
+    private long now() {
+        return clock.getAsLong() - origin;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private void dropped(Node<K, V> n, LongAdder counter) {
+        counter.increment();
+        if (onDrop != null) onDrop.accept(n.key, n.value);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        long deadline; // nanos since origin; moved forward by hits
+        Node<K, V> lruPrev;
+        Node<K, V> lruNext;
+        Node<K, V> wheelPrev;
+        Node<K, V> wheelNext;
+        int slot;
+
+        Node(K key, V value, long deadline) {
+            this.key = key;
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Segment<K, V> extends ReentrantLock {
+        final int capacity;
+        final long tickNanos;
+        final HashMap<K, Node<K, V>> map = new HashMap<>();
+        final Node<K, V>[] wheel; // slot heads, null when empty
+        Node<K, V> lruHead; // least recently used
+        Node<K, V> lruTail; // most recently used
+        long turnedTo; // last tick the wheel was turned to
+        volatile int size; // map size, for lock-free reads
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment(int capacity, int slots, long tickNanos) {
+            this.capacity = capacity;
+            this.tickNanos = tickNanos;
+            this.wheel = new Node[slots];
+        }
+
+        /** Add {@code n} to the map as most recently used and schedule it by its deadline. */
+        void link(Node<K, V> n) {
+            map.put(n.key, n);
+            n.lruPrev = lruTail;
+            if (lruTail == null) lruHead = n;
+            else lruTail.lruNext = n;
+            lruTail = n;
+            schedule(n);
+            size = map.size();
+        }
+
+        /** Remove {@code n} from the map, the LRU list and the wheel. */
+        void unlink(Node<K, V> n) {
+            if (n.wheelPrev == null) wheel[n.slot] = n.wheelNext;
+            else n.wheelPrev.wheelNext = n.wheelNext;
+            if (n.wheelNext != null) n.wheelNext.wheelPrev = n.wheelPrev;
+            n.wheelPrev = n.wheelNext = null;
+            forget(n);
+        }
+
+        /** Remove {@code n} from the map and the LRU list (it is off the wheel already). */
+        private void forget(Node<K, V> n) {
+            map.remove(n.key);
+            if (n.lruPrev == null) lruHead = n.lruNext;
+            else n.lruPrev.lruNext = n.lruNext;
+            if (n.lruNext == null) lruTail = n.lruPrev;
+            else n.lruNext.lruPrev = n.lruPrev;
+            n.lruPrev = n.lruNext = null;
+            size = map.size();
+        }
+
+        /** Make {@code n} the most recently used; its wheel slot is fixed up lazily. */
+        void touch(Node<K, V> n) {
+            if (n == lruTail) return;
+            if (n.lruPrev == null) lruHead = n.lruNext;
+            else n.lruPrev.lruNext = n.lruNext;
+            n.lruNext.lruPrev = n.lruPrev;
+            n.lruPrev = lruTail;
+            n.lruNext = null;
+            lruTail.lruNext = n;
+            lruTail = n;
+        }
+
+        /** Put {@code n} in the slot of the tick after its deadline. */
+        private void schedule(Node<K, V> n) {
+            int slot = (int) ((n.deadline / tickNanos + 1) & (wheel.length - 1));
+            Node<K, V> head = wheel[slot];
+            n.slot = slot;
+            n.wheelPrev = null;
+            n.wheelNext = head;
+            if (head != null) head.wheelPrev = n;
+            wheel[slot] = n;
+        }
+
+        /**
+         * Visit the slots of ticks (turnedTo, nowTick], at most one full turn: collect the nodes
+         * that are due into {@code due} and move the ones a hit extended to their new slot.
+         */
+        void advance(long nowTick, long now, List<Node<K, V>> due) {
+            long from = Math.max(turnedTo + 1, nowTick - wheel.length + 1);
+            for (long t = from; t <= nowTick; t++) {
+                int slot = (int) (t & (wheel.length - 1));
+                Node<K, V> n = wheel[slot];
+                wheel[slot] = null; // detached: a rescheduled node may land here again
+                while (n != null) {
+                    Node<K, V> next = n.wheelNext;
+                    n.wheelPrev = n.wheelNext = null;
+                    if (n.deadline <= now) {
+                        forget(n);
+                        due.add(n);
+                    } else {
+                        schedule(n);
+                    }
+                    n = next;
+                }
+            }
+            turnedTo = Math.max(turnedTo, nowTick);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package deal.server;
+
+import deal.core.Engine;
+import deal.core.EngineMetrics;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.offer.OfferPolicy;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Live games by session id, parked in a {@link SessionStore}: a game nobody has touched for the
+ * idle TTL, or the least recently played one when the store is full, is dropped. Ids and seeds
+ * come from a {@link SecureRandom}: an id is the only credential a player has, and a predictable
+ * seed would give away the board. Configs are built once per case count and shared by every game
+ * of that size.
+ *
+ * <p>With a {@link SessionLog}, a game's deal is logged (and on disk) before its id is handed
+ * out, and dropping or removing it logs its end, so {@link #recover} brings back exactly the games
+ * that were live.
+ */
+final class Sessions {
+    static final int MIN_CASES = 2;
+    static final int MAX_CASES = 25;
+
+    private final SessionStore<String, Session> store;
+    private final GameConfig[] configs = new GameConfig[MAX_CASES + 1];
+    private final SecureRandom random = new SecureRandom();
+    private final OfferPolicy banker;
+    private final EngineMetrics metrics; // null: not measured
+    private final SessionLog log; // null: not persisted
+
+    Sessions(
+            OfferPolicy banker,
+            EngineMetrics metrics,
+            int maxSessions,
+            Duration idleTtl,
+            SessionLog log) {
+        this.banker = banker;
+        this.metrics = metrics;
+        this.log = log;
+        this.store =
+                new SessionStore<>(maxSessions, idleTtl, SessionStore.DEFAULT_TICK, this::dropped);
+        for (int n = MIN_CASES; n <= MAX_CASES; n++) configs[n] = GameConfig.of(n);
+    }
+
+    /** Deal a new game of {@code cases} cases under a fresh id. */
+    Session create(int cases) throws IOException {
+        if (cases < MIN_CASES || cases > MAX_CASES) {
+            throw new IllegalArgumentException(
+                    "cases must be in [" + MIN_CASES + ".." + MAX_CASES + "], got " + cases);
+        }
+        while (true) { // an id collision (64 random bits) only costs another deal
+            long seed = random.nextLong();
+            var engine = new Engine(configs[cases], seed, banker, metrics);
+            var session = new Session(random.nextLong(), seed, engine, engine.start(), log);
+            if (store.putIfAbsent(session.id(), session) != null) continue;
+            if (log != null) {
+                try {
+                    log.awaitDurable(log.begin(session.key(), cases, seed));
+                } catch (IOException | RuntimeException e) {
+                    store.remove(session.id()); // a game the log never saw must not be played
+                    throw e;
+                }
+            }
+            return session;
+        }
+    }
+
+    /** The game with this id, or null; counts as activity for the idle TTL. */
+    Session get(String id) {
+        return store.get(id);
+    }
+
+    /** Forget a game; returns false if there was none. */
+    boolean remove(String id) throws IOException {
+        Session s = store.remove(id);
+        if (s == null) return false;
+        if (log != null) log.awaitDurable(log.end(s.key()));
+        return true;
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    SessionStore<String, Session> store() {
+        return store;
+    }
+
+    /** Log the end of a game the store evicted or expired. */
+    private void dropped(String id, Session s) {
+        if (log == null) return;
+        try {
+            log.end(s.key());
+        } catch (IOException ignored) {
+            // a failed log is reported to the next deal or action
+        }
+    }
+
+    /**
+     * Replay logged games through the engine from their seeds, {@code threads} at a time, and put
+     * them back in the store; returns how many the engine rejected (those are skipped).
+     */
+    int recover(Collection<SessionLog.Game> games, int threads) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        List<SessionLog.Game> all = new ArrayList<>(games);
+        int slices = Math.min(all.size(), 4 * threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> parts = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                var slice = all.subList(i * all.size() / slices, (i + 1) * all.size() / slices);
+                parts.add(pool.submit(() -> recoverAll(slice)));
+            }
+            int rejected = 0;
+            for (Future<Integer> f : parts) rejected += f.get();
+            return rejected;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering sessions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Recovery failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int recoverAll(List<SessionLog.Game> games) {
+        int rejected = 0;
+        for (SessionLog.Game g : games) {
+            if (g.cases < MIN_CASES || g.cases > MAX_CASES) {
+                rejected++;
+                continue;
+            }
+            GameConfig cfg = configs[g.cases];
+            // Replayed unmeasured; the session's own engine (same seed) measures what comes next.
+            var replayer = new Engine(cfg, g.seed, banker);
+            GameState s = replayer.start();
+            try {
+                for (int i = 0; i < g.actions; i++) {
+                    s = Session.replay(replayer, s, g.codes[i], g.args[i]);
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                rejected++;
+                continue;
+            }
+            var engine = new Engine(cfg, g.seed, banker, metrics);
+            var session = new Session(g.session, g.seed, engine, s, log);
+            store.putIfAbsent(session.id(), session);
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,75 @@
+package deal.server;
+
+import deal.core.GameState;
+import deal.core.Phase;
+import java.util.Arrays;
+
+/**
+ * The player's view of a game as one compact JSON object. Only what the show reveals is sent:
+ * opened cases with their amounts and the remaining amounts in ascending order, never which
+ * unopened case holds what, until the game is over and the whole board is shown.
+ */
+final class StateJson {
+    private StateJson() {}
+
+    static String encode(String sessionId, GameState s) {
+        var out = new StringBuilder(256 + 24 * s.caseCount());
+        out.append("{\"id\":\"").append(sessionId).append('"');
+        out.append(",\"phase\":\"").append(s.phase()).append('"');
+        out.append(",\"round\":").append(s.roundIndex());
+        out.append(",\"cases\":").append(s.caseCount());
+        out.append(",\"playerCase\":").append(s.playerCaseId());
+        out.append(",\"toOpen\":").append(s.toOpenInThisRound());
+
+        out.append(",\"opened\":[");
+        boolean first = true;
+        for (int id = 1; id <= s.caseCount(); id++) {
+            if (!s.isOpened(id)) continue;
+            if (!first) out.append(',');
+            out.append("{\"case\":").append(id).append(",\"amount\":").append(s.amountOf(id));
+            out.append('}');
+            first = false;
+        }
+
+        int[] remaining = new int[s.remainingCount()];
+        for (int id = 1, i = 0; id <= s.caseCount(); id++) {
+            if (!s.isOpened(id)) remaining[i++] = s.amountOf(id);
+        }
+        Arrays.sort(remaining);
+        out.append("],\"remainingAmounts\":");
+        ints(remaining, out);
+        out.append(",\"ev\":").append(Math.round(s.remainingMean() * 100) / 100.0);
+
+        out.append(",\"offer\":").append(s.currentOfferDollars());
+        out.append(",\"counter\":").append(s.counterOfferDollars());
+        out.append(",\"result\":").append(s.resultDollars());
+        if (s.phase() == Phase.RESULT) {
+            int[] board = new int[s.caseCount()];
+            for (int id = 1; id <= board.length; id++) board[id - 1] = s.amountOf(id);
+            out.append(",\"board\":");
+            ints(board, out);
+        }
+        return out.append('}').toString();
+    }
+
+    /** {@code {"error":"..."}}, with the message escaped. */
+    static String error(String message) {
+        var out = new StringBuilder(32 + message.length()).append("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        return out.append("\"}").toString();
+    }
+
+    private static void ints(int[] values, StringBuilder out) {
+        out.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.append(',');
+            out.append(values[i]);
+        }
+        out.append(']');
+    }
+}
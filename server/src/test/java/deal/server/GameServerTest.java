@@ -0,0 +1,176 @@
+package deal.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.EngineMetrics;
+import deal.core.offer.LegacyOfferPolicy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    private GameServer server;
+    private EngineMetrics metrics;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws Exception {
+        metrics = new EngineMetrics();
+        server =
+                new GameServer(
+                                new InetSocketAddress("127.0.0.1", 0),
+                                64,
+                                4,
+                                LegacyOfferPolicy.DEFAULT,
+                                metrics)
+                        .start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    private HttpResponse<String> call(String method, String path) throws Exception {
+        var uri = URI.create("http://127.0.0.1:" + server.port() + path);
+        var req = HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody());
+        return client.send(req.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String field(String json, String name) {
+        Matcher m = Pattern.compile("\"" + name + "\":\"?([^\",}]*)").matcher(json);
+        if (!m.find()) throw new AssertionError("no " + name + " in " + json);
+        return m.group(1);
+    }
+
+    private String newGame(int cases) throws Exception {
+        return field(call("POST", "/games?cases=" + cases).body(), "id");
+    }
+
+    /** Pick case 1, open two cases a round, decline every offer, keep the case; the result. */
+    private int playToTheEnd(String id) throws Exception {
+        String game = "/games/" + id;
+        String s = call("POST", game + "/pick?case=1").body();
+        assertThat(field(s, "phase")).isEqualTo("ROUND");
+        int next = 2;
+        while (!field(s, "phase").equals("FINAL_REVEAL")) {
+            int left = Integer.parseInt(field(s, "cases")) - next + 1; // unopened, not counting #1
+            s = call("POST", game + "/choose?count=" + Math.min(2, left - 1)).body();
+            while (Integer.parseInt(field(s, "toOpen")) > 0) {
+                s = call("POST", game + "/open?case=" + next++).body();
+            }
+            s = call("POST", game + "/offer").body();
+            assertThat(field(s, "phase")).isEqualTo("OFFER");
+            assertThat(Integer.parseInt(field(s, "offer"))).isPositive();
+            assertThat(s).doesNotContain("\"board\"");
+            s = call("POST", game + "/decline").body();
+        }
+        s = call("POST", game + "/reveal?swap=false").body();
+        assertThat(field(s, "phase")).isEqualTo("RESULT");
+        assertThat(s).contains("\"board\":[");
+        return Integer.parseInt(field(s, "result"));
+    }
+
+    @Test
+    void plays_a_whole_game_over_http() throws Exception {
+        var created = call("POST", "/games?cases=10");
+        assertThat(created.statusCode()).isEqualTo(201);
+        assertThat(created.headers().firstValue("Content-Type").orElse("")).contains("json");
+        String id = field(created.body(), "id");
+        assertThat(id).hasSize(16);
+        assertThat(field(created.body(), "phase")).isEqualTo("PICK_CASE");
+
+        int result = playToTheEnd(id);
+        assertThat(result).isGreaterThanOrEqualTo(0);
+        var state = call("GET", "/games/" + id);
+        assertThat(state.statusCode()).isEqualTo(200);
+        assertThat(field(state.body(), "result")).isEqualTo(String.valueOf(result));
+
+        assertThat(metrics.gamesStarted()).isEqualTo(1);
+        assertThat(metrics.gamesFinished()).isEqualTo(1);
+        assertThat(call("GET", "/stats").body()).contains("sessions=1").contains("requests=");
+
+        assertThat(call("DELETE", "/games/" + id).statusCode()).isEqualTo(204);
+        assertThat(call("GET", "/games/" + id).statusCode()).isEqualTo(404);
+        assertThat(server.sessionCount()).isZero();
+    }
+
+    @Test
+    void maps_engine_rejections_to_http_statuses() throws Exception {
+        String id = newGame(5);
+        String game = "/games/" + id;
+
+        var wrongPhase = call("POST", game + "/accept");
+        assertThat(wrongPhase.statusCode()).isEqualTo(409);
+        assertThat(wrongPhase.body()).startsWith("{\"error\":");
+        assertThat(call("POST", game + "/pick?case=9").statusCode()).isEqualTo(400);
+        assertThat(call("POST", game + "/pick?case=x").statusCode()).isEqualTo(400);
+        assertThat(call("POST", game + "/pick").statusCode()).isEqualTo(400);
+        assertThat(call("POST", game + "/fly").statusCode()).isEqualTo(404);
+        assertThat(call("GET", game + "/pick?case=1").statusCode()).isEqualTo(405);
+        assertThat(call("GET", "/games").statusCode()).isEqualTo(405);
+        assertThat(call("POST", "/games?cases=26").statusCode()).isEqualTo(400);
+        assertThat(call("GET", "/games/0123456789abcdef").statusCode()).isEqualTo(404);
+
+        // A rejected action leaves the game where it was.
+        assertThat(field(call("GET", game).body(), "phase")).isEqualTo("PICK_CASE");
+        assertThat(call("POST", game + "/pick?case=3").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void serves_many_players_at_once() throws Exception {
+        int players = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int p = 0; p < players; p++) {
+                results.add(pool.submit(() -> playToTheEnd(newGame(12))));
+            }
+            for (Future<Integer> f : results) assertThat(f.get()).isGreaterThanOrEqualTo(0);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(server.sessionCount()).isEqualTo(players);
+        assertThat(metrics.gamesFinished()).isEqualTo(players);
+        assertThat(server.latency().count()).isGreaterThan(players * 10L);
+    }
+
+    @Test
+    void a_racing_action_on_the_same_game_loses() throws Exception {
+        var sessions =
+                new Sessions(LegacyOfferPolicy.DEFAULT, null, 10, Duration.ofMinutes(1), null);
+        Session session = sessions.create(6);
+        var e = session.engine();
+        session.apply(
+                s -> {
+                    assertThatThrownBy(() -> session.apply(SessionLogFormat.PICK, 2)) // loses
+                            .isInstanceOf(IllegalStateException.class);
+                    return e.pickPlayerCase(s, 1);
+                },
+                SessionLogFormat.PICK,
+                1);
+        assertThat(session.state().playerCaseId()).isEqualTo(1);
+    }
+
+    @Test
+    void parses_query_parameters() {
+        assertThat(GameServer.param("case=3&swap=true", "case")).isEqualTo("3");
+        assertThat(GameServer.param("case=3&swap=true", "swap")).isEqualTo("true");
+        assertThat(GameServer.param("showcase=3", "case")).isNull();
+        assertThat(GameServer.param("cases=3", "case")).isNull();
+        assertThat(GameServer.param(null, "case")).isNull();
+    }
+}
@@ -0,0 +1,215 @@
+package deal.server;
+
+import static deal.server.SessionLogFormat.*;
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.GameState;
+import deal.core.offer.LegacyOfferPolicy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionLogTest {
+    @TempDir Path dir;
+
+    private List<String> files() throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void folds_the_records_of_live_sessions() throws Exception {
+        try (var log = SessionLog.open(dir)) {
+            log.begin(1L, 5, 42L);
+            log.action(1L, PICK, 3);
+            log.begin(2L, 6, 7L);
+            log.action(2L, COUNTER, 300_000);
+            log.action(1L, CHOOSE, 2);
+            log.action(9L, OPEN, 1); // never began: ignored
+            log.awaitDurable(log.end(2L));
+        }
+        Map<Long, SessionLog.Game> live = SessionLog.read(dir, Long.MAX_VALUE, 2);
+
+        assertThat(live.keySet()).containsExactly(1L);
+        SessionLog.Game g = live.get(1L);
+        assertThat(g.cases).isEqualTo(5);
+        assertThat(g.seed).isEqualTo(42L);
+        assertThat(g.actions).isEqualTo(2);
+        assertThat((int) g.codes[0]).isEqualTo(PICK);
+        assertThat(g.args[0]).isEqualTo(3);
+        assertThat((int) g.codes[1]).isEqualTo(CHOOSE);
+        assertThat(g.args[1]).isEqualTo(2);
+    }
+
+    @Test
+    void stops_at_a_torn_record() throws Exception {
+        try (var log = SessionLog.open(dir)) {
+            log.begin(1L, 5, 42L);
+            log.action(1L, PICK, 3);
+            log.awaitDurable(log.action(1L, CHOOSE, 2));
+        }
+        Path segment = dir.resolve(files().get(0));
+        long size = Files.size(segment);
+        try (var ch = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(size - 3); // the crash came in the middle of the last record
+        }
+
+        SessionLog.Game g = SessionLog.read(dir, Long.MAX_VALUE, 1).get(1L);
+        assertThat(g.actions).isEqualTo(1);
+        assertThat((int) g.codes[0]).isEqualTo(PICK);
+    }
+
+    @Test
+    void concurrent_appenders_share_fsyncs() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (var log = SessionLog.open(dir)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long session = t;
+                done.add(
+                        pool.submit(
+                                () -> {
+                                    log.awaitDurable(log.begin(session, 25, session));
+                                    for (int i = 1; i < perThread; i++) {
+                                        log.awaitDurable(log.action(session, OPEN, i));
+                                    }
+                                    return null;
+                                }));
+            }
+            for (Future<?> f : done) f.get();
+            var st = log.stats();
+            assertThat(st.records()).isEqualTo((long) threads * perThread);
+            assertThat(st.commits()).isLessThan(st.records());
+            assertThat(st.recordsPerCommit()).isGreaterThan(1.0);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(SessionLog.read(dir, Long.MAX_VALUE, 2).get(3L).actions)
+                .isEqualTo(perThread - 1);
+    }
+
+    @Test
+    void a_snapshot_replaces_the_sealed_segments() throws Exception {
+        try (var log = SessionLog.open(dir)) {
+            for (long s = 1; s <= 50; s++) {
+                log.begin(s, 10, s);
+                log.action(s, PICK, 1);
+                if (s % 2 == 0) log.end(s);
+            }
+            log.snapshot(2);
+            log.action(1L, CHOOSE, 2); // into the segment after the snapshot
+            log.awaitDurable(log.begin(99L, 10, 99L));
+            log.snapshot(2);
+            assertThat(files())
+                    .containsExactly(
+                            "segment-0000000000000003.wal", "snapshot-0000000000000002.snap");
+        }
+        Map<Long, SessionLog.Game> live = SessionLog.read(dir, Long.MAX_VALUE, 2);
+        assertThat(live.size()).isEqualTo(26);
+        assertThat(live.get(1L).actions).isEqualTo(2);
+        assertThat(live.containsKey(2L)).isFalse();
+        assertThat(live.get(99L).actions).isZero();
+    }
+
+    @Test
+    void a_deal_the_log_refuses_is_not_kept() throws Exception {
+        var log = SessionLog.open(dir);
+        var banker = LegacyOfferPolicy.DEFAULT;
+        var sessions = new Sessions(banker, null, 10, Duration.ofMinutes(1), log);
+        log.close();
+        assertThatThrownBy(() -> sessions.create(5))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("closed");
+        assertThat(sessions.size()).isZero();
+    }
+
+    @Test
+    void a_move_the_log_refuses_is_not_published() throws Exception {
+        var log = SessionLog.open(dir);
+        var banker = LegacyOfferPolicy.DEFAULT;
+        Session session = new Sessions(banker, null, 10, Duration.ofMinutes(1), log).create(5);
+        GameState before = session.state();
+        log.close();
+        assertThatThrownBy(() -> session.apply(PICK, 1)).isInstanceOf(IOException.class);
+        assertThat(session.state()).isSameAs(before);
+        assertThat(session.state().playerCaseId()).isNull();
+    }
+
+    @Test
+    void a_server_that_cannot_bind_closes_its_log() throws Exception {
+        try (var taken = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            var address = new InetSocketAddress(taken.getInetAddress(), taken.getLocalPort());
+            assertThatThrownBy(
+                            () ->
+                                    new GameServer(
+                                            address,
+                                            16,
+                                            1,
+                                            LegacyOfferPolicy.DEFAULT,
+                                            null,
+                                            10,
+                                            Duration.ofMinutes(1),
+                                            dir))
+                    .isInstanceOf(IOException.class);
+        }
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            assertThat(t.getName()).isNotEqualTo("deal-session-log");
+        }
+    }
+
+    @Test
+    void recovers_games_where_they_were() throws Exception {
+        var banker = LegacyOfferPolicy.DEFAULT;
+        String id;
+        GameState before;
+        try (var log = SessionLog.open(dir)) {
+            var sessions = new Sessions(banker, null, 10, Duration.ofMinutes(1), log);
+            Session session = sessions.create(10);
+            id = session.id();
+            session.apply(PICK, 4);
+            session.apply(CHOOSE, 2);
+            session.apply(OPEN, 1);
+            session.apply(OPEN, 2);
+            before = session.apply(OFFER, 0);
+            sessions.remove(sessions.create(5).id()); // ended: not recovered
+        }
+
+        try (var log = SessionLog.open(dir)) {
+            var games = SessionLog.read(dir, log.segment() - 1, 2);
+            var sessions = new Sessions(banker, null, 10, Duration.ofMinutes(1), log);
+            assertThat(sessions.recover(games.values(), 2)).isZero();
+            assertThat(sessions.size()).isEqualTo(1);
+
+            GameState after = sessions.get(id).state();
+            assertThat(after.phase()).isEqualTo(before.phase());
+            assertThat(after.playerCaseId()).isEqualTo(4);
+            assertThat(after.openedCaseIds()).containsExactly(1, 2);
+            assertThat(after.currentOfferDollars()).isEqualTo(before.currentOfferDollars());
+            for (int c = 1; c <= 10; c++) {
+                assertThat(after.amountOf(c)).isEqualTo(before.amountOf(c));
+            }
+
+            // Play goes on, logged to the new segment.
+            sessions.get(id).apply(DECLINE, 0);
+        }
+        var game = SessionLog.read(dir, Long.MAX_VALUE, 1).get(Long.parseUnsignedLong(id, 16));
+        assertThat((int) game.codes[game.actions - 1]).isEqualTo(DECLINE);
+    }
+}
@@ -0,0 +1,134 @@
+package deal.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class SessionStoreTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+    private final List<String> dropped = new ArrayList<>();
+
+    /** One segment, so LRU order is global; 10 s TTL on a 1 s wheel. */
+    private SessionStore<String, String> store(int maxEntries) {
+        return new SessionStore<>(
+                maxEntries, 10 * SECOND, SECOND, 1, (k, v) -> dropped.add(k), clock::get);
+    }
+
+    private void advance(long nanos) {
+        clock.addAndGet(nanos);
+    }
+
+    @Test
+    void evicts_the_least_recently_used_when_full() {
+        var store = store(3);
+        store.putIfAbsent("a", "A");
+        store.putIfAbsent("b", "B");
+        store.putIfAbsent("c", "C");
+        assertThat(store.get("a")).isEqualTo("A"); // b is now the eldest
+        store.putIfAbsent("d", "D");
+
+        assertThat(dropped).containsExactly("b");
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get("b")).isNull();
+        assertThat(store.putIfAbsent("a", "other")).isEqualTo("A");
+        assertThat(store.remove("c")).isEqualTo("C");
+        assertThat(store.remove("c")).isNull();
+
+        var st = store.stats();
+        assertThat(st.hits()).isEqualTo(1);
+        assertThat(st.misses()).isEqualTo(1);
+        assertThat(st.evictions()).isEqualTo(1);
+        assertThat(st.expirations()).isZero();
+        assertThat(st.hitRate()).isEqualTo(0.5);
+        assertThat(dropped).containsExactly("b"); // remove() is not a drop
+    }
+
+    @Test
+    void expires_idle_entries_on_the_wheel_and_hits_extend_them() {
+        var store = store(100);
+        store.putIfAbsent("idle", "1");
+        store.putIfAbsent("busy", "2");
+        for (int s = 0; s < 25; s++) {
+            advance(SECOND);
+            assertThat(store.get("busy")).isEqualTo("2");
+            store.expire();
+        }
+        assertThat(dropped).containsExactly("idle");
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.stats().expirations()).isEqualTo(1);
+
+        advance(10 * SECOND);
+        assertThat(store.expire()).isEqualTo(1); // due: exactly 10 s idle
+        assertThat(dropped).containsExactly("idle", "busy");
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void never_returns_an_expired_entry_the_wheel_has_not_reached() {
+        var store = store(100);
+        store.putIfAbsent("k", "v");
+        advance(10 * SECOND + 1);
+        assertThat(store.get("k")).isNull();
+        assertThat(dropped).containsExactly("k");
+        assertThat(store.putIfAbsent("k", "w")).isNull();
+        store.putIfAbsent("gone", "x");
+
+        advance(3_600 * SECOND); // far more than a turn of the wheel without expire()
+        assertThat(store.remove("gone")).isNull();
+        assertThat(dropped).containsExactly("k", "gone");
+        assertThat(store.expire()).isEqualTo(1);
+        assertThat(store.size()).isZero();
+        assertThat(store.stats().expirations()).isEqualTo(3);
+    }
+
+    @Test
+    void rejects_bad_settings() {
+        assertThatThrownBy(() -> store(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SessionStore<>(10, SECOND, 2 * SECOND, 1, null, clock::get))
+                .isInstanceOf(IllegalArgumentException.class); // TTL shorter than a tick
+        assertThatThrownBy(() -> new SessionStore<>(10, SECOND, SECOND, 3, null, clock::get))
+                .isInstanceOf(IllegalArgumentException.class); // segments not a power of two
+        assertThatThrownBy(() -> store(10).putIfAbsent("k", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stays_within_its_cap_under_concurrent_use() throws Exception {
+        int cap = 1_000;
+        var store =
+                new SessionStore<Integer, Integer>(cap, 60 * SECOND, SECOND, 8, null, clock::get);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int base = t * 100_000;
+                done.add(
+                        pool.submit(
+                                () -> {
+                                    for (int i = 0; i < 20_000; i++) {
+                                        store.putIfAbsent(base + i, i);
+                                        store.get(base + i / 2);
+                                        if (i % 64 == 0) store.expire();
+                                    }
+                                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(store.size()).isLessThanOrEqualTo(cap);
+        assertThat(store.size()).isGreaterThan(cap / 2);
+        var st = store.stats();
+        assertThat(st.requests()).isEqualTo(8 * 20_000L);
+        assertThat(st.evictions()).isEqualTo(8 * 20_000L - store.size());
+    }
+}
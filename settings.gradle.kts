@@ -7,4 +7,4 @@
  */
 
 rootProject.name = "deal-or-no-deal"
-include("core", "cli", "analytics")
+include("core", "cli", "analytics", "simulation", "bench", "server")
@@ -0,0 +1,68 @@
+package deal.simulation;
+
+import deal.core.GameState;
+import java.util.SplittableRandom;
+
+/**
+ * Player SPI for simulations: every decision the interactive CLI asks a human for. Each call gets
+ * the game's own random stream, so a strategy that only draws from it stays reproducible at any
+ * thread count. Implementations must be stateless or thread-safe; one instance plays many games
+ * concurrently.
+ */
+public interface PlayerStrategy {
+
+    /** What to do with a banker offer. */
+    record Decision(Kind kind, int counterDollars) {
+        public enum Kind {
+            DEAL,
+            NO_DEAL,
+            COUNTER
+        }
+
+        private static final Decision DEAL = new Decision(Kind.DEAL, 0);
+        private static final Decision NO_DEAL = new Decision(Kind.NO_DEAL, 0);
+
+        public static Decision deal() {
+            return DEAL;
+        }
+
+        public static Decision noDeal() {
+            return NO_DEAL;
+        }
+
+        public static Decision counter(int dollars) {
+            if (dollars <= 0) throw new IllegalArgumentException("Counter must be positive");
+            return new Decision(Kind.COUNTER, dollars);
+        }
+    }
+
+    /** Short label used in reports. */
+    String name();
+
+    /** Pick the player's case during PICK_CASE. Default: uniformly random. */
+    default int pickCase(GameState s, SplittableRandom rng) {
+        return 1 + rng.nextInt(s.caseCount());
+    }
+
+    /** How many cases to open this round (K). Must be valid for {@code Engine.chooseToOpen}. */
+    int casesToOpen(GameState s, SplittableRandom rng);
+
+    /** Which case to open next. Default: uniformly random among unopened non-player cases. */
+    default int caseToOpen(GameState s, SplittableRandom rng) {
+        long candidates = s.openedMask();
+        if (s.playerCaseId() != null) candidates |= 1L << (s.playerCaseId() - 1);
+        int free = s.caseCount() - Long.bitCount(candidates);
+        int nth = rng.nextInt(free);
+        for (int id = 1; ; id++) {
+            if ((candidates & (1L << (id - 1))) == 0 && nth-- == 0) return id;
+        }
+    }
+
+    /** React to the banker offer held in {@code s.currentOfferDollars()}. */
+    Decision onOffer(GameState s, SplittableRandom rng);
+
+    /** At the final reveal: swap with the last unopened case? Default: keep. */
+    default boolean swap(GameState s, SplittableRandom rng) {
+        return false;
+    }
+}
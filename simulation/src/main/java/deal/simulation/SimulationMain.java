@@ -0,0 +1,114 @@
+package deal.simulation;
+
+import deal.core.EngineMetrics;
+import deal.core.GameConfig;
+import deal.core.OptimalPlaySolver;
+import deal.core.offer.CachingOfferPolicy;
+import deal.core.offer.LegacyOfferPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Batch simulator CLI: plays the reference {@link Strategies} (plus the exact optimum for ladders
+ * of up to 20 cases) over the same seeded deals and prints one summary line per strategy.
+ */
+public final class SimulationMain {
+
+    /** Above this the exact solver's table (with counters) gets too big to build on the side. */
+    private static final int OPTIMAL_MAX_CASES = 20;
+
+    public static void main(String[] args) {
+        int cases = 25;
+        int games = 100_000;
+        long seed = 42L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean withMetrics = false;
+        boolean perRound = false;
+        try {
+            for (String a : args) {
+                if (a.equals("--help") || a.equals("-h")) {
+                    System.out.println(usage());
+                    return;
+                } else if (a.startsWith("--cases=")) {
+                    cases = Integer.parseInt(a.substring("--cases=".length()));
+                } else if (a.startsWith("--games=")) {
+                    games = Integer.parseInt(a.substring("--games=".length()));
+                } else if (a.startsWith("--seed=")) {
+                    seed = Long.parseLong(a.substring("--seed=".length()));
+                } else if (a.startsWith("--threads=")) {
+                    threads = Integer.parseInt(a.substring("--threads=".length()));
+                } else if (a.equals("--metrics")) {
+                    withMetrics = true;
+                } else if (a.equals("--rounds")) {
+                    perRound = true;
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + a);
+                }
+            }
+            if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        } catch (IllegalArgumentException ex) { // includes NumberFormatException
+            System.err.println(ex.getMessage());
+            System.err.println();
+            System.err.println(usage());
+            System.exit(2);
+            return;
+        }
+
+        var cfg = GameConfig.of(cases);
+        List<PlayerStrategy> strategies = new ArrayList<>();
+        strategies.add(Strategies.noDeal());
+        strategies.add(Strategies.dealAtOfferRatio(0.9));
+        strategies.add(Strategies.dealAtOfferRatio(0.75));
+        strategies.add(Strategies.counterAtEv(1.0));
+        strategies.add(Strategies.random(0.2));
+        if (cases <= OPTIMAL_MAX_CASES) {
+            strategies.add(Strategies.optimal(OptimalPlaySolver.solve(cfg, true)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Late-game subsets recur constantly across games; one shared memo serves them all.
+            var banker = new CachingOfferPolicy(LegacyOfferPolicy.DEFAULT, 1 << 20);
+            EngineMetrics metrics = withMetrics ? new EngineMetrics() : null;
+            if (metrics != null) metrics.register("simulation");
+            var sim = new Simulator(cfg, pool, banker, metrics);
+            long t0 = System.nanoTime();
+            for (SimulationResult r : sim.runAll(strategies, games, seed)) {
+                System.out.println(r.summary());
+                if (perRound) System.out.print(r.roundSummary());
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            System.out.printf(
+                    "%d strategies x %d games, %d threads, %d ms%n",
+                    strategies.size(), games, threads, ms);
+            var st = banker.stats();
+            System.out.printf(
+                    Locale.US,
+                    "offer cache: %d hits, %d misses, %d evictions (hit rate %.1f%%)%n",
+                    st.hits(),
+                    st.misses(),
+                    st.evictions(),
+                    100.0 * st.hitRate());
+            if (metrics != null) System.out.print(metrics.snapshot());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static String usage() {
+        return String.join(
+                System.lineSeparator(),
+                "Deal or No Deal Monte Carlo simulator",
+                "Usage:",
+                "  --cases=<N>      Number of briefcases (default: 25).",
+                "  --games=<N>      Games per strategy (default: 100000).",
+                "  --seed=<long>    Base seed; results are identical at any thread count (default:"
+                        + " 42).",
+                "  --threads=<N>    Fork/join parallelism (default: available processors).",
+                "  --metrics        Measure the engines (also over JMX) and print a report.",
+                "  --rounds         Also print offer and offer/EV percentiles per round.",
+                "  --help | -h      Show this help.");
+    }
+}
@@ -0,0 +1,264 @@
+package deal.simulation;
+
+import deal.analytics.QuantileSketch;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/** Aggregates of one strategy over a simulated batch. Immutable. */
+public final class SimulationResult {
+
+    /** Moments plus quantiles of one measured quantity. */
+    public static final class Distribution {
+        private final long count;
+        private final double mean;
+        private final double variance;
+        private final double min;
+        private final double max;
+        private final QuantileSketch sketch; // sketched quantiles, or null
+        private final long[] histogram; // bucketed quantiles, or null
+        private final double bucketWidth;
+
+        private Distribution(
+                Tally.Moments m, QuantileSketch sketch, long[] histogram, double bucketWidth) {
+            this.count = m.count;
+            this.mean = m.count == 0 ? 0.0 : m.mean;
+            this.variance = m.variance();
+            this.min = m.count == 0 ? 0.0 : m.min;
+            this.max = m.count == 0 ? 0.0 : m.max;
+            this.sketch = sketch;
+            this.histogram = histogram;
+            this.bucketWidth = bucketWidth;
+        }
+
+        static Distribution sketched(Tally.Moments m, QuantileSketch sketch) {
+            return new Distribution(m, sketch.copy(), null, 0.0);
+        }
+
+        static Distribution bucketed(Tally.Moments m, long[] histogram, double bucketWidth) {
+            return new Distribution(m, null, histogram.clone(), bucketWidth);
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double mean() {
+            return mean;
+        }
+
+        public double variance() {
+            return variance;
+        }
+
+        public double stddev() {
+            return Math.sqrt(variance);
+        }
+
+        public double min() {
+            return min;
+        }
+
+        public double max() {
+            return max;
+        }
+
+        /**
+         * Nearest-rank quantile, q in [0, 1]; 0.0 when empty. Sketched distributions (winnings)
+         * are within {@link QuantileSketch#DEFAULT_ALPHA} of the true value.
+         */
+        public double quantile(double q) {
+            if (q < 0.0 || q > 1.0) throw new IllegalArgumentException("q must be in [0,1]: " + q);
+            if (count == 0) return 0.0;
+            if (sketch != null) return sketch.quantile(q);
+            long rank = Math.max(1, (long) Math.ceil(q * count)); // 1-based
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank) return i * bucketWidth;
+            }
+            return (histogram.length - 1) * bucketWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Distribution d
+                    && count == d.count
+                    && Double.compare(mean, d.mean) == 0
+                    && Double.compare(variance, d.variance) == 0
+                    && Double.compare(min, d.min) == 0
+                    && Double.compare(max, d.max) == 0
+                    && Objects.equals(sketch, d.sketch)
+                    && Arrays.equals(histogram, d.histogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(count) * 31 + Double.hashCode(mean);
+        }
+    }
+
+    private final String strategy;
+    private final long games;
+    private final long deals;
+    private final long countersAccepted;
+    private final long finalReveals;
+    private final Distribution winnings;
+    private final Distribution dealRound;
+    private final Distribution offerToEv;
+    private final QuantileSketch[] offersByRound; // index = round, null if no offer
+    private final QuantileSketch[] offerToEvByRound;
+
+    SimulationResult(String strategy, Tally t) {
+        this.strategy = strategy;
+        this.games = t.games;
+        this.deals = t.deals;
+        this.countersAccepted = t.countersAccepted;
+        this.finalReveals = t.finalReveals;
+        this.winnings = Distribution.sketched(t.winnings, t.winningsSketch);
+        this.dealRound = Distribution.bucketed(t.dealRound, t.dealRoundHistogram, 1.0);
+        this.offerToEv =
+                Distribution.bucketed(t.offerToEv, t.offerToEvHistogram, Tally.RATIO_BUCKET);
+        this.offersByRound = copies(t.offersByRound);
+        this.offerToEvByRound = copies(t.offerToEvByRound);
+    }
+
+    private static QuantileSketch[] copies(QuantileSketch[] byRound) {
+        QuantileSketch[] out = new QuantileSketch[byRound.length];
+        for (int r = 0; r < out.length; r++) if (byRound[r] != null) out[r] = byRound[r].copy();
+        return out;
+    }
+
+    public String strategy() {
+        return strategy;
+    }
+
+    public long games() {
+        return games;
+    }
+
+    /** Games ended by accepting a banker offer. */
+    public long deals() {
+        return deals;
+    }
+
+    /** Games ended by a counteroffer the banker accepted. */
+    public long countersAccepted() {
+        return countersAccepted;
+    }
+
+    /** Games played to the final reveal. */
+    public long finalReveals() {
+        return finalReveals;
+    }
+
+    /** Final winnings in dollars, over all games. */
+    public Distribution winnings() {
+        return winnings;
+    }
+
+    /** Round in which the game was settled, over games ended by a deal or accepted counter. */
+    public Distribution dealRound() {
+        return dealRound;
+    }
+
+    /** Banker offer divided by the naive EV (mean of remaining), over every offer made. */
+    public Distribution offerToEv() {
+        return offerToEv;
+    }
+
+    /** Highest round in which an offer was made; 0 if none was. */
+    public int maxRound() {
+        return Math.max(0, offersByRound.length - 1);
+    }
+
+    /** Banker offers in dollars made in {@code round} (a copy; empty if there were none). */
+    public QuantileSketch offers(int round) {
+        return copyOf(offersByRound, round);
+    }
+
+    /** Offer/EV ratios of {@code round}'s offers (a copy; empty if there were none). */
+    public QuantileSketch offerToEv(int round) {
+        return copyOf(offerToEvByRound, round);
+    }
+
+    private static QuantileSketch copyOf(QuantileSketch[] byRound, int round) {
+        if (round < 0 || round >= byRound.length || byRound[round] == null) {
+            return new QuantileSketch();
+        }
+        return byRound[round].copy();
+    }
+
+    /** One line per round with offers: offer and offer/EV p50/p90/p99. */
+    public String roundSummary() {
+        var sb = new StringBuilder();
+        for (int r = 0; r < offersByRound.length; r++) {
+            QuantileSketch o = offersByRound[r];
+            if (o == null) continue;
+            QuantileSketch ratio = offerToEv(r);
+            sb.append(
+                    String.format(
+                            Locale.US,
+                            "  round %2d: offers=%d p50=%.0f p90=%.0f p99=%.0f | offer/EV"
+                                    + " p50=%.3f p90=%.3f p99=%.3f%n",
+                            r,
+                            o.count(),
+                            o.quantile(0.50),
+                            o.quantile(0.90),
+                            o.quantile(0.99),
+                            ratio.quantile(0.50),
+                            ratio.quantile(0.90),
+                            ratio.quantile(0.99)));
+        }
+        return sb.toString();
+    }
+
+    /** One-line human summary. */
+    public String summary() {
+        return String.format(
+                Locale.US,
+                "%-18s games=%d deal=%d counter=%d reveal=%d | win mean=%.0f sd=%.0f p50=%.0f"
+                        + " p90=%.0f p99=%.0f | dealRound mean=%.2f p50=%.0f | offer/EV"
+                        + " mean=%.3f p50=%.3f p90=%.3f",
+                strategy,
+                games,
+                deals,
+                countersAccepted,
+                finalReveals,
+                winnings.mean(),
+                winnings.stddev(),
+                winnings.quantile(0.50),
+                winnings.quantile(0.90),
+                winnings.quantile(0.99),
+                dealRound.mean(),
+                dealRound.quantile(0.50),
+                offerToEv.mean(),
+                offerToEv.quantile(0.50),
+                offerToEv.quantile(0.90));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SimulationResult r
+                && strategy.equals(r.strategy)
+                && games == r.games
+                && deals == r.deals
+                && countersAccepted == r.countersAccepted
+                && finalReveals == r.finalReveals
+                && winnings.equals(r.winnings)
+                && dealRound.equals(r.dealRound)
+                && offerToEv.equals(r.offerToEv)
+                && Arrays.equals(offersByRound, r.offersByRound)
+                && Arrays.equals(offerToEvByRound, r.offerToEvByRound);
+    }
+
+    @Override
+    public int hashCode() {
+        return strategy.hashCode() * 31 + Long.hashCode(games);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
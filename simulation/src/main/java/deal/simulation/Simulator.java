@@ -0,0 +1,181 @@
+package deal.simulation;
+
+import deal.core.Engine;
+import deal.core.EngineMetrics;
+import deal.core.GameConfig;
+import deal.core.GameState;
+import deal.core.Phase;
+import deal.core.offer.LegacyOfferPolicy;
+import deal.core.offer.OfferPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo driver: plays many independent games per strategy on a fork/join pool.
+ *
+ * <p>Game {@code i} of a run draws all of its randomness (the engine's deal and every strategy
+ * choice) from a stream derived only from {@code (seed, i)}, and the batch is split into fixed-size
+ * leaves merged in a fixed tree order. Results are therefore bit-for-bit identical for a given
+ * seed regardless of the pool's parallelism.
+ */
+public final class Simulator {
+    /** Games per fork/join leaf; fixed so the merge tree does not depend on the pool. */
+    static final int LEAF_GAMES = 1_024;
+
+    private static final int MAX_GAMES = Integer.MAX_VALUE - 8;
+
+    private final GameConfig cfg;
+    private final ForkJoinPool pool;
+    private final OfferPolicy offerPolicy;
+    private final EngineMetrics metrics;
+
+    /** Simulator on the common pool. */
+    public Simulator(GameConfig cfg) {
+        this(cfg, ForkJoinPool.commonPool());
+    }
+
+    public Simulator(GameConfig cfg, ForkJoinPool pool) {
+        this(cfg, pool, LegacyOfferPolicy.DEFAULT);
+    }
+
+    /**
+     * Simulator whose engines all use {@code offerPolicy}; it is called from every pool thread at
+     * once (a {@link deal.core.offer.CachingOfferPolicy} is a good fit).
+     */
+    public Simulator(GameConfig cfg, ForkJoinPool pool, OfferPolicy offerPolicy) {
+        this(cfg, pool, offerPolicy, null);
+    }
+
+    /** As above, with every engine reporting into {@code metrics} ({@code null}: none). */
+    public Simulator(
+            GameConfig cfg, ForkJoinPool pool, OfferPolicy offerPolicy, EngineMetrics metrics) {
+        if (cfg == null) throw new IllegalArgumentException("cfg must not be null");
+        if (pool == null) throw new IllegalArgumentException("pool must not be null");
+        if (offerPolicy == null) throw new IllegalArgumentException("offerPolicy must not be null");
+        this.cfg = cfg;
+        this.pool = pool;
+        this.offerPolicy = offerPolicy;
+        this.metrics = metrics;
+    }
+
+    /** Play {@code games} games with {@code strategy}; game {@code i} is seeded from (seed, i). */
+    public SimulationResult run(PlayerStrategy strategy, int games, long seed) {
+        if (strategy == null) throw new IllegalArgumentException("strategy must not be null");
+        if (games < 1 || games > MAX_GAMES) {
+            throw new IllegalArgumentException("games must be in [1.." + MAX_GAMES + "]: " + games);
+        }
+        Tally t = pool.invoke(new Batch(cfg, offerPolicy, metrics, strategy, seed, 0, games));
+        return new SimulationResult(strategy.name(), t);
+    }
+
+    /**
+     * Run each strategy over the same {@code games} seeds, so strategies are compared on identical
+     * deals (common random numbers).
+     */
+    public List<SimulationResult> runAll(List<PlayerStrategy> strategies, int games, long seed) {
+        List<SimulationResult> out = new ArrayList<>(strategies.size());
+        for (PlayerStrategy st : strategies) out.add(run(st, games, seed));
+        return List.copyOf(out);
+    }
+
+    /** SplitMix64 finalizer over (seed, gameIndex): independent per-game streams. */
+    static long gameSeed(long seed, long gameIndex) {
+        long z = seed + (gameIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Play one game to RESULT, recording into {@code t}. */
+    static void playOne(
+            GameConfig cfg,
+            OfferPolicy policy,
+            EngineMetrics metrics,
+            PlayerStrategy strategy,
+            long gameSeed,
+            Tally t) {
+        var rng = new SplittableRandom(gameSeed);
+        var engine = new Engine(cfg, rng.nextLong(), policy, metrics);
+        GameState s = engine.start();
+        s = engine.pickPlayerCase(s, strategy.pickCase(s, rng));
+
+        while (true) {
+            if (s.phase() == Phase.FINAL_REVEAL) {
+                s = engine.revealFinal(s, strategy.swap(s, rng));
+                t.revealed(s.resultDollars());
+                return;
+            }
+
+            s = engine.chooseToOpen(s, strategy.casesToOpen(s, rng));
+            while (s.toOpenInThisRound() > 0) s = engine.openCase(s, strategy.caseToOpen(s, rng));
+            s = engine.computeOffer(s);
+            t.offer(s.roundIndex(), s.currentOfferDollars(), s.remainingMean());
+
+            PlayerStrategy.Decision d = strategy.onOffer(s, rng);
+            switch (d.kind()) {
+                case DEAL -> {
+                    int round = s.roundIndex();
+                    s = engine.acceptDeal(s);
+                    t.dealt(round, s.resultDollars(), false);
+                    return;
+                }
+                case COUNTER -> {
+                    int round = s.roundIndex();
+                    s = engine.resolveCounter(engine.proposeCounter(s, d.counterDollars()));
+                    if (s.phase() == Phase.RESULT) {
+                        t.dealt(round, s.resultDollars(), true);
+                        return;
+                    }
+                }
+                case NO_DEAL -> s = engine.declineDeal(s);
+            }
+        }
+    }
+
+    private static final class Batch extends RecursiveTask<Tally> {
+        private final GameConfig cfg;
+        private final OfferPolicy policy;
+        private final EngineMetrics metrics;
+        private final PlayerStrategy strategy;
+        private final long seed;
+        private final int from; // inclusive game index
+        private final int to; // exclusive
+
+        Batch(
+                GameConfig cfg,
+                OfferPolicy policy,
+                EngineMetrics metrics,
+                PlayerStrategy strategy,
+                long seed,
+                int from,
+                int to) {
+            this.cfg = cfg;
+            this.policy = policy;
+            this.metrics = metrics;
+            this.strategy = strategy;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= LEAF_GAMES) {
+                Tally t = new Tally();
+                for (int i = from; i < to; i++) {
+                    playOne(cfg, policy, metrics, strategy, gameSeed(seed, i), t);
+                }
+                return t;
+            }
+            int mid = (from + to) >>> 1;
+            Batch left = new Batch(cfg, policy, metrics, strategy, seed, from, mid);
+            Batch right = new Batch(cfg, policy, metrics, strategy, seed, mid, to);
+            left.fork();
+            Tally r = right.compute();
+            return left.join().merge(r); // always left-then-right: merge order is fixed
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package deal.simulation;
+
+import deal.core.GameState;
+import deal.core.OptimalPlaySolver;
+import deal.simulation.PlayerStrategy.Decision;
+import java.util.SplittableRandom;
+
+/** A few reference strategies to benchmark policies against. All open one case per round. */
+public final class Strategies {
+    private Strategies() {}
+
+    /** Never deals; plays to the final reveal and keeps the original case. */
+    public static PlayerStrategy noDeal() {
+        return new OneCasePerRound("no-deal") {
+            @Override
+            public Decision onOffer(GameState s, SplittableRandom rng) {
+                return Decision.noDeal();
+            }
+        };
+    }
+
+    /** Deals as soon as the offer reaches {@code ratio} of the naive EV (mean of remaining). */
+    public static PlayerStrategy dealAtOfferRatio(double ratio) {
+        return new OneCasePerRound("deal-at-" + ratio) {
+            @Override
+            public Decision onOffer(GameState s, SplittableRandom rng) {
+                double ev = s.remainingMean();
+                return s.currentOfferDollars() >= ratio * ev ? Decision.deal() : Decision.noDeal();
+            }
+        };
+    }
+
+    /** Always counters at {@code fraction} of the naive EV; the banker decides. */
+    public static PlayerStrategy counterAtEv(double fraction) {
+        return new OneCasePerRound("counter-at-" + fraction) {
+            @Override
+            public Decision onOffer(GameState s, SplittableRandom rng) {
+                int counter = (int) Math.max(1, Math.round(s.remainingMean() * fraction));
+                return Decision.counter(counter);
+            }
+        };
+    }
+
+    /**
+     * Plays the exact optimum from {@code solver}: takes the better of the offer and the safest
+     * accepted counter whenever it beats playing on. Counters only if the solver models them.
+     */
+    public static PlayerStrategy optimal(OptimalPlaySolver solver) {
+        return new OneCasePerRound(solver.modelsCounters() ? "optimal" : "optimal-no-counter") {
+            @Override
+            public Decision onOffer(GameState s, SplittableRandom rng) {
+                int offer = s.currentOfferDollars();
+                int counter = solver.modelsCounters() ? solver.bestCounter(s) : offer;
+                if (Math.max(offer, counter) < solver.noDealValue(s)) return Decision.noDeal();
+                return counter > offer ? Decision.counter(counter) : Decision.deal();
+            }
+        };
+    }
+
+    /** Random K, deals with probability {@code dealProbability}, swaps on a coin flip. */
+    public static PlayerStrategy random(double dealProbability) {
+        return new PlayerStrategy() {
+            @Override
+            public String name() {
+                return "random-" + dealProbability;
+            }
+
+            @Override
+            public int casesToOpen(GameState s, SplittableRandom rng) {
+                int available = s.remainingCount() - 1; // excluding the player's case
+                return 1 + rng.nextInt(Math.max(1, available - 1));
+            }
+
+            @Override
+            public Decision onOffer(GameState s, SplittableRandom rng) {
+                return rng.nextDouble() < dealProbability ? Decision.deal() : Decision.noDeal();
+            }
+
+            @Override
+            public boolean swap(GameState s, SplittableRandom rng) {
+                return rng.nextBoolean();
+            }
+        };
+    }
+
+    private abstract static class OneCasePerRound implements PlayerStrategy {
+        private final String name;
+
+        OneCasePerRound(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public int casesToOpen(GameState s, SplittableRandom rng) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package deal.simulation;
+
+import deal.analytics.QuantileSketch;
+import java.util.Arrays;
+
+/**
+ * Mutable per-task accumulator; one per fork/join leaf, merged pairwise up the task tree. Memory
+ * is fixed per round: distributions are histograms and {@link QuantileSketch}es, not samples.
+ */
+final class Tally {
+    static final double RATIO_BUCKET = 0.001; // offer/EV histogram resolution
+    static final int RATIO_BUCKETS = 2_001; // [0, 2.0]; larger ratios land in the last bucket
+
+    long games;
+    long deals; // accepted banker offers
+    long countersAccepted;
+    long finalReveals;
+
+    final Moments winnings = new Moments();
+    final QuantileSketch winningsSketch = new QuantileSketch();
+    final Moments dealRound = new Moments(); // round of deal or accepted counter
+    long[] dealRoundHistogram = new long[16]; // index = round
+    final Moments offerToEv = new Moments();
+    final long[] offerToEvHistogram = new long[RATIO_BUCKETS];
+    QuantileSketch[] offersByRound = new QuantileSketch[0]; // index = round, null if none
+    QuantileSketch[] offerToEvByRound = new QuantileSketch[0];
+
+    void offer(int round, int offerDollars, double ev) {
+        offersByRound = fit(offersByRound, round);
+        sketch(offersByRound, round).add(Math.max(0, offerDollars));
+        if (ev <= 0.0) return;
+        double ratio = offerDollars / ev;
+        offerToEv.add(ratio);
+        int bucket = (int) Math.min(RATIO_BUCKETS - 1, Math.round(ratio / RATIO_BUCKET));
+        offerToEvHistogram[Math.max(0, bucket)]++;
+        offerToEvByRound = fit(offerToEvByRound, round);
+        sketch(offerToEvByRound, round).add(Math.max(0.0, ratio));
+    }
+
+    void dealt(int round, int dollars, boolean viaCounter) {
+        if (viaCounter) countersAccepted++;
+        else deals++;
+        dealRound.add(round);
+        if (round >= dealRoundHistogram.length) {
+            dealRoundHistogram = Arrays.copyOf(dealRoundHistogram, round + 1);
+        }
+        dealRoundHistogram[round]++;
+        finished(dollars);
+    }
+
+    void revealed(int dollars) {
+        finalReveals++;
+        finished(dollars);
+    }
+
+    private void finished(int dollars) {
+        games++;
+        winnings.add(dollars);
+        winningsSketch.add(Math.max(0, dollars));
+    }
+
+    /** Fold {@code o} into this tally (o is left untouched). */
+    Tally merge(Tally o) {
+        games += o.games;
+        deals += o.deals;
+        countersAccepted += o.countersAccepted;
+        finalReveals += o.finalReveals;
+        winnings.merge(o.winnings);
+        winningsSketch.merge(o.winningsSketch);
+        dealRound.merge(o.dealRound);
+        if (o.dealRoundHistogram.length > dealRoundHistogram.length) {
+            dealRoundHistogram = Arrays.copyOf(dealRoundHistogram, o.dealRoundHistogram.length);
+        }
+        for (int r = 0; r < o.dealRoundHistogram.length; r++) {
+            dealRoundHistogram[r] += o.dealRoundHistogram[r];
+        }
+        offerToEv.merge(o.offerToEv);
+        for (int i = 0; i < RATIO_BUCKETS; i++) offerToEvHistogram[i] += o.offerToEvHistogram[i];
+        offersByRound = mergeByRound(offersByRound, o.offersByRound);
+        offerToEvByRound = mergeByRound(offerToEvByRound, o.offerToEvByRound);
+        return this;
+    }
+
+    private static QuantileSketch[] fit(QuantileSketch[] byRound, int round) {
+        return round < byRound.length ? byRound : Arrays.copyOf(byRound, round + 1);
+    }
+
+    private static QuantileSketch sketch(QuantileSketch[] byRound, int round) {
+        QuantileSketch q = byRound[round];
+        if (q == null) byRound[round] = q = new QuantileSketch();
+        return q;
+    }
+
+    private static QuantileSketch[] mergeByRound(QuantileSketch[] into, QuantileSketch[] from) {
+        into = from.length == 0 ? into : fit(into, from.length - 1);
+        for (int r = 0; r < from.length; r++) {
+            if (from[r] != null) sketch(into, r).merge(from[r]);
+        }
+        return into;
+    }
+
+    /** Streaming count/mean/M2 (Welford), mergeable with Chan's parallel formula. */
+    static final class Moments {
+        long count;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        void add(double x) {
+            count++;
+            double d = x - mean;
+            mean += d / count;
+            m2 += d * (x - mean);
+            min = Math.min(min, x);
+            max = Math.max(max, x);
+        }
+
+        void merge(Moments o) {
+            if (o.count == 0) return;
+            if (count == 0) {
+                count = o.count;
+                mean = o.mean;
+                m2 = o.m2;
+                min = o.min;
+                max = o.max;
+                return;
+            }
+            long n = count + o.count;
+            double d = o.mean - mean;
+            mean += d * o.count / n;
+            m2 += o.m2 + d * d * ((double) count * o.count / n);
+            count = n;
+            min = Math.min(min, o.min);
+            max = Math.max(max, o.max);
+        }
+
+        double variance() {
+            return count == 0 ? 0.0 : m2 / count;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package deal.simulation;
+
+import static org.assertj.core.api.Assertions.*;
+
+import deal.core.Engine;
+import deal.core.GameConfig;
+import deal.core.OptimalPlaySolver;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class SimulatorTest {
+
+    private static final int GAMES = 3 * Simulator.LEAF_GAMES + 17; // several uneven leaves
+
+    @Test
+    void results_do_not_depend_on_thread_count() {
+        var cfg = GameConfig.of(10);
+        var strategies = List.of(Strategies.random(0.3), Strategies.counterAtEv(1.0));
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            var a = new Simulator(cfg, one).runAll(strategies, GAMES, 7L);
+            var b = new Simulator(cfg, four).runAll(strategies, GAMES, 7L);
+            assertThat(a).isEqualTo(b);
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    void no_deal_strategy_always_reaches_final_reveal() {
+        var cfg = GameConfig.of(10);
+        var r = new Simulator(cfg).run(Strategies.noDeal(), GAMES, 1L);
+
+        assertThat(r.games()).isEqualTo((long) GAMES);
+        assertThat(r.finalReveals()).isEqualTo((long) GAMES);
+        assertThat(r.deals()).isZero();
+        assertThat(r.dealRound().count()).isZero();
+        // every result is one of the ladder's amounts ($1..$400 for 10 cases)
+        assertThat(r.winnings().min()).isGreaterThanOrEqualTo(1.0);
+        assertThat(r.winnings().max())
+                .isLessThanOrEqualTo((double) Collections.max(cfg.amountsDollars()));
+        assertThat(r.winnings().quantile(0.5)).isBetween(r.winnings().min(), r.winnings().max());
+        // 8 offers per game (10 cases, one per round, down to 2)
+        assertThat(r.offerToEv().count()).isEqualTo(8L * GAMES);
+        assertThat(r.maxRound()).isEqualTo(8);
+        assertThat(r.offers(1).count()).isEqualTo((long) GAMES);
+        assertThat(r.offers(9).count()).isZero();
+        assertThat(r.offerToEv(8).quantile(0.5))
+                .isGreaterThan(r.offerToEv(1).quantile(0.5)); // the banker warms up
+        assertThat(r.roundSummary()).contains("round  8: offers=" + GAMES);
+    }
+
+    @Test
+    void deal_outcomes_are_counted_with_their_round() {
+        var r = new Simulator(GameConfig.of(10)).run(Strategies.dealAtOfferRatio(0.0), 500, 3L);
+
+        assertThat(r.deals()).isEqualTo(500L);
+        assertThat(r.dealRound().min()).isEqualTo(1.0);
+        assertThat(r.dealRound().max()).isEqualTo(1.0);
+        assertThat(r.offerToEv().mean()).isGreaterThan(0.0);
+    }
+
+    @Test
+    void optimal_strategy_earns_the_solver_value() {
+        var cfg = GameConfig.of(10);
+        var solver = OptimalPlaySolver.solve(cfg, true);
+        double expected = solver.value(new Engine(cfg, 0L).start());
+
+        var optimal = new Simulator(cfg).run(Strategies.optimal(solver), 20_000, 9L);
+        var noDeal = new Simulator(cfg).run(Strategies.noDeal(), 20_000, 9L);
+
+        assertThat(optimal.winnings().mean()).isCloseTo(expected, within(expected * 0.03));
+        assertThat(optimal.winnings().mean()).isGreaterThan(noDeal.winnings().mean());
+    }
+
+    @Test
+    void game_seeds_are_distinct_and_stable() {
+        assertThat(Simulator.gameSeed(42L, 0)).isEqualTo(Simulator.gameSeed(42L, 0));
+        assertThat(Simulator.gameSeed(42L, 0)).isNotEqualTo(Simulator.gameSeed(42L, 1));
+        assertThat(Simulator.gameSeed(42L, 1)).isNotEqualTo(Simulator.gameSeed(43L, 1));
+    }
+
+    @Test
+    void rejects_bad_arguments() {
+        var sim = new Simulator(GameConfig.of(5));
+        assertThatThrownBy(() -> sim.run(Strategies.noDeal(), 0, 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sim.run(null, 10, 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}